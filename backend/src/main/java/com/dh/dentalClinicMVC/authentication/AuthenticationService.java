@@ -7,6 +7,7 @@ import com.dh.dentalClinicMVC.repository.IAddressRepository;
 import com.dh.dentalClinicMVC.repository.IDentistRepository;
 import com.dh.dentalClinicMVC.repository.IPatientRepository;
 import com.dh.dentalClinicMVC.repository.IUserRepository;
+import com.dh.dentalClinicMVC.service.impl.DashboardDataVersion;
 import java.time.LocalDate;
 import java.util.regex.Pattern;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +29,7 @@ public class AuthenticationService {
   private final PasswordEncoder passwordEncoder;
   private final JwtService jwtService;
   private final AuthenticationManager authenticationManager;
+  private final DashboardDataVersion dashboardDataVersion;
 
   private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]\\$.*");
   private static final Logger log = LoggerFactory.getLogger(AuthenticationService.class);
@@ -61,6 +63,7 @@ public class AuthenticationService {
       default:
         throw new IllegalArgumentException("Rol no válido: " + requested);
     }
+    dashboardDataVersion.changed();
 
     // Generar token JWT
     var jwtToken = jwtService.generateToken(savedUser);
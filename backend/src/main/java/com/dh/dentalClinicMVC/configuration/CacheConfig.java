@@ -1,22 +1,80 @@
 package com.dh.dentalClinicMVC.configuration;
 
+import com.dh.dentalClinicMVC.service.impl.DashboardSnapshotKey;
+import com.dh.dentalClinicMVC.service.impl.DashboardSnapshotService;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.List;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * Cache de snapshots del dashboard. Con {@code app.dashboard.cache.refresh-ahead} (por defecto) una
+ * entrada con más de {@code soft-ttl-seconds} se sigue sirviendo mientras se recalcula en segundo
+ * plano, y {@code hard-ttl-seconds} acota cuánto puede llegar a estar desactualizada; las
+ * escrituras de turnos también la recalculan en lugar de sacarla. Sin refresh-ahead las entradas
+ * vencen a los {@code soft-ttl-seconds} y las escrituras las invalidan.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
   @Bean
-  public CacheManager cacheManager() {
-    CaffeineCacheManager cacheManager = new CaffeineCacheManager("dashboardSnapshot");
-    cacheManager.setCaffeine(
-        Caffeine.newBuilder().expireAfterWrite(45, TimeUnit.SECONDS).maximumSize(500));
+  public CacheManager cacheManager(
+      ObjectProvider<DashboardSnapshotService> snapshotService,
+      @Value("${app.dashboard.cache.refresh-ahead:true}") boolean refreshAhead,
+      @Value("${app.dashboard.cache.soft-ttl-seconds:45}") long softTtlSeconds,
+      @Value("${app.dashboard.cache.hard-ttl-seconds:300}") long hardTtlSeconds) {
+    if (softTtlSeconds < 1 || hardTtlSeconds < softTtlSeconds) {
+      throw new IllegalStateException(
+          "app.dashboard.cache: soft-ttl-seconds debe ser positivo y no mayor que hard-ttl-seconds");
+    }
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    if (!refreshAhead) {
+      cacheManager.setCaffeine(
+          Caffeine.newBuilder()
+              .expireAfterWrite(softTtlSeconds, TimeUnit.SECONDS)
+              .maximumSize(500));
+      cacheManager.setCacheNames(List.of("dashboardSnapshot"));
+      return cacheManager;
+    }
+
+    cacheManager.registerCustomCache(
+        "dashboardSnapshot",
+        Caffeine.newBuilder()
+            .refreshAfterWrite(softTtlSeconds, TimeUnit.SECONDS)
+            .expireAfterWrite(hardTtlSeconds, TimeUnit.SECONDS)
+            .maximumSize(500)
+            // Un recálculo espera a sus secciones: no ocupa hilos del pool común.
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build(snapshotLoader(snapshotService)));
+    cacheManager.setCacheNames(List.of());
     return cacheManager;
   }
+
+  private static CacheLoader<Object, Object> snapshotLoader(
+      ObjectProvider<DashboardSnapshotService> snapshotService) {
+    return new CacheLoader<>() {
+      // Los faltantes los calcula el método @Cacheable, que no cachea snapshots parciales.
+      @Override
+      public Object load(Object key) {
+        return null;
+      }
+
+      // null saca la entrada: el próximo pedido la calcula en primer plano.
+      @Override
+      public Object reload(Object key, Object oldValue) {
+        return key instanceof DashboardSnapshotKey snapshotKey
+            ? snapshotService.getObject().refresh(snapshotKey)
+            : null;
+      }
+    };
+  }
 }
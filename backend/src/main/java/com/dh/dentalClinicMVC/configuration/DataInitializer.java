@@ -60,15 +60,16 @@ public class DataInitializer implements ApplicationRunner {
 
     // ── Especialidades ────────────────────────────────────────────────────
     Specialty ortodoncia =
-        saveSpecialty("Ortodoncia", "Corrección de la alineación dental y mandibular");
-    Specialty endodoncia = saveSpecialty("Endodoncia", "Tratamiento del conducto radicular");
-    Specialty cirugia = saveSpecialty("Cirugía Oral", "Extracciones complejas y cirugías bucales");
+        saveSpecialty("Ortodoncia", "Corrección de la alineación dental y mandibular", null);
+    Specialty endodoncia = saveSpecialty("Endodoncia", "Tratamiento del conducto radicular", 60);
+    Specialty cirugia =
+        saveSpecialty("Cirugía Oral", "Extracciones complejas y cirugías bucales", 90);
     Specialty estetica =
-        saveSpecialty("Odontología Estética", "Blanqueamiento, carillas y coronas estéticas");
+        saveSpecialty("Odontología Estética", "Blanqueamiento, carillas y coronas estéticas", null);
     Specialty periodoncia =
-        saveSpecialty("Periodoncia", "Tratamiento de encías y tejidos de soporte");
+        saveSpecialty("Periodoncia", "Tratamiento de encías y tejidos de soporte", null);
     Specialty pediatrica =
-        saveSpecialty("Odontología Pediátrica", "Atención dental especializada en niños");
+        saveSpecialty("Odontología Pediátrica", "Atención dental especializada en niños", null);
 
     // ── Admin ─────────────────────────────────────────────────────────────
     User admin = new User();
@@ -496,7 +497,7 @@ public class DataInitializer implements ApplicationRunner {
 
   // ── Helpers ───────────────────────────────────────────────────────────────
 
-  private Specialty saveSpecialty(String name, String description) {
+  private Specialty saveSpecialty(String name, String description, Integer defaultDurationMinutes) {
     return specialtyRepository
         .findByName(name)
         .orElseGet(
@@ -504,6 +505,7 @@ public class DataInitializer implements ApplicationRunner {
               Specialty s = new Specialty();
               s.setName(name);
               s.setDescription(description);
+              s.setDefaultDurationMinutes(defaultDurationMinutes);
               return specialtyRepository.save(s);
             });
   }
@@ -0,0 +1,121 @@
+package com.dh.dentalClinicMVC.configuration;
+
+import com.dh.dentalClinicMVC.entity.SearchNames;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Completa {@code users.search_name} en las filas creadas antes de que existiera la columna (con
+ * {@code ddl-auto=update} la columna se agrega vacía) y después {@code user_search_words} para los
+ * usuarios con nombre que todavía no tienen palabras (filas anteriores a la tabla o insertadas por
+ * SQL, como las de import.sql). Recorre por id en lotes, cada uno con su propio UPDATE o INSERT en
+ * batch, así no bloquea la tabla entera ni carga todos los usuarios en memoria. Es idempotente:
+ * cuando no quedan filas sin completar sólo ejecuta una consulta por tabla.
+ *
+ * <p>Activo por defecto; se desactiva con {@code app.search-name-backfill.enabled=false}. El tamaño
+ * de lote se ajusta con {@code app.search-name-backfill.chunk-size} (500 por defecto).
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.search-name-backfill.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class SearchNameBackfillRunner implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(SearchNameBackfillRunner.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int chunkSize;
+
+  public SearchNameBackfillRunner(
+      JdbcTemplate jdbcTemplate,
+      @Value("${app.search-name-backfill.chunk-size:500}") int chunkSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.chunkSize = chunkSize;
+  }
+
+  private record PendingUser(long id, String firstName, String lastName) {}
+
+  private record PendingWords(long id, String searchName) {}
+
+  @Override
+  public void run(ApplicationArguments args) {
+    backfillSearchNames();
+    backfillSearchWords();
+  }
+
+  private void backfillSearchNames() {
+    long lastId = 0;
+    int updated = 0;
+    List<PendingUser> chunk;
+    do {
+      chunk =
+          jdbcTemplate.query(
+              "SELECT id, first_name, last_name FROM users "
+                  + "WHERE search_name IS NULL AND id > ? ORDER BY id LIMIT ?",
+              (rs, rowNum) ->
+                  new PendingUser(
+                      rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name")),
+              lastId,
+              chunkSize);
+      if (chunk.isEmpty()) {
+        break;
+      }
+      jdbcTemplate.batchUpdate(
+          "UPDATE users SET search_name = ? WHERE id = ?",
+          chunk.stream()
+              .map(
+                  user ->
+                      new Object[] {
+                        SearchNames.normalize(user.firstName(), user.lastName()), user.id()
+                      })
+              .toList());
+      updated += chunk.size();
+      lastId = chunk.get(chunk.size() - 1).id();
+    } while (chunk.size() == chunkSize);
+
+    if (updated > 0) {
+      log.info("SearchNameBackfillRunner: search_name completado en {} usuario(s).", updated);
+    }
+  }
+
+  private void backfillSearchWords() {
+    long lastId = 0;
+    int filled = 0;
+    List<PendingWords> chunk;
+    do {
+      chunk =
+          jdbcTemplate.query(
+              "SELECT u.id, u.search_name FROM users u WHERE u.search_name IS NOT NULL "
+                  + "AND NOT EXISTS (SELECT 1 FROM user_search_words w WHERE w.user_id = u.id) "
+                  + "AND u.id > ? ORDER BY u.id LIMIT ?",
+              (rs, rowNum) -> new PendingWords(rs.getLong("id"), rs.getString("search_name")),
+              lastId,
+              chunkSize);
+      if (chunk.isEmpty()) {
+        break;
+      }
+      jdbcTemplate.batchUpdate(
+          "INSERT INTO user_search_words (user_id, word) VALUES (?, ?)",
+          chunk.stream()
+              .flatMap(
+                  user ->
+                      SearchNames.words(user.searchName()).stream()
+                          .map(word -> new Object[] {user.id(), word}))
+              .toList());
+      filled += chunk.size();
+      lastId = chunk.get(chunk.size() - 1).id();
+    } while (chunk.size() == chunkSize);
+
+    if (filled > 0) {
+      log.info("SearchNameBackfillRunner: user_search_words completado en {} usuario(s).", filled);
+    }
+  }
+}
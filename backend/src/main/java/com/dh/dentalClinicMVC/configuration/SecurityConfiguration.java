@@ -1,6 +1,7 @@
 package com.dh.dentalClinicMVC.configuration;
 
 import com.dh.dentalClinicMVC.security.StalePrincipalEntryPoint;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -64,7 +65,11 @@ public class SecurityConfiguration {
         .exceptionHandling(handling -> handling.authenticationEntryPoint(stalePrincipalEntryPoint))
         .authorizeHttpRequests(
             auth ->
-                auth.requestMatchers(HttpMethod.GET, "/auth/me")
+                // El despacho ASYNC que cierra un stream SSE (/appointments/events) es del mismo
+                // pedido, que ya se autorizó; sin JWT propio caería en el entry point.
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC)
+                    .permitAll()
+                    .requestMatchers(HttpMethod.GET, "/auth/me")
                     .authenticated()
                     .requestMatchers("/auth/**")
                     .permitAll()
@@ -1,8 +1,14 @@
 package com.dh.dentalClinicMVC.controller;
 
+import com.dh.dentalClinicMVC.dto.AppointmentBatchRequestDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentBatchResultDTO;
 import com.dh.dentalClinicMVC.dto.AppointmentDTO;
 import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
 import com.dh.dentalClinicMVC.dto.AppointmentRequestMapper;
+import com.dh.dentalClinicMVC.dto.AppointmentStatusBulkRequestDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentStatusBulkResultDTO;
+import com.dh.dentalClinicMVC.dto.AvailabilityDTO;
+import com.dh.dentalClinicMVC.dto.NextAvailableSlotDTO;
 import com.dh.dentalClinicMVC.entity.AppointmentStatus;
 import com.dh.dentalClinicMVC.entity.Dentist;
 import com.dh.dentalClinicMVC.entity.Patient;
@@ -14,22 +20,34 @@ import com.dh.dentalClinicMVC.security.AuthorizationUtils;
 import com.dh.dentalClinicMVC.service.IAppointmentService;
 import com.dh.dentalClinicMVC.service.IDentistService;
 import com.dh.dentalClinicMVC.service.IPatientService;
+import com.dh.dentalClinicMVC.service.impl.AppointmentEventStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/appointments")
@@ -40,14 +58,20 @@ public class AppointmentController {
   private final IAppointmentService appointmentService;
   private final IDentistService dentistService;
   private final IPatientService patientService;
+  private final ObjectMapper objectMapper;
+  private final AppointmentEventStream eventStream;
 
   public AppointmentController(
       IAppointmentService appointmentService,
       IDentistService dentistService,
-      IPatientService patientService) {
+      IPatientService patientService,
+      ObjectMapper objectMapper,
+      AppointmentEventStream eventStream) {
     this.appointmentService = appointmentService;
     this.dentistService = dentistService;
     this.patientService = patientService;
+    this.objectMapper = objectMapper;
+    this.eventStream = eventStream;
   }
 
   // Este endpoint guarda un turno
@@ -67,6 +91,26 @@ public class AppointmentController {
     return ResponseEntity.ok(saved);
   }
 
+  // Este endpoint guarda varios turnos juntos (p. ej. un plan de tratamiento) y responde el
+  // resultado de cada uno en el orden recibido
+  @PostMapping("/batch")
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST','PATIENT')")
+  public ResponseEntity<AppointmentBatchResultDTO> saveBatch(
+      @Valid @RequestBody AppointmentBatchRequestDTO dto, Authentication auth) {
+    // Igual que en save: un PATIENT sólo puede pedir turnos para sí mismo
+    if (AuthorizationUtils.hasRole(auth, "ROLE_PATIENT")) {
+      Patient patient =
+          patientService.findByEmail(auth.getName()).orElseThrow(StalePrincipalException::new);
+      dto.getAppointments().forEach(item -> item.setPatientId(patient.getId()));
+    }
+
+    List<AppointmentDTO> mapped =
+        dto.getAppointments().stream()
+            .map(item -> AppointmentRequestMapper.toServiceDTO(item, null))
+            .toList();
+    return ResponseEntity.ok(appointmentService.saveBatch(mapped));
+  }
+
   // Este endpoint busca un turno por ID
   @GetMapping("/{id}")
   @PreAuthorize("hasAnyRole('ADMIN','DENTIST')")
@@ -131,30 +175,92 @@ public class AppointmentController {
   // Este endpoint consulta todos los turnos (filtrado por rol del usuario autenticado)
   @GetMapping
   @PreAuthorize("hasAnyRole('ADMIN','DENTIST','PATIENT')")
-  public ResponseEntity<List<AppointmentDTO>> findAll(Authentication auth) {
+  public ResponseEntity<List<AppointmentDTO>> findAll(
+      @RequestParam(required = false) String expand, Authentication auth) {
     if (auth == null) {
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
-    String email;
-    Role role;
+    return ResponseEntity.ok(
+        appointmentService.findAllForCurrentUser(
+            currentEmail(auth), currentRole(auth), expandsNames(expand)));
+  }
+
+  // Exporta los turnos visibles para el usuario (mismo alcance que GET /appointments) como NDJSON
+  // o CSV, escribiendo en la respuesta a medida que se leen de la base.
+  @GetMapping("/export")
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST','PATIENT')")
+  public void export(
+      @RequestParam(defaultValue = "ndjson") String format,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+      Authentication auth,
+      HttpServletResponse response)
+      throws IOException {
+    if (auth == null) {
+      response.setStatus(HttpStatus.UNAUTHORIZED.value());
+      return;
+    }
+    AppointmentExportFormat exportFormat = AppointmentExportFormat.from(format);
+
+    response.setContentType(exportFormat.contentType());
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION,
+        ContentDisposition.attachment().filename(exportFormat.fileName()).build().toString());
+
+    Writer writer = response.getWriter();
+    exportFormat.writeHeader(writer);
+    appointmentService.exportForCurrentUser(
+        currentEmail(auth),
+        currentRole(auth),
+        from,
+        to,
+        appointment -> {
+          try {
+            exportFormat.writeRow(writer, appointment, objectMapper);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+    writer.flush();
+  }
+
+  // ?expand=names agrega patientName/dentistName a cada turno; es el único valor admitido.
+  private static boolean expandsNames(String expand) {
+    if (expand == null || expand.isEmpty()) {
+      return false;
+    }
+    if (!expand.equals("names")) {
+      throw new IllegalArgumentException("Valor de expand inválido: " + expand);
+    }
+    return true;
+  }
+
+  private String currentEmail(Authentication auth) {
+    // Autenticación JWT normal: principal es nuestra entidad User
     if (auth.getPrincipal() instanceof User currentUser) {
-      // Autenticación JWT normal: principal es nuestra entidad User
-      email = currentUser.getEmail();
-      role = currentUser.getRole();
-    } else {
-      // Autenticación sin JWT (ej: tests con @WithMockUser): derivar rol desde authorities
-      email = auth.getName();
-      role =
-          AuthorizationUtils.hasRole(auth, "ROLE_ADMIN")
-              ? Role.ADMIN
-              : AuthorizationUtils.hasRole(auth, "ROLE_DENTIST") ? Role.DENTIST : Role.PATIENT;
+      return currentUser.getEmail();
     }
-    return ResponseEntity.ok(appointmentService.findAllForCurrentUser(email, role));
+    return auth.getName();
   }
 
+  private Role currentRole(Authentication auth) {
+    if (auth.getPrincipal() instanceof User currentUser) {
+      return currentUser.getRole();
+    }
+    // Autenticación sin JWT (ej: tests con @WithMockUser): derivar rol desde authorities
+    return AuthorizationUtils.hasRole(auth, "ROLE_ADMIN")
+        ? Role.ADMIN
+        : AuthorizationUtils.hasRole(auth, "ROLE_DENTIST") ? Role.DENTIST : Role.PATIENT;
+  }
+
+  // Con el parámetro cursor (vacío para la primera página) responde en modo keyset, ordenado por
+  // fecha, hora e id y sin conteo total; sin él mantiene el contrato page/size de siempre. Un
+  // PATIENT sólo busca entre sus turnos y un DENTIST entre los suyos (mismo alcance que
+  // GET /appointments), así expand=names no expone nombres de otros pacientes.
   @GetMapping("/search")
   @PreAuthorize("hasAnyRole('ADMIN','DENTIST','PATIENT')")
-  public ResponseEntity<Page<AppointmentDTO>> searchAppointments(
+  public ResponseEntity<?> searchAppointments(
       @RequestParam(required = false) String patient,
       @RequestParam(required = false) String dentist,
       @RequestParam(required = false) AppointmentStatus status,
@@ -163,11 +269,119 @@ public class AppointmentController {
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
           LocalDate toDate,
       @RequestParam(defaultValue = "0") int page,
-      @RequestParam(defaultValue = "10") int size) {
+      @RequestParam(defaultValue = "10") int size,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) String expand,
+      Authentication auth) {
+    if (auth == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+    boolean withNames = expandsNames(expand);
+    Role role = currentRole(auth);
+    if (role == Role.PATIENT) {
+      patient =
+          patientService
+              .findByEmail(currentEmail(auth))
+              .orElseThrow(StalePrincipalException::new)
+              .getId()
+              .toString();
+    } else if (role == Role.DENTIST) {
+      dentist =
+          dentistService
+              .findByEmail(currentEmail(auth))
+              .orElseThrow(StalePrincipalException::new)
+              .getId()
+              .toString();
+    }
+    if (cursor != null) {
+      return ResponseEntity.ok(
+          appointmentService.searchAppointmentsAfter(
+              patient, dentist, status, fromDate, toDate, cursor, size, withNames));
+    }
     Pageable pageable = PageRequest.of(page, size);
     return ResponseEntity.ok(
         appointmentService.searchAppointments(
-            patient, dentist, status, fromDate, toDate, pageable));
+            patient, dentist, status, fromDate, toDate, pageable, withNames));
+  }
+
+  // Horarios libres de un odontólogo por día hábil dentro del rango [from, to]
+  @GetMapping("/availability")
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST','PATIENT')")
+  public ResponseEntity<AvailabilityDTO> findAvailability(
+      @RequestParam Long dentistId,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
+      throws ResourceNotFoundException {
+    return ResponseEntity.ok(appointmentService.findAvailability(dentistId, from, to));
+  }
+
+  // Avisos (SSE) de los turnos que cambian, para refrescar sólo lo afectado en lugar de consultar
+  // /search o el snapshot cada pocos segundos. Un DENTIST recibe sólo los suyos; un ADMIN todos, o
+  // los de dentistId. 503 si ya hay demasiadas conexiones abiertas.
+  @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST')")
+  public ResponseEntity<SseEmitter> events(
+      @RequestParam(required = false) Long dentistId, Authentication auth) {
+    if (AuthorizationUtils.hasRole(auth, "ROLE_DENTIST")) {
+      dentistId =
+          dentistService
+              .findByEmail(auth.getName())
+              .orElseThrow(StalePrincipalException::new)
+              .getId();
+    }
+    SseEmitter emitter = eventStream.subscribe(dentistId);
+    if (emitter == null) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    // Sin buffer en proxies como nginx, para que cada evento llegue en el momento.
+    return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+  }
+
+  // Primeros horarios libres de cualquier odontólogo de la especialidad, del más temprano al más
+  // tardío, a partir de `after` (yyyy-MM-ddTHH:mm; por defecto, ahora)
+  @GetMapping("/next-available")
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST','PATIENT')")
+  public ResponseEntity<List<NextAvailableSlotDTO>> findNextAvailable(
+      @RequestParam Long specialtyId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime after,
+      @RequestParam(defaultValue = "10") int limit)
+      throws ResourceNotFoundException {
+    return ResponseEntity.ok(appointmentService.findNextAvailable(specialtyId, after, limit));
+  }
+
+  // Cambio de estado de varios turnos en un pedido (p. ej. marcar COMPLETED al cierre del día).
+  // Todo o nada: si un turno no existe, no es del odontólogo o no admite la transición, no se
+  // cambia ninguno.
+  @PatchMapping("/status")
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST')")
+  public ResponseEntity<AppointmentStatusBulkResultDTO> updateStatuses(
+      @Valid @RequestBody AppointmentStatusBulkRequestDTO dto, Authentication auth)
+      throws ResourceNotFoundException {
+    Map<Long, AppointmentStatus> changes = new LinkedHashMap<>();
+    for (AppointmentStatusBulkRequestDTO.StatusChangeDTO change : dto.getChanges()) {
+      AppointmentStatus status;
+      try {
+        status = AppointmentStatus.valueOf(change.getStatus());
+      } catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("Status inválido: " + change.getStatus());
+      }
+      if (changes.putIfAbsent(change.getId(), status) != null) {
+        throw new IllegalArgumentException(
+            "El turno " + change.getId() + " figura más de una vez en el pedido");
+      }
+    }
+
+    // Igual que en el cambio individual, un DENTIST sólo puede tocar sus propios turnos
+    Long dentistId = null;
+    if (AuthorizationUtils.hasRole(auth, "ROLE_DENTIST")) {
+      dentistId =
+          dentistService
+              .findByEmail(auth.getName())
+              .orElseThrow(StalePrincipalException::new)
+              .getId();
+    }
+    return ResponseEntity.ok(appointmentService.updateStatuses(changes, dentistId));
   }
 
   @PatchMapping("/{id}/status")
@@ -0,0 +1,92 @@
+package com.dh.dentalClinicMVC.controller;
+
+import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+// Formatos de GET /appointments/export. Ambos escriben fila por fila, sin armar el documento
+// completo en memoria.
+enum AppointmentExportFormat {
+  NDJSON("application/x-ndjson", "ndjson") {
+    @Override
+    void writeHeader(Writer writer) {}
+
+    @Override
+    void writeRow(Writer writer, AppointmentDTO appointment, ObjectMapper objectMapper)
+        throws IOException {
+      writer.write(objectMapper.writeValueAsString(appointment));
+      writer.write('\n');
+    }
+  },
+  CSV("text/csv", "csv") {
+    @Override
+    void writeHeader(Writer writer) throws IOException {
+      writer.write("id,dentist_id,patient_id,date,time,description,status,duration_minutes\r\n");
+    }
+
+    @Override
+    void writeRow(Writer writer, AppointmentDTO appointment, ObjectMapper objectMapper)
+        throws IOException {
+      writer.write(
+          String.join(
+              ",",
+              String.valueOf(appointment.getId()),
+              String.valueOf(appointment.getDentist_id()),
+              String.valueOf(appointment.getPatient_id()),
+              appointment.getDate(),
+              appointment.getTime(),
+              csvField(appointment.getDescription()),
+              appointment.getStatus(),
+              appointment.getDurationMinutes() != null
+                  ? String.valueOf(appointment.getDurationMinutes())
+                  : ""));
+      writer.write("\r\n");
+    }
+  };
+
+  private final String contentType;
+  private final String extension;
+
+  AppointmentExportFormat(String contentType, String extension) {
+    this.contentType = contentType;
+    this.extension = extension;
+  }
+
+  static AppointmentExportFormat from(String format) {
+    for (AppointmentExportFormat value : values()) {
+      if (value.extension.equals(format.toLowerCase(Locale.ROOT))) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Formato de exportación inválido: " + format);
+  }
+
+  String contentType() {
+    return contentType;
+  }
+
+  String fileName() {
+    return "appointments." + extension;
+  }
+
+  abstract void writeHeader(Writer writer) throws IOException;
+
+  abstract void writeRow(Writer writer, AppointmentDTO appointment, ObjectMapper objectMapper)
+      throws IOException;
+
+  // RFC 4180: entre comillas si contiene separador, comillas o saltos de línea.
+  private static String csvField(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.contains(",")
+        || value.contains("\"")
+        || value.contains("\n")
+        || value.contains("\r")) {
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    return value;
+  }
+}
@@ -0,0 +1,97 @@
+package com.dh.dentalClinicMVC.controller;
+
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesMoveDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesRequestDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesUpdateDTO;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.exception.ResourceNotFoundException;
+import com.dh.dentalClinicMVC.exception.StalePrincipalException;
+import com.dh.dentalClinicMVC.security.AuthorizationUtils;
+import com.dh.dentalClinicMVC.service.IAppointmentSeriesService;
+import com.dh.dentalClinicMVC.service.IDentistService;
+import jakarta.validation.Valid;
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/appointments/series")
+public class AppointmentSeriesController {
+
+  private final IAppointmentSeriesService seriesService;
+  private final IDentistService dentistService;
+
+  public AppointmentSeriesController(
+      IAppointmentSeriesService seriesService, IDentistService dentistService) {
+    this.seriesService = seriesService;
+    this.dentistService = dentistService;
+  }
+
+  // Este endpoint crea una serie de turnos recurrentes (todos o ninguno)
+  @PostMapping
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST')")
+  public ResponseEntity<AppointmentSeriesDTO> create(
+      @Valid @RequestBody AppointmentSeriesRequestDTO dto, Authentication auth) {
+    if (!canManage(dto.getDentistId(), auth)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    return ResponseEntity.status(HttpStatus.CREATED).body(seriesService.create(dto));
+  }
+
+  // Este endpoint busca una serie con sus turnos
+  @GetMapping("/{id}")
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST')")
+  public ResponseEntity<AppointmentSeriesDTO> findById(@PathVariable Long id, Authentication auth)
+      throws ResourceNotFoundException {
+    AppointmentSeriesDTO series = seriesService.findById(id);
+    if (!canManage(series, auth)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    return ResponseEntity.ok(series);
+  }
+
+  // Este endpoint cancela los turnos pendientes de la serie desde from (hoy si se omite)
+  @PostMapping("/{id}/cancel")
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST')")
+  public ResponseEntity<AppointmentSeriesUpdateDTO> cancel(
+      @PathVariable Long id,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      Authentication auth)
+      throws ResourceNotFoundException {
+    if (!canManage(seriesService.findById(id), auth)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    return ResponseEntity.ok(seriesService.cancelFrom(id, from));
+  }
+
+  // Este endpoint cambia la hora y/o corre de día los turnos pendientes de la serie
+  @PatchMapping("/{id}")
+  @PreAuthorize("hasAnyRole('ADMIN','DENTIST')")
+  public ResponseEntity<AppointmentSeriesUpdateDTO> move(
+      @PathVariable Long id, @Valid @RequestBody AppointmentSeriesMoveDTO dto, Authentication auth)
+      throws ResourceNotFoundException {
+    if (!canManage(seriesService.findById(id), auth)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    return ResponseEntity.ok(seriesService.moveFrom(id, dto));
+  }
+
+  // Igual que con los turnos sueltos: un DENTIST sólo opera sobre sus propias series
+  private boolean canManage(AppointmentSeriesDTO series, Authentication auth) {
+    return canManage(series.getDentistId(), auth);
+  }
+
+  private boolean canManage(Long dentistId, Authentication auth) {
+    if (!AuthorizationUtils.hasRole(auth, "ROLE_DENTIST")) {
+      return true;
+    }
+    Dentist dentist =
+        dentistService.findByEmail(auth.getName()).orElseThrow(StalePrincipalException::new);
+    return dentist.getId().equals(dentistId);
+  }
+}
@@ -1,12 +1,19 @@
 package com.dh.dentalClinicMVC.controller;
 
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
 import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
 import com.dh.dentalClinicMVC.service.IDashboardSnapshotService;
+import com.dh.dentalClinicMVC.service.impl.DashboardDataVersion;
 import java.time.LocalDate;
+import java.util.Arrays;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -16,23 +23,99 @@ import org.springframework.web.bind.annotation.RestController;
 public class DashboardController {
 
   private final IDashboardSnapshotService dashboardSnapshotService;
+  private final DashboardDataVersion dataVersion;
 
-  public DashboardController(IDashboardSnapshotService dashboardSnapshotService) {
+  public DashboardController(
+      IDashboardSnapshotService dashboardSnapshotService, DashboardDataVersion dataVersion) {
     this.dashboardSnapshotService = dashboardSnapshotService;
+    this.dataVersion = dataVersion;
   }
 
+  // Los dashboards consultan el snapshot cada pocos segundos. Si el ETag que mandan coincide con
+  // la versión actual de los datos se responde 304 sin pasar por el cache ni la base.
   @GetMapping("/snapshot")
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<DashboardSnapshotDTO> getDashboardSnapshot(
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
-      @RequestParam(required = false) Long dentistId) {
+      @RequestParam(required = false) Long dentistId,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     if (from != null && to != null && from.isAfter(to)) {
       return ResponseEntity.badRequest().build();
     }
 
+    // "Hoy" entra en el ETag: turnos de hoy y próximos turnos cambian con la fecha aunque no haya
+    // escrituras.
+    LocalDate today = LocalDate.now();
+    String current = eTag(dataVersion.current(), today, from, to, dentistId);
+    if (matches(ifNoneMatch, current)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(current)
+          .cacheControl(CacheControl.noCache().cachePrivate())
+          .build();
+    }
+
     DashboardSnapshotDTO snapshot =
         dashboardSnapshotService.getDashboardSnapshot(from, to, dentistId);
-    return ResponseEntity.ok(snapshot);
+    // Sin ETag ni para uno incompleto ni para una entrada vieja que se sirve mientras se recalcula:
+    // con su versión anterior, Spring compararía ese ETag con el If-None-Match del cliente y
+    // respondería 304, y el navegador se quedaría con los datos viejos.
+    long version = snapshot.getDataVersion();
+    if (snapshot.isPartial() || version != dataVersion.current()) {
+      return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(snapshot);
+    }
+    return ResponseEntity.ok()
+        .eTag(eTag(version, today, from, to, dentistId))
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .body(snapshot);
+  }
+
+  private String eTag(long version, LocalDate today, LocalDate from, LocalDate to, Long dentistId) {
+    return "W/\""
+        + Long.toHexString(dataVersion.epoch())
+        + "-"
+        + version
+        + "-"
+        + today
+        + "-"
+        + (from == null ? "" : from)
+        + "-"
+        + (to == null ? "" : to)
+        + "-"
+        + (dentistId == null ? "" : dentistId)
+        + "\"";
+  }
+
+  // Comparación débil (RFC 9110 §13.1.2): se ignora el prefijo W/ de ambos lados.
+  private static boolean matches(String ifNoneMatch, String eTag) {
+    if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+      return false;
+    }
+    String opaque = opaque(eTag);
+    return Arrays.stream(ifNoneMatch.split(","))
+        .map(String::trim)
+        .anyMatch(candidate -> candidate.equals("*") || opaque(candidate).equals(opaque));
+  }
+
+  private static String opaque(String eTag) {
+    return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+  }
+
+  // "Ver más" de próximos turnos: la página que sigue al cursor, con los filtros del snapshot.
+  @GetMapping("/upcoming")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO>>
+      getUpcomingAppointments(
+          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+              LocalDate from,
+          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+              LocalDate to,
+          @RequestParam(required = false) Long dentistId,
+          @RequestParam(required = false) String cursor) {
+    if (from != null && to != null && from.isAfter(to)) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(
+        dashboardSnapshotService.getUpcomingAppointments(from, to, dentistId, cursor));
   }
 }
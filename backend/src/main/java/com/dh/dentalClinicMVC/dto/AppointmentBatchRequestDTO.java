@@ -0,0 +1,19 @@
+package com.dh.dentalClinicMVC.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentBatchRequestDTO {
+
+  public static final int MAX_ITEMS = 50;
+
+  @NotEmpty(message = "El lote debe incluir al menos un turno")
+  @Size(max = MAX_ITEMS, message = "El lote no puede superar los " + MAX_ITEMS + " turnos")
+  private List<@Valid AppointmentRequestDTO> appointments;
+}
@@ -0,0 +1,32 @@
+package com.dh.dentalClinicMVC.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentBatchResultDTO {
+  private int created;
+  private int rejected;
+
+  // Un elemento por turno del pedido, en el mismo orden
+  private List<ItemResultDTO> results;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class ItemResultDTO {
+    private int index;
+
+    // CREATED o REJECTED
+    private String status;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private AppointmentDTO appointment;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+  }
+}
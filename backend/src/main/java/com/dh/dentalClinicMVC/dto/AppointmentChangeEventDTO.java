@@ -0,0 +1,15 @@
+package com.dh.dentalClinicMVC.dto;
+
+import lombok.*;
+
+// Aviso liviano de un turno que cambió, para que el navegador refresque sólo lo afectado.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentChangeEventDTO {
+  private Long appointmentId;
+  private Long dentistId;
+  private String date; // yyyy-MM-dd
+  private String status; // null si el turno se borró
+  private String change; // CREATED, UPDATED o DELETED
+}
@@ -1,5 +1,6 @@
 package com.dh.dentalClinicMVC.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Data
@@ -15,7 +16,22 @@ public class AppointmentDTO {
   private String description;
   private String status;
 
+  // Minutos que ocupa el turno. Al crear o editar es opcional: si falta se toma la duración de la
+  // especialidad (specialty_id, o la única del odontólogo) o la general.
+  private Integer durationMinutes;
+
+  // Sólo de entrada: especialidad de la que tomar la duración por defecto.
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long specialty_id;
+
+  // Sólo con ?expand=names; si no, se omiten del JSON.
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String patientName;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String dentistName;
+
   public AppointmentDTO(Long id, Long dentist_id, Long patient_id, String date) {
-    this(id, dentist_id, patient_id, date, "", null, "SCHEDULED");
+    this(id, dentist_id, patient_id, date, "", null, "SCHEDULED", null, null, null, null);
   }
 }
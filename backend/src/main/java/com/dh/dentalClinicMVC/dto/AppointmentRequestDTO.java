@@ -1,5 +1,8 @@
 package com.dh.dentalClinicMVC.dto;
 
+import com.dh.dentalClinicMVC.entity.Appointment;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -27,4 +30,16 @@ public class AppointmentRequestDTO {
 
   @Size(max = 500, message = "La descripción no puede exceder 500 caracteres")
   private String description; // optional
+
+  // optional: si falta, la duración sale de specialtyId o de la especialidad del odontólogo
+  @Min(value = Appointment.MIN_DURATION_MINUTES, message = "La duración mínima es de 5 minutos")
+  @Max(value = Appointment.MAX_DURATION_MINUTES, message = "La duración máxima es de 240 minutos")
+  private Integer durationMinutes;
+
+  private Long specialtyId; // optional
+
+  public AppointmentRequestDTO(
+      Long dentistId, Long patientId, String date, String time, String description) {
+    this(dentistId, patientId, date, time, description, null, null);
+  }
 }
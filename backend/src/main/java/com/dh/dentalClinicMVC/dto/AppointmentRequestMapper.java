@@ -18,6 +18,8 @@ public final class AppointmentRequestMapper {
         .date(dto.getDate())
         .time(dto.getTime())
         .description(dto.getDescription())
+        .durationMinutes(dto.getDurationMinutes())
+        .specialty_id(dto.getSpecialtyId())
         .status(null)
         .build();
   }
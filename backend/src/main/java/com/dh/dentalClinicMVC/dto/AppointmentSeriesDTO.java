@@ -0,0 +1,24 @@
+package com.dh.dentalClinicMVC.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSeriesDTO {
+  private Long id;
+  private Long dentistId;
+  private Long patientId;
+  private String frequency;
+  private int interval;
+  private String nonWorkingDays;
+
+  // Turnos de la serie ordenados por fecha y hora
+  private List<AppointmentDTO> appointments;
+
+  // Sólo al crearla: fechas que cayeron en fin de semana o feriado y no se agendaron
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private List<String> skippedDates;
+}
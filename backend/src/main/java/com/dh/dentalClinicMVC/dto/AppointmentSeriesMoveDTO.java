@@ -0,0 +1,25 @@
+package com.dh.dentalClinicMVC.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSeriesMoveDTO {
+
+  // Primer día afectado; hoy si se omite
+  @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Formato de fecha inválido (yyyy-MM-dd)")
+  private String from;
+
+  // Hora nueva para todos los turnos movidos; se conserva si se omite
+  @Pattern(regexp = "([01]\\d|2[0-3]):[0-5]\\d", message = "Formato de hora inválido (HH:mm)")
+  private String time;
+
+  // Días a correr cada turno (negativo para adelantarlo)
+  @Min(value = -365, message = "No se puede correr más de 365 días")
+  @Max(value = 365, message = "No se puede correr más de 365 días")
+  private Integer shiftDays;
+}
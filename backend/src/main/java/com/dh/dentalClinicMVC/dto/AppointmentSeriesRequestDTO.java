@@ -0,0 +1,66 @@
+package com.dh.dentalClinicMVC.dto;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppointmentSeriesRequestDTO {
+
+  public static final int MAX_OCCURRENCES = 52;
+
+  @NotNull(message = "El odontólogo es requerido")
+  private Long dentistId;
+
+  @NotNull(message = "El paciente es requerido")
+  private Long patientId;
+
+  @NotBlank(message = "La fecha de inicio es requerida")
+  @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Formato de fecha inválido (yyyy-MM-dd)")
+  private String startDate;
+
+  @NotBlank(message = "La hora es requerida")
+  @Pattern(regexp = "([01]\\d|2[0-3]):[0-5]\\d", message = "Formato de hora inválido (HH:mm)")
+  private String time;
+
+  @Size(max = 500, message = "La descripción no puede exceder 500 caracteres")
+  private String description; // optional
+
+  @NotBlank(message = "La frecuencia es requerida")
+  @Pattern(regexp = "WEEKLY|MONTHLY", message = "Frecuencia inválida (WEEKLY o MONTHLY)")
+  private String frequency;
+
+  // Cada cuántas semanas o meses; 1 si se omite
+  @Min(value = 1, message = "El intervalo debe ser al menos 1")
+  @Max(value = 12, message = "El intervalo no puede superar 12")
+  private Integer interval;
+
+  // Límite de la serie: occurrences o endDate, uno de los dos
+  @Min(value = 1, message = "La serie debe tener al menos un turno")
+  @Max(
+      value = MAX_OCCURRENCES,
+      message = "La serie no puede superar los " + MAX_OCCURRENCES + " turnos")
+  private Integer occurrences;
+
+  @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Formato de fecha inválido (yyyy-MM-dd)")
+  private String endDate;
+
+  // Fines de semana y feriados: SKIP (se omiten, por defecto) o SHIFT (al próximo día hábil)
+  @Pattern(regexp = "SKIP|SHIFT", message = "Política inválida (SKIP o SHIFT)")
+  private String nonWorkingDays;
+
+  // Duración de cada turno; como en los turnos sueltos, si falta sale de la especialidad
+  @Min(value = Appointment.MIN_DURATION_MINUTES, message = "La duración mínima es de 5 minutos")
+  @Max(value = Appointment.MAX_DURATION_MINUTES, message = "La duración máxima es de 240 minutos")
+  private Integer durationMinutes;
+
+  private Long specialtyId; // optional
+}
@@ -0,0 +1,13 @@
+package com.dh.dentalClinicMVC.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSeriesUpdateDTO {
+  private Long seriesId;
+
+  // Turnos cancelados o movidos
+  private int updated;
+}
@@ -0,0 +1,32 @@
+package com.dh.dentalClinicMVC.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentStatusBulkRequestDTO {
+
+  public static final int MAX_ITEMS = 200;
+
+  @NotEmpty(message = "Se debe indicar al menos un cambio de estado")
+  @Size(max = MAX_ITEMS, message = "No se pueden cambiar más de " + MAX_ITEMS + " turnos a la vez")
+  private List<@Valid StatusChangeDTO> changes;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class StatusChangeDTO {
+    @NotNull(message = "El ID del turno es requerido")
+    private Long id;
+
+    @NotBlank(message = "El campo 'status' es obligatorio")
+    private String status;
+  }
+}
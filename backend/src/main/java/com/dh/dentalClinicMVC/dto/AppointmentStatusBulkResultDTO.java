@@ -0,0 +1,13 @@
+package com.dh.dentalClinicMVC.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentStatusBulkResultDTO {
+  private int requested;
+
+  // Turnos que cambiaron de estado; los que ya tenían el estado pedido no cuentan
+  private int updated;
+}
@@ -0,0 +1,24 @@
+package com.dh.dentalClinicMVC.dto;
+
+import java.util.List;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityDTO {
+  private Long dentistId;
+  private String from;
+  private String to;
+
+  // Un elemento por día hábil del rango, con los horarios libres en formato HH:mm
+  private List<DayAvailabilityDTO> days;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class DayAvailabilityDTO {
+    private String date;
+    private List<String> freeSlots;
+  }
+}
@@ -0,0 +1,15 @@
+package com.dh.dentalClinicMVC.dto;
+
+import java.util.List;
+import lombok.*;
+
+// Página por cursor (keyset): sin total ni número de página. nextCursor es opaco para el cliente y
+// vale null cuando no hay más resultados.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+  private List<T> content;
+  private int size;
+  private String nextCursor;
+}
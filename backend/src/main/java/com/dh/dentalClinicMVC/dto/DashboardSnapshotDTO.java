@@ -1,5 +1,9 @@
 package com.dh.dentalClinicMVC.dto;
 
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.AllArgsConstructor;
@@ -17,9 +21,17 @@ public class DashboardSnapshotDTO {
   private Long todayAppointments;
   private List<DashboardStatsDTO.MonthlyStatsDTO> monthlyStats;
   private List<UpcomingAppointmentDTO> upcomingAppointments;
+  // Cursor para pedir más próximos turnos a /dashboard/upcoming; null si no hay más
+  private String upcomingNextCursor;
   private List<StatusCountDTO> statusBreakdown;
   private List<DentistCountDTO> dentistBreakdown;
 
+  // Alguna sección falló o no llegó a tiempo y quedó con sus valores por defecto
+  @JsonIgnore private boolean partial;
+
+  // Versión de los datos leída al empezar el cálculo; de acá sale el ETag del snapshot
+  @JsonIgnore private long dataVersion;
+
   public Long getTotalAppointments() {
     return totalAppointments;
   }
@@ -68,6 +80,14 @@ public class DashboardSnapshotDTO {
     this.upcomingAppointments = upcomingAppointments;
   }
 
+  public String getUpcomingNextCursor() {
+    return upcomingNextCursor;
+  }
+
+  public void setUpcomingNextCursor(String upcomingNextCursor) {
+    this.upcomingNextCursor = upcomingNextCursor;
+  }
+
   public List<StatusCountDTO> getStatusBreakdown() {
     return statusBreakdown;
   }
@@ -84,6 +104,22 @@ public class DashboardSnapshotDTO {
     this.dentistBreakdown = dentistBreakdown;
   }
 
+  public boolean isPartial() {
+    return partial;
+  }
+
+  public void setPartial(boolean partial) {
+    this.partial = partial;
+  }
+
+  public long getDataVersion() {
+    return dataVersion;
+  }
+
+  public void setDataVersion(long dataVersion) {
+    this.dataVersion = dataVersion;
+  }
+
   public static DashboardSnapshotDTO withDefaults() {
     DashboardSnapshotDTO snapshot = new DashboardSnapshotDTO();
     snapshot.totalAppointments = 0L;
@@ -108,6 +144,23 @@ public class DashboardSnapshotDTO {
     private String time;
     private String status;
 
+    // Constructor de la consulta de próximos turnos (expresión constructora JPQL)
+    public UpcomingAppointmentDTO(
+        Long id,
+        String patientName,
+        String dentistName,
+        LocalDate date,
+        LocalTime time,
+        AppointmentStatus status) {
+      this(
+          id,
+          patientName,
+          dentistName,
+          date.toString(),
+          time.toString(),
+          status != null ? status.name() : "");
+    }
+
     public Long getId() {
       return id;
     }
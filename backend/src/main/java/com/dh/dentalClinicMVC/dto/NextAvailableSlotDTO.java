@@ -0,0 +1,14 @@
+package com.dh.dentalClinicMVC.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NextAvailableSlotDTO {
+  private Long dentistId;
+  private String dentistName;
+  private String date;
+  private String time; // HH:mm
+  private Integer durationMinutes;
+}
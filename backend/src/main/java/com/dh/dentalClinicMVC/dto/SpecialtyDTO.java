@@ -1,5 +1,8 @@
 package com.dh.dentalClinicMVC.dto;
 
+import com.dh.dentalClinicMVC.entity.Appointment;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 
@@ -13,4 +16,12 @@ public class SpecialtyDTO {
   private String name;
 
   private String description;
+
+  @Min(value = Appointment.MIN_DURATION_MINUTES, message = "La duración mínima es de 5 minutos")
+  @Max(value = Appointment.MAX_DURATION_MINUTES, message = "La duración máxima es de 240 minutos")
+  private Integer defaultDurationMinutes;
+
+  public SpecialtyDTO(Long id, String name, String description) {
+    this(id, name, description, null);
+  }
 }
@@ -3,22 +3,39 @@ package com.dh.dentalClinicMVC.entity;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 @Setter
 @Getter
 @Entity
 @Table(
     name = "appointments",
+    uniqueConstraints = {
+      @UniqueConstraint(
+          name = Appointment.ACTIVE_SLOT_CONSTRAINT,
+          columnNames = {"dentist_id", "date", "time", "active_slot"})
+    },
     indexes = {
       @Index(name = "idx_appointment_date", columnList = "date"),
+      @Index(name = "idx_appointment_date_time", columnList = "date, time"),
       @Index(name = "idx_appointment_status", columnList = "status"),
       @Index(name = "idx_appointment_patient", columnList = "patient_id"),
-      @Index(name = "idx_appointment_dentist", columnList = "dentist_id")
+      @Index(name = "idx_appointment_dentist", columnList = "dentist_id"),
+      @Index(name = "idx_appointment_series", columnList = "series_id")
     })
 public class Appointment {
 
+  // Un turno no cancelado por (odontólogo, fecha, hora), garantizado por la base.
+  public static final String ACTIVE_SLOT_CONSTRAINT = "uk_appointment_active_slot";
+
+  // Duración de un turno cuando ni el pedido ni la especialidad indican otra, y límites aceptados.
+  public static final int DEFAULT_DURATION_MINUTES = 30;
+  public static final int MIN_DURATION_MINUTES = 5;
+  public static final int MAX_DURATION_MINUTES = 240;
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
@@ -33,6 +50,11 @@ public class Appointment {
   @Column(name = "time")
   private LocalTime time;
 
+  // El turno ocupa [time, time + durationMinutes); dos turnos del mismo odontólogo no se pisan.
+  @ColumnDefault("30")
+  @Column(name = "duration_minutes", nullable = false)
+  private Integer durationMinutes = DEFAULT_DURATION_MINUTES;
+
   @Column(name = "description", length = 500)
   private String description;
 
@@ -40,5 +62,21 @@ public class Appointment {
   @Column(name = "status", nullable = false)
   private AppointmentStatus status = AppointmentStatus.SCHEDULED;
 
+  // Columna calculada por la base: 1 si el turno ocupa su horario, NULL si está cancelado. Como
+  // NULL no se repite en un índice único, los cancelados no cuentan para ACTIVE_SLOT_CONSTRAINT.
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @Column(
+      name = "active_slot",
+      insertable = false,
+      updatable = false,
+      columnDefinition = "TINYINT GENERATED ALWAYS AS (CASE WHEN status <> 'CANCELLED' THEN 1 END)")
+  private Integer activeSlot;
+
+  // Serie recurrente que generó el turno, si la hay
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "series_id")
+  private AppointmentSeries series;
+
   public Appointment() {}
 }
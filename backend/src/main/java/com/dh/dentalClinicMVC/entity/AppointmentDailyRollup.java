@@ -0,0 +1,52 @@
+package com.dh.dentalClinicMVC.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Cantidad de turnos por (día, odontólogo, estado). La mantienen las escrituras de turnos en la
+ * misma transacción (ver AppointmentRollups) y la reconstruye AppointmentRollupRebuilder; los
+ * agregados del dashboard se leen de acá en lugar de recorrer {@code appointments}.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@Entity
+@IdClass(AppointmentDailyRollup.Key.class)
+@Table(
+    name = "appointment_daily_rollup",
+    indexes = {@Index(name = "idx_rollup_dentist_date", columnList = "dentist_id, date")})
+public class AppointmentDailyRollup {
+
+  @Id
+  @Column(name = "date")
+  private LocalDate date;
+
+  @Id
+  @Column(name = "dentist_id")
+  private Long dentistId;
+
+  @Id
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status")
+  private AppointmentStatus status;
+
+  // "count" es palabra reservada en varios motores
+  @Column(name = "appointment_count", nullable = false)
+  private long count;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+    private LocalDate date;
+    private Long dentistId;
+    private AppointmentStatus status;
+  }
+}
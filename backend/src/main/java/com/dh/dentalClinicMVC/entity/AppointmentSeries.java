@@ -0,0 +1,56 @@
+package com.dh.dentalClinicMVC.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import lombok.Getter;
+import lombok.Setter;
+
+// Regla con la que se generó un grupo de turnos recurrentes. Los turnos guardan la referencia en
+// appointments.series_id, así el resto de la serie se puede cancelar o mover de una vez.
+@Setter
+@Getter
+@Entity
+@Table(name = "appointment_series")
+public class AppointmentSeries {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  private Patient patient;
+
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  private Dentist dentist;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "frequency", nullable = false)
+  private RecurrenceFrequency frequency;
+
+  // Cada cuántos períodos (semanas o meses) se repite
+  @Column(name = "repeat_interval", nullable = false)
+  private int interval;
+
+  @Column(name = "start_date", nullable = false)
+  private LocalDate startDate;
+
+  @Column(name = "time", nullable = false)
+  private LocalTime time;
+
+  // Uno de los dos límites: cantidad de turnos o fecha final
+  @Column(name = "occurrences")
+  private Integer occurrences;
+
+  @Column(name = "end_date")
+  private LocalDate endDate;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "non_working_days", nullable = false)
+  private NonWorkingDayPolicy nonWorkingDays;
+
+  @Column(name = "description", length = 500)
+  private String description;
+
+  public AppointmentSeries() {}
+}
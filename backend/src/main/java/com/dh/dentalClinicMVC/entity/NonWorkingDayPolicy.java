@@ -0,0 +1,9 @@
+package com.dh.dentalClinicMVC.entity;
+
+// Qué hacer con una ocurrencia de una serie que cae en fin de semana o feriado.
+public enum NonWorkingDayPolicy {
+  // Se omite y la serie sigue con la próxima ocurrencia.
+  SKIP,
+  // Se corre al próximo día en que la clínica atiende.
+  SHIFT
+}
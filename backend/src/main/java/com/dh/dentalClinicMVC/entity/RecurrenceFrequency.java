@@ -0,0 +1,17 @@
+package com.dh.dentalClinicMVC.entity;
+
+import java.time.LocalDate;
+
+public enum RecurrenceFrequency {
+  WEEKLY,
+  MONTHLY;
+
+  // Fecha nominal de la ocurrencia que está steps períodos después de start. Se calcula siempre
+  // desde start para que un 31 no se corra a 28 después de pasar por febrero.
+  public LocalDate occurrence(LocalDate start, long steps) {
+    return switch (this) {
+      case WEEKLY -> start.plusWeeks(steps);
+      case MONTHLY -> start.plusMonths(steps);
+    };
+  }
+}
@@ -0,0 +1,51 @@
+package com.dh.dentalClinicMVC.entity;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Normalización de nombres para {@code users.search_name}: minúsculas, sin acentos y con un único
+ * espacio entre palabras ("José Pérez" → "jose perez"). Las búsquedas normalizan el texto del
+ * usuario de la misma forma antes de compararlo con la columna.
+ */
+public final class SearchNames {
+
+  // Coincide con el largo de la columna; el índice no admite valores más largos.
+  public static final int MAX_LENGTH = 255;
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private SearchNames() {}
+
+  public static String normalize(String... parts) {
+    String joined = Arrays.stream(parts).filter(Objects::nonNull).collect(Collectors.joining(" "));
+    String folded =
+        DIACRITICS
+            .matcher(Normalizer.normalize(joined, Normalizer.Form.NFD))
+            .replaceAll("")
+            .toLowerCase(Locale.ROOT);
+    String collapsed = WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    if (collapsed.isEmpty()) {
+      return null;
+    }
+    return collapsed.length() > MAX_LENGTH ? collapsed.substring(0, MAX_LENGTH) : collapsed;
+  }
+
+  // Palabras del texto de búsqueda ya normalizadas; vacío si no queda ninguna.
+  public static List<String> tokens(String text) {
+    String normalized = normalize(text);
+    return normalized == null ? List.of() : Stream.of(normalized.split(" ")).toList();
+  }
+
+  // Palabras distintas de un search_name ya normalizado, como se guardan en user_search_words.
+  public static List<String> words(String searchName) {
+    return searchName == null ? List.of() : Stream.of(searchName.split(" ")).distinct().toList();
+  }
+}
@@ -27,6 +27,10 @@ public class Specialty {
   @Column(name = "description")
   private String description;
 
+  // Duración por defecto de los turnos de esta especialidad; null usa la general de Appointment.
+  @Column(name = "default_duration_minutes")
+  private Integer defaultDurationMinutes;
+
   @ManyToMany(mappedBy = "specialties")
   @JsonIgnore
   private Set<Dentist> dentists = new HashSet<>();
@@ -22,6 +22,7 @@ import org.springframework.security.core.userdetails.UserDetails;
     name = "users",
     uniqueConstraints = {@UniqueConstraint(name = "uk_user_email", columnNames = "email")},
     indexes = {@Index(name = "idx_user_email", columnList = "email")})
+@EntityListeners(UserSearchWordsListener.class)
 public class User implements UserDetails {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,9 +37,22 @@ public class User implements UserDetails {
   @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
   private String password;
 
+  // "nombre apellido" normalizado con SearchNames; lo mantiene refreshSearchName y de acá salen las
+  // palabras de user_search_words (ver UserSearchWordsListener), que son las que usan las búsquedas
+  // por nombre.
+  @JsonIgnore
+  @Column(name = "search_name", length = SearchNames.MAX_LENGTH)
+  private String searchName;
+
   @Enumerated(EnumType.STRING)
   private Role role;
 
+  @PrePersist
+  @PreUpdate
+  public void refreshSearchName() {
+    searchName = SearchNames.normalize(firstName, lastName);
+  }
+
   @JsonIgnore
   @Override
   public Collection<? extends GrantedAuthority> getAuthorities() {
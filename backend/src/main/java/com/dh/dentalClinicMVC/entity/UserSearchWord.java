@@ -0,0 +1,42 @@
+package com.dh.dentalClinicMVC.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Una palabra de {@code users.search_name} por fila. Las búsquedas por nombre comparan cada palabra
+ * escrita como prefijo contra {@code word}, así el índice {@code (word, user_id)} resuelve también
+ * el apellido o el segundo nombre con un rango, sin LIKE con comodín inicial. La mantiene
+ * UserSearchWordsListener y la completa SearchNameBackfillRunner para las filas previas.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@Entity
+@IdClass(UserSearchWord.Key.class)
+@Table(
+    name = "user_search_words",
+    indexes = {@Index(name = "idx_user_search_word", columnList = "word, user_id")})
+public class UserSearchWord {
+
+  @Id
+  @Column(name = "user_id")
+  private Long userId;
+
+  @Id
+  @Column(name = "word", length = SearchNames.MAX_LENGTH)
+  private String word;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+    private Long userId;
+    private String word;
+  }
+}
@@ -0,0 +1,54 @@
+package com.dh.dentalClinicMVC.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reescribe las filas de {@code user_search_words} de un usuario cuando se inserta, actualiza o
+ * borra. Va por JDBC en la misma conexión y transacción que el flush, sin tocar el contexto de
+ * persistencia (no se puede usar el EntityManager desde un callback). Hibernate lo instancia como
+ * bean de Spring, por eso recibe el JdbcTemplate por constructor.
+ */
+public class UserSearchWordsListener {
+
+  private static final String DELETE_SQL = "DELETE FROM user_search_words WHERE user_id = ?";
+  private static final String INSERT_SQL =
+      "INSERT INTO user_search_words (user_id, word) VALUES (?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public UserSearchWordsListener(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @PostPersist
+  public void inserted(User user) {
+    insertWords(user);
+  }
+
+  // Hibernate sólo lo llama si el usuario cambió; reescribir todas sus palabras es más simple que
+  // calcular la diferencia y son pocas filas.
+  @PostUpdate
+  public void updated(User user) {
+    jdbcTemplate.update(DELETE_SQL, user.getId());
+    insertWords(user);
+  }
+
+  @PostRemove
+  public void removed(User user) {
+    jdbcTemplate.update(DELETE_SQL, user.getId());
+  }
+
+  private void insertWords(User user) {
+    List<Object[]> rows =
+        SearchNames.words(user.getSearchName()).stream()
+            .map(word -> new Object[] {user.getId(), word})
+            .toList();
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+  }
+}
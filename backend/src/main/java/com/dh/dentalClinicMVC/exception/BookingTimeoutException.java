@@ -0,0 +1,7 @@
+package com.dh.dentalClinicMVC.exception;
+
+public class BookingTimeoutException extends RuntimeException {
+  public BookingTimeoutException(String message) {
+    super(message);
+  }
+}
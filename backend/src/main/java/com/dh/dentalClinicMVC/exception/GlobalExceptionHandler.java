@@ -215,6 +215,21 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
   }
 
+  // 503 - La cola de reservas no respondió a tiempo (app.booking.await-timeout-ms)
+  @ExceptionHandler(BookingTimeoutException.class)
+  public ResponseEntity<ErrorResponse> handleBookingTimeout(
+      BookingTimeoutException e, WebRequest request) {
+    ErrorResponse error =
+        ErrorResponse.builder()
+            .error("Servicio no disponible")
+            .message(e.getMessage())
+            .path(request.getDescription(false).replace("uri=", ""))
+            .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+            .timestamp(LocalDateTime.now())
+            .build();
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+  }
+
   // 401 - JWT válido pero sin fila de respaldo (users/Patient/Dentist eliminada). Mensaje
   // uniforme en todos los sitios: no debe filtrar CUÁL lookup falló (info-disclosure).
   @ExceptionHandler(StalePrincipalException.class)
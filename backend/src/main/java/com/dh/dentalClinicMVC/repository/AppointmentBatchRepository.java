@@ -0,0 +1,22 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import java.util.List;
+
+// Escrituras masivas de turnos de IAppointmentRepository. Con ids IDENTITY Hibernate no agrupa
+// inserts, así que van por JDBC en un solo batch.
+public interface AppointmentBatchRepository {
+
+  /**
+   * Inserta los turnos en un único batch JDBC dentro de la transacción actual y asigna a cada uno
+   * el id generado. Paciente y odontólogo deben venir cargados; la serie, si la hay, ya guardada.
+   */
+  void insertAll(List<Appointment> appointments);
+
+  /**
+   * Cambia fecha, hora y duración de cada turno (por id) a las de su fila, en un único batch JDBC.
+   * Como las consultas {@code @Modifying(clearAutomatically = true)}, vacía el contexto de
+   * persistencia antes y lo limpia después para que ninguna entidad cargada quede desactualizada.
+   */
+  void updateSlots(List<AppointmentRow> rows);
+}
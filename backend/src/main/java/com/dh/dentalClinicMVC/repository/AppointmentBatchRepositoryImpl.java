@@ -0,0 +1,96 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+class AppointmentBatchRepositoryImpl implements AppointmentBatchRepository {
+
+  private static final String INSERT_SQL =
+      "INSERT INTO appointments "
+          + "(patient_id, dentist_id, date, time, duration_minutes, description, status, series_id) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String UPDATE_SLOT_SQL =
+      "UPDATE appointments SET date = ?, time = ?, duration_minutes = ? WHERE id = ?";
+
+  @PersistenceContext private EntityManager entityManager;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  AppointmentBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void insertAll(List<Appointment> appointments) {
+    if (appointments.isEmpty()) {
+      return;
+    }
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    jdbcTemplate.batchUpdate(
+        connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            Appointment appointment = appointments.get(i);
+            ps.setLong(1, appointment.getPatient().getId());
+            ps.setLong(2, appointment.getDentist().getId());
+            ps.setDate(3, Date.valueOf(appointment.getDate()));
+            ps.setTime(4, Time.valueOf(appointment.getTime()));
+            ps.setInt(5, appointment.getDurationMinutes());
+            ps.setString(6, appointment.getDescription());
+            ps.setString(7, appointment.getStatus().name());
+            ps.setObject(
+                8,
+                appointment.getSeries() != null ? appointment.getSeries().getId() : null,
+                Types.BIGINT);
+          }
+
+          @Override
+          public int getBatchSize() {
+            return appointments.size();
+          }
+        },
+        keyHolder);
+
+    // Los drivers devuelven las claves en el orden de las filas del batch.
+    List<Map<String, Object>> keys = keyHolder.getKeyList();
+    for (int i = 0; i < appointments.size(); i++) {
+      Number id = (Number) keys.get(i).values().iterator().next();
+      appointments.get(i).setId(id.longValue());
+    }
+  }
+
+  @Override
+  public void updateSlots(List<AppointmentRow> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    entityManager.flush();
+    jdbcTemplate.batchUpdate(
+        UPDATE_SLOT_SQL,
+        rows.stream()
+            .map(
+                row ->
+                    new Object[] {
+                      Date.valueOf(row.date()),
+                      Time.valueOf(row.time()),
+                      row.durationMinutes(),
+                      row.id()
+                    })
+            .toList());
+    entityManager.clear();
+  }
+}
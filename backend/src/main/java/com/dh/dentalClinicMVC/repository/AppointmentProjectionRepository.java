@@ -0,0 +1,31 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+// Consultas de IAppointmentRepository que devuelven AppointmentRow en lugar de entidades. Con
+// withNames, la misma consulta suma el join con paciente y odontólogo para traer sus nombres.
+public interface AppointmentProjectionRepository {
+
+  // Página de filas que cumplen spec, con el mismo conteo que findAll(spec, pageable).
+  Page<AppointmentRow> findRows(
+      Specification<Appointment> spec, Pageable pageable, boolean withNames);
+
+  // Primeras limit filas que cumplen spec en el orden indicado, sin conteo.
+  List<AppointmentRow> findRows(
+      Specification<Appointment> spec, Sort sort, int limit, boolean withNames);
+
+  // Todas las filas que cumplen spec, sin orden particular.
+  List<AppointmentRow> findRows(Specification<Appointment> spec, boolean withNames);
+
+  /**
+   * Recorre los turnos que cumplen {@code spec} en orden (date, time, id), leyendo del cursor JDBC
+   * de a lotes. Debe consumirse dentro de una transacción y cerrarse al terminar.
+   */
+  Stream<AppointmentRow> streamRows(Specification<Appointment> spec);
+}
@@ -0,0 +1,125 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+class AppointmentProjectionRepositoryImpl implements AppointmentProjectionRepository {
+
+  // Filas por viaje a la base al recorrer el cursor; la memoria usada no depende del total.
+  static final int STREAM_FETCH_SIZE = 500;
+
+  private static final Sort STREAM_ORDER = Sort.by("date", "time", "id");
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  public Page<AppointmentRow> findRows(
+      Specification<Appointment> spec, Pageable pageable, boolean withNames) {
+    TypedQuery<AppointmentRow> query = rowsQuery(spec, pageable.getSort(), withNames);
+    if (pageable.isPaged()) {
+      query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+    }
+    // El conteo se omite cuando la primera página ya trae menos filas que el tamaño pedido.
+    return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+  }
+
+  @Override
+  public List<AppointmentRow> findRows(
+      Specification<Appointment> spec, Sort sort, int limit, boolean withNames) {
+    return rowsQuery(spec, sort, withNames).setMaxResults(limit).getResultList();
+  }
+
+  @Override
+  public List<AppointmentRow> findRows(Specification<Appointment> spec, boolean withNames) {
+    return rowsQuery(spec, Sort.unsorted(), withNames).getResultList();
+  }
+
+  @Override
+  public Stream<AppointmentRow> streamRows(Specification<Appointment> spec) {
+    return rowsQuery(spec, STREAM_ORDER, false)
+        .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+        .setHint(HibernateHints.HINT_READ_ONLY, true)
+        .getResultStream();
+  }
+
+  // SELECT con las columnas de AppointmentRow: los ids de paciente y odontólogo salen de las FK,
+  // sin cargar las entidades asociadas. Los nombres, si se piden, salen del mismo SELECT.
+  private TypedQuery<AppointmentRow> rowsQuery(
+      Specification<Appointment> spec, Sort sort, boolean withNames) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<AppointmentRow> query = cb.createQuery(AppointmentRow.class);
+    Root<Appointment> root = query.from(Appointment.class);
+
+    // El filtro va primero para que los joins que ya haya hecho (búsqueda por nombre) se reusen.
+    Predicate predicate = spec.toPredicate(root, query, cb);
+    if (predicate != null) {
+      query.where(predicate);
+    }
+
+    List<Selection<?>> columns =
+        new ArrayList<>(
+            List.of(
+                root.get("id"),
+                root.get("patient").get("id"),
+                root.get("dentist").get("id"),
+                root.get("date"),
+                root.get("time"),
+                root.get("description"),
+                root.get("status"),
+                root.get("durationMinutes")));
+    if (withNames) {
+      columns.add(fullName(cb, joinOf(root, "patient")));
+      columns.add(fullName(cb, joinOf(root, "dentist")));
+    }
+    query.select(cb.construct(AppointmentRow.class, columns.toArray(Selection[]::new)));
+
+    if (sort.isSorted()) {
+      query.orderBy(QueryUtils.toOrders(sort, root, cb));
+    }
+    return entityManager.createQuery(query);
+  }
+
+  private static Join<Appointment, ?> joinOf(Root<Appointment> root, String association) {
+    for (Join<Appointment, ?> join : root.getJoins()) {
+      if (join.getAttribute().getName().equals(association)) {
+        return join;
+      }
+    }
+    return root.join(association);
+  }
+
+  private static Expression<String> fullName(CriteriaBuilder cb, Join<Appointment, ?> person) {
+    return cb.concat(cb.concat(person.<String>get("firstName"), " "), person.get("lastName"));
+  }
+
+  private long count(Specification<Appointment> spec) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Long> query = cb.createQuery(Long.class);
+    Root<Appointment> root = query.from(Appointment.class);
+    query.select(cb.count(root));
+    Predicate predicate = spec.toPredicate(root, query, cb);
+    if (predicate != null) {
+      query.where(predicate);
+    }
+    return entityManager.createQuery(query).getSingleResult();
+  }
+}
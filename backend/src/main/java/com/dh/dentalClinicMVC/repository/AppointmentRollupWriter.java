@@ -0,0 +1,26 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.AppointmentDailyRollup;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+// Escrituras de appointment_daily_rollup de IAppointmentDailyRollupRepository, por JDBC.
+public interface AppointmentRollupWriter {
+
+  /**
+   * Suma a cada (día, odontólogo, estado) su delta, creando la fila si no existe, dentro de la
+   * transacción actual. Las filas se tocan siempre en el mismo orden para que dos transacciones que
+   * comparten filas no se bloqueen mutuamente.
+   */
+  void applyDeltas(Map<AppointmentDailyRollup.Key, Long> deltas);
+
+  /** Recalcula desde {@code appointments} las filas de [from, to]; devuelve las filas escritas. */
+  int rebuild(LocalDate from, LocalDate to);
+
+  /**
+   * Primer y último día con turnos o con filas en el rollup, es decir, el rango que una
+   * reconstrucción completa tiene que recorrer; vacío si no hay ninguno.
+   */
+  Optional<LocalDate[]> rebuildableRange();
+}
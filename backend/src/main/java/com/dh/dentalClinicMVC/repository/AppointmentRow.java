@@ -0,0 +1,36 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Proyección plana de un turno: sólo columnas de {@code appointments}, con los ids de paciente y
+ * odontólogo tal como están en la fila. Evita cargar las entidades asociadas (EAGER) cuando no
+ * hacen falta. Los nombres para mostrar sólo vienen cargados cuando la consulta los pide (join con
+ * {@code users}); si no, son null.
+ */
+public record AppointmentRow(
+    Long id,
+    Long patientId,
+    Long dentistId,
+    LocalDate date,
+    LocalTime time,
+    String description,
+    AppointmentStatus status,
+    Integer durationMinutes,
+    String patientName,
+    String dentistName) {
+
+  public AppointmentRow(
+      Long id,
+      Long patientId,
+      Long dentistId,
+      LocalDate date,
+      LocalTime time,
+      String description,
+      AppointmentStatus status,
+      Integer durationMinutes) {
+    this(id, patientId, dentistId, date, time, description, status, durationMinutes, null, null);
+  }
+}
@@ -0,0 +1,131 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.SearchNames;
+import com.dh.dentalClinicMVC.entity.UserSearchWord;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filtros de búsqueda de turnos como {@link Specification}. Sólo se agregan los predicados de los
+ * filtros presentes, así cada combinación genera su propio SQL (sin {@code (:x IS NULL OR ...)}) y
+ * el motor puede usar los índices de {@code appointments} que correspondan.
+ */
+public final class AppointmentSpecifications {
+
+  private AppointmentSpecifications() {}
+
+  /**
+   * Arma la búsqueda de {@code GET /appointments/search}. {@code patient} y {@code dentist} se
+   * interpretan como ID si son numéricos y, si no, como parte del nombre completo.
+   */
+  public static Specification<Appointment> search(
+      String patient,
+      String dentist,
+      AppointmentStatus status,
+      LocalDate fromDate,
+      LocalDate toDate) {
+    List<Specification<Appointment>> filters = new ArrayList<>();
+
+    if (patient != null && patient.matches("\\d+")) {
+      filters.add(hasPatientId(Long.parseLong(patient)));
+    } else if (patient != null && !patient.isEmpty()) {
+      filters.add(nameMatches("patient", patient));
+    }
+
+    if (dentist != null && dentist.matches("\\d+")) {
+      filters.add(hasDentistId(Long.parseLong(dentist)));
+    } else if (dentist != null && !dentist.isEmpty()) {
+      filters.add(nameMatches("dentist", dentist));
+    }
+
+    if (status != null) {
+      filters.add(hasStatus(status));
+    }
+    if (fromDate != null) {
+      filters.add(dateFrom(fromDate));
+    }
+    if (toDate != null) {
+      filters.add(dateTo(toDate));
+    }
+
+    return Specification.allOf(filters);
+  }
+
+  public static Specification<Appointment> hasIdIn(Collection<Long> ids) {
+    return (root, query, cb) -> root.get("id").in(ids);
+  }
+
+  public static Specification<Appointment> hasPatientId(Long patientId) {
+    return (root, query, cb) -> cb.equal(root.get("patient").get("id"), patientId);
+  }
+
+  public static Specification<Appointment> hasDentistId(Long dentistId) {
+    return (root, query, cb) -> cb.equal(root.get("dentist").get("id"), dentistId);
+  }
+
+  public static Specification<Appointment> hasSeriesId(Long seriesId) {
+    return (root, query, cb) -> cb.equal(root.get("series").get("id"), seriesId);
+  }
+
+  public static Specification<Appointment> hasStatus(AppointmentStatus status) {
+    return (root, query, cb) -> cb.equal(root.get("status"), status);
+  }
+
+  public static Specification<Appointment> dateFrom(LocalDate fromDate) {
+    return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("date"), fromDate);
+  }
+
+  public static Specification<Appointment> dateTo(LocalDate toDate) {
+    return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("date"), toDate);
+  }
+
+  /**
+   * Turnos posteriores a la posición (date, time, id) en ese mismo orden. Junto con el índice sobre
+   * (date, time) permite paginar por cursor sin OFFSET.
+   */
+  public static Specification<Appointment> after(LocalDate date, LocalTime time, Long id) {
+    return (root, query, cb) ->
+        cb.or(
+            cb.greaterThan(root.get("date"), date),
+            cb.and(
+                cb.equal(root.get("date"), date),
+                cb.or(
+                    cb.greaterThan(root.get("time"), time),
+                    cb.and(cb.equal(root.get("time"), time), cb.greaterThan(root.get("id"), id)))));
+  }
+
+  // Cada palabra buscada tiene que ser el comienzo de alguna palabra del nombre completo de la
+  // persona asociada ("patient" o "dentist"): "mar gonz" encuentra a "María González". Cada una es
+  // un IN sobre user_search_words con LIKE 'palabra%', que el índice (word, user_id) resuelve como
+  // rango; las palabras ya están en minúsculas y sin acentos.
+  private static Specification<Appointment> nameMatches(String association, String text) {
+    List<String> tokens = SearchNames.tokens(text);
+    return (root, query, cb) -> {
+      Expression<Long> personId = root.get(association).get("id");
+      List<Predicate> predicates = new ArrayList<>();
+      for (String token : tokens) {
+        Subquery<Long> matching = query.subquery(Long.class);
+        Root<UserSearchWord> word = matching.from(UserSearchWord.class);
+        matching
+            .select(word.get("userId"))
+            .where(cb.like(word.get("word"), escapeLike(token) + "%", '\\'));
+        predicates.add(personId.in(matching));
+      }
+      return cb.and(predicates.toArray(Predicate[]::new));
+    };
+  }
+
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+}
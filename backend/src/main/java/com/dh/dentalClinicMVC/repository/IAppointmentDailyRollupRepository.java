@@ -0,0 +1,70 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.AppointmentDailyRollup;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Agregados del dashboard sobre appointment_daily_rollup: mismo filtro opcional
+ * fromDate/toDate/dentistId y mismas filas que las consultas equivalentes sobre turnos, pero
+ * recorriendo una fila por (día, odontólogo, estado) en lugar de una por turno.
+ */
+@Repository
+public interface IAppointmentDailyRollupRepository
+    extends JpaRepository<AppointmentDailyRollup, AppointmentDailyRollup.Key>,
+        AppointmentRollupWriter {
+
+  @Query(
+      "SELECT COALESCE(SUM(r.count), 0) FROM AppointmentDailyRollup r "
+          + "WHERE (:fromDate IS NULL OR r.date >= :fromDate) "
+          + "AND (:toDate IS NULL OR r.date <= :toDate) "
+          + "AND (:dentistId IS NULL OR r.dentistId = :dentistId)")
+  long countFiltered(
+      @Param("fromDate") LocalDate fromDate,
+      @Param("toDate") LocalDate toDate,
+      @Param("dentistId") Long dentistId);
+
+  // (status, count); los estados sin turnos no vienen.
+  @Query(
+      "SELECT r.status, SUM(r.count) FROM AppointmentDailyRollup r "
+          + "WHERE (:fromDate IS NULL OR r.date >= :fromDate) "
+          + "AND (:toDate IS NULL OR r.date <= :toDate) "
+          + "AND (:dentistId IS NULL OR r.dentistId = :dentistId) "
+          + "GROUP BY r.status "
+          + "HAVING SUM(r.count) > 0")
+  List<Object[]> countGroupedByStatus(
+      @Param("fromDate") LocalDate fromDate,
+      @Param("toDate") LocalDate toDate,
+      @Param("dentistId") Long dentistId);
+
+  // (dentistId, nombre para mostrar, count); los odontólogos sin turnos no vienen.
+  @Query(
+      "SELECT r.dentistId, CONCAT(d.firstName, ' ', d.lastName), SUM(r.count) "
+          + "FROM AppointmentDailyRollup r "
+          + "JOIN Dentist d ON d.id = r.dentistId "
+          + "WHERE (:fromDate IS NULL OR r.date >= :fromDate) "
+          + "AND (:toDate IS NULL OR r.date <= :toDate) "
+          + "AND (:dentistId IS NULL OR r.dentistId = :dentistId) "
+          + "GROUP BY r.dentistId, d.firstName, d.lastName "
+          + "HAVING SUM(r.count) > 0")
+  List<Object[]> countGroupedByDentist(
+      @Param("fromDate") LocalDate fromDate,
+      @Param("toDate") LocalDate toDate,
+      @Param("dentistId") Long dentistId);
+
+  // (year, month, count) dentro de [fromDate, toDate]; sólo los meses con turnos.
+  @Query(
+      "SELECT YEAR(r.date), MONTH(r.date), SUM(r.count) FROM AppointmentDailyRollup r "
+          + "WHERE r.date BETWEEN :fromDate AND :toDate "
+          + "AND (:dentistId IS NULL OR r.dentistId = :dentistId) "
+          + "GROUP BY YEAR(r.date), MONTH(r.date) "
+          + "HAVING SUM(r.count) > 0")
+  List<Object[]> countGroupedByMonth(
+      @Param("fromDate") LocalDate fromDate,
+      @Param("toDate") LocalDate toDate,
+      @Param("dentistId") Long dentistId);
+}
@@ -1,19 +1,28 @@
 package com.dh.dentalClinicMVC.repository;
 
+import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
 import com.dh.dentalClinicMVC.entity.Appointment;
 import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface IAppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface IAppointmentRepository
+    extends JpaRepository<Appointment, Long>,
+        JpaSpecificationExecutor<Appointment>,
+        AppointmentProjectionRepository,
+        AppointmentBatchRepository {
   long countByDate(LocalDate date);
 
   boolean existsByDentist_IdAndDateAndTimeAndStatusNot(
@@ -22,222 +31,137 @@ public interface IAppointmentRepository extends JpaRepository<Appointment, Long>
   boolean existsByDentist_IdAndDateAndTimeAndStatusNotAndIdNot(
       Long dentistId, LocalDate date, LocalTime time, AppointmentStatus status, Long id);
 
-  List<Appointment> findByPatient_Id(Long patientId);
-
-  List<Appointment> findByDentist_Id(Long dentistId);
-
-  long countByDateBetween(LocalDate startDate, LocalDate endDate);
-
-  /** Obtiene las próximas citas con detalles de paciente y dentista */
-
-  // Consulta para obtener las próximas citas con detalles de paciente y dentista
+  // Intervalos ocupados (odontólogo, fecha, hora, duración) desde una fecha dada, excluyendo el
+  // estado indicado. Alimenta el índice de ocupación en memoria al arrancar.
   @Query(
-      "SELECT a.id, a.time, CONCAT(p.firstName, ' ', p.lastName) AS patientName, CONCAT(d.firstName, ' ', d.lastName) AS dentistName, a.date, a.status "
-          + "FROM Appointment a "
-          + "JOIN a.patient p "
-          + "JOIN a.dentist d "
-          + "WHERE a.date >= :fromDate "
-          + "ORDER BY a.date ASC, a.time ASC")
-  List<Object[]> findUpcomingAppointmentsWithDetails(@Param("fromDate") LocalDate fromDate);
+      "SELECT a.dentist.id, a.date, a.time, a.durationMinutes FROM Appointment a "
+          + "WHERE a.date >= :fromDate AND a.status <> :status")
+  List<Object[]> findActiveSlotsFrom(
+      @Param("fromDate") LocalDate fromDate, @Param("status") AppointmentStatus status);
 
-  // Consulta para buscar citas con filtros
+  // Turnos (id, fecha, hora, duración) de un odontólogo dentro de un rango de fechas, excluyendo
+  // el estado indicado. Es un rango sobre el prefijo (dentist_id, date) del índice único.
   @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:patient IS NULL OR LOWER(CONCAT(a.patient.firstName, ' ', a.patient.lastName)) LIKE LOWER(CONCAT('%', :patient, '%'))) "
-          + "AND (:dentist IS NULL OR LOWER(CONCAT(a.dentist.firstName, ' ', a.dentist.lastName)) LIKE LOWER(CONCAT('%', :dentist, '%'))) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointments(
-      @Param("patient") String patient,
-      @Param("dentist") String dentist,
-      @Param("status") AppointmentStatus status,
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      Pageable pageable);
-
-  // Consulta para buscar citas por ID de paciente
-  @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:patientId IS NULL OR a.patient.id = :patientId) "
-          + "AND (:dentist IS NULL OR LOWER(CONCAT(a.dentist.firstName, ' ', a.dentist.lastName)) LIKE LOWER(CONCAT('%', :dentist, '%'))) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointmentsByPatientId(
-      @Param("patientId") Long patientId,
-      @Param("dentist") String dentist,
-      @Param("status") AppointmentStatus status,
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      Pageable pageable);
-
-  // Consulta para buscar citas por ID de dentista
-  @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:dentistId IS NULL OR a.dentist.id = :dentistId) "
-          + "AND (:patient IS NULL OR LOWER(CONCAT(a.patient.firstName, ' ', a.patient.lastName)) LIKE LOWER(CONCAT('%', :patient, '%'))) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointmentsByDentistId(
+      "SELECT a.id, a.date, a.time, a.durationMinutes FROM Appointment a "
+          + "WHERE a.dentist.id = :dentistId "
+          + "AND a.date BETWEEN :fromDate AND :toDate "
+          + "AND a.status <> :status")
+  List<Object[]> findSlotsByDentistBetween(
       @Param("dentistId") Long dentistId,
-      @Param("patient") String patient,
-      @Param("status") AppointmentStatus status,
       @Param("fromDate") LocalDate fromDate,
       @Param("toDate") LocalDate toDate,
-      Pageable pageable);
+      @Param("status") AppointmentStatus status);
 
-  // Consulta para buscar citas por ID de paciente y dentista
+  // Ocupación (dentistId, date, time, durationMinutes) de todos los odontólogos de una especialidad
+  // en el rango, en una sola consulta sobre dentist_specialty.
   @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:patientId IS NULL OR a.patient.id = :patientId) "
-          + "AND (:dentistId IS NULL OR a.dentist.id = :dentistId) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointmentsByPatientIdAndDentistId(
-      @Param("patientId") Long patientId,
-      @Param("dentistId") Long dentistId,
-      @Param("status") AppointmentStatus status,
+      "SELECT a.dentist.id, a.date, a.time, a.durationMinutes FROM Appointment a "
+          + "JOIN a.dentist d JOIN d.specialties s "
+          + "WHERE s.id = :specialtyId "
+          + "AND a.date BETWEEN :fromDate AND :toDate "
+          + "AND a.status <> :status")
+  List<Object[]> findSlotsBySpecialtyBetween(
+      @Param("specialtyId") Long specialtyId,
       @Param("fromDate") LocalDate fromDate,
       @Param("toDate") LocalDate toDate,
-      Pageable pageable);
-
-  // Consulta para buscar citas por ID de paciente y dentista
+      @Param("status") AppointmentStatus status);
+
+  // Cambia el estado de los turnos indicados con un solo UPDATE, sin cargarlos.
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Appointment a SET a.status = :status WHERE a.id IN :ids")
+  int updateStatusByIds(@Param("ids") List<Long> ids, @Param("status") AppointmentStatus status);
+
+  // Borra todos los turnos de un paciente con un solo DELETE, incluidos los que se insertaron por
+  // JDBC y no están en la colección ya cargada del paciente.
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("DELETE FROM Appointment a WHERE a.patient.id = :patientId")
+  int deleteByPatientId(@Param("patientId") Long patientId);
+
+  // Siguiente tramo (por id, después de afterId) de turnos anteriores a una fecha que siguen en
+  // alguno de los estados indicados: (id, dentistId, date, status). Paginado por clave para
+  // recorrer la tabla sin OFFSET; las filas quedan bloqueadas hasta el fin de la transacción, así
+  // el estado leído es el que el UPDATE reemplaza.
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
   @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:patient IS NULL OR LOWER(CONCAT(a.patient.firstName, ' ', a.patient.lastName)) LIKE LOWER(CONCAT('%', :patient, '%'))) "
-          + "AND (:dentistId IS NULL OR a.dentist.id = :dentistId) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointmentsByPatientNameAndDentistId(
-      @Param("patient") String patient,
-      @Param("dentistId") Long dentistId,
-      @Param("status") AppointmentStatus status,
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      Pageable pageable);
-
-  // Consulta para buscar citas por ID de paciente y dentista
+      "SELECT a.id, a.dentist.id, a.date, a.status FROM Appointment a "
+          + "WHERE a.id > :afterId AND a.date < :before AND a.status IN :statuses "
+          + "ORDER BY a.id")
+  List<Object[]> findStaleRowsDatedBefore(
+      @Param("before") LocalDate before,
+      @Param("statuses") Collection<AppointmentStatus> statuses,
+      @Param("afterId") Long afterId,
+      Limit limit);
+
+  // Como updateStatusByIds, pero sólo sobre los turnos que siguen en alguno de los estados
+  // indicados: un cambio concurrente entre la consulta y el UPDATE no se pisa.
+  @Modifying
+  @Query("UPDATE Appointment a SET a.status = :status WHERE a.id IN :ids AND a.status IN :from")
+  int updateStatusByIdsFrom(
+      @Param("ids") List<Long> ids,
+      @Param("from") Collection<AppointmentStatus> from,
+      @Param("status") AppointmentStatus status);
+
+  // Listados de turnos como AppointmentRow: una sola consulta sobre appointments, sin cargar
+  // paciente, odontólogo ni dirección (EAGER) por cada fila.
   @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:patientId IS NULL OR a.patient.id = :patientId) "
-          + "AND (:dentist IS NULL OR LOWER(CONCAT(a.dentist.firstName, ' ', a.dentist.lastName)) LIKE LOWER(CONCAT('%', :dentist, '%'))) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointmentsByPatientIdAndDentistName(
-      @Param("patientId") Long patientId,
-      @Param("dentist") String dentist,
-      @Param("status") AppointmentStatus status,
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      Pageable pageable);
+      "SELECT new com.dh.dentalClinicMVC.repository.AppointmentRow("
+          + "a.id, a.patient.id, a.dentist.id, a.date, a.time, a.description, a.status, "
+          + "a.durationMinutes) "
+          + "FROM Appointment a")
+  List<AppointmentRow> findAllRows();
 
-  // Buscar por nombre de paciente Y nombre de odontólogo
   @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:patient IS NULL OR LOWER(CONCAT(a.patient.firstName, ' ', a.patient.lastName)) LIKE LOWER(CONCAT('%', :patient, '%'))) "
-          + "AND (:dentist IS NULL OR LOWER(CONCAT(a.dentist.firstName, ' ', a.dentist.lastName)) LIKE LOWER(CONCAT('%', :dentist, '%'))) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointmentsByPatientNameAndDentistName(
-      @Param("patient") String patient,
-      @Param("dentist") String dentist,
-      @Param("status") AppointmentStatus status,
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      Pageable pageable);
+      "SELECT new com.dh.dentalClinicMVC.repository.AppointmentRow("
+          + "a.id, a.patient.id, a.dentist.id, a.date, a.time, a.description, a.status, "
+          + "a.durationMinutes) "
+          + "FROM Appointment a WHERE a.patient.id = :patientId")
+  List<AppointmentRow> findRowsByPatientId(@Param("patientId") Long patientId);
 
-  // Buscar solo por nombre de paciente (y opcionalmente nombre de odontólogo)
   @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:patient IS NULL OR LOWER(CONCAT(a.patient.firstName, ' ', a.patient.lastName)) LIKE LOWER(CONCAT('%', :patient, '%'))) "
-          + "AND (:dentist IS NULL OR LOWER(CONCAT(a.dentist.firstName, ' ', a.dentist.lastName)) LIKE LOWER(CONCAT('%', :dentist, '%'))) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointmentsByPatientName(
-      @Param("patient") String patient,
-      @Param("dentist") String dentist,
-      @Param("status") AppointmentStatus status,
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      Pageable pageable);
+      "SELECT new com.dh.dentalClinicMVC.repository.AppointmentRow("
+          + "a.id, a.patient.id, a.dentist.id, a.date, a.time, a.description, a.status, "
+          + "a.durationMinutes) "
+          + "FROM Appointment a WHERE a.dentist.id = :dentistId")
+  List<AppointmentRow> findRowsByDentistId(@Param("dentistId") Long dentistId);
 
-  // Buscar solo por nombre de odontólogo (y opcionalmente nombre de paciente)
-  @Query(
-      "SELECT a FROM Appointment a "
-          + "WHERE (:dentist IS NULL OR LOWER(CONCAT(a.dentist.firstName, ' ', a.dentist.lastName)) LIKE LOWER(CONCAT('%', :dentist, '%'))) "
-          + "AND (:patient IS NULL OR LOWER(CONCAT(a.patient.firstName, ' ', a.patient.lastName)) LIKE LOWER(CONCAT('%', :patient, '%'))) "
-          + "AND (:status IS NULL OR a.status = :status) "
-          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate)")
-  Page<Appointment> searchAppointmentsByDentistName(
-      @Param("dentist") String dentist,
-      @Param("patient") String patient,
-      @Param("status") AppointmentStatus status,
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      Pageable pageable);
+  long countByDateBetween(LocalDate startDate, LocalDate endDate);
 
-  // Conteo de citas agrupado por estado, respetando el mismo filtro opcional
-  // fromDate/toDate/dentistId usado en las consultas de búsqueda de arriba.
-  @Query(
-      "SELECT a.status, COUNT(a) "
-          + "FROM Appointment a "
-          + "WHERE (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate) "
-          + "AND (:dentistId IS NULL OR a.dentist.id = :dentistId) "
-          + "GROUP BY a.status")
-  List<Object[]> countGroupedByStatus(
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      @Param("dentistId") Long dentistId);
+  /** Obtiene las próximas citas con detalles de paciente y dentista */
 
-  // Conteo de citas agrupado por dentista (id + nombre para mostrar), respetando
-  // el mismo filtro opcional fromDate/toDate/dentistId.
+  // Consulta para obtener las próximas citas con detalles de paciente y dentista
   @Query(
-      "SELECT a.dentist.id, CONCAT(d.firstName, ' ', d.lastName), COUNT(a) "
+      "SELECT a.id, a.time, CONCAT(p.firstName, ' ', p.lastName) AS patientName, CONCAT(d.firstName, ' ', d.lastName) AS dentistName, a.date, a.status "
           + "FROM Appointment a "
+          + "JOIN a.patient p "
           + "JOIN a.dentist d "
-          + "WHERE (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate) "
-          + "AND (:dentistId IS NULL OR a.dentist.id = :dentistId) "
-          + "GROUP BY a.dentist.id, d.firstName, d.lastName")
-  List<Object[]> countGroupedByDentist(
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      @Param("dentistId") Long dentistId);
-
-  // Conteo total de citas respetando el mismo filtro opcional fromDate/toDate/dentistId
-  // usado en las demás consultas de dashboard.
-  @Query(
-      "SELECT COUNT(a) FROM Appointment a "
-          + "WHERE (:fromDate IS NULL OR a.date >= :fromDate) "
-          + "AND (:toDate IS NULL OR a.date <= :toDate) "
-          + "AND (:dentistId IS NULL OR a.dentist.id = :dentistId)")
-  long countFiltered(
-      @Param("fromDate") LocalDate fromDate,
-      @Param("toDate") LocalDate toDate,
-      @Param("dentistId") Long dentistId);
+          + "WHERE a.date >= :fromDate "
+          + "ORDER BY a.date ASC, a.time ASC")
+  List<Object[]> findUpcomingAppointmentsWithDetails(@Param("fromDate") LocalDate fromDate);
 
-  // Próximas citas con detalles, respetando el mismo filtro opcional toDate/dentistId; fromDate
-  // siempre llega ya resuelto a max(hoy, from) desde el servicio.
+  // Próximos turnos del dashboard con el mismo filtro opcional toDate/dentistId, en orden (date,
+  // time, id) y armados directamente como DTO. fromDate llega ya resuelto a max(hoy, from) desde el
+  // servicio; con afterDate/afterTime/afterId (todos o ninguno) sigue después de ese turno, sin
+  // OFFSET.
   @Query(
-      "SELECT a.id, a.time, CONCAT(p.firstName, ' ', p.lastName) AS patientName, CONCAT(d.firstName, ' ', d.lastName) AS dentistName, a.date, a.status "
+      "SELECT new com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO$UpcomingAppointmentDTO("
+          + "a.id, CONCAT(p.firstName, ' ', p.lastName), CONCAT(d.firstName, ' ', d.lastName), "
+          + "a.date, a.time, a.status) "
           + "FROM Appointment a "
           + "JOIN a.patient p "
           + "JOIN a.dentist d "
           + "WHERE a.date >= :fromDate "
           + "AND (:toDate IS NULL OR a.date <= :toDate) "
           + "AND (:dentistId IS NULL OR a.dentist.id = :dentistId) "
-          + "ORDER BY a.date ASC, a.time ASC")
-  List<Object[]> findUpcomingAppointmentsFiltered(
+          + "AND (:afterDate IS NULL OR a.date > :afterDate "
+          + "OR (a.date = :afterDate AND (a.time > :afterTime "
+          + "OR (a.time = :afterTime AND a.id > :afterId)))) "
+          + "ORDER BY a.date ASC, a.time ASC, a.id ASC")
+  List<DashboardSnapshotDTO.UpcomingAppointmentDTO> findUpcomingAppointmentsFiltered(
       @Param("fromDate") LocalDate fromDate,
       @Param("toDate") LocalDate toDate,
-      @Param("dentistId") Long dentistId);
+      @Param("dentistId") Long dentistId,
+      @Param("afterDate") LocalDate afterDate,
+      @Param("afterTime") LocalTime afterTime,
+      @Param("afterId") Long afterId,
+      Limit limit);
 }
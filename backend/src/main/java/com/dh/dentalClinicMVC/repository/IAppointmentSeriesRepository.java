@@ -0,0 +1,18 @@
+package com.dh.dentalClinicMVC.repository;
+
+import com.dh.dentalClinicMVC.entity.AppointmentSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IAppointmentSeriesRepository extends JpaRepository<AppointmentSeries, Long> {
+
+  // Borra las series del paciente con un solo DELETE. Sus turnos tienen que haberse borrado antes:
+  // referencian a la serie.
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("DELETE FROM AppointmentSeries s WHERE s.patient.id = :patientId")
+  int deleteByPatientId(@Param("patientId") Long patientId);
+}
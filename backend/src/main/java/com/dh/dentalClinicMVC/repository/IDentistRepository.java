@@ -1,8 +1,11 @@
 package com.dh.dentalClinicMVC.repository;
 
 import com.dh.dentalClinicMVC.entity.Dentist;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -10,4 +13,10 @@ public interface IDentistRepository extends JpaRepository<Dentist, Long> {
   Optional<Dentist> findByRegistrationNumber(Integer registrationNumber);
 
   Optional<Dentist> findByEmail(String email);
+
+  // (id, "nombre apellido") de los odontólogos que atienden la especialidad.
+  @Query(
+      "SELECT d.id, CONCAT(d.firstName, ' ', d.lastName) FROM Dentist d JOIN d.specialties s "
+          + "WHERE s.id = :specialtyId ORDER BY d.id")
+  List<Object[]> findNamesBySpecialtyId(@Param("specialtyId") Long specialtyId);
 }
@@ -4,6 +4,8 @@ import com.dh.dentalClinicMVC.entity.Specialty;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -11,4 +13,8 @@ public interface ISpecialtyRepository extends JpaRepository<Specialty, Long> {
   Optional<Specialty> findByName(String name);
 
   List<Specialty> findByNameContainingIgnoreCase(String name);
+
+  // Especialidades de un odontólogo sin cargar el odontólogo (su colección es LAZY).
+  @Query("SELECT s FROM Dentist d JOIN d.specialties s WHERE d.id = :dentistId")
+  List<Specialty> findByDentistId(@Param("dentistId") Long dentistId);
 }
@@ -0,0 +1,24 @@
+package com.dh.dentalClinicMVC.service;
+
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesMoveDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesRequestDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesUpdateDTO;
+import com.dh.dentalClinicMVC.exception.ResourceNotFoundException;
+import java.time.LocalDate;
+
+public interface IAppointmentSeriesService {
+
+  // Expande la regla y agenda todos los turnos en una transacción; si alguno choca con la agenda
+  // del odontólogo no se crea ninguno.
+  AppointmentSeriesDTO create(AppointmentSeriesRequestDTO request);
+
+  AppointmentSeriesDTO findById(Long id) throws ResourceNotFoundException;
+
+  // Cancela los turnos todavía SCHEDULED de la serie desde la fecha indicada (hoy si es null).
+  AppointmentSeriesUpdateDTO cancelFrom(Long id, LocalDate from) throws ResourceNotFoundException;
+
+  // Cambia hora y/o corre de día los turnos SCHEDULED de la serie desde request.from.
+  AppointmentSeriesUpdateDTO moveFrom(Long id, AppointmentSeriesMoveDTO request)
+      throws ResourceNotFoundException;
+}
@@ -1,18 +1,30 @@
 package com.dh.dentalClinicMVC.service;
 
+import com.dh.dentalClinicMVC.dto.AppointmentBatchResultDTO;
 import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentStatusBulkResultDTO;
+import com.dh.dentalClinicMVC.dto.AvailabilityDTO;
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
+import com.dh.dentalClinicMVC.dto.NextAvailableSlotDTO;
 import com.dh.dentalClinicMVC.entity.AppointmentStatus;
 import com.dh.dentalClinicMVC.entity.Role;
 import com.dh.dentalClinicMVC.exception.ResourceNotFoundException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface IAppointmentService {
   AppointmentDTO save(AppointmentDTO appointmentDTO);
 
+  // Alta de varios turnos en una sola transacción. Cada ítem se valida como en save; los que no
+  // pasan se informan en el resultado sin impedir el alta de los demás.
+  AppointmentBatchResultDTO saveBatch(List<AppointmentDTO> appointmentDTOs);
+
   Optional<AppointmentDTO> findById(Long id);
 
   AppointmentDTO update(AppointmentDTO appointmentDTO) throws ResourceNotFoundException;
@@ -21,7 +33,8 @@ public interface IAppointmentService {
 
   List<AppointmentDTO> findAll();
 
-  List<AppointmentDTO> findAllForCurrentUser(String email, Role role);
+  // withNames agrega patientName/dentistName a cada turno, resueltos en la misma consulta.
+  List<AppointmentDTO> findAllForCurrentUser(String email, Role role, boolean withNames);
 
   Page<AppointmentDTO> searchAppointments(
       String patient,
@@ -29,7 +42,38 @@ public interface IAppointmentService {
       AppointmentStatus status,
       LocalDate fromDate,
       LocalDate toDate,
-      Pageable pageable);
+      Pageable pageable,
+      boolean withNames);
+
+  // Misma búsqueda en modo keyset: ordenada por (date, time, id), sin conteo total. Un cursor
+  // null o vacío devuelve la primera página.
+  CursorPageDTO<AppointmentDTO> searchAppointmentsAfter(
+      String patient,
+      String dentist,
+      AppointmentStatus status,
+      LocalDate fromDate,
+      LocalDate toDate,
+      String cursor,
+      int size,
+      boolean withNames);
+
+  // Recorre los turnos visibles para el usuario (mismo alcance que findAllForCurrentUser) dentro
+  // del rango opcional [from, to] y entrega cada uno a sink sin acumularlos en memoria.
+  void exportForCurrentUser(
+      String email, Role role, LocalDate from, LocalDate to, Consumer<AppointmentDTO> sink);
 
   AppointmentDTO updateStatus(Long id, AppointmentStatus status) throws ResourceNotFoundException;
+
+  // Cambio de estado de varios turnos (cierre del día): se validan todos y se aplican juntos, o
+  // ninguno. Con dentistId, todos los turnos deben ser de ese odontólogo.
+  AppointmentStatusBulkResultDTO updateStatuses(
+      Map<Long, AppointmentStatus> changes, Long dentistId) throws ResourceNotFoundException;
+
+  AvailabilityDTO findAvailability(Long dentistId, LocalDate from, LocalDate to)
+      throws ResourceNotFoundException;
+
+  // Los primeros `limit` horarios libres, desde `after` (o ahora), entre todos los odontólogos de
+  // la especialidad, con la duración por defecto de ésta.
+  List<NextAvailableSlotDTO> findNextAvailable(Long specialtyId, LocalDateTime after, int limit)
+      throws ResourceNotFoundException;
 }
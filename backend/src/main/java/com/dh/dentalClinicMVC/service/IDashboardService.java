@@ -1,5 +1,6 @@
 package com.dh.dentalClinicMVC.service;
 
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
 import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
 import com.dh.dentalClinicMVC.dto.DashboardStatsDTO;
 import java.time.LocalDate;
@@ -56,22 +57,25 @@ public interface IDashboardService {
   Map<String, Object> getAppointmentsByMonth(LocalDate from, LocalDate to, Long dentistId);
 
   /**
-   * Obtiene las próximas citas, sin filtro. Delega en el trío (from, to, dentistId) con los tres
-   * valores en null.
+   * Obtiene la primera página de próximas citas, sin filtro. Delega en el trío (from, to,
+   * dentistId) con los tres valores en null.
    *
-   * @return Map con lista de próximas citas
+   * @return página con hasta size próximas citas
    */
-  default Map<String, Object> getUpcomingAppointments() {
-    return getUpcomingAppointments(null, null, null);
+  default CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> getUpcomingAppointments(
+      int size) {
+    return getUpcomingAppointments(null, null, null, null, size);
   }
 
   /**
-   * Obtiene las próximas citas, respetando el filtro opcional from/to/dentistId. La cota inferior
-   * efectiva es max(hoy, from).
+   * Obtiene una página de próximas citas, respetando el filtro opcional from/to/dentistId, en orden
+   * de fecha, hora e id. La cota inferior efectiva es max(hoy, from). Un cursor null o vacío
+   * devuelve la primera página; el nextCursor de una página pide la siguiente.
    *
-   * @return Map con lista de próximas citas
+   * @return página con hasta size próximas citas (size entre 1 y 100)
    */
-  Map<String, Object> getUpcomingAppointments(LocalDate from, LocalDate to, Long dentistId);
+  CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> getUpcomingAppointments(
+      LocalDate from, LocalDate to, Long dentistId, String cursor, int size);
 
   /**
    * Obtiene el conteo de citas agrupado por estado, sin filtro. Delega en el trío (from, to,
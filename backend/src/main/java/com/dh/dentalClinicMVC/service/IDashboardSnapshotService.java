@@ -1,5 +1,6 @@
 package com.dh.dentalClinicMVC.service;
 
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
 import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
 import java.time.LocalDate;
 
@@ -10,4 +11,9 @@ public interface IDashboardSnapshotService {
   default DashboardSnapshotDTO getDashboardSnapshot() {
     return getDashboardSnapshot(null, null, null);
   }
+
+  // Página de próximos turnos que sigue al cursor (upcomingNextCursor del snapshot o nextCursor de
+  // la página anterior), con el mismo filtro y tamaño que la primera.
+  CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> getUpcomingAppointments(
+      LocalDate from, LocalDate to, Long dentistId, String cursor);
 }
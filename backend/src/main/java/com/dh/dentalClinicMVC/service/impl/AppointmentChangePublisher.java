@@ -0,0 +1,77 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.dto.AppointmentChangeEventDTO;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Anota los turnos que escribe {@code AppointmentServiceImpl} y los entrega a {@link
+ * AppointmentEventStream} recién después del commit, en el orden en que se escribieron: un cliente
+ * que refresca al recibir el aviso ya ve el cambio, y una transacción que se deshace no avisa nada.
+ * Fuera de una transacción el aviso sale en el acto.
+ */
+@Component
+public class AppointmentChangePublisher {
+
+  private final AppointmentEventStream eventStream;
+
+  public AppointmentChangePublisher(AppointmentEventStream eventStream) {
+    this.eventStream = eventStream;
+  }
+
+  public void created(
+      Long appointmentId, Long dentistId, LocalDate date, AppointmentStatus status) {
+    publish(appointmentId, dentistId, date, status.name(), "CREATED");
+  }
+
+  public void updated(
+      Long appointmentId, Long dentistId, LocalDate date, AppointmentStatus status) {
+    publish(appointmentId, dentistId, date, status.name(), "UPDATED");
+  }
+
+  public void deleted(Long appointmentId, Long dentistId, LocalDate date) {
+    publish(appointmentId, dentistId, date, null, "DELETED");
+  }
+
+  private void publish(
+      Long appointmentId, Long dentistId, LocalDate date, String status, String change) {
+    AppointmentChangeEventDTO event =
+        new AppointmentChangeEventDTO(appointmentId, dentistId, date.toString(), status, change);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      eventStream.broadcast(List.of(event));
+      return;
+    }
+    pendingInCurrentTransaction().add(event);
+  }
+
+  // Avisos de la transacción en curso; se entregan en su afterCommit.
+  @SuppressWarnings("unchecked")
+  private List<AppointmentChangeEventDTO> pendingInCurrentTransaction() {
+    List<AppointmentChangeEventDTO> pending =
+        (List<AppointmentChangeEventDTO>) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      List<AppointmentChangeEventDTO> events = new ArrayList<>();
+      TransactionSynchronizationManager.bindResource(this, events);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              eventStream.broadcast(events);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(
+                  AppointmentChangePublisher.this);
+            }
+          });
+      pending = events;
+    }
+    return pending;
+  }
+}
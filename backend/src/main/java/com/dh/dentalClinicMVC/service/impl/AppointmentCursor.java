@@ -0,0 +1,38 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.repository.AppointmentRow;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Posición de un turno en el orden (date, time, id) de la búsqueda por cursor. Se serializa como
+// base64url de "fecha|hora|id" para que el cliente lo trate como un valor opaco.
+record AppointmentCursor(LocalDate date, LocalTime time, Long id) {
+
+  static AppointmentCursor of(AppointmentRow row) {
+    return new AppointmentCursor(row.date(), row.time(), row.id());
+  }
+
+  String encode() {
+    String raw = date + "|" + time + "|" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static AppointmentCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split("\\|");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("Cursor inválido");
+      }
+      return new AppointmentCursor(
+          LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.parseLong(parts[2]));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new IllegalArgumentException("Cursor inválido");
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import com.dh.dentalClinicMVC.entity.Specialty;
+import com.dh.dentalClinicMVC.repository.ISpecialtyRepository;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+// Duración de un turno nuevo o editado: la pedida explícitamente; si no, la de la especialidad
+// indicada (que el odontólogo debe tener); si no, la de su única especialidad; si no, la general.
+@Component
+class AppointmentDurations {
+
+  private final ISpecialtyRepository specialtyRepository;
+
+  AppointmentDurations(ISpecialtyRepository specialtyRepository) {
+    this.specialtyRepository = specialtyRepository;
+  }
+
+  int resolve(Long dentistId, Integer durationMinutes, Long specialtyId) {
+    if (durationMinutes != null) {
+      return validate(durationMinutes);
+    }
+    return resolve(specialtiesOf(dentistId), specialtyId);
+  }
+
+  List<Specialty> specialtiesOf(Long dentistId) {
+    return specialtyRepository.findByDentistId(dentistId);
+  }
+
+  // Variante para lotes: las especialidades del odontólogo ya vienen cargadas.
+  static int resolve(List<Specialty> dentistSpecialties, Long specialtyId) {
+    Specialty specialty = null;
+    if (specialtyId != null) {
+      specialty =
+          dentistSpecialties.stream()
+              .filter(s -> s.getId().equals(specialtyId))
+              .findFirst()
+              .orElseThrow(
+                  () ->
+                      new IllegalArgumentException(
+                          "El odontólogo no atiende la especialidad con ID: " + specialtyId));
+    } else if (dentistSpecialties.size() == 1) {
+      specialty = dentistSpecialties.get(0);
+    }
+    return of(specialty);
+  }
+
+  // Duración por defecto de la especialidad, o la general si no tiene (o no hay especialidad).
+  static int of(Specialty specialty) {
+    return specialty != null && specialty.getDefaultDurationMinutes() != null
+        ? specialty.getDefaultDurationMinutes()
+        : Appointment.DEFAULT_DURATION_MINUTES;
+  }
+
+  static int validate(int durationMinutes) {
+    if (durationMinutes < Appointment.MIN_DURATION_MINUTES
+        || durationMinutes > Appointment.MAX_DURATION_MINUTES) {
+      throw new IllegalArgumentException(
+          "La duración debe estar entre "
+              + Appointment.MIN_DURATION_MINUTES
+              + " y "
+              + Appointment.MAX_DURATION_MINUTES
+              + " minutos");
+    }
+    return durationMinutes;
+  }
+}
@@ -0,0 +1,203 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.dto.AppointmentChangeEventDTO;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-Sent Events de turnos ({@code GET /appointments/events}): cada escritura confirmada sale
+ * como un evento {@code appointment} con el id del turno, el odontólogo, el día, el estado nuevo y
+ * el tipo de cambio, así la agenda y el dashboard refrescan sólo lo afectado en lugar de consultar
+ * cada pocos segundos.
+ *
+ * <p>{@link #broadcast} no escribe en ninguna conexión: deja el evento en la cola de cada
+ * suscriptor ({@code app.appointment-events.queue-capacity}, 64 por defecto) y vuelve, así el
+ * commit que lo origina no espera a ningún navegador. Cada suscriptor tiene un hilo virtual que
+ * vacía su cola; un cliente lento sólo se demora a sí mismo. Si su cola se llena, se descarta lo
+ * pendiente y se le manda un único evento {@code resync}: ya no sabe qué cambió y tiene que volver
+ * a pedir todo. Cada {@code heartbeat-ms} (15000) sale un comentario para que proxies y navegador
+ * no cierren la conexión ociosa y para detectar las que se cortaron.
+ *
+ * <p>Las conexiones se acotan a {@code max-subscribers} (200) y vencen a los {@code timeout-ms} (30
+ * minutos); el navegador reconecta solo y conviene que refresque al reconectar.
+ */
+@Component
+public class AppointmentEventStream {
+
+  private static final Logger log = LoggerFactory.getLogger(AppointmentEventStream.class);
+
+  private static final Object HEARTBEAT = new Object();
+  private static final Object RESYNC = new Object();
+
+  private final int queueCapacity;
+  private final int maxSubscribers;
+  private final long timeoutMillis;
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  public AppointmentEventStream(
+      @Value("${app.appointment-events.queue-capacity:64}") int queueCapacity,
+      @Value("${app.appointment-events.max-subscribers:200}") int maxSubscribers,
+      @Value("${app.appointment-events.timeout-ms:1800000}") long timeoutMillis) {
+    if (queueCapacity < 1 || maxSubscribers < 1 || timeoutMillis < 1) {
+      throw new IllegalStateException(
+          "app.appointment-events.queue-capacity, max-subscribers y timeout-ms deben ser"
+              + " positivos");
+    }
+    this.queueCapacity = queueCapacity;
+    this.maxSubscribers = maxSubscribers;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /** Eventos enviados, descartados por colas llenas y conexiones abiertas, desde el arranque. */
+  public record StreamMetrics(long delivered, long dropped, int subscribers) {}
+
+  // Conexión abierta: sólo recibe los turnos de dentistId, o todos si es null.
+  private final class Subscriber {
+    private final SseEmitter emitter;
+    private final Long dentistId;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+    private volatile Thread sender;
+
+    private Subscriber(SseEmitter emitter, Long dentistId) {
+      this.emitter = emitter;
+      this.dentistId = dentistId;
+    }
+
+    private boolean wants(AppointmentChangeEventDTO event) {
+      return dentistId == null || dentistId.equals(event.getDentistId());
+    }
+
+    // No espera al cliente. Con la cola llena lo pendiente ya no sirve de a uno: se reemplaza por
+    // resync, que queda solo en la cola y el cliente recibe aunque lleguen más eventos atrás.
+    private synchronized void offer(Object item) {
+      if (queue.offer(item)) {
+        return;
+      }
+      dropped.addAndGet(queue.size() + 1L);
+      queue.clear();
+      queue.offer(RESYNC);
+    }
+  }
+
+  /**
+   * Abre una conexión. Devuelve null si ya se alcanzó {@code max-subscribers}; el controller
+   * responde 503 y el navegador reintenta solo.
+   */
+  public SseEmitter subscribe(Long dentistId) {
+    return subscribe(new SseEmitter(timeoutMillis), dentistId);
+  }
+
+  SseEmitter subscribe(SseEmitter emitter, Long dentistId) {
+    if (subscribers.size() >= maxSubscribers) {
+      return null;
+    }
+    Subscriber subscriber = new Subscriber(emitter, dentistId);
+    emitter.onCompletion(() -> close(subscriber));
+    emitter.onTimeout(() -> close(subscriber));
+    emitter.onError(error -> close(subscriber));
+    subscribers.add(subscriber);
+    // Un primer comentario manda los encabezados en el acto: el navegador sabe que está conectado.
+    subscriber.offer(HEARTBEAT);
+    subscriber.sender =
+        Thread.ofVirtual().name("appointment-events").start(() -> drain(subscriber));
+    if (!subscribers.contains(subscriber)) {
+      // Se cerró antes de tener hilo: close no llegó a interrumpirlo.
+      subscriber.sender.interrupt();
+    }
+    return emitter;
+  }
+
+  /** Deja cada evento en la cola de los suscriptores interesados, sin esperar a ninguno. */
+  public void broadcast(List<AppointmentChangeEventDTO> events) {
+    if (events.isEmpty() || subscribers.isEmpty()) {
+      return;
+    }
+    for (AppointmentChangeEventDTO event : events) {
+      for (Subscriber subscriber : subscribers) {
+        if (subscriber.wants(event)) {
+          subscriber.offer(event);
+        }
+      }
+    }
+  }
+
+  // Un suscriptor con la cola ocupada ya tiene algo para mandar: no hace falta el latido.
+  @Scheduled(fixedDelayString = "${app.appointment-events.heartbeat-ms:15000}")
+  public void heartbeat() {
+    for (Subscriber subscriber : subscribers) {
+      if (subscriber.queue.isEmpty()) {
+        subscriber.offer(HEARTBEAT);
+      }
+    }
+  }
+
+  public StreamMetrics metrics() {
+    return new StreamMetrics(delivered.get(), dropped.get(), subscribers.size());
+  }
+
+  @PreDestroy
+  void shutdown() {
+    for (Subscriber subscriber : List.copyOf(subscribers)) {
+      subscriber.emitter.complete();
+      close(subscriber);
+    }
+  }
+
+  private void drain(Subscriber subscriber) {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        send(subscriber, subscriber.queue.take());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | IllegalStateException e) {
+      // El cliente se fue o el emitter ya estaba cerrado.
+      log.debug("AppointmentEventStream: se cierra una conexión: {}", e.toString());
+      subscriber.emitter.completeWithError(e);
+      close(subscriber);
+    }
+  }
+
+  private void send(Subscriber subscriber, Object item) throws IOException {
+    if (item == HEARTBEAT) {
+      subscriber.emitter.send(SseEmitter.event().comment("ping"));
+      return;
+    }
+    if (item == RESYNC) {
+      subscriber.emitter.send(
+          SseEmitter.event().id(Long.toString(sequence.incrementAndGet())).name("resync").data(""));
+      return;
+    }
+    subscriber.emitter.send(
+        SseEmitter.event()
+            .id(Long.toString(sequence.incrementAndGet()))
+            .name("appointment")
+            .data(item, MediaType.APPLICATION_JSON));
+    delivered.incrementAndGet();
+  }
+
+  private void close(Subscriber subscriber) {
+    if (subscribers.remove(subscriber)) {
+      Thread sender = subscriber.sender;
+      if (sender != null) {
+        sender.interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.repository.IAppointmentDailyRollupRepository;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reconstruye appointment_daily_rollup desde {@code appointments}: al arrancar, para el backfill (y
+ * para los turnos que siembran los inicializadores, que no pasan por los servicios), y todas las
+ * noches, para corregir la deriva que dejen escrituras por fuera de {@link AppointmentRollups}.
+ *
+ * <p>Recorre el rango con datos de a un mes calendario, cada uno en su propia transacción (borra
+ * las filas del mes y las vuelve a calcular con un INSERT ... SELECT agrupado), así los bloqueos
+ * sobre el rollup duran lo que tarda un mes y no la tabla entera.
+ *
+ * <p>Propiedades ({@code app.dashboard-rollup.*}): {@code rebuild-on-startup} (true por defecto) y
+ * {@code rebuild-cron} (03:30 todos los días).
+ */
+@Component
+public class AppointmentRollupRebuilder {
+
+  private static final Logger log = LoggerFactory.getLogger(AppointmentRollupRebuilder.class);
+
+  private final IAppointmentDailyRollupRepository rollupRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final CacheManager cacheManager;
+  private final DashboardDataVersion dataVersion;
+  private final boolean rebuildOnStartup;
+
+  private final AtomicReference<RebuildResult> lastRun = new AtomicReference<>();
+
+  public AppointmentRollupRebuilder(
+      IAppointmentDailyRollupRepository rollupRepository,
+      PlatformTransactionManager transactionManager,
+      CacheManager cacheManager,
+      DashboardDataVersion dataVersion,
+      @Value("${app.dashboard-rollup.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+    this.rollupRepository = rollupRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.cacheManager = cacheManager;
+    this.dataVersion = dataVersion;
+    this.rebuildOnStartup = rebuildOnStartup;
+  }
+
+  /** Resultado de una reconstrucción: rango recorrido, filas escritas, meses y duración. */
+  public record RebuildResult(
+      LocalDate from, LocalDate to, int rows, int months, long elapsedMillis) {}
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOnStartup() {
+    if (rebuildOnStartup) {
+      rebuildAll();
+    }
+  }
+
+  @Scheduled(cron = "${app.dashboard-rollup.rebuild-cron:0 30 3 * * *}")
+  public void rebuildScheduled() {
+    rebuildAll();
+  }
+
+  /** Reconstruye todos los días que tienen turnos o filas en el rollup. */
+  public RebuildResult rebuildAll() {
+    Optional<LocalDate[]> range = rollupRepository.rebuildableRange();
+    if (range.isEmpty()) {
+      log.info("AppointmentRollupRebuilder: no hay turnos, nada que reconstruir.");
+      return null;
+    }
+    return rebuild(range.get()[0], range.get()[1]);
+  }
+
+  /** Reconstruye las filas de [from, to], de a un mes por transacción. */
+  public RebuildResult rebuild(LocalDate from, LocalDate to) {
+    long start = System.nanoTime();
+    int rows = 0;
+    int months = 0;
+    for (LocalDate monthStart = from;
+        !monthStart.isAfter(to);
+        monthStart = monthStart.withDayOfMonth(1).plusMonths(1)) {
+      LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+      LocalDate chunkFrom = monthStart;
+      LocalDate chunkTo = monthEnd.isAfter(to) ? to : monthEnd;
+      rows += transactionTemplate.execute(status -> rollupRepository.rebuild(chunkFrom, chunkTo));
+      months++;
+    }
+
+    // Los snapshots cacheados se calcularon sobre los conteos anteriores.
+    Cache snapshots = cacheManager.getCache("dashboardSnapshot");
+    if (snapshots != null) {
+      snapshots.clear();
+    }
+    dataVersion.changed();
+
+    RebuildResult result =
+        new RebuildResult(from, to, rows, months, (System.nanoTime() - start) / 1_000_000);
+    lastRun.set(result);
+    log.info(
+        "AppointmentRollupRebuilder: {} fila(s) de {} a {} en {} mes(es), {} ms.",
+        rows,
+        from,
+        to,
+        months,
+        result.elapsedMillis());
+    return result;
+  }
+
+  public RebuildResult lastRun() {
+    return lastRun.get();
+  }
+}
@@ -0,0 +1,109 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.entity.AppointmentDailyRollup;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.repository.IAppointmentDailyRollupRepository;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Mantiene appointment_daily_rollup al ritmo de las escrituras de turnos. Cada alta, baja o cambio
+ * de día, odontólogo o estado se anota como un delta sobre su (día, odontólogo, estado); los deltas
+ * de una transacción se acumulan y se escriben juntos justo antes de su commit, dentro de ella: si
+ * la transacción se deshace, los conteos no cambian, y las filas del rollup quedan bloqueadas sólo
+ * lo que dura ese último paso. Fuera de una transacción el delta se escribe en el acto.
+ *
+ * <p>Como todas las escrituras de turnos pasan por acá, también avisa a {@link
+ * DashboardSnapshotEvictor} qué (odontólogo, día) cambió, para invalidar sólo los snapshots
+ * afectados.
+ *
+ * <p>Los servicios lo llaman recién después de que la escritura del turno salió bien, como último
+ * paso, así un error a mitad de camino no deja deltas anotados en una transacción que sigue viva.
+ */
+@Component
+public class AppointmentRollups {
+
+  private final IAppointmentDailyRollupRepository rollupRepository;
+  private final DashboardSnapshotEvictor snapshotEvictor;
+
+  public AppointmentRollups(
+      IAppointmentDailyRollupRepository rollupRepository,
+      DashboardSnapshotEvictor snapshotEvictor) {
+    this.rollupRepository = rollupRepository;
+    this.snapshotEvictor = snapshotEvictor;
+  }
+
+  public void added(Long dentistId, LocalDate date, AppointmentStatus status) {
+    record(dentistId, date, status, 1);
+  }
+
+  public void removed(Long dentistId, LocalDate date, AppointmentStatus status) {
+    record(dentistId, date, status, -1);
+  }
+
+  // Un turno que cambió de día, odontólogo o estado pasa de una fila del rollup a otra.
+  public void changed(
+      Long previousDentistId,
+      LocalDate previousDate,
+      AppointmentStatus previousStatus,
+      Long dentistId,
+      LocalDate date,
+      AppointmentStatus status) {
+    removed(previousDentistId, previousDate, previousStatus);
+    added(dentistId, date, status);
+  }
+
+  /**
+   * Como {@link #changed}, pero sin avisar a {@link DashboardSnapshotEvictor}: para escrituras
+   * masivas que invalidan el dashboard por su cuenta una sola vez al terminar, en lugar de un
+   * refresco por fila y por transacción.
+   */
+  public void changedWithoutEviction(
+      Long dentistId, LocalDate date, AppointmentStatus previousStatus, AppointmentStatus status) {
+    applyDelta(dentistId, date, previousStatus, -1);
+    applyDelta(dentistId, date, status, 1);
+  }
+
+  private void record(Long dentistId, LocalDate date, AppointmentStatus status, long delta) {
+    snapshotEvictor.appointmentsChanged(dentistId, date);
+    applyDelta(dentistId, date, status, delta);
+  }
+
+  private void applyDelta(Long dentistId, LocalDate date, AppointmentStatus status, long delta) {
+    AppointmentDailyRollup.Key key = new AppointmentDailyRollup.Key(date, dentistId, status);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      rollupRepository.applyDeltas(Map.of(key, delta));
+      return;
+    }
+    pendingInCurrentTransaction().merge(key, delta, Long::sum);
+  }
+
+  // Deltas acumulados de la transacción en curso; se escriben en su beforeCommit.
+  @SuppressWarnings("unchecked")
+  private Map<AppointmentDailyRollup.Key, Long> pendingInCurrentTransaction() {
+    Map<AppointmentDailyRollup.Key, Long> pending =
+        (Map<AppointmentDailyRollup.Key, Long>) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      Map<AppointmentDailyRollup.Key, Long> deltas = new HashMap<>();
+      TransactionSynchronizationManager.bindResource(this, deltas);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              rollupRepository.applyDeltas(deltas);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(AppointmentRollups.this);
+            }
+          });
+      pending = deltas;
+    }
+    return pending;
+  }
+}
@@ -0,0 +1,457 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesMoveDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesRequestDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesUpdateDTO;
+import com.dh.dentalClinicMVC.entity.Appointment;
+import com.dh.dentalClinicMVC.entity.AppointmentSeries;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.NonWorkingDayPolicy;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.RecurrenceFrequency;
+import com.dh.dentalClinicMVC.exception.DuplicateResourceException;
+import com.dh.dentalClinicMVC.exception.ResourceNotFoundException;
+import com.dh.dentalClinicMVC.repository.AppointmentRow;
+import com.dh.dentalClinicMVC.repository.AppointmentSpecifications;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import com.dh.dentalClinicMVC.repository.IAppointmentSeriesRepository;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import com.dh.dentalClinicMVC.service.IAppointmentSeriesService;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Series de turnos recurrentes. La regla se expande del lado del servidor, todas las ocurrencias se
+ * contrastan con la agenda del odontólogo en una sola consulta por rango y se guardan en un único
+ * batch JDBC. Cancelar o mover el resto de una serie también son una sola escritura.
+ */
+@Service
+public class AppointmentSeriesServiceImpl implements IAppointmentSeriesService {
+
+  private static final Sort SERIES_ORDER = Sort.by("date", "time", "id");
+
+  // Tope de períodos recorridos al expandir, para que una regla que cae siempre en días no
+  // hábiles (p. ej. todos los sábados con SKIP) no itere sin fin.
+  private static final int MAX_STEPS = 2 * AppointmentSeriesRequestDTO.MAX_OCCURRENCES;
+
+  private final IAppointmentRepository appointmentRepository;
+  private final IAppointmentSeriesRepository seriesRepository;
+  private final IDentistRepository dentistRepository;
+  private final IPatientRepository patientRepository;
+  private final AppointmentSlotIndex slotIndex;
+  private final ClinicCalendar clinicCalendar;
+  private final AppointmentDurations durations;
+  private final AppointmentRollups rollups;
+  private final AppointmentChangePublisher changePublisher;
+
+  public AppointmentSeriesServiceImpl(
+      IAppointmentRepository appointmentRepository,
+      IAppointmentSeriesRepository seriesRepository,
+      IDentistRepository dentistRepository,
+      IPatientRepository patientRepository,
+      AppointmentSlotIndex slotIndex,
+      ClinicCalendar clinicCalendar,
+      AppointmentDurations durations,
+      AppointmentRollups rollups,
+      AppointmentChangePublisher changePublisher) {
+    this.appointmentRepository = appointmentRepository;
+    this.seriesRepository = seriesRepository;
+    this.dentistRepository = dentistRepository;
+    this.patientRepository = patientRepository;
+    this.slotIndex = slotIndex;
+    this.clinicCalendar = clinicCalendar;
+    this.durations = durations;
+    this.rollups = rollups;
+    this.changePublisher = changePublisher;
+  }
+
+  // Intervalo [start, start + minutes) pedido para un turno de la serie.
+  private record Slot(LocalDateTime start, int minutes) {}
+
+  private record Expansion(List<LocalDate> dates, List<LocalDate> skipped) {}
+
+  @Override
+  @Transactional
+  public AppointmentSeriesDTO create(AppointmentSeriesRequestDTO request) {
+    Patient patient =
+        patientRepository
+            .findById(request.getPatientId())
+            .orElseThrow(
+                () ->
+                    new IllegalArgumentException(
+                        "Paciente no encontrado con ID: " + request.getPatientId()));
+
+    Dentist dentist =
+        dentistRepository
+            .findById(request.getDentistId())
+            .orElseThrow(
+                () ->
+                    new IllegalArgumentException(
+                        "Dentista no encontrado con ID: " + request.getDentistId()));
+
+    if ((request.getOccurrences() == null) == (request.getEndDate() == null)) {
+      throw new IllegalArgumentException("Se debe indicar occurrences o endDate (sólo uno)");
+    }
+
+    AppointmentSeries series = new AppointmentSeries();
+    series.setPatient(patient);
+    series.setDentist(dentist);
+    series.setFrequency(RecurrenceFrequency.valueOf(request.getFrequency()));
+    series.setInterval(request.getInterval() != null ? request.getInterval() : 1);
+    series.setStartDate(LocalDate.parse(request.getStartDate()));
+    series.setTime(LocalTime.parse(request.getTime()));
+    series.setOccurrences(request.getOccurrences());
+    series.setEndDate(request.getEndDate() != null ? LocalDate.parse(request.getEndDate()) : null);
+    series.setNonWorkingDays(
+        request.getNonWorkingDays() != null
+            ? NonWorkingDayPolicy.valueOf(request.getNonWorkingDays())
+            : NonWorkingDayPolicy.SKIP);
+    series.setDescription(request.getDescription());
+
+    if (series.getEndDate() != null && series.getEndDate().isBefore(series.getStartDate())) {
+      throw new IllegalArgumentException("La fecha final no puede ser anterior a la de inicio");
+    }
+
+    Expansion expansion = expand(series);
+    List<LocalDate> dates = expansion.dates();
+    if (dates.isEmpty()) {
+      throw new IllegalArgumentException(
+          "La serie no tiene turnos en días en que la clínica atiende");
+    }
+    int minutes =
+        durations.resolve(dentist.getId(), request.getDurationMinutes(), request.getSpecialtyId());
+    for (LocalDate date : dates) {
+      clinicCalendar.validate(date, series.getTime(), minutes);
+    }
+
+    // Toda la serie contra la agenda del odontólogo en una sola consulta por rango.
+    Map<LocalDate, BitSet> taken =
+        takenMinutes(dentist.getId(), dates.get(0), dates.get(dates.size() - 1), Set.of());
+    List<Slot> requested =
+        dates.stream().map(date -> new Slot(date.atTime(series.getTime()), minutes)).toList();
+    rejectConflicts(requested, taken);
+    reserveAll(dentist.getId(), requested);
+
+    seriesRepository.save(series);
+    List<Appointment> appointments = new ArrayList<>();
+    for (LocalDate date : dates) {
+      Appointment appointment = new Appointment();
+      appointment.setPatient(patient);
+      appointment.setDentist(dentist);
+      appointment.setDate(date);
+      appointment.setTime(series.getTime());
+      appointment.setDurationMinutes(minutes);
+      appointment.setDescription(series.getDescription());
+      appointment.setStatus(AppointmentStatus.SCHEDULED);
+      appointment.setSeries(series);
+      appointments.add(appointment);
+    }
+    try {
+      appointmentRepository.insertAll(appointments);
+    } catch (DataIntegrityViolationException e) {
+      throw SlotConflicts.translate(e);
+    }
+    dates.forEach(date -> rollups.added(dentist.getId(), date, AppointmentStatus.SCHEDULED));
+    appointments.forEach(
+        appointment ->
+            changePublisher.created(
+                appointment.getId(),
+                dentist.getId(),
+                appointment.getDate(),
+                AppointmentStatus.SCHEDULED));
+
+    return toDTO(
+        series,
+        appointments.stream().map(AppointmentServiceImpl::convertToDTO).toList(),
+        expansion.skipped().stream().map(LocalDate::toString).toList());
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public AppointmentSeriesDTO findById(Long id) throws ResourceNotFoundException {
+    AppointmentSeries series = findSeries(id);
+    List<AppointmentRow> rows =
+        appointmentRepository.findRows(
+            AppointmentSpecifications.hasSeriesId(id),
+            SERIES_ORDER,
+            AppointmentSeriesRequestDTO.MAX_OCCURRENCES,
+            false);
+    return toDTO(series, rows.stream().map(AppointmentServiceImpl::convertToDTO).toList(), null);
+  }
+
+  @Override
+  @Transactional
+  public AppointmentSeriesUpdateDTO cancelFrom(Long id, LocalDate from)
+      throws ResourceNotFoundException {
+    findSeries(id);
+    List<AppointmentRow> rows = pendingRows(id, from);
+    if (!rows.isEmpty()) {
+      appointmentRepository.updateStatusByIds(
+          rows.stream().map(AppointmentRow::id).toList(), AppointmentStatus.CANCELLED);
+      rows.forEach(
+          row ->
+              slotIndex.releaseOnCommit(
+                  row.dentistId(), row.date(), row.time(), row.durationMinutes()));
+      rows.forEach(
+          row ->
+              rollups.changed(
+                  row.dentistId(),
+                  row.date(),
+                  row.status(),
+                  row.dentistId(),
+                  row.date(),
+                  AppointmentStatus.CANCELLED));
+      rows.forEach(
+          row ->
+              changePublisher.updated(
+                  row.id(), row.dentistId(), row.date(), AppointmentStatus.CANCELLED));
+    }
+    return new AppointmentSeriesUpdateDTO(id, rows.size());
+  }
+
+  @Override
+  @Transactional
+  public AppointmentSeriesUpdateDTO moveFrom(Long id, AppointmentSeriesMoveDTO request)
+      throws ResourceNotFoundException {
+    findSeries(id);
+    int shiftDays = request.getShiftDays() != null ? request.getShiftDays() : 0;
+    LocalTime newTime = request.getTime() != null ? LocalTime.parse(request.getTime()) : null;
+    if (shiftDays == 0 && newTime == null) {
+      throw new IllegalArgumentException("Se debe indicar time o shiftDays");
+    }
+
+    List<AppointmentRow> rows =
+        pendingRows(id, request.getFrom() != null ? LocalDate.parse(request.getFrom()) : null);
+    if (rows.isEmpty()) {
+      return new AppointmentSeriesUpdateDTO(id, 0);
+    }
+
+    List<AppointmentRow> moved =
+        rows.stream()
+            .map(
+                row ->
+                    new AppointmentRow(
+                        row.id(),
+                        row.patientId(),
+                        row.dentistId(),
+                        row.date().plusDays(shiftDays),
+                        newTime != null ? newTime : row.time(),
+                        row.description(),
+                        row.status(),
+                        row.durationMinutes()))
+            .toList();
+    for (AppointmentRow row : moved) {
+      clinicCalendar.validate(row.date(), row.time(), row.durationMinutes());
+    }
+
+    // Cada turno se contrasta con la agenda de su propio odontólogo: uno de la serie puede haber
+    // pasado a otro con PUT /appointments. Los horarios que la serie deja libres no cuentan como
+    // conflicto.
+    Set<Long> own = rows.stream().map(AppointmentRow::id).collect(Collectors.toSet());
+    Map<Long, List<Slot>> requested = new LinkedHashMap<>();
+    for (AppointmentRow row : moved) {
+      requested
+          .computeIfAbsent(row.dentistId(), dentistId -> new ArrayList<>())
+          .add(new Slot(row.date().atTime(row.time()), row.durationMinutes()));
+    }
+    List<String> conflicts = new ArrayList<>();
+    requested.forEach(
+        (dentistId, slots) ->
+            conflicts.addAll(
+                conflicts(
+                    slots,
+                    takenMinutes(
+                        dentistId,
+                        slots.get(0).start().toLocalDate(),
+                        slots.get(slots.size() - 1).start().toLocalDate(),
+                        own))));
+    rejectIfAny(conflicts);
+
+    rows.forEach(
+        row ->
+            slotIndex.releaseOnCommit(
+                row.dentistId(), row.date(), row.time(), row.durationMinutes()));
+    requested.forEach(this::reserveAll);
+    // La base verifica la restricción única fila por fila: al correr hacia adelante se actualiza
+    // desde el último turno, así ninguno pisa ni de paso el horario de otro de la misma serie.
+    try {
+      appointmentRepository.updateSlots(shiftDays > 0 ? moved.reversed() : moved);
+    } catch (DataIntegrityViolationException e) {
+      throw SlotConflicts.translate(e);
+    }
+    // También con sólo un cambio de hora: el delta se anula, pero avisa al dashboard qué días
+    // cambiaron (próximos turnos y turnos de hoy muestran la hora).
+    for (int i = 0; i < rows.size(); i++) {
+      rollups.changed(
+          rows.get(i).dentistId(),
+          rows.get(i).date(),
+          rows.get(i).status(),
+          moved.get(i).dentistId(),
+          moved.get(i).date(),
+          moved.get(i).status());
+    }
+    moved.forEach(
+        row -> changePublisher.updated(row.id(), row.dentistId(), row.date(), row.status()));
+
+    return new AppointmentSeriesUpdateDTO(id, moved.size());
+  }
+
+  // Fechas de la serie según su regla. Con SKIP, una ocurrencia en día no hábil se omite y no
+  // cuenta para occurrences; con SHIFT se corre al próximo día hábil, salvo que así alcance a la
+  // ocurrencia siguiente.
+  private Expansion expand(AppointmentSeries series) {
+    List<LocalDate> dates = new ArrayList<>();
+    List<LocalDate> skipped = new ArrayList<>();
+    Integer occurrences = series.getOccurrences();
+    LocalDate endDate = series.getEndDate();
+
+    for (int step = 0; step < MAX_STEPS; step++) {
+      if (occurrences != null && dates.size() == occurrences) {
+        break;
+      }
+      LocalDate nominal =
+          series
+              .getFrequency()
+              .occurrence(series.getStartDate(), (long) step * series.getInterval());
+      if (endDate != null && nominal.isAfter(endDate)) {
+        break;
+      }
+
+      LocalDate date = nominal;
+      if (!clinicCalendar.isOpen(nominal)) {
+        if (series.getNonWorkingDays() == NonWorkingDayPolicy.SKIP) {
+          skipped.add(nominal);
+          continue;
+        }
+        date = clinicCalendar.nextOpenDay(nominal);
+      }
+      if ((endDate != null && date.isAfter(endDate))
+          || (!dates.isEmpty() && !date.isAfter(dates.get(dates.size() - 1)))) {
+        skipped.add(nominal);
+        continue;
+      }
+      dates.add(date);
+    }
+
+    if (dates.size() > AppointmentSeriesRequestDTO.MAX_OCCURRENCES) {
+      throw new IllegalArgumentException(
+          "La serie no puede superar los "
+              + AppointmentSeriesRequestDTO.MAX_OCCURRENCES
+              + " turnos");
+    }
+    return new Expansion(dates, skipped);
+  }
+
+  // Minutos ocupados por día del odontólogo en [from, to] (una sola consulta), sin contar los
+  // turnos de ignored.
+  private Map<LocalDate, BitSet> takenMinutes(
+      Long dentistId, LocalDate from, LocalDate to, Set<Long> ignored) {
+    Map<LocalDate, BitSet> taken = new HashMap<>();
+    for (Object[] row :
+        appointmentRepository.findSlotsByDentistBetween(
+            dentistId, from, to, AppointmentStatus.CANCELLED)) {
+      LocalTime time = (LocalTime) row[2];
+      if (ignored.contains((Long) row[0]) || !ClinicSchedule.isWithinHours(time)) {
+        continue;
+      }
+      int start = ClinicSchedule.minuteOfGrid(time);
+      taken
+          .computeIfAbsent((LocalDate) row[1], date -> new BitSet())
+          .set(start, start + (Integer) row[3]);
+    }
+    return taken;
+  }
+
+  private void rejectConflicts(List<Slot> requested, Map<LocalDate, BitSet> taken) {
+    rejectIfAny(conflicts(requested, taken));
+  }
+
+  // Horarios pedidos que se superponen con los ocupados de ese odontólogo.
+  private static List<String> conflicts(List<Slot> requested, Map<LocalDate, BitSet> taken) {
+    return requested.stream()
+        .filter(
+            slot -> {
+              BitSet day = taken.get(slot.start().toLocalDate());
+              if (day == null) {
+                return false;
+              }
+              int start = ClinicSchedule.minuteOfGrid(slot.start().toLocalTime());
+              int next = day.nextSetBit(start);
+              return next >= 0 && next < start + slot.minutes();
+            })
+        .map(slot -> format(slot.start()))
+        .toList();
+  }
+
+  private static void rejectIfAny(List<String> conflicts) {
+    if (!conflicts.isEmpty()) {
+      throw new DuplicateResourceException(
+          "El odontólogo ya tiene turnos en: " + String.join(", ", conflicts));
+    }
+  }
+
+  // Toma los horarios en el índice de ocupación; si otra reserva se adelantó desde la consulta, el
+  // rollback libera los que sí se tomaron.
+  private void reserveAll(Long dentistId, List<Slot> slots) {
+    for (Slot slot : slots) {
+      LocalDateTime start = slot.start();
+      if (!slotIndex.tryReserve(
+          dentistId, start.toLocalDate(), start.toLocalTime(), slot.minutes())) {
+        throw new DuplicateResourceException("El odontólogo ya tiene turnos en: " + format(start));
+      }
+    }
+  }
+
+  private static String format(LocalDateTime slot) {
+    return slot.toLocalDate() + " " + slot.toLocalTime();
+  }
+
+  // Turnos todavía SCHEDULED de la serie desde from (hoy si es null), en orden de fecha y hora.
+  private List<AppointmentRow> pendingRows(Long seriesId, LocalDate from) {
+    return appointmentRepository.findRows(
+        Specification.allOf(
+            AppointmentSpecifications.hasSeriesId(seriesId),
+            AppointmentSpecifications.hasStatus(AppointmentStatus.SCHEDULED),
+            AppointmentSpecifications.dateFrom(from != null ? from : LocalDate.now())),
+        SERIES_ORDER,
+        AppointmentSeriesRequestDTO.MAX_OCCURRENCES,
+        false);
+  }
+
+  private AppointmentSeries findSeries(Long id) throws ResourceNotFoundException {
+    return seriesRepository
+        .findById(id)
+        .orElseThrow(() -> new ResourceNotFoundException("No se encontró la serie con id: " + id));
+  }
+
+  private static AppointmentSeriesDTO toDTO(
+      AppointmentSeries series, List<AppointmentDTO> appointments, List<String> skippedDates) {
+    return new AppointmentSeriesDTO(
+        series.getId(),
+        series.getDentist().getId(),
+        series.getPatient().getId(),
+        series.getFrequency().name(),
+        series.getInterval(),
+        series.getNonWorkingDays().name(),
+        appointments,
+        skippedDates);
+  }
+}
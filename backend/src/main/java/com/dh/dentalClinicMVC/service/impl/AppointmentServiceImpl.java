@@ -1,50 +1,103 @@
 package com.dh.dentalClinicMVC.service.impl;
 
+import com.dh.dentalClinicMVC.dto.AppointmentBatchResultDTO;
 import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentStatusBulkResultDTO;
+import com.dh.dentalClinicMVC.dto.AvailabilityDTO;
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
+import com.dh.dentalClinicMVC.dto.NextAvailableSlotDTO;
 import com.dh.dentalClinicMVC.entity.Appointment;
 import com.dh.dentalClinicMVC.entity.AppointmentStatus;
 import com.dh.dentalClinicMVC.entity.Dentist;
 import com.dh.dentalClinicMVC.entity.Patient;
 import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.entity.Specialty;
 import com.dh.dentalClinicMVC.exception.DuplicateResourceException;
 import com.dh.dentalClinicMVC.exception.InvalidStatusTransitionException;
 import com.dh.dentalClinicMVC.exception.ResourceNotFoundException;
 import com.dh.dentalClinicMVC.exception.StalePrincipalException;
+import com.dh.dentalClinicMVC.repository.AppointmentRow;
+import com.dh.dentalClinicMVC.repository.AppointmentSpecifications;
 import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
 import com.dh.dentalClinicMVC.repository.IDentistRepository;
 import com.dh.dentalClinicMVC.repository.IPatientRepository;
 import com.dh.dentalClinicMVC.service.IAppointmentService;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import org.springframework.cache.annotation.CacheEvict;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AppointmentServiceImpl implements IAppointmentService {
 
+  private static final int MAX_AVAILABILITY_DAYS = 31;
+  private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+  private static final Sort KEYSET_ORDER = Sort.by("date", "time", "id");
+  private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
   private final IAppointmentRepository appointmentRepository;
   private final IDentistRepository dentistRepository;
   private final IPatientRepository patientRepository;
+  private final AppointmentSlotIndex slotIndex;
+  private final ClinicCalendar clinicCalendar;
+  private final AppointmentDurations durations;
+  private final DentistBookingQueue bookingQueue;
+  private final NextAvailableSlotFinder nextAvailableSlotFinder;
+  private final AppointmentRollups rollups;
+  private final AppointmentChangePublisher changePublisher;
 
   public AppointmentServiceImpl(
       IAppointmentRepository appointmentRepository,
       IDentistRepository dentistRepository,
-      IPatientRepository patientRepository) {
+      IPatientRepository patientRepository,
+      AppointmentSlotIndex slotIndex,
+      ClinicCalendar clinicCalendar,
+      AppointmentDurations durations,
+      DentistBookingQueue bookingQueue,
+      NextAvailableSlotFinder nextAvailableSlotFinder,
+      AppointmentRollups rollups,
+      AppointmentChangePublisher changePublisher) {
     this.appointmentRepository = appointmentRepository;
     this.dentistRepository = dentistRepository;
     this.patientRepository = patientRepository;
+    this.slotIndex = slotIndex;
+    this.clinicCalendar = clinicCalendar;
+    this.durations = durations;
+    this.bookingQueue = bookingQueue;
+    this.nextAvailableSlotFinder = nextAvailableSlotFinder;
+    this.rollups = rollups;
+    this.changePublisher = changePublisher;
   }
 
+  // Con app.booking.mode=queued el alta se serializa en la cola del odontólogo (ver
+  // DentistBookingQueue); en modo directo corre acá mismo, en su propia transacción.
   @Override
-  @CacheEvict(cacheNames = "dashboardSnapshot", allEntries = true)
   public AppointmentDTO save(AppointmentDTO appointmentDTO) {
+    return bookingQueue.execute(appointmentDTO.getDentist_id(), () -> doSave(appointmentDTO));
+  }
+
+  private AppointmentDTO doSave(AppointmentDTO appointmentDTO) {
     Patient patient =
         patientRepository
             .findById(appointmentDTO.getPatient_id())
@@ -65,30 +118,176 @@ public class AppointmentServiceImpl implements IAppointmentService {
     appointment.setPatient(patient);
     appointment.setDentist(dentist);
 
-    ValidatedSchedule schedule =
-        validateSchedule(appointmentDTO.getDate(), appointmentDTO.getTime(), null);
-
-    if (appointmentRepository.existsByDentist_IdAndDateAndTimeAndStatusNot(
-        dentist.getId(), schedule.date(), schedule.time(), AppointmentStatus.CANCELLED)) {
-      throw new DuplicateResourceException("El odontólogo ya tiene un turno en esa fecha y hora");
-    }
+    ClinicCalendar.ValidatedSchedule schedule =
+        clinicCalendar.validate(appointmentDTO.getDate(), appointmentDTO.getTime(), null, null);
 
     appointment.setDate(schedule.date());
     appointment.setTime(schedule.time());
+    appointment.setDurationMinutes(
+        durations.resolve(
+            dentist.getId(),
+            appointmentDTO.getDurationMinutes(),
+            appointmentDTO.getSpecialty_id()));
+    clinicCalendar.validateEnd(schedule.time(), appointment.getDurationMinutes());
     appointment.setDescription(appointmentDTO.getDescription());
+    appointment.setStatus(initialStatus(appointmentDTO.getStatus()));
 
-    if (appointmentDTO.getStatus() != null) {
+    // El chequeo de superposición se resuelve contra el índice en memoria; un turno activo además
+    // reserva su intervalo, que el rollback libera si el insert falla. La restricción única de la
+    // base es la garantía final ante altas concurrentes a la misma hora que el índice no vio.
+    boolean active = appointment.getStatus() != AppointmentStatus.CANCELLED;
+    claimSlot(appointment, active);
+
+    Appointment saved;
+    try {
+      saved = appointmentRepository.save(appointment);
+    } catch (DataIntegrityViolationException e) {
+      throw SlotConflicts.translate(e);
+    }
+    rollups.added(dentist.getId(), saved.getDate(), saved.getStatus());
+    changePublisher.created(saved.getId(), dentist.getId(), saved.getDate(), saved.getStatus());
+    return convertToDTO(saved);
+  }
+
+  @Override
+  @Transactional
+  public AppointmentBatchResultDTO saveBatch(List<AppointmentDTO> appointmentDTOs) {
+    // Pacientes y odontólogos de todo el lote en una consulta por tabla.
+    Map<Long, Patient> patients =
+        patientRepository
+            .findAllById(distinctIds(appointmentDTOs, AppointmentDTO::getPatient_id))
+            .stream()
+            .collect(Collectors.toMap(Patient::getId, Function.identity()));
+    Map<Long, Dentist> dentists =
+        dentistRepository
+            .findAllById(distinctIds(appointmentDTOs, AppointmentDTO::getDentist_id))
+            .stream()
+            .collect(Collectors.toMap(Dentist::getId, Function.identity()));
+
+    AppointmentBatchResultDTO.ItemResultDTO[] results =
+        new AppointmentBatchResultDTO.ItemResultDTO[appointmentDTOs.size()];
+    List<BatchSlot> claimedInBatch = new ArrayList<>();
+    Map<Long, List<Specialty>> specialties = new HashMap<>();
+    List<Appointment> accepted = new ArrayList<>();
+    List<Integer> acceptedIndexes = new ArrayList<>();
+
+    for (int i = 0; i < appointmentDTOs.size(); i++) {
+      AppointmentDTO appointmentDTO = appointmentDTOs.get(i);
       try {
-        appointment.setStatus(AppointmentStatus.valueOf(appointmentDTO.getStatus()));
-      } catch (IllegalArgumentException e) {
-        appointment.setStatus(AppointmentStatus.SCHEDULED);
+        Patient patient = patients.get(appointmentDTO.getPatient_id());
+        if (patient == null) {
+          throw new IllegalArgumentException(
+              "Paciente no encontrado con ID: " + appointmentDTO.getPatient_id());
+        }
+        Dentist dentist = dentists.get(appointmentDTO.getDentist_id());
+        if (dentist == null) {
+          throw new IllegalArgumentException(
+              "Dentista no encontrado con ID: " + appointmentDTO.getDentist_id());
+        }
+        ClinicCalendar.ValidatedSchedule schedule =
+            clinicCalendar.validate(appointmentDTO.getDate(), appointmentDTO.getTime(), null, null);
+        // Las especialidades de cada odontólogo se consultan una vez por lote, y sólo si algún
+        // ítem no trae duración.
+        int minutes =
+            appointmentDTO.getDurationMinutes() != null
+                ? AppointmentDurations.validate(appointmentDTO.getDurationMinutes())
+                : AppointmentDurations.resolve(
+                    specialties.computeIfAbsent(dentist.getId(), durations::specialtiesOf),
+                    appointmentDTO.getSpecialty_id());
+        clinicCalendar.validateEnd(schedule.time(), minutes);
+        AppointmentStatus status = initialStatus(appointmentDTO.getStatus());
+        boolean active = status != AppointmentStatus.CANCELLED;
+
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setDentist(dentist);
+        appointment.setDate(schedule.date());
+        appointment.setTime(schedule.time());
+        appointment.setDurationMinutes(minutes);
+        appointment.setDescription(appointmentDTO.getDescription());
+        appointment.setStatus(status);
+
+        // Primero los choques dentro del propio lote, para informar con qué ítem; después el
+        // índice de ocupación, igual que en save.
+        BatchSlot slot =
+            new BatchSlot(
+                i,
+                dentist.getId(),
+                schedule.date(),
+                schedule.time(),
+                schedule.time().plusMinutes(minutes));
+        if (active) {
+          for (BatchSlot other : claimedInBatch) {
+            if (other.overlaps(slot)) {
+              throw new DuplicateResourceException(
+                  "El odontólogo ya tiene el ítem "
+                      + other.index()
+                      + " del lote en esa fecha y hora");
+            }
+          }
+        }
+        claimSlot(appointment, active);
+        if (active) {
+          claimedInBatch.add(slot);
+        }
+        accepted.add(appointment);
+        acceptedIndexes.add(i);
+      } catch (IllegalArgumentException | DuplicateResourceException e) {
+        results[i] =
+            new AppointmentBatchResultDTO.ItemResultDTO(i, "REJECTED", null, e.getMessage());
       }
-    } else {
-      appointment.setStatus(AppointmentStatus.SCHEDULED); // Default
     }
 
-    Appointment savedAppointment = appointmentRepository.save(appointment);
-    return convertToDTO(savedAppointment);
+    // Si el insert falla, el rollback de la transacción libera las reservas del índice.
+    try {
+      appointmentRepository.insertAll(accepted);
+    } catch (DataIntegrityViolationException e) {
+      throw SlotConflicts.translate(e);
+    }
+    for (Appointment appointment : accepted) {
+      Long dentistId = appointment.getDentist().getId();
+      rollups.added(dentistId, appointment.getDate(), appointment.getStatus());
+      changePublisher.created(
+          appointment.getId(), dentistId, appointment.getDate(), appointment.getStatus());
+    }
+    for (int j = 0; j < accepted.size(); j++) {
+      int index = acceptedIndexes.get(j);
+      results[index] =
+          new AppointmentBatchResultDTO.ItemResultDTO(
+              index, "CREATED", convertToDTO(accepted.get(j)), null);
+    }
+
+    return new AppointmentBatchResultDTO(
+        accepted.size(), appointmentDTOs.size() - accepted.size(), List.of(results));
+  }
+
+  // Intervalo [start, end) que un ítem activo del lote ya tomó.
+  private record BatchSlot(
+      int index, Long dentistId, LocalDate date, LocalTime start, LocalTime end) {
+
+    boolean overlaps(BatchSlot other) {
+      return dentistId.equals(other.dentistId)
+          && date.equals(other.date)
+          && start.isBefore(other.end)
+          && other.start.isBefore(end);
+    }
+  }
+
+  private static List<Long> distinctIds(
+      List<AppointmentDTO> appointmentDTOs, Function<AppointmentDTO, Long> id) {
+    return appointmentDTOs.stream().map(id).filter(Objects::nonNull).distinct().toList();
+  }
+
+  // Un estado desconocido o ausente deja el turno como SCHEDULED.
+  private static AppointmentStatus initialStatus(String status) {
+    if (status == null) {
+      return AppointmentStatus.SCHEDULED;
+    }
+    try {
+      return AppointmentStatus.valueOf(status);
+    } catch (IllegalArgumentException e) {
+      return AppointmentStatus.SCHEDULED;
+    }
   }
 
   @Override
@@ -101,9 +300,13 @@ public class AppointmentServiceImpl implements IAppointmentService {
     return Optional.empty();
   }
 
+  // Se encola por el odontólogo destino: es el horario que se reserva. El que se libera no compite.
   @Override
-  @CacheEvict(cacheNames = "dashboardSnapshot", allEntries = true)
   public AppointmentDTO update(AppointmentDTO appointmentDTO) throws ResourceNotFoundException {
+    return bookingQueue.execute(appointmentDTO.getDentist_id(), () -> doUpdate(appointmentDTO));
+  }
+
+  private AppointmentDTO doUpdate(AppointmentDTO appointmentDTO) throws ResourceNotFoundException {
     Appointment existing =
         appointmentRepository
             .findById(appointmentDTO.getId())
@@ -125,88 +328,138 @@ public class AppointmentServiceImpl implements IAppointmentService {
                     new ResourceNotFoundException(
                         "Dentista no encontrado con ID: " + appointmentDTO.getDentist_id()));
 
-    existing.setPatient(patient);
-    existing.setDentist(dentist);
-
-    ValidatedSchedule schedule =
-        validateSchedule(appointmentDTO.getDate(), appointmentDTO.getTime(), existing);
-
-    if (appointmentRepository.existsByDentist_IdAndDateAndTimeAndStatusNotAndIdNot(
-        dentist.getId(),
-        schedule.date(),
-        schedule.time(),
-        AppointmentStatus.CANCELLED,
-        existing.getId())) {
-      throw new DuplicateResourceException("El odontólogo ya tiene un turno en esa fecha y hora");
+    Long previousDentistId = existing.getDentist().getId();
+    LocalDate previousDate = existing.getDate();
+    LocalTime previousTime = existing.getTime();
+    int previousMinutes = existing.getDurationMinutes();
+    AppointmentStatus previousStatus = existing.getStatus();
+    boolean wasActive = existing.getStatus() != AppointmentStatus.CANCELLED;
+
+    // Todo se valida y el horario se toma antes de tocar la entidad: en modo encolado el pedido
+    // comparte la transacción con otros del grupo, y un rechazo a mitad de camino dejaría la
+    // entidad administrada cambiada para el commit del grupo.
+    ClinicCalendar.ValidatedSchedule schedule =
+        clinicCalendar.validate(
+            appointmentDTO.getDate(), appointmentDTO.getTime(), previousDate, previousTime);
+    // Sin duración ni especialidad en el pedido, el turno conserva la que tenía.
+    int minutes =
+        appointmentDTO.getDurationMinutes() != null || appointmentDTO.getSpecialty_id() != null
+            ? durations.resolve(
+                dentist.getId(),
+                appointmentDTO.getDurationMinutes(),
+                appointmentDTO.getSpecialty_id())
+            : previousMinutes;
+    // Como con la hora ya pasada, conservar el propio horario no falla: los turnos anteriores a
+    // esta regla pueden terminar después del cierre.
+    boolean sameSlot =
+        schedule.date().equals(previousDate)
+            && schedule.time().equals(previousTime)
+            && minutes == previousMinutes;
+    if (!sameSlot) {
+      clinicCalendar.validateEnd(schedule.time(), minutes);
     }
-
-    existing.setDate(schedule.date());
-    existing.setTime(schedule.time());
-    existing.setDescription(appointmentDTO.getDescription());
-
+    AppointmentStatus status = previousStatus;
     if (appointmentDTO.getStatus() != null) {
       try {
-        existing.setStatus(AppointmentStatus.valueOf(appointmentDTO.getStatus()));
+        status = AppointmentStatus.valueOf(appointmentDTO.getStatus());
       } catch (IllegalArgumentException e) {
-        existing.setStatus(AppointmentStatus.SCHEDULED);
+        status = AppointmentStatus.SCHEDULED;
       }
     }
 
-    appointmentRepository.save(existing);
-    return convertToDTO(existing);
-  }
-
-  private record ValidatedSchedule(LocalDate date, LocalTime time) {}
-
-  private ValidatedSchedule validateSchedule(String dateStr, String timeStr, Appointment existing) {
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    LocalDate date;
-    try {
-      date = LocalDate.parse(dateStr, dateFormatter);
-    } catch (DateTimeParseException e) {
-      throw new IllegalArgumentException("Fecha inválida: " + dateStr);
+    // El intervalo anterior se libera antes de tomar el nuevo: dentro de la transacción sus
+    // minutos quedan disponibles para el propio turno (correrlo 15 minutos no choca consigo
+    // mismo), y para el resto recién con el commit. Si el nuevo no está libre, la liberación se
+    // retira.
+    if (wasActive) {
+      slotIndex.releaseOnCommit(previousDentistId, previousDate, previousTime, previousMinutes);
     }
-
-    LocalDate today = LocalDate.now();
-    if (date.isBefore(today)) {
-      throw new IllegalArgumentException("La fecha no puede ser anterior a hoy");
+    try {
+      claimSlot(
+          dentist.getId(),
+          schedule.date(),
+          schedule.time(),
+          minutes,
+          status != AppointmentStatus.CANCELLED);
+    } catch (DuplicateResourceException e) {
+      if (wasActive) {
+        slotIndex.cancelRelease(previousDentistId, previousDate, previousTime, previousMinutes);
+      }
+      throw e;
     }
 
-    if (date.getDayOfWeek() == java.time.DayOfWeek.SATURDAY
-        || date.getDayOfWeek() == java.time.DayOfWeek.SUNDAY) {
-      throw new IllegalArgumentException("Solo se pueden programar citas de lunes a viernes");
-    }
+    existing.setPatient(patient);
+    existing.setDentist(dentist);
+    existing.setDate(schedule.date());
+    existing.setTime(schedule.time());
+    existing.setDurationMinutes(minutes);
+    existing.setDescription(appointmentDTO.getDescription());
+    existing.setStatus(status);
 
-    DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-    LocalTime time;
+    // saveAndFlush: si la base rechaza el horario, que falle acá y no al confirmar.
     try {
-      time = LocalTime.parse(timeStr, timeFormatter);
-    } catch (DateTimeParseException e) {
-      throw new IllegalArgumentException("Hora inválida: " + timeStr);
+      appointmentRepository.saveAndFlush(existing);
+    } catch (DataIntegrityViolationException e) {
+      throw SlotConflicts.translate(e);
     }
+    rollups.changed(
+        previousDentistId,
+        previousDate,
+        previousStatus,
+        dentist.getId(),
+        existing.getDate(),
+        existing.getStatus());
+    changePublisher.updated(
+        existing.getId(), dentist.getId(), existing.getDate(), existing.getStatus());
+    return convertToDTO(existing);
+  }
 
-    if (time.isBefore(LocalTime.of(8, 0)) || time.isAfter(LocalTime.of(18, 0))) {
-      throw new IllegalArgumentException("La hora debe estar entre 08:00 y 18:00");
-    }
+  // Verifica el intervalo del turno contra el índice de ocupación; si el turno queda activo, además
+  // lo reserva.
+  private void claimSlot(Appointment appointment, boolean active) {
+    claimSlot(
+        appointment.getDentist().getId(),
+        appointment.getDate(),
+        appointment.getTime(),
+        appointment.getDurationMinutes(),
+        active);
+  }
 
-    if (date.equals(today) && time.isBefore(LocalTime.now())) {
-      if (existing == null
-          || !(existing.getDate().equals(date) && existing.getTime().equals(time))) {
-        throw new IllegalArgumentException("La hora seleccionada ya pasó");
-      }
+  private void claimSlot(
+      Long dentistId, LocalDate date, LocalTime time, int minutes, boolean active) {
+    boolean free =
+        active
+            ? slotIndex.tryReserve(dentistId, date, time, minutes)
+            : !slotIndex.isOccupied(dentistId, date, time, minutes);
+    if (!free) {
+      throw SlotConflicts.slotTaken();
     }
-
-    return new ValidatedSchedule(date, time);
   }
 
   @Override
-  @CacheEvict(cacheNames = "dashboardSnapshot", allEntries = true)
+  @Transactional
   public Optional<AppointmentDTO> delete(Long id) throws ResourceNotFoundException {
     Optional<Appointment> appointment = appointmentRepository.findById(id);
 
     if (appointment.isPresent()) {
       AppointmentDTO appointmentDTO = convertToDTO(appointment.get());
+      // Flush inmediato: un alta posterior en la misma transacción no debe chocar en la
+      // restricción única con la fila que ya se borró.
       appointmentRepository.deleteById(id);
+      appointmentRepository.flush();
+      if (appointment.get().getStatus() != AppointmentStatus.CANCELLED) {
+        slotIndex.releaseOnCommit(
+            appointment.get().getDentist().getId(),
+            appointment.get().getDate(),
+            appointment.get().getTime(),
+            appointment.get().getDurationMinutes());
+      }
+      rollups.removed(
+          appointment.get().getDentist().getId(),
+          appointment.get().getDate(),
+          appointment.get().getStatus());
+      changePublisher.deleted(
+          id, appointment.get().getDentist().getId(), appointment.get().getDate());
       return Optional.of(appointmentDTO);
     } else {
       throw new ResourceNotFoundException("No se encontró el turno con id: " + id);
@@ -214,7 +467,7 @@ public class AppointmentServiceImpl implements IAppointmentService {
   }
 
   @Override
-  @CacheEvict(cacheNames = "dashboardSnapshot", allEntries = true)
+  @Transactional
   public AppointmentDTO updateStatus(Long id, AppointmentStatus status)
       throws ResourceNotFoundException {
     Appointment appointment =
@@ -225,44 +478,216 @@ public class AppointmentServiceImpl implements IAppointmentService {
     if (!appointment.getStatus().canTransitionTo(status)) {
       throw new InvalidStatusTransitionException(appointment.getStatus(), status);
     }
+    AppointmentStatus previousStatus = appointment.getStatus();
+    boolean cancelling =
+        status == AppointmentStatus.CANCELLED && previousStatus != AppointmentStatus.CANCELLED;
     appointment.setStatus(status);
-    Appointment saved = appointmentRepository.save(appointment);
+    // saveAndFlush por la misma razón que en delete: la cancelación libera el horario en la base
+    // antes de que otra alta de la transacción lo reutilice.
+    Appointment saved = appointmentRepository.saveAndFlush(appointment);
+    if (cancelling) {
+      slotIndex.releaseOnCommit(
+          saved.getDentist().getId(), saved.getDate(), saved.getTime(), saved.getDurationMinutes());
+    }
+    rollups.changed(
+        saved.getDentist().getId(),
+        saved.getDate(),
+        previousStatus,
+        saved.getDentist().getId(),
+        saved.getDate(),
+        status);
+    changePublisher.updated(saved.getId(), saved.getDentist().getId(), saved.getDate(), status);
     return convertToDTO(saved);
   }
 
+  // Una consulta para cargar y validar todos los turnos, un UPDATE por estado destino (en el cierre
+  // del día, uno solo) y una única invalidación del snapshot.
   @Override
-  public List<AppointmentDTO> findAll() {
-    List<Appointment> appointments = appointmentRepository.findAll();
-    List<AppointmentDTO> appointmentDTOs = new ArrayList<>();
+  @Transactional
+  public AppointmentStatusBulkResultDTO updateStatuses(
+      Map<Long, AppointmentStatus> changes, Long dentistId) throws ResourceNotFoundException {
+    Map<Long, AppointmentRow> rows =
+        appointmentRepository
+            .findRows(AppointmentSpecifications.hasIdIn(changes.keySet()), false)
+            .stream()
+            .collect(Collectors.toMap(AppointmentRow::id, Function.identity()));
+
+    Map<AppointmentStatus, List<Long>> idsByStatus = new EnumMap<>(AppointmentStatus.class);
+    List<AppointmentRow> cancelled = new ArrayList<>();
+    List<AppointmentRow> changed = new ArrayList<>();
+    for (Map.Entry<Long, AppointmentStatus> change : changes.entrySet()) {
+      AppointmentRow row = rows.get(change.getKey());
+      if (row == null) {
+        throw new ResourceNotFoundException("No se encontró el turno con id: " + change.getKey());
+      }
+      if (dentistId != null && !dentistId.equals(row.dentistId())) {
+        throw new AccessDeniedException("El turno " + row.id() + " no es del odontólogo");
+      }
+      AppointmentStatus target = change.getValue();
+      if (!row.status().canTransitionTo(target)) {
+        throw new InvalidStatusTransitionException(row.status(), target);
+      }
+      if (row.status() == target) {
+        continue;
+      }
+      idsByStatus.computeIfAbsent(target, status -> new ArrayList<>()).add(row.id());
+      changed.add(row);
+      if (target == AppointmentStatus.CANCELLED) {
+        cancelled.add(row);
+      }
+    }
+
+    int updated = 0;
+    for (Map.Entry<AppointmentStatus, List<Long>> group : idsByStatus.entrySet()) {
+      updated += appointmentRepository.updateStatusByIds(group.getValue(), group.getKey());
+    }
+    cancelled.forEach(
+        row ->
+            slotIndex.releaseOnCommit(
+                row.dentistId(), row.date(), row.time(), row.durationMinutes()));
+    for (AppointmentRow row : changed) {
+      AppointmentStatus target = changes.get(row.id());
+      rollups.changed(
+          row.dentistId(), row.date(), row.status(), row.dentistId(), row.date(), target);
+      changePublisher.updated(row.id(), row.dentistId(), row.date(), target);
+    }
+    return new AppointmentStatusBulkResultDTO(changes.size(), updated);
+  }
 
-    for (Appointment appointment : appointments) {
-      appointmentDTOs.add(convertToDTO(appointment));
+  @Override
+  public AvailabilityDTO findAvailability(Long dentistId, LocalDate from, LocalDate to)
+      throws ResourceNotFoundException {
+    if (from == null || to == null || from.isAfter(to)) {
+      throw new IllegalArgumentException("El rango de fechas es inválido");
+    }
+    if (ChronoUnit.DAYS.between(from, to) >= MAX_AVAILABILITY_DAYS) {
+      throw new IllegalArgumentException(
+          "El rango no puede superar los " + MAX_AVAILABILITY_DAYS + " días");
     }
-    return appointmentDTOs;
+    if (!dentistRepository.existsById(dentistId)) {
+      throw new ResourceNotFoundException("Dentista no encontrado con ID: " + dentistId);
+    }
+
+    // Mismas reglas que ClinicCalendar.validate: nada antes de hoy, sólo días hábiles que no sean
+    // feriado, de 08:00 a 18:00 terminando a más tardar al cierre y, para hoy, sólo horarios que
+    // todavía no pasaron.
+    LocalDate today = LocalDate.now();
+    LocalTime now = LocalTime.now();
+    LocalDate start = from.isBefore(today) ? today : from;
+
+    Map<LocalDate, BitSet> taken = new HashMap<>();
+    if (!start.isAfter(to)) {
+      for (Object[] row :
+          appointmentRepository.findSlotsByDentistBetween(
+              dentistId, start, to, AppointmentStatus.CANCELLED)) {
+        LocalTime time = (LocalTime) row[2];
+        if (ClinicSchedule.isWithinHours(time)) {
+          int minute = ClinicSchedule.minuteOfGrid(time);
+          taken
+              .computeIfAbsent((LocalDate) row[1], date -> new BitSet())
+              .set(minute, minute + (Integer) row[3]);
+        }
+      }
+    }
+
+    List<AvailabilityDTO.DayAvailabilityDTO> days = new ArrayList<>();
+    for (LocalDate date = start; !date.isAfter(to); date = date.plusDays(1)) {
+      if (!clinicCalendar.isOpen(date)) {
+        continue;
+      }
+      BitSet dayTaken = taken.getOrDefault(date, new BitSet());
+      List<String> freeSlots = new ArrayList<>();
+      for (int minute = 0;
+          minute + ClinicSchedule.SLOT_MINUTES <= ClinicSchedule.CLOSING_MINUTE;
+          minute += ClinicSchedule.SLOT_MINUTES) {
+        LocalTime time = ClinicSchedule.timeOfGrid(minute);
+        // Libre si ningún turno pisa [minute, minute + SLOT_MINUTES).
+        int next = dayTaken.nextSetBit(minute);
+        boolean overlaps = next >= 0 && next < minute + ClinicSchedule.SLOT_MINUTES;
+        if (overlaps || (date.equals(today) && time.isBefore(now))) {
+          continue;
+        }
+        freeSlots.add(time.format(TIME_FORMAT));
+      }
+      days.add(new AvailabilityDTO.DayAvailabilityDTO(date.toString(), freeSlots));
+    }
+
+    return new AvailabilityDTO(dentistId, from.toString(), to.toString(), days);
+  }
+
+  @Override
+  public List<NextAvailableSlotDTO> findNextAvailable(
+      Long specialtyId, LocalDateTime after, int limit) throws ResourceNotFoundException {
+    return nextAvailableSlotFinder.find(specialtyId, after, limit);
+  }
+
+  @Override
+  public List<AppointmentDTO> findAll() {
+    return appointmentRepository.findAllRows().stream()
+        .map(AppointmentServiceImpl::convertToDTO)
+        .toList();
   }
 
   @Override
-  public List<AppointmentDTO> findAllForCurrentUser(String email, Role role) {
-    List<Appointment> appointments;
+  public List<AppointmentDTO> findAllForCurrentUser(String email, Role role, boolean withNames) {
+    List<AppointmentRow> appointments;
 
     if (role == Role.PATIENT) {
       Patient patient =
           patientRepository.findByEmail(email).orElseThrow(StalePrincipalException::new);
-      appointments = appointmentRepository.findByPatient_Id(patient.getId());
+      appointments =
+          withNames
+              ? appointmentRepository.findRows(
+                  AppointmentSpecifications.hasPatientId(patient.getId()), true)
+              : appointmentRepository.findRowsByPatientId(patient.getId());
     } else if (role == Role.DENTIST) {
       Dentist dentist =
           dentistRepository.findByEmail(email).orElseThrow(StalePrincipalException::new);
-      appointments = appointmentRepository.findByDentist_Id(dentist.getId());
+      appointments =
+          withNames
+              ? appointmentRepository.findRows(
+                  AppointmentSpecifications.hasDentistId(dentist.getId()), true)
+              : appointmentRepository.findRowsByDentistId(dentist.getId());
     } else {
       // ADMIN: devuelve todas
-      appointments = appointmentRepository.findAll();
+      appointments =
+          withNames
+              ? appointmentRepository.findRows(Specification.where(null), true)
+              : appointmentRepository.findAllRows();
     }
 
-    List<AppointmentDTO> result = new ArrayList<>();
-    for (Appointment appointment : appointments) {
-      result.add(convertToDTO(appointment));
+    return appointments.stream().map(AppointmentServiceImpl::convertToDTO).toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void exportForCurrentUser(
+      String email, Role role, LocalDate from, LocalDate to, Consumer<AppointmentDTO> sink) {
+    if (from != null && to != null && from.isAfter(to)) {
+      throw new IllegalArgumentException("El rango de fechas es inválido");
+    }
+
+    List<Specification<Appointment>> filters = new ArrayList<>();
+    if (role == Role.PATIENT) {
+      Patient patient =
+          patientRepository.findByEmail(email).orElseThrow(StalePrincipalException::new);
+      filters.add(AppointmentSpecifications.hasPatientId(patient.getId()));
+    } else if (role == Role.DENTIST) {
+      Dentist dentist =
+          dentistRepository.findByEmail(email).orElseThrow(StalePrincipalException::new);
+      filters.add(AppointmentSpecifications.hasDentistId(dentist.getId()));
+    }
+    if (from != null) {
+      filters.add(AppointmentSpecifications.dateFrom(from));
+    }
+    if (to != null) {
+      filters.add(AppointmentSpecifications.dateTo(to));
+    }
+
+    try (Stream<AppointmentRow> rows =
+        appointmentRepository.streamRows(Specification.allOf(filters))) {
+      rows.map(AppointmentServiceImpl::convertToDTO).forEach(sink);
     }
-    return result;
   }
 
   @Override
@@ -272,68 +697,67 @@ public class AppointmentServiceImpl implements IAppointmentService {
       AppointmentStatus status,
       LocalDate fromDate,
       LocalDate toDate,
-      Pageable pageable) {
-
-    Page<Appointment> appointments;
-
-    // --- FILTRO POR PACIENTE ---
-    if (patient != null && patient.matches("\\d+")) {
-      Long patientId = Long.parseLong(patient);
-
-      // --- FILTRO POR ODONTÓLOGO ---
-      if (dentist != null && dentist.matches("\\d+")) {
-        Long dentistId = Long.parseLong(dentist);
-        appointments =
-            appointmentRepository.searchAppointmentsByPatientIdAndDentistId(
-                patientId, dentistId, status, fromDate, toDate, pageable);
-      } else if (dentist != null && !dentist.isEmpty()) {
-        appointments =
-            appointmentRepository.searchAppointmentsByPatientIdAndDentistName(
-                patientId, dentist, status, fromDate, toDate, pageable);
-      } else {
-        appointments =
-            appointmentRepository.searchAppointmentsByPatientId(
-                patientId, null, status, fromDate, toDate, pageable);
-      }
+      Pageable pageable,
+      boolean withNames) {
+
+    return appointmentRepository
+        .findRows(
+            AppointmentSpecifications.search(patient, dentist, status, fromDate, toDate),
+            pageable,
+            withNames)
+        .map(AppointmentServiceImpl::convertToDTO);
+  }
 
-    } else if (patient != null && !patient.isEmpty()) {
-      if (dentist != null && dentist.matches("\\d+")) {
-        Long dentistId = Long.parseLong(dentist);
-        appointments =
-            appointmentRepository.searchAppointmentsByPatientNameAndDentistId(
-                patient, dentistId, status, fromDate, toDate, pageable);
-      } else if (dentist != null && !dentist.isEmpty()) {
-        appointments =
-            appointmentRepository.searchAppointmentsByPatientNameAndDentistName(
-                patient, dentist, status, fromDate, toDate, pageable);
-      } else {
-        appointments =
-            appointmentRepository.searchAppointmentsByPatientName(
-                patient, null, status, fromDate, toDate, pageable);
-      }
+  @Override
+  public CursorPageDTO<AppointmentDTO> searchAppointmentsAfter(
+      String patient,
+      String dentist,
+      AppointmentStatus status,
+      LocalDate fromDate,
+      LocalDate toDate,
+      String cursor,
+      int size,
+      boolean withNames) {
+    if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+      throw new IllegalArgumentException(
+          "El tamaño de página debe estar entre 1 y " + MAX_SEARCH_PAGE_SIZE);
+    }
 
-    } else {
-      if (dentist != null && dentist.matches("\\d+")) {
-        Long dentistId = Long.parseLong(dentist);
-        appointments =
-            appointmentRepository.searchAppointmentsByDentistId(
-                dentistId, null, status, fromDate, toDate, pageable);
-      } else if (dentist != null && !dentist.isEmpty()) {
-        appointments =
-            appointmentRepository.searchAppointmentsByDentistName(
-                dentist, null, status, fromDate, toDate, pageable);
-      } else {
-        appointments =
-            appointmentRepository.searchAppointments(
-                null, null, status, fromDate, toDate, pageable);
-      }
+    Specification<Appointment> spec =
+        AppointmentSpecifications.search(patient, dentist, status, fromDate, toDate);
+    if (cursor != null && !cursor.isEmpty()) {
+      AppointmentCursor after = AppointmentCursor.decode(cursor);
+      spec = spec.and(AppointmentSpecifications.after(after.date(), after.time(), after.id()));
     }
 
-    return appointments.map(this::convertToDTO);
+    // Se pide un elemento de más para saber si hay página siguiente sin contar el total.
+    List<AppointmentRow> rows =
+        appointmentRepository.findRows(spec, KEYSET_ORDER, size + 1, withNames);
+    boolean hasNext = rows.size() > size;
+    List<AppointmentRow> page = hasNext ? rows.subList(0, size) : rows;
+    String nextCursor = hasNext ? AppointmentCursor.of(page.get(size - 1)).encode() : null;
+
+    return new CursorPageDTO<>(
+        page.stream().map(AppointmentServiceImpl::convertToDTO).toList(), size, nextCursor);
+  }
+
+  static AppointmentDTO convertToDTO(AppointmentRow row) {
+    return AppointmentDTO.builder()
+        .id(row.id())
+        .patient_id(row.patientId())
+        .dentist_id(row.dentistId())
+        .date(row.date().toString())
+        .time(row.time().format(TIME_FORMAT))
+        .description(row.description())
+        .status(row.status().name())
+        .durationMinutes(row.durationMinutes())
+        .patientName(row.patientName())
+        .dentistName(row.dentistName())
+        .build();
   }
 
   // Método para convertir a DTO
-  private AppointmentDTO convertToDTO(Appointment appointment) {
+  static AppointmentDTO convertToDTO(Appointment appointment) {
     return AppointmentDTO.builder()
         .id(appointment.getId())
         .patient_id(appointment.getPatient().getId())
@@ -342,6 +766,7 @@ public class AppointmentServiceImpl implements IAppointmentService {
         .time(appointment.getTime().format(DateTimeFormatter.ofPattern("HH:mm")))
         .description(appointment.getDescription())
         .status(appointment.getStatus().name())
+        .durationMinutes(appointment.getDurationMinutes())
         .build();
   }
 }
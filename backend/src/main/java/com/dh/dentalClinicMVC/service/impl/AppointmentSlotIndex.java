@@ -0,0 +1,242 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Índice en memoria de ocupación de turnos: un bitset por (odontólogo, día) sobre la grilla de
+ * {@link ClinicSchedule}, con un bit por minuto. Cada turno marca los minutos de [hora, hora +
+ * duración), así que un chequeo de superposición recorre a lo sumo los bits de su propio intervalo
+ * (una jornada entera son 10 palabras de 64 bits), sin importar cuántos turnos tenga el día.
+ * Responde los chequeos de conflicto de {@link AppointmentServiceImpl} sin ir a la base.
+ *
+ * <p>Se construye desde {@link IAppointmentRepository} al arrancar (sólo turnos no cancelados de
+ * hoy en adelante, que son los únicos reservables) y refleja lo que la base confirma: las reservas
+ * se toman antes del insert y se revierten si la transacción hace rollback; las liberaciones
+ * (cancelación, cambio de horario, borrado) se aplican para el resto recién después del commit. Los
+ * días que ya pasaron no se pueden reservar: se descartan una vez por día ({@code
+ * app.appointment-slot-index.prune-cron}) para que el índice no crezca con el tiempo.
+ */
+@Component
+public class AppointmentSlotIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(AppointmentSlotIndex.class);
+
+  private final IAppointmentRepository appointmentRepository;
+  private final Map<DentistDay, BitSet> occupancy = new ConcurrentHashMap<>();
+
+  public AppointmentSlotIndex(IAppointmentRepository appointmentRepository) {
+    this.appointmentRepository = appointmentRepository;
+  }
+
+  private record DentistDay(Long dentistId, LocalDate date) {}
+
+  // Cambios de la transacción en curso sobre un (odontólogo, día): los minutos que reservó y
+  // estaban libres (se deshacen en el rollback) y los que liberó (se aplican en el commit).
+  private static final class PendingDay {
+    private final BitSet reserved = new BitSet();
+    private final BitSet released = new BitSet();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    List<Object[]> rows =
+        appointmentRepository.findActiveSlotsFrom(LocalDate.now(), AppointmentStatus.CANCELLED);
+    occupancy.clear();
+    int indexed = 0;
+    for (Object[] row : rows) {
+      LocalTime time = (LocalTime) row[2];
+      if (!ClinicSchedule.isWithinHours(time)) {
+        continue;
+      }
+      int start = ClinicSchedule.minuteOfGrid(time);
+      DentistDay key = new DentistDay((Long) row[0], (LocalDate) row[1]);
+      occupancy.computeIfAbsent(key, k -> new BitSet()).set(start, start + minutes(row[3]));
+      indexed++;
+    }
+    log.info("AppointmentSlotIndex: {} turnos activos indexados.", indexed);
+  }
+
+  @Scheduled(cron = "${app.appointment-slot-index.prune-cron:0 5 0 * * *}")
+  public void prunePastDays() {
+    int pruned = pruneBefore(LocalDate.now());
+    log.info("AppointmentSlotIndex: {} días pasados descartados.", pruned);
+  }
+
+  // Descarta la ocupación de los días anteriores a today; devuelve cuántos (odontólogo, día) había.
+  int pruneBefore(LocalDate today) {
+    int before = occupancy.size();
+    occupancy.keySet().removeIf(key -> key.date().isBefore(today));
+    return before - occupancy.size();
+  }
+
+  /** Indica si [time, time + minutes) se superpone con algún turno del odontólogo ese día. */
+  public boolean isOccupied(Long dentistId, LocalDate date, LocalTime time, int minutes) {
+    int start = ClinicSchedule.minuteOfGrid(time);
+    DentistDay key = new DentistDay(dentistId, date);
+    PendingDay pending = pendingInCurrentTransaction().get(key);
+    boolean[] occupied = {false};
+    occupancy.computeIfPresent(
+        key,
+        (k, bits) -> {
+          occupied[0] = overlaps(bits, start, start + minutes, pending);
+          return bits;
+        });
+    return occupied[0];
+  }
+
+  /**
+   * Marca [time, time + minutes) como ocupado si ningún minuto del intervalo lo estaba
+   * (test-and-set atómico por odontólogo y día). Si hay una transacción activa, la reserva se
+   * libera automáticamente cuando ésta hace rollback.
+   *
+   * @return false si el intervalo se superpone con otro turno
+   */
+  public boolean tryReserve(Long dentistId, LocalDate date, LocalTime time, int minutes) {
+    int start = ClinicSchedule.minuteOfGrid(time);
+    int end = start + minutes;
+    DentistDay key = new DentistDay(dentistId, date);
+    boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+
+    // Los minutos liberados antes en esta misma transacción siguen marcados hasta el commit; se
+    // reutilizan en lugar de liberarlos y volver a tomarlos.
+    PendingDay pending = pendingInCurrentTransaction().get(key);
+    BitSet fresh = new BitSet();
+    boolean[] reserved = {false};
+    occupancy.compute(
+        key,
+        (k, bits) -> {
+          BitSet day = bits != null ? bits : new BitSet();
+          if (!overlaps(day, start, end, pending)) {
+            fresh.set(start, end);
+            fresh.andNot(day);
+            day.set(start, end);
+            reserved[0] = true;
+          }
+          return day;
+        });
+
+    if (reserved[0] && inTransaction) {
+      PendingDay changes =
+          pendingInCurrentTransaction().computeIfAbsent(key, k -> new PendingDay());
+      changes.reserved.or(fresh);
+      changes.released.clear(start, end);
+    }
+    return reserved[0];
+  }
+
+  /**
+   * Libera [time, time + minutes) una vez confirmada la transacción actual (o en el acto si no hay
+   * una). Hasta el commit, sólo la propia transacción lo ve libre.
+   */
+  public void releaseOnCommit(Long dentistId, LocalDate date, LocalTime time, int minutes) {
+    if (!ClinicSchedule.isWithinHours(time)) {
+      return;
+    }
+    int start = ClinicSchedule.minuteOfGrid(time);
+    DentistDay key = new DentistDay(dentistId, date);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      BitSet range = new BitSet();
+      range.set(start, start + minutes);
+      clear(key, range);
+      return;
+    }
+    pendingInCurrentTransaction()
+        .computeIfAbsent(key, k -> new PendingDay())
+        .released
+        .set(start, start + minutes);
+  }
+
+  /**
+   * Retira una liberación anotada en la transacción actual con {@link #releaseOnCommit}: el
+   * intervalo vuelve a quedar ocupado también para ella. Para un cambio de horario que se rechaza
+   * después de haber liberado el anterior.
+   */
+  public void cancelRelease(Long dentistId, LocalDate date, LocalTime time, int minutes) {
+    if (!ClinicSchedule.isWithinHours(time)
+        || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    int start = ClinicSchedule.minuteOfGrid(time);
+    PendingDay pending = pendingInCurrentTransaction().get(new DentistDay(dentistId, date));
+    if (pending != null) {
+      pending.released.clear(start, start + minutes);
+    }
+  }
+
+  // Hay superposición si algún minuto de [start, end) está ocupado y no fue liberado por la
+  // transacción en curso.
+  private static boolean overlaps(BitSet day, int start, int end, PendingDay pending) {
+    for (int minute = day.nextSetBit(start);
+        minute >= 0 && minute < end;
+        minute = day.nextSetBit(minute + 1)) {
+      if (pending == null || !pending.released.get(minute)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Cambios pendientes de la transacción en curso, por (odontólogo, día). Fuera de una transacción
+  // devuelve un mapa vacío descartable.
+  @SuppressWarnings("unchecked")
+  private Map<DentistDay, PendingDay> pendingInCurrentTransaction() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return new HashMap<>();
+    }
+    Map<DentistDay, PendingDay> pending =
+        (Map<DentistDay, PendingDay>) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      Map<DentistDay, PendingDay> changes = new HashMap<>();
+      TransactionSynchronizationManager.bindResource(this, changes);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(AppointmentSlotIndex.this);
+              if (status == STATUS_COMMITTED) {
+                changes.forEach((key, day) -> clear(key, day.released));
+              } else if (status == STATUS_ROLLED_BACK) {
+                // Un minuto reutilizado de una liberación no está en reserved: con el rollback
+                // vuelve a ser del turno que lo ocupaba.
+                changes.forEach((key, day) -> clear(key, day.reserved));
+              }
+            }
+          });
+      pending = changes;
+    }
+    return pending;
+  }
+
+  private void clear(DentistDay key, BitSet minutes) {
+    if (minutes.isEmpty()) {
+      return;
+    }
+    occupancy.computeIfPresent(
+        key,
+        (k, bits) -> {
+          bits.andNot(minutes);
+          return bits.isEmpty() ? null : bits;
+        });
+  }
+
+  private static int minutes(Object duration) {
+    return duration != null ? ((Number) duration).intValue() : Appointment.DEFAULT_DURATION_MINUTES;
+  }
+}
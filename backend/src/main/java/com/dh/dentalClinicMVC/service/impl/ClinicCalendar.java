@@ -0,0 +1,126 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Días y horarios en que la clínica atiende: la grilla de {@link ClinicSchedule} más los feriados
+ * configurados en {@code app.clinic.holidays} (fechas yyyy-MM-dd separadas por coma). Concentra las
+ * validaciones de fecha y hora de un turno.
+ */
+@Component
+public class ClinicCalendar {
+
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+  private final Set<LocalDate> holidays;
+
+  public ClinicCalendar(@Value("${app.clinic.holidays:}") String holidays) {
+    this.holidays =
+        Arrays.stream(holidays.split(","))
+            .map(String::strip)
+            .filter(date -> !date.isEmpty())
+            .map(LocalDate::parse)
+            .collect(Collectors.toUnmodifiableSet());
+  }
+
+  record ValidatedSchedule(LocalDate date, LocalTime time) {}
+
+  public boolean isHoliday(LocalDate date) {
+    return holidays.contains(date);
+  }
+
+  // Día hábil que no es feriado.
+  public boolean isOpen(LocalDate date) {
+    return ClinicSchedule.isWorkingDay(date) && !isHoliday(date);
+  }
+
+  // El mismo día si la clínica atiende; si no, el próximo en que sí.
+  public LocalDate nextOpenDay(LocalDate date) {
+    LocalDate day = date;
+    while (!isOpen(day)) {
+      day = day.plusDays(1);
+    }
+    return day;
+  }
+
+  /**
+   * Valida fecha y hora de un turno. {@code existingDate}/{@code existingTime} son el horario
+   * actual del turno que se está editando (null en un alta): conservar el propio horario de hoy no
+   * falla aunque la hora ya haya pasado.
+   */
+  ValidatedSchedule validate(
+      String dateStr, String timeStr, LocalDate existingDate, LocalTime existingTime) {
+    LocalDate date;
+    try {
+      date = LocalDate.parse(dateStr, DATE_FORMAT);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Fecha inválida: " + dateStr);
+    }
+    validateDate(date);
+
+    LocalTime time;
+    try {
+      time = LocalTime.parse(timeStr, TIME_FORMAT);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Hora inválida: " + timeStr);
+    }
+    validateTime(date, time, existingDate, existingTime);
+
+    return new ValidatedSchedule(date, time);
+  }
+
+  // Fecha, hora y duración de un turno de una serie: además tiene que terminar antes del cierre.
+  void validate(LocalDate date, LocalTime time, int minutes) {
+    validateDate(date);
+    validateTime(date, time, null, null);
+    validateEnd(time, minutes);
+  }
+
+  // Un turno que empieza a esa hora (ya validada) no puede pasar del cierre.
+  void validateEnd(LocalTime time, int minutes) {
+    if (!ClinicSchedule.endsByClosing(time, minutes)) {
+      throw new IllegalArgumentException(
+          "El turno de "
+              + minutes
+              + " minutos que empieza a las "
+              + time.format(TIME_FORMAT)
+              + " termina después del cierre (18:00)");
+    }
+  }
+
+  private void validateDate(LocalDate date) {
+    if (date.isBefore(LocalDate.now())) {
+      throw new IllegalArgumentException("La fecha no puede ser anterior a hoy");
+    }
+
+    if (!ClinicSchedule.isWorkingDay(date)) {
+      throw new IllegalArgumentException("Solo se pueden programar citas de lunes a viernes");
+    }
+
+    if (isHoliday(date)) {
+      throw new IllegalArgumentException("La clínica no atiende el " + date + " (feriado)");
+    }
+  }
+
+  private void validateTime(
+      LocalDate date, LocalTime time, LocalDate existingDate, LocalTime existingTime) {
+    if (!ClinicSchedule.isWithinHours(time)) {
+      throw new IllegalArgumentException("La hora debe estar entre 08:00 y 18:00");
+    }
+
+    if (date.equals(LocalDate.now()) && time.isBefore(LocalTime.now())) {
+      if (!(date.equals(existingDate) && time.equals(existingTime))) {
+        throw new IllegalArgumentException("La hora seleccionada ya pasó");
+      }
+    }
+  }
+}
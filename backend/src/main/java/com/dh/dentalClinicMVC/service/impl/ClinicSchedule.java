@@ -0,0 +1,52 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Grilla horaria de la clínica: lunes a viernes, de 08:00 a 18:00 (ambos inclusive). Un turno
+// puede empezar a cualquier hora de la grilla pero tiene que terminar a más tardar al cierre. Es
+// la base de ClinicCalendar, que suma los feriados; el índice de ocupación la usa para mapear cada
+// hora a un bit con resolución de un minuto.
+final class ClinicSchedule {
+
+  static final LocalTime OPENING = LocalTime.of(8, 0);
+  static final LocalTime CLOSING = LocalTime.of(18, 0);
+
+  // 08:00..18:00 inclusive => 601 minutos posibles.
+  static final int GRID_MINUTES = (int) Duration.between(OPENING, CLOSING).toMinutes() + 1;
+
+  // Minuto de la grilla del cierre: un turno [inicio, inicio + duración) no puede pasarlo.
+  static final int CLOSING_MINUTE = GRID_MINUTES - 1;
+
+  // Paso con el que se ofrecen horarios libres (08:00, 08:30, ..., 17:30).
+  static final int SLOT_MINUTES = 30;
+
+  private ClinicSchedule() {}
+
+  static boolean isWorkingDay(LocalDate date) {
+    DayOfWeek day = date.getDayOfWeek();
+    return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY;
+  }
+
+  static boolean isWithinHours(LocalTime time) {
+    return !time.isBefore(OPENING) && !time.isAfter(CLOSING);
+  }
+
+  static int minuteOfGrid(LocalTime time) {
+    if (!isWithinHours(time)) {
+      throw new IllegalArgumentException("La hora debe estar entre 08:00 y 18:00");
+    }
+    return (int) Duration.between(OPENING, time).toMinutes();
+  }
+
+  // Si un turno de esa duración que empieza a esa hora termina a más tardar al cierre.
+  static boolean endsByClosing(LocalTime time, int minutes) {
+    return minuteOfGrid(time) + minutes <= CLOSING_MINUTE;
+  }
+
+  static LocalTime timeOfGrid(int minute) {
+    return OPENING.plusMinutes(minute);
+  }
+}
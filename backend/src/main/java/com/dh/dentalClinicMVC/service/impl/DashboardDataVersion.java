@@ -0,0 +1,52 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Versión de los datos que muestra el dashboard: sube con cada escritura de turnos, pacientes u
+ * odontólogos. Dentro de una transacción sube una sola vez y recién después del commit, así nadie
+ * ve una versión nueva con los datos anteriores; fuera de una transacción sube en el acto.
+ *
+ * <p>Arranca en cero en cada proceso; {@link #epoch()} distingue un arranque de otro para que una
+ * versión vieja no coincida con otra igual de después de reiniciar.
+ */
+@Component
+public class DashboardDataVersion {
+
+  private final long epoch = System.currentTimeMillis();
+  private final AtomicLong version = new AtomicLong();
+
+  public long epoch() {
+    return epoch;
+  }
+
+  public long current() {
+    return version.get();
+  }
+
+  public void changed() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      version.incrementAndGet();
+      return;
+    }
+    if (TransactionSynchronizationManager.hasResource(this)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            version.incrementAndGet();
+          }
+
+          @Override
+          public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DashboardDataVersion.this);
+          }
+        });
+  }
+}
@@ -1,34 +1,46 @@
 package com.dh.dentalClinicMVC.service.impl;
 
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
 import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
 import com.dh.dentalClinicMVC.dto.DashboardStatsDTO;
 import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.repository.IAppointmentDailyRollupRepository;
 import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
 import com.dh.dentalClinicMVC.repository.IDentistRepository;
 import com.dh.dentalClinicMVC.repository.IPatientRepository;
 import com.dh.dentalClinicMVC.service.IDashboardService;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.TextStyle;
 import java.util.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+// Los conteos de turnos salen de appointment_daily_rollup (una fila por día, odontólogo y estado),
+// así su costo depende de días x odontólogos y no de la cantidad de turnos; sólo el listado de
+// próximos turnos lee appointments.
 @Service
 public class DashboardServiceImpl implements IDashboardService {
 
   private static final int DENTIST_BREAKDOWN_TOP_N = 10;
   private static final int MAX_MONTH_BUCKETS = 24;
+  private static final int MAX_UPCOMING_PAGE_SIZE = 100;
 
   private final IAppointmentRepository appointmentRepository;
+  private final IAppointmentDailyRollupRepository rollupRepository;
   private final IDentistRepository dentistRepository;
   private final IPatientRepository patientRepository;
 
   @Autowired
   public DashboardServiceImpl(
       IAppointmentRepository appointmentRepository,
+      IAppointmentDailyRollupRepository rollupRepository,
       IDentistRepository dentistRepository,
       IPatientRepository patientRepository) {
     this.appointmentRepository = appointmentRepository;
+    this.rollupRepository = rollupRepository;
     this.dentistRepository = dentistRepository;
     this.patientRepository = patientRepository;
   }
@@ -37,7 +49,7 @@ public class DashboardServiceImpl implements IDashboardService {
   public DashboardStatsDTO getDashboardStats() {
     // Implementación básica para compatibilidad
     DashboardStatsDTO stats = new DashboardStatsDTO();
-    stats.setTotalAppointments(appointmentRepository.count());
+    stats.setTotalAppointments(rollupRepository.countFiltered(null, null, null));
     stats.setTotalDentists(dentistRepository.count());
     stats.setTotalPatients(patientRepository.count());
     return stats;
@@ -49,7 +61,7 @@ public class DashboardServiceImpl implements IDashboardService {
 
     // totalAppointments narrowa al filtro activo; totalDentists/totalPatients permanecen
     // globales porque no son datos derivados de citas.
-    long totalAppointments = appointmentRepository.countFiltered(from, to, dentistId);
+    long totalAppointments = rollupRepository.countFiltered(from, to, dentistId);
     long totalDentists = dentistRepository.count();
     long totalPatients = patientRepository.count();
 
@@ -63,7 +75,7 @@ public class DashboardServiceImpl implements IDashboardService {
     if ((from != null && today.isBefore(from)) || (to != null && today.isAfter(to))) {
       todayAppointments = 0L;
     } else {
-      todayAppointments = appointmentRepository.countFiltered(today, today, dentistId);
+      todayAppointments = rollupRepository.countFiltered(today, today, dentistId);
     }
     stats.put("todayAppointments", todayAppointments);
 
@@ -83,24 +95,27 @@ public class DashboardServiceImpl implements IDashboardService {
     LocalDate[] range = resolveMonthlyRange(from, to);
     List<LocalDate> monthBuckets = buildMonthBuckets(range[0], range[1]);
 
+    // Una sola consulta agrupada por mes para todos los buckets; los meses sin turnos no vienen y
+    // quedan en 0.
+    Map<YearMonth, Long> countsByMonth = new HashMap<>();
+    if (!monthBuckets.isEmpty()) {
+      LocalDate firstBucket = monthBuckets.get(0);
+      LocalDate lastBucket = monthBuckets.get(monthBuckets.size() - 1);
+      for (Object[] row :
+          rollupRepository.countGroupedByMonth(
+              firstBucket, lastBucket.withDayOfMonth(lastBucket.lengthOfMonth()), dentistId)) {
+        countsByMonth.put(
+            YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()),
+            ((Number) row[2]).longValue());
+      }
+    }
+
     for (LocalDate monthStart : monthBuckets) {
       String monthName =
           monthStart.getMonth().getDisplayName(TextStyle.SHORT, Locale.forLanguageTag("es"));
 
-      // Calcular primer y último día del mes
-      LocalDate firstDay = monthStart.withDayOfMonth(1);
-      LocalDate lastDay = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
-
-      // Sin dentistId activo, se preserva la consulta histórica countByDateBetween tal cual
-      // (byte-equivalente cuando from/to/dentistId son null); con dentistId activo, se usa la
-      // consulta filtrada.
-      long count =
-          dentistId == null
-              ? appointmentRepository.countByDateBetween(firstDay, lastDay)
-              : appointmentRepository.countFiltered(firstDay, lastDay, dentistId);
-
       months.add(monthName + " " + monthStart.getYear());
-      appointmentCounts.add(count);
+      appointmentCounts.add(countsByMonth.getOrDefault(YearMonth.from(monthStart), 0L));
     }
 
     data.put("months", months);
@@ -142,37 +157,39 @@ public class DashboardServiceImpl implements IDashboardService {
   }
 
   @Override
-  public Map<String, Object> getUpcomingAppointments(LocalDate from, LocalDate to, Long dentistId) {
-    Map<String, Object> data = new HashMap<>();
+  public CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> getUpcomingAppointments(
+      LocalDate from, LocalDate to, Long dentistId, String cursor, int size) {
+    if (size < 1 || size > MAX_UPCOMING_PAGE_SIZE) {
+      throw new IllegalArgumentException(
+          "El tamaño de página debe estar entre 1 y " + MAX_UPCOMING_PAGE_SIZE);
+    }
 
     LocalDate today = LocalDate.now();
     LocalDate effectiveFrom = (from != null && from.isAfter(today)) ? from : today;
-
-    // Obtener citas de hoy y próximos días, respetando el filtro opcional to/dentistId
-    List<Object[]> upcomingAppointments =
-        appointmentRepository.findUpcomingAppointmentsFiltered(effectiveFrom, to, dentistId);
-
-    List<Map<String, String>> appointmentsList = new ArrayList<>();
-
-    for (Object[] appointment : upcomingAppointments) {
-      Map<String, String> appointmentInfo = new HashMap<>();
-      appointmentInfo.put("id", appointment[0].toString());
-      appointmentInfo.put("time", appointment[1].toString());
-      appointmentInfo.put("patientName", appointment[2].toString());
-      appointmentInfo.put("dentistName", appointment[3].toString());
-      appointmentInfo.put("date", appointment[4].toString());
-      // appointment[5] is expected to be the status enum
-      if (appointment.length > 5 && appointment[5] != null) {
-        appointmentInfo.put("status", appointment[5].toString());
-      }
-
-      appointmentsList.add(appointmentInfo);
+    AppointmentCursor after =
+        cursor != null && !cursor.isEmpty() ? AppointmentCursor.decode(cursor) : null;
+
+    // Se pide un elemento de más para saber si hay página siguiente sin contar el total.
+    List<DashboardSnapshotDTO.UpcomingAppointmentDTO> rows =
+        appointmentRepository.findUpcomingAppointmentsFiltered(
+            effectiveFrom,
+            to,
+            dentistId,
+            after != null ? after.date() : null,
+            after != null ? after.time() : null,
+            after != null ? after.id() : null,
+            Limit.of(size + 1));
+    boolean hasNext = rows.size() > size;
+    List<DashboardSnapshotDTO.UpcomingAppointmentDTO> page = hasNext ? rows.subList(0, size) : rows;
+    String nextCursor = null;
+    if (hasNext) {
+      DashboardSnapshotDTO.UpcomingAppointmentDTO last = page.get(size - 1);
+      nextCursor =
+          new AppointmentCursor(
+                  LocalDate.parse(last.getDate()), LocalTime.parse(last.getTime()), last.getId())
+              .encode();
     }
-
-    data.put("upcomingAppointments", appointmentsList);
-    data.put("count", appointmentsList.size());
-
-    return data;
+    return new CursorPageDTO<>(new ArrayList<>(page), size, nextCursor);
   }
 
   @Override
@@ -183,7 +200,7 @@ public class DashboardServiceImpl implements IDashboardService {
       countsByStatus.put(status, 0L);
     }
 
-    List<Object[]> rows = appointmentRepository.countGroupedByStatus(from, to, dentistId);
+    List<Object[]> rows = rollupRepository.countGroupedByStatus(from, to, dentistId);
     for (Object[] row : rows) {
       AppointmentStatus status = (AppointmentStatus) row[0];
       Long count = (Long) row[1];
@@ -200,7 +217,7 @@ public class DashboardServiceImpl implements IDashboardService {
   @Override
   public List<DashboardSnapshotDTO.DentistCountDTO> getAppointmentsByDentist(
       LocalDate from, LocalDate to, Long dentistId) {
-    List<Object[]> rows = appointmentRepository.countGroupedByDentist(from, to, dentistId);
+    List<Object[]> rows = rollupRepository.countGroupedByDentist(from, to, dentistId);
 
     List<DashboardSnapshotDTO.DentistCountDTO> sorted = new ArrayList<>();
     for (Object[] row : rows) {
@@ -0,0 +1,121 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalida sólo los snapshots del dashboard que un cambio de turnos puede alterar: un cambio del
+ * odontólogo X el día D saca del cache las entradas cuyo rango contiene D y cuyo filtro de
+ * odontólogo es X o ninguno (ver {@link DashboardSnapshotKey#covers}). Los días tocados por una
+ * transacción se juntan y se invalidan después de su commit, así un snapshot calculado entre la
+ * escritura y el commit no queda cacheado con los datos anteriores; fuera de una transacción se
+ * invalidan en el acto.
+ *
+ * <p>Con refresh-ahead (cache de carga, ver {@code CacheConfig}) esas entradas no se sacan: se
+ * recalculan en segundo plano y, mientras tanto, se sigue sirviendo el snapshot anterior.
+ */
+@Component
+public class DashboardSnapshotEvictor {
+
+  static final String CACHE_NAME = "dashboardSnapshot";
+
+  private final CacheManager cacheManager;
+  private final DashboardDataVersion dataVersion;
+
+  public DashboardSnapshotEvictor(CacheManager cacheManager, DashboardDataVersion dataVersion) {
+    this.cacheManager = cacheManager;
+    this.dataVersion = dataVersion;
+  }
+
+  private record DentistDay(Long dentistId, LocalDate date) {}
+
+  public void appointmentsChanged(Long dentistId, LocalDate date) {
+    dataVersion.changed();
+    DentistDay changed = new DentistDay(dentistId, date);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      evict(Set.of(changed));
+      return;
+    }
+    pendingInCurrentTransaction().add(changed);
+  }
+
+  private void evict(Set<DentistDay> changes) {
+    Cache cache = cacheManager.getCache(CACHE_NAME);
+    if (cache == null || changes.isEmpty()) {
+      return;
+    }
+    if (!(cache.getNativeCache()
+        instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> snapshots)) {
+      // Sin acceso a las claves no se puede elegir: se invalida todo.
+      cache.clear();
+      return;
+    }
+    Predicate<Object> affected =
+        key ->
+            !(key instanceof DashboardSnapshotKey snapshotKey)
+                || changes.stream()
+                    .anyMatch(change -> snapshotKey.covers(change.dentistId(), change.date()));
+    if (snapshots instanceof LoadingCache<?, ?> loading) {
+      refresh(loading, affected);
+      return;
+    }
+    snapshots.asMap().keySet().removeIf(affected);
+  }
+
+  // Un recálculo que ya estaba en curso pudo leer los datos de antes del commit: se pide otro
+  // cuando termine en lugar de sumarse a él.
+  private static <K> void refresh(LoadingCache<K, ?> snapshots, Predicate<Object> affected) {
+    Map<K, ? extends CompletableFuture<?>> running = snapshots.policy().refreshes();
+    for (K key : List.copyOf(snapshots.asMap().keySet())) {
+      if (!affected.test(key)) {
+        continue;
+      }
+      if (key instanceof DashboardSnapshotKey) {
+        CompletableFuture<?> previous = running.get(key);
+        if (previous == null) {
+          snapshots.refresh(key);
+        } else {
+          previous.whenComplete((snapshot, error) -> snapshots.refresh(key));
+        }
+      } else {
+        snapshots.invalidate(key);
+      }
+    }
+  }
+
+  // Días cambiados por la transacción en curso; se invalidan en su afterCommit.
+  @SuppressWarnings("unchecked")
+  private Set<DentistDay> pendingInCurrentTransaction() {
+    Set<DentistDay> pending = (Set<DentistDay>) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      Set<DentistDay> changes = new HashSet<>();
+      TransactionSynchronizationManager.bindResource(this, changes);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evict(changes);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(
+                  DashboardSnapshotEvictor.this);
+            }
+          });
+      pending = changes;
+    }
+    return pending;
+  }
+}
@@ -0,0 +1,17 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import java.time.LocalDate;
+
+/**
+ * Clave del cache de snapshots del dashboard: el filtro con que se pidió. Cualquiera de los tres
+ * puede ser null (sin límite o todos los odontólogos).
+ */
+public record DashboardSnapshotKey(LocalDate from, LocalDate to, Long dentistId) {
+
+  /** Indica si un cambio en los turnos del odontólogo ese día puede alterar este snapshot. */
+  public boolean covers(Long changedDentistId, LocalDate date) {
+    return (dentistId == null || dentistId.equals(changedDentistId))
+        && (from == null || !date.isBefore(from))
+        && (to == null || !date.isAfter(to));
+  }
+}
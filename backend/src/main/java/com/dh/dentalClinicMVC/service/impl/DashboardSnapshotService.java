@@ -1,139 +1,369 @@
 package com.dh.dentalClinicMVC.service.impl;
 
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
 import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
 import com.dh.dentalClinicMVC.dto.DashboardStatsDTO;
 import com.dh.dentalClinicMVC.service.IDashboardService;
 import com.dh.dentalClinicMVC.service.IDashboardSnapshotService;
+import jakarta.annotation.PreDestroy;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+/**
+ * Arma el snapshot del dashboard con sus cinco secciones (totales, serie mensual, próximos turnos,
+ * estados y odontólogos) calculadas a la vez, cada una en un hilo virtual, así un snapshot en frío
+ * tarda lo que la sección más lenta y no la suma de todas.
+ *
+ * <p>Cada sección tiene {@code app.dashboard.section-timeout-ms} para terminar (2000 por defecto);
+ * la que falla o no llega queda con los valores seguros de {@link
+ * DashboardSnapshotDTO#withDefaults()} y el snapshot se marca como parcial, que no se cachea. Los
+ * completos se cachean por filtro ({@link DashboardSnapshotKey}) y {@link DashboardSnapshotEvictor}
+ * los invalida según los turnos que cambian. Las secciones en curso de todos los snapshots se
+ * limitan a {@code app.dashboard.max-concurrent-sections} (8 por defecto, por debajo del pool de
+ * conexiones) para que un pico de dashboards no deje sin conexiones a las reservas. Los tiempos,
+ * errores y vencimientos por sección quedan en {@link #sectionMetrics()} y en el log.
+ *
+ * <p>Cuando una escritura invalida un snapshot, todos los navegadores que lo consultan fallan el
+ * cache a la vez. Los pedidos concurrentes de una misma clave se suman al cálculo que ya está en
+ * curso en lugar de lanzar otro; {@link #coalescingMetrics()} cuenta cálculos y pedidos sumados.
+ * Con refresh-ahead (ver {@code CacheConfig}) las entradas viejas se recalculan en segundo plano
+ * con {@link #refresh(DashboardSnapshotKey)} mientras se sigue sirviendo la anterior.
+ *
+ * <p>Cada snapshot guarda la {@link DashboardDataVersion} con la que se empezó a calcular; el
+ * controller arma el ETag con ella y no con la actual, así una entrada vieja que se sigue sirviendo
+ * durante un refresh no se hace pasar por la nueva.
+ */
 @Service
 public class DashboardSnapshotService implements IDashboardSnapshotService {
 
+  private static final Logger log = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+  private static final long DEFAULT_SECTION_TIMEOUT_MILLIS = 2_000;
+  private static final int DEFAULT_MAX_CONCURRENT_SECTIONS = 8;
+  private static final int DEFAULT_UPCOMING_PAGE_SIZE = 20;
+
   private final IDashboardService dashboardService;
+  private final DashboardDataVersion dataVersion;
+  private final long sectionTimeoutMillis;
+  private final int upcomingPageSize;
+  private final Semaphore sectionPermits;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Map<String, SectionCounters> counters = new ConcurrentHashMap<>();
+  private final Map<DashboardSnapshotKey, CompletableFuture<DashboardSnapshotDTO>> inFlight =
+      new ConcurrentHashMap<>();
+  private final AtomicLong computations = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
 
-  public DashboardSnapshotService(IDashboardService dashboardService) {
+  @Autowired
+  public DashboardSnapshotService(
+      IDashboardService dashboardService,
+      DashboardDataVersion dataVersion,
+      @Value("${app.dashboard.section-timeout-ms:" + DEFAULT_SECTION_TIMEOUT_MILLIS + "}")
+          long sectionTimeoutMillis,
+      @Value("${app.dashboard.max-concurrent-sections:" + DEFAULT_MAX_CONCURRENT_SECTIONS + "}")
+          int maxConcurrentSections,
+      @Value("${app.dashboard.upcoming-page-size:" + DEFAULT_UPCOMING_PAGE_SIZE + "}")
+          int upcomingPageSize) {
+    if (sectionTimeoutMillis < 1 || maxConcurrentSections < 1 || upcomingPageSize < 1) {
+      throw new IllegalStateException(
+          "app.dashboard.section-timeout-ms, max-concurrent-sections y upcoming-page-size deben"
+              + " ser positivos");
+    }
     this.dashboardService = dashboardService;
+    this.dataVersion = dataVersion;
+    this.sectionTimeoutMillis = sectionTimeoutMillis;
+    this.upcomingPageSize = upcomingPageSize;
+    this.sectionPermits = new Semaphore(maxConcurrentSections);
+  }
+
+  public DashboardSnapshotService(
+      IDashboardService dashboardService,
+      long sectionTimeoutMillis,
+      int maxConcurrentSections,
+      int upcomingPageSize) {
+    this(
+        dashboardService,
+        new DashboardDataVersion(),
+        sectionTimeoutMillis,
+        maxConcurrentSections,
+        upcomingPageSize);
+  }
+
+  public DashboardSnapshotService(IDashboardService dashboardService) {
+    this(
+        dashboardService,
+        DEFAULT_SECTION_TIMEOUT_MILLIS,
+        DEFAULT_MAX_CONCURRENT_SECTIONS,
+        DEFAULT_UPCOMING_PAGE_SIZE);
   }
 
+  /** Métricas acumuladas de una sección: corridas, errores, vencimientos y tiempos. */
+  public record SectionMetrics(
+      long runs, long failures, long timeouts, long totalMillis, long maxMillis) {}
+
+  private static final class SectionCounters {
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+  }
+
+  /** Snapshots calculados y pedidos que esperaron el cálculo de otro, desde el arranque. */
+  public record CoalescingMetrics(long computations, long coalesced) {}
+
+  // Resultado de una sección: qué escribir en el snapshot. Se aplica en el hilo que arma el
+  // snapshot, así una sección vencida que termina tarde no toca un snapshot ya devuelto.
+  private record Section(String name, Future<Consumer<DashboardSnapshotDTO>> result) {}
+
   @Override
   @Cacheable(
-      value = "dashboardSnapshot",
-      key = "'default'",
-      condition = "#from == null && #to == null && #dentistId == null",
-      unless = "#result == null")
+      value = DashboardSnapshotEvictor.CACHE_NAME,
+      key = "new com.dh.dentalClinicMVC.service.impl.DashboardSnapshotKey(#from, #to, #dentistId)",
+      unless = "#result == null || #result.partial")
   public DashboardSnapshotDTO getDashboardSnapshot(LocalDate from, LocalDate to, Long dentistId) {
-    DashboardSnapshotDTO snapshot = DashboardSnapshotDTO.withDefaults();
+    DashboardSnapshotKey key = new DashboardSnapshotKey(from, to, dentistId);
+    CompletableFuture<DashboardSnapshotDTO> mine = new CompletableFuture<>();
+    CompletableFuture<DashboardSnapshotDTO> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      coalesced.incrementAndGet();
+      return join(running);
+    }
 
-    applyStatsSection(snapshot, from, to, dentistId);
-    applyMonthlySection(snapshot, from, to, dentistId);
-    applyUpcomingSection(snapshot, from, to, dentistId);
-    applyStatusSection(snapshot, from, to, dentistId);
-    applyDentistSection(snapshot, from, to, dentistId);
+    computations.incrementAndGet();
+    try {
+      DashboardSnapshotDTO snapshot = compute(from, to, dentistId);
+      mine.complete(snapshot);
+      return snapshot;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      // El proxy guarda el resultado en el cache recién al volver; un pedido que llegue en ese
+      // instante calcula de nuevo, lo que sólo cuesta un cálculo de más.
+      inFlight.remove(key, mine);
+    }
+  }
 
-    return snapshot;
+  // Las páginas siguientes de próximos turnos no pasan por el cache: cada una es una consulta
+  // acotada por índice a partir del cursor.
+  @Override
+  public CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> getUpcomingAppointments(
+      LocalDate from, LocalDate to, Long dentistId, String cursor) {
+    return dashboardService.getUpcomingAppointments(from, to, dentistId, cursor, upcomingPageSize);
   }
 
-  private void applyStatsSection(
-      DashboardSnapshotDTO snapshot, LocalDate from, LocalDate to, Long dentistId) {
-    try {
-      Map<String, Object> stats = dashboardService.getDashboardStatistics(from, to, dentistId);
-      snapshot.setTotalAppointments(extractLong(stats.get("totalAppointments")));
-      snapshot.setTotalDentists(extractLong(stats.get("totalDentists")));
-      snapshot.setTotalPatients(extractLong(stats.get("totalPatients")));
-      snapshot.setTodayAppointments(extractLong(stats.get("todayAppointments")));
-    } catch (RuntimeException ignored) {
-      // Keep safe defaults for this section
+  /**
+   * Recalcula un snapshot cacheado fuera del pedido que lo consulta. Devuelve null si quedó
+   * parcial, para que el cache descarte la entrada en lugar de reemplazarla por uno incompleto.
+   */
+  public DashboardSnapshotDTO refresh(DashboardSnapshotKey key) {
+    DashboardSnapshotDTO snapshot = getDashboardSnapshot(key.from(), key.to(), key.dentistId());
+    if (snapshot.isPartial()) {
+      log.warn("Dashboard: el recálculo de {} quedó parcial; se descarta la entrada.", key);
+      return null;
     }
+    return snapshot;
+  }
+
+  /** Cálculos hechos y pedidos que se sumaron a uno en curso. */
+  public CoalescingMetrics coalescingMetrics() {
+    return new CoalescingMetrics(computations.get(), coalesced.get());
   }
 
-  private void applyMonthlySection(
-      DashboardSnapshotDTO snapshot, LocalDate from, LocalDate to, Long dentistId) {
+  // Espera el cálculo de otro pedido. Cada sección ya tiene su vencimiento, así que la espera
+  // también queda acotada; si el cálculo falla, el error llega igual a todos los que esperan.
+  private DashboardSnapshotDTO join(CompletableFuture<DashboardSnapshotDTO> running) {
     try {
-      Map<String, Object> monthlyData =
-          dashboardService.getAppointmentsByMonth(from, to, dentistId);
-      Object monthsObj = monthlyData.get("months");
-      Object countsObj = monthlyData.get("appointmentCounts");
-
-      if (!(monthsObj instanceof List<?> months) || !(countsObj instanceof List<?> counts)) {
-        snapshot.setMonthlyStats(new ArrayList<>());
-        return;
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
       }
-
-      int size = Math.min(months.size(), counts.size());
-      List<DashboardStatsDTO.MonthlyStatsDTO> monthlyStats = new ArrayList<>(size);
-
-      for (int i = 0; i < size; i++) {
-        String monthLabel = months.get(i) != null ? months.get(i).toString() : "";
-        Long appointmentCount = extractLong(counts.get(i));
-        monthlyStats.add(
-            new DashboardStatsDTO.MonthlyStatsDTO(monthLabel, monthLabel, appointmentCount));
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
       }
-
-      snapshot.setMonthlyStats(monthlyStats);
-    } catch (RuntimeException ignored) {
-      // Keep safe defaults for this section
+      throw e;
     }
   }
 
-  @SuppressWarnings("unchecked")
-  private void applyUpcomingSection(
-      DashboardSnapshotDTO snapshot, LocalDate from, LocalDate to, Long dentistId) {
-    try {
-      Map<String, Object> upcomingData =
-          dashboardService.getUpcomingAppointments(from, to, dentistId);
-      Object upcomingObj = upcomingData.get("upcomingAppointments");
+  private DashboardSnapshotDTO compute(LocalDate from, LocalDate to, Long dentistId) {
+    // Antes de leer: si una escritura entra durante el cálculo, el snapshot queda con la versión
+    // anterior y el próximo pedido condicional lo vuelve a bajar en lugar de quedarse con él.
+    long version = dataVersion.current();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMillis);
+    List<Section> sections =
+        List.of(
+            submit("stats", () -> statsSection(from, to, dentistId)),
+            submit("monthly", () -> monthlySection(from, to, dentistId)),
+            submit("upcoming", () -> upcomingSection(from, to, dentistId)),
+            submit("status", () -> statusSection(from, to, dentistId)),
+            submit("dentist", () -> dentistSection(from, to, dentistId)));
 
-      if (!(upcomingObj instanceof List<?> upcomingList)) {
-        snapshot.setUpcomingAppointments(new ArrayList<>());
-        return;
+    DashboardSnapshotDTO snapshot = DashboardSnapshotDTO.withDefaults();
+    snapshot.setDataVersion(version);
+    for (Section section : sections) {
+      Consumer<DashboardSnapshotDTO> result = await(section, deadline);
+      if (result != null) {
+        result.accept(snapshot);
+      } else {
+        snapshot.setPartial(true);
       }
+    }
+    return snapshot;
+  }
 
-      List<DashboardSnapshotDTO.UpcomingAppointmentDTO> appointments = new ArrayList<>();
-      for (Object item : upcomingList) {
-        if (!(item instanceof Map<?, ?> itemMap)) {
-          continue;
-        }
-
-        Map<String, Object> appointment = (Map<String, Object>) itemMap;
-
-        DashboardSnapshotDTO.UpcomingAppointmentDTO dto =
-            new DashboardSnapshotDTO.UpcomingAppointmentDTO();
-        dto.setId(extractLong(appointment.get("id")));
-        dto.setPatientName(extractString(appointment.get("patientName")));
-        dto.setDentistName(extractString(appointment.get("dentistName")));
-        dto.setDate(extractString(appointment.get("date")));
-        dto.setTime(extractString(appointment.get("time")));
-        dto.setStatus(extractString(appointment.get("status")));
-        appointments.add(dto);
+  /** Métricas por sección desde el arranque, en el orden en que se calculan. */
+  public Map<String, SectionMetrics> sectionMetrics() {
+    Map<String, SectionMetrics> metrics = new LinkedHashMap<>();
+    for (String name : List.of("stats", "monthly", "upcoming", "status", "dentist")) {
+      SectionCounters section = counters.get(name);
+      if (section != null) {
+        metrics.put(
+            name,
+            new SectionMetrics(
+                section.runs.get(),
+                section.failures.get(),
+                section.timeouts.get(),
+                TimeUnit.NANOSECONDS.toMillis(section.totalNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(section.maxNanos.get())));
       }
-
-      snapshot.setUpcomingAppointments(appointments);
-    } catch (RuntimeException ignored) {
-      // Keep safe defaults for this section
     }
+    return metrics;
   }
 
-  private void applyStatusSection(
-      DashboardSnapshotDTO snapshot, LocalDate from, LocalDate to, Long dentistId) {
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private Section submit(String name, Supplier<Consumer<DashboardSnapshotDTO>> work) {
+    SectionCounters section = counters.computeIfAbsent(name, key -> new SectionCounters());
+    return new Section(
+        name,
+        executor.submit(
+            () -> {
+              sectionPermits.acquire();
+              long start = System.nanoTime();
+              try {
+                return work.get();
+              } catch (RuntimeException e) {
+                section.failures.incrementAndGet();
+                log.warn("Dashboard: la sección {} falló: {}", name, e.toString());
+                throw e;
+              } finally {
+                long elapsed = System.nanoTime() - start;
+                sectionPermits.release();
+                section.runs.incrementAndGet();
+                section.totalNanos.addAndGet(elapsed);
+                section.maxNanos.accumulateAndGet(elapsed, Math::max);
+              }
+            }));
+  }
+
+  // Espera la sección hasta el vencimiento común del snapshot; null si falló o no llegó.
+  private Consumer<DashboardSnapshotDTO> await(Section section, long deadline) {
     try {
-      snapshot.setStatusBreakdown(dashboardService.getAppointmentsByStatus(from, to, dentistId));
-    } catch (RuntimeException ignored) {
-      // Keep safe defaults for this section
+      return section.result().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      section.result().cancel(true);
+      counters.get(section.name()).timeouts.incrementAndGet();
+      log.warn(
+          "Dashboard: la sección {} no terminó en {} ms; se usan los valores por defecto.",
+          section.name(),
+          sectionTimeoutMillis);
+      return null;
+    } catch (ExecutionException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      section.result().cancel(true);
+      return null;
     }
   }
 
-  private void applyDentistSection(
-      DashboardSnapshotDTO snapshot, LocalDate from, LocalDate to, Long dentistId) {
-    try {
-      snapshot.setDentistBreakdown(dashboardService.getAppointmentsByDentist(from, to, dentistId));
-    } catch (RuntimeException ignored) {
-      // Keep safe defaults for this section
+  private Consumer<DashboardSnapshotDTO> statsSection(
+      LocalDate from, LocalDate to, Long dentistId) {
+    Map<String, Object> stats = dashboardService.getDashboardStatistics(from, to, dentistId);
+    Long totalAppointments = extractLong(stats.get("totalAppointments"));
+    Long totalDentists = extractLong(stats.get("totalDentists"));
+    Long totalPatients = extractLong(stats.get("totalPatients"));
+    Long todayAppointments = extractLong(stats.get("todayAppointments"));
+    return snapshot -> {
+      snapshot.setTotalAppointments(totalAppointments);
+      snapshot.setTotalDentists(totalDentists);
+      snapshot.setTotalPatients(totalPatients);
+      snapshot.setTodayAppointments(todayAppointments);
+    };
+  }
+
+  private Consumer<DashboardSnapshotDTO> monthlySection(
+      LocalDate from, LocalDate to, Long dentistId) {
+    Map<String, Object> monthlyData = dashboardService.getAppointmentsByMonth(from, to, dentistId);
+    Object monthsObj = monthlyData.get("months");
+    Object countsObj = monthlyData.get("appointmentCounts");
+
+    if (!(monthsObj instanceof List<?> months) || !(countsObj instanceof List<?> counts)) {
+      return snapshot -> snapshot.setMonthlyStats(new ArrayList<>());
+    }
+
+    int size = Math.min(months.size(), counts.size());
+    List<DashboardStatsDTO.MonthlyStatsDTO> monthlyStats = new ArrayList<>(size);
+
+    for (int i = 0; i < size; i++) {
+      String monthLabel = months.get(i) != null ? months.get(i).toString() : "";
+      Long appointmentCount = extractLong(counts.get(i));
+      monthlyStats.add(
+          new DashboardStatsDTO.MonthlyStatsDTO(monthLabel, monthLabel, appointmentCount));
     }
+
+    return snapshot -> snapshot.setMonthlyStats(monthlyStats);
+  }
+
+  private Consumer<DashboardSnapshotDTO> upcomingSection(
+      LocalDate from, LocalDate to, Long dentistId) {
+    CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> page =
+        dashboardService.getUpcomingAppointments(from, to, dentistId, null, upcomingPageSize);
+    return snapshot -> {
+      snapshot.setUpcomingAppointments(page.getContent());
+      snapshot.setUpcomingNextCursor(page.getNextCursor());
+    };
+  }
+
+  private Consumer<DashboardSnapshotDTO> statusSection(
+      LocalDate from, LocalDate to, Long dentistId) {
+    List<DashboardSnapshotDTO.StatusCountDTO> breakdown =
+        dashboardService.getAppointmentsByStatus(from, to, dentistId);
+    return snapshot -> snapshot.setStatusBreakdown(breakdown);
+  }
+
+  private Consumer<DashboardSnapshotDTO> dentistSection(
+      LocalDate from, LocalDate to, Long dentistId) {
+    List<DashboardSnapshotDTO.DentistCountDTO> breakdown =
+        dashboardService.getAppointmentsByDentist(from, to, dentistId);
+    return snapshot -> snapshot.setDentistBreakdown(breakdown);
   }
 
   private Long extractLong(Object value) {
@@ -149,8 +379,4 @@ public class DashboardSnapshotService implements IDashboardSnapshotService {
       return 0L;
     }
   }
-
-  private String extractString(Object value) {
-    return value != null ? value.toString() : "";
-  }
 }
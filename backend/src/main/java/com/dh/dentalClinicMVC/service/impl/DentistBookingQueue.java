@@ -0,0 +1,282 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.exception.BookingTimeoutException;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Modo de reserva encolado ({@code app.booking.mode=queued}): las altas y ediciones de turnos de un
+ * mismo odontólogo pasan por una única cola, atendida por un solo hilo (una franja por {@code
+ * dentist_id % stripes}). Cada hilo toma todo lo que se acumuló, hasta {@code max-batch} pedidos,
+ * los ejecuta uno detrás de otro dentro de una sola transacción (los conflictos se resuelven contra
+ * el índice en memoria, sin esperas de locks entre ellos) y confirma una vez para todo el grupo.
+ * Recién después del commit se completa el futuro de cada llamador.
+ *
+ * <p>Si un pedido deja la transacción marcada para rollback (p. ej. la base rechaza un horario que
+ * el índice no conocía), el grupo se deshace y cada pedido se vuelve a ejecutar en su propia
+ * transacción, así un error no arrastra a los demás. Con la cola llena el pedido se ejecuta en el
+ * hilo del llamador, como en el modo directo.
+ *
+ * <p>El llamador espera como mucho {@code app.booking.await-timeout-ms}. Si el pedido seguía en la
+ * cola se saca y no se ejecuta; si el hilo de la franja ya lo había tomado, puede confirmarse igual
+ * después del timeout. En los dos casos el llamador recibe {@link BookingTimeoutException} (503).
+ *
+ * <p>En el modo por defecto ({@code direct}) no arranca ningún hilo y {@link #execute} corre la
+ * tarea en el acto, en su propia transacción.
+ */
+@Component
+public class DentistBookingQueue {
+
+  private static final Logger log = LoggerFactory.getLogger(DentistBookingQueue.class);
+
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int maxBatch;
+  private final long awaitTimeoutMs;
+  private final List<BlockingQueue<Job<?>>> stripes = new ArrayList<>();
+  private final List<Thread> workers = new ArrayList<>();
+
+  private final AtomicLong committedBatches = new AtomicLong();
+  private final AtomicLong committedJobs = new AtomicLong();
+
+  public DentistBookingQueue(
+      PlatformTransactionManager transactionManager,
+      @Value("${app.booking.mode:direct}") String mode,
+      @Value("${app.booking.stripes:8}") int stripeCount,
+      @Value("${app.booking.max-batch:32}") int maxBatch,
+      @Value("${app.booking.queue-capacity:1000}") int queueCapacity,
+      @Value("${app.booking.await-timeout-ms:10000}") long awaitTimeoutMs) {
+    if (!mode.equals("direct") && !mode.equals("queued")) {
+      throw new IllegalArgumentException("app.booking.mode inválido: " + mode);
+    }
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = mode.equals("queued");
+    this.maxBatch = maxBatch;
+    this.awaitTimeoutMs = awaitTimeoutMs;
+
+    if (enabled) {
+      for (int i = 0; i < stripeCount; i++) {
+        BlockingQueue<Job<?>> queue = new LinkedBlockingQueue<>(queueCapacity);
+        Thread worker = new Thread(() -> drain(queue), "booking-stripe-" + i);
+        worker.setDaemon(true);
+        stripes.add(queue);
+        workers.add(worker);
+        worker.start();
+      }
+      log.info(
+          "DentistBookingQueue: {} franjas, hasta {} pedidos por commit.", stripeCount, maxBatch);
+    }
+  }
+
+  // Tarea de reserva; puede lanzar la excepción chequeada del servicio (ResourceNotFoundException).
+  @FunctionalInterface
+  public interface BookingWork<T, E extends Exception> {
+    T run() throws E;
+  }
+
+  private record Job<T>(BookingWork<T, ?> work, CompletableFuture<T> result) {}
+
+  private record Outcome(Object value, Throwable error) {}
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Ejecuta la tarea en la franja del odontólogo y espera a que su transacción se confirme, hasta
+   * {@code app.booking.await-timeout-ms}; después lanza {@link BookingTimeoutException} (ver la
+   * documentación de la clase). Los errores de la tarea se relanzan tal cual en el hilo del
+   * llamador. Si el llamador ya tiene una transacción abierta, la tarea corre dentro de ella:
+   * encolarla la separaría de su commit.
+   */
+  public <T, E extends Exception> T execute(Long dentistId, BookingWork<T, E> work) throws E {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return work.run();
+    }
+    if (!enabled || dentistId == null) {
+      return outcome(runInOwnTransaction(work));
+    }
+    Job<T> job = new Job<>(work, new CompletableFuture<>());
+    BlockingQueue<Job<?>> queue = stripes.get(Math.floorMod(dentistId, stripes.size()));
+    if (!queue.offer(job)) {
+      return outcome(runInOwnTransaction(work));
+    }
+    return await(queue, job);
+  }
+
+  long committedBatches() {
+    return committedBatches.get();
+  }
+
+  long committedJobs() {
+    return committedJobs.get();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    workers.forEach(Thread::interrupt);
+    for (BlockingQueue<Job<?>> queue : stripes) {
+      List<Job<?>> pending = new ArrayList<>();
+      queue.drainTo(pending);
+      pending.forEach(
+          job ->
+              job.result().completeExceptionally(new IllegalStateException("Aplicación detenida")));
+    }
+  }
+
+  private void drain(BlockingQueue<Job<?>> queue) {
+    List<Job<?>> batch = new ArrayList<>(maxBatch);
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      queue.drainTo(batch, maxBatch - 1);
+      try {
+        runBatch(batch);
+      } catch (RuntimeException e) {
+        // No debería pasar (runBatch completa cada futuro), pero el hilo de la franja no puede
+        // morir.
+        log.error("DentistBookingQueue: error inesperado procesando un grupo", e);
+        batch.forEach(job -> job.result().completeExceptionally(e));
+      }
+      batch.clear();
+    }
+  }
+
+  private void runBatch(List<Job<?>> batch) {
+    List<Outcome> outcomes = new ArrayList<>(batch.size());
+    boolean committed;
+    try {
+      committed =
+          Boolean.TRUE.equals(
+              transactionTemplate.execute(
+                  status -> {
+                    for (Job<?> job : batch) {
+                      outcomes.add(run(job));
+                      if (status.isRollbackOnly()) {
+                        return false;
+                      }
+                    }
+                    return true;
+                  }));
+    } catch (RuntimeException e) {
+      committed = false;
+    }
+
+    if (committed) {
+      committedBatches.incrementAndGet();
+      committedJobs.addAndGet(batch.size());
+      for (int i = 0; i < batch.size(); i++) {
+        complete(batch.get(i), outcomes.get(i));
+      }
+      return;
+    }
+
+    // El grupo se deshizo: cada pedido en su propia transacción.
+    for (Job<?> job : batch) {
+      Outcome outcome = runInOwnTransaction(job.work());
+      if (outcome.error() == null) {
+        committedBatches.incrementAndGet();
+        committedJobs.incrementAndGet();
+      }
+      complete(job, outcome);
+    }
+  }
+
+  // Una tarea sola en su transacción: se confirma si terminó bien y se deshace si lanzó algo, así
+  // las reservas que haya tomado en el índice se liberan.
+  private Outcome runInOwnTransaction(BookingWork<?, ?> work) {
+    Outcome[] outcome = new Outcome[1];
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            outcome[0] = run(work);
+            if (outcome[0].error() != null) {
+              status.setRollbackOnly();
+            }
+          });
+    } catch (RuntimeException e) {
+      outcome[0] = new Outcome(null, e);
+    }
+    return outcome[0];
+  }
+
+  private static Outcome run(Job<?> job) {
+    return run(job.work());
+  }
+
+  private static Outcome run(BookingWork<?, ?> work) {
+    try {
+      return new Outcome(work.run(), null);
+    } catch (Exception e) {
+      return new Outcome(null, e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void complete(Job<T> job, Outcome outcome) {
+    if (outcome.error() != null) {
+      job.result().completeExceptionally(outcome.error());
+    } else {
+      job.result().complete((T) outcome.value());
+    }
+  }
+
+  private <T, E extends Exception> T await(BlockingQueue<Job<?>> queue, Job<T> job) throws E {
+    try {
+      return job.result().get(awaitTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      if (queue.remove(job)) {
+        throw new BookingTimeoutException(
+            "La reserva no se procesó a tiempo y no se registró. Intentá de nuevo.");
+      }
+      // El hilo de la franja ya la tomó: puede confirmarse igual después de este punto.
+      throw new BookingTimeoutException(
+          "La reserva no se confirmó a tiempo y puede haberse registrado igual. Revisá la agenda"
+              + " antes de intentar de nuevo.");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Reserva interrumpida", e);
+    } catch (ExecutionException e) {
+      throw DentistBookingQueue.<E>rethrow(e.getCause());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T, E extends Exception> T outcome(Outcome outcome) throws E {
+    if (outcome.error() != null) {
+      throw DentistBookingQueue.<E>rethrow(outcome.error());
+    }
+    return (T) outcome.value();
+  }
+
+  // La tarea sólo puede lanzar unchecked o su E, así que el cast es seguro.
+  @SuppressWarnings("unchecked")
+  private static <E extends Exception> E rethrow(Throwable cause) throws E {
+    if (cause instanceof RuntimeException runtime) {
+      throw runtime;
+    }
+    if (cause instanceof Error error) {
+      throw error;
+    }
+    throw (E) cause;
+  }
+}
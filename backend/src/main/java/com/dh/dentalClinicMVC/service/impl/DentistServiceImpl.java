@@ -16,11 +16,15 @@ public class DentistServiceImpl implements IDentistService {
 
   private final IDentistRepository dentistRepository;
   private final UserPasswordPolicy passwordPolicy;
+  private final DashboardDataVersion dataVersion;
 
   public DentistServiceImpl(
-      IDentistRepository dentistRepository, UserPasswordPolicy passwordPolicy) {
+      IDentistRepository dentistRepository,
+      UserPasswordPolicy passwordPolicy,
+      DashboardDataVersion dataVersion) {
     this.dentistRepository = dentistRepository;
     this.passwordPolicy = passwordPolicy;
+    this.dataVersion = dataVersion;
   }
 
   @Override
@@ -53,7 +57,9 @@ public class DentistServiceImpl implements IDentistService {
       dentist.setRole(Role.DENTIST);
     }
 
-    return dentistRepository.save(dentist);
+    Dentist saved = dentistRepository.save(dentist);
+    dataVersion.changed();
+    return saved;
   }
 
   @Override
@@ -91,6 +97,7 @@ public class DentistServiceImpl implements IDentistService {
     }
 
     dentistRepository.save(existing);
+    dataVersion.changed();
   }
 
   @Override
@@ -99,6 +106,7 @@ public class DentistServiceImpl implements IDentistService {
 
     if (dentistToLookFor.isPresent()) {
       dentistRepository.deleteById(id);
+      dataVersion.changed();
     } else {
       throw new ResourceNotFoundException("No se pudo eliminar el odontólogo con el id: " + id);
     }
@@ -0,0 +1,203 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.dto.NextAvailableSlotDTO;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Specialty;
+import com.dh.dentalClinicMVC.exception.ResourceNotFoundException;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.ISpecialtyRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Primeros horarios libres entre todos los odontólogos de una especialidad. Dos consultas traen los
+ * odontólogos (por dentist_specialty) y la ocupación de todos ellos en la ventana de búsqueda; con
+ * eso cada odontólogo es una secuencia cronológica de horarios libres que se genera a demanda, y un
+ * merge de k vías sobre una cola de prioridad saca los N más tempranos. Sólo se evalúan los
+ * horarios que llegan a la respuesta (más los ocupados que se saltean), no la grilla completa de
+ * cada odontólogo.
+ */
+@Component
+class NextAvailableSlotFinder {
+
+  static final int MAX_LIMIT = 50;
+
+  // Ventana de búsqueda, la misma que el rango máximo de /appointments/availability.
+  static final int SEARCH_DAYS = 31;
+
+  private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+  private final ISpecialtyRepository specialtyRepository;
+  private final IDentistRepository dentistRepository;
+  private final IAppointmentRepository appointmentRepository;
+  private final ClinicCalendar clinicCalendar;
+
+  NextAvailableSlotFinder(
+      ISpecialtyRepository specialtyRepository,
+      IDentistRepository dentistRepository,
+      IAppointmentRepository appointmentRepository,
+      ClinicCalendar clinicCalendar) {
+    this.specialtyRepository = specialtyRepository;
+    this.dentistRepository = dentistRepository;
+    this.appointmentRepository = appointmentRepository;
+    this.clinicCalendar = clinicCalendar;
+  }
+
+  List<NextAvailableSlotDTO> find(Long specialtyId, LocalDateTime after, int limit)
+      throws ResourceNotFoundException {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_LIMIT);
+    }
+    Specialty specialty =
+        specialtyRepository
+            .findById(specialtyId)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        "Especialidad no encontrada con id: " + specialtyId));
+    int durationMinutes = AppointmentDurations.of(specialty);
+
+    // Nada antes de ahora, como en ClinicCalendar.validate.
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime notBefore = after == null || after.isBefore(now) ? now : after;
+    LocalDate from = notBefore.toLocalDate();
+    LocalDate to = from.plusDays(SEARCH_DAYS - 1);
+
+    List<Object[]> dentists = dentistRepository.findNamesBySpecialtyId(specialtyId);
+    if (dentists.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, Map<LocalDate, BitSet>> taken = new HashMap<>();
+    for (Object[] row :
+        appointmentRepository.findSlotsBySpecialtyBetween(
+            specialtyId, from, to, AppointmentStatus.CANCELLED)) {
+      LocalTime time = (LocalTime) row[2];
+      if (ClinicSchedule.isWithinHours(time)) {
+        int minute = ClinicSchedule.minuteOfGrid(time);
+        taken
+            .computeIfAbsent((Long) row[0], id -> new HashMap<>())
+            .computeIfAbsent((LocalDate) row[1], date -> new BitSet())
+            .set(minute, minute + (Integer) row[3]);
+      }
+    }
+
+    PriorityQueue<FreeSlots> heads = new PriorityQueue<>(FreeSlots.EARLIEST_FIRST);
+    for (Object[] row : dentists) {
+      Long dentistId = (Long) row[0];
+      FreeSlots slots =
+          new FreeSlots(
+              dentistId,
+              (String) row[1],
+              taken.getOrDefault(dentistId, Map.of()),
+              durationMinutes,
+              clinicCalendar::isOpen,
+              notBefore,
+              to);
+      if (slots.advance()) {
+        heads.add(slots);
+      }
+    }
+
+    List<NextAvailableSlotDTO> result = new ArrayList<>(limit);
+    while (result.size() < limit && !heads.isEmpty()) {
+      FreeSlots earliest = heads.poll();
+      result.add(
+          new NextAvailableSlotDTO(
+              earliest.dentistId,
+              earliest.dentistName,
+              earliest.date.toString(),
+              ClinicSchedule.timeOfGrid(earliest.minute).format(TIME_FORMAT),
+              durationMinutes));
+      if (earliest.advance()) {
+        heads.add(earliest);
+      }
+    }
+    return result;
+  }
+
+  // Horarios libres de un odontólogo, en orden, sobre la grilla de SLOT_MINUTES. Un horario está
+  // libre si ningún turno pisa [horario, horario + duración).
+  private static final class FreeSlots {
+
+    // A igual horario, primero el odontólogo de menor id: el resultado es determinístico.
+    static final Comparator<FreeSlots> EARLIEST_FIRST =
+        Comparator.comparing((FreeSlots slots) -> slots.date)
+            .thenComparingInt(slots -> slots.minute)
+            .thenComparing(slots -> slots.dentistId);
+
+    private final Long dentistId;
+    private final String dentistName;
+    private final Map<LocalDate, BitSet> taken;
+    private final int durationMinutes;
+    private final Predicate<LocalDate> isOpen;
+    private final LocalDate lastDay;
+
+    // Horario libre actual (válido tras un advance exitoso) y próximo minuto a evaluar.
+    private LocalDate date;
+    private int minute;
+    private int candidate;
+
+    FreeSlots(
+        Long dentistId,
+        String dentistName,
+        Map<LocalDate, BitSet> taken,
+        int durationMinutes,
+        Predicate<LocalDate> isOpen,
+        LocalDateTime notBefore,
+        LocalDate lastDay) {
+      this.dentistId = dentistId;
+      this.dentistName = dentistName;
+      this.taken = taken;
+      this.durationMinutes = durationMinutes;
+      this.isOpen = isOpen;
+      this.lastDay = lastDay;
+      this.date = notBefore.toLocalDate();
+      this.candidate = firstSlotNotBefore(notBefore.toLocalTime());
+    }
+
+    boolean advance() {
+      while (!date.isAfter(lastDay)) {
+        if (isOpen.test(date)) {
+          BitSet day = taken.get(date);
+          while (candidate + durationMinutes <= ClinicSchedule.CLOSING_MINUTE) {
+            int next = day != null ? day.nextSetBit(candidate) : -1;
+            if (next >= 0 && next < candidate + durationMinutes) {
+              // Cualquier horario hasta el final de ese tramo ocupado también lo pisa.
+              candidate = roundUpToSlot(day.nextClearBit(next));
+              continue;
+            }
+            minute = candidate;
+            candidate += ClinicSchedule.SLOT_MINUTES;
+            return true;
+          }
+        }
+        date = date.plusDays(1);
+        candidate = 0;
+      }
+      return false;
+    }
+
+    private static int firstSlotNotBefore(LocalTime time) {
+      long nanos = Duration.between(ClinicSchedule.OPENING, time).toNanos();
+      return nanos <= 0 ? 0 : roundUpToSlot((int) Math.ceilDiv(nanos, 60_000_000_000L));
+    }
+
+    private static int roundUpToSlot(int minute) {
+      return Math.ceilDiv(minute, ClinicSchedule.SLOT_MINUTES) * ClinicSchedule.SLOT_MINUTES;
+    }
+  }
+}
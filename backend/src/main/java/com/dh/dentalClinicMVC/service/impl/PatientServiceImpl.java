@@ -1,26 +1,50 @@
 package com.dh.dentalClinicMVC.service.impl;
 
 import com.dh.dentalClinicMVC.dto.PatientResponseDTO;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
 import com.dh.dentalClinicMVC.entity.Patient;
 import com.dh.dentalClinicMVC.entity.Role;
 import com.dh.dentalClinicMVC.exception.ResourceNotFoundException;
+import com.dh.dentalClinicMVC.repository.AppointmentRow;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import com.dh.dentalClinicMVC.repository.IAppointmentSeriesRepository;
 import com.dh.dentalClinicMVC.repository.IPatientRepository;
 import com.dh.dentalClinicMVC.service.IPatientService;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class PatientServiceImpl implements IPatientService {
 
   private final IPatientRepository patientRepository;
+  private final IAppointmentRepository appointmentRepository;
+  private final IAppointmentSeriesRepository seriesRepository;
   private final UserPasswordPolicy passwordPolicy;
+  private final AppointmentRollups rollups;
+  private final DashboardDataVersion dataVersion;
+  private final AppointmentChangePublisher changePublisher;
+  private final AppointmentSlotIndex slotIndex;
 
   public PatientServiceImpl(
-      IPatientRepository patientRepository, UserPasswordPolicy passwordPolicy) {
+      IPatientRepository patientRepository,
+      IAppointmentRepository appointmentRepository,
+      IAppointmentSeriesRepository seriesRepository,
+      UserPasswordPolicy passwordPolicy,
+      AppointmentRollups rollups,
+      DashboardDataVersion dataVersion,
+      AppointmentChangePublisher changePublisher,
+      AppointmentSlotIndex slotIndex) {
     this.patientRepository = patientRepository;
+    this.appointmentRepository = appointmentRepository;
+    this.seriesRepository = seriesRepository;
     this.passwordPolicy = passwordPolicy;
+    this.rollups = rollups;
+    this.dataVersion = dataVersion;
+    this.changePublisher = changePublisher;
+    this.slotIndex = slotIndex;
   }
 
   @Override
@@ -56,7 +80,9 @@ public class PatientServiceImpl implements IPatientService {
       patient.setRole(Role.PATIENT);
     }
 
-    return patientRepository.save(patient);
+    Patient saved = patientRepository.save(patient);
+    dataVersion.changed();
+    return saved;
   }
 
   @Override
@@ -95,14 +121,36 @@ public class PatientServiceImpl implements IPatientService {
     }
 
     patientRepository.save(existing);
+    dataVersion.changed();
   }
 
   @Override
+  @Transactional
   public void delete(Long id) throws ResourceNotFoundException {
     Optional<Patient> patientToLookFor = findById(id);
 
     if (patientToLookFor.isPresent()) {
+      // Los turnos del paciente se borran con él: liberan su horario, salen de los conteos diarios
+      // y se avisan como borrados. Se leen de la base y no de la colección del paciente, que no ve
+      // los turnos de series (insertados por JDBC).
+      List<AppointmentRow> appointments = appointmentRepository.findRowsByPatientId(id);
+      for (AppointmentRow appointment : appointments) {
+        if (appointment.status() != AppointmentStatus.CANCELLED) {
+          slotIndex.releaseOnCommit(
+              appointment.dentistId(),
+              appointment.date(),
+              appointment.time(),
+              appointment.durationMinutes());
+        }
+        rollups.removed(appointment.dentistId(), appointment.date(), appointment.status());
+        changePublisher.deleted(appointment.id(), appointment.dentistId(), appointment.date());
+      }
+      // Sus series referencian al paciente y sus turnos a las series: primero los turnos, después
+      // las series y por último el paciente.
+      appointmentRepository.deleteByPatientId(id);
+      seriesRepository.deleteByPatientId(id);
       patientRepository.deleteById(id);
+      dataVersion.changed();
     } else {
       throw new ResourceNotFoundException("No se pudo eliminar el paciente con el id: " + id);
     }
@@ -0,0 +1,33 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import com.dh.dentalClinicMVC.exception.DuplicateResourceException;
+import java.util.Locale;
+import org.springframework.dao.DataIntegrityViolationException;
+
+// Conflictos de horario. El índice en memoria los detecta primero; la restricción única de la base
+// (Appointment.ACTIVE_SLOT_CONSTRAINT) cubre lo que el índice no ve, como otra instancia de la
+// aplicación o dos altas que se cruzan, y su violación se informa igual que la del índice.
+final class SlotConflicts {
+
+  static final String SLOT_TAKEN = "El odontólogo ya tiene un turno en esa fecha y hora";
+
+  private SlotConflicts() {}
+
+  static DuplicateResourceException slotTaken() {
+    return new DuplicateResourceException(SLOT_TAKEN);
+  }
+
+  // El nombre de la restricción aparece en el mensaje del driver (H2 lo pasa a mayúsculas).
+  static boolean isActiveSlotViolation(DataIntegrityViolationException e) {
+    String message = e.getMostSpecificCause().getMessage();
+    return message != null
+        && message
+            .toLowerCase(Locale.ROOT)
+            .contains(Appointment.ACTIVE_SLOT_CONSTRAINT.toLowerCase(Locale.ROOT));
+  }
+
+  static RuntimeException translate(DataIntegrityViolationException e) {
+    return isActiveSlotViolation(e) ? slotTaken() : e;
+  }
+}
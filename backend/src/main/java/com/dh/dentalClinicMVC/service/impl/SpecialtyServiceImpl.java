@@ -26,7 +26,11 @@ public class SpecialtyServiceImpl implements ISpecialtyService {
   }
 
   private SpecialtyDTO toDTO(Specialty specialty) {
-    return new SpecialtyDTO(specialty.getId(), specialty.getName(), specialty.getDescription());
+    return new SpecialtyDTO(
+        specialty.getId(),
+        specialty.getName(),
+        specialty.getDescription(),
+        specialty.getDefaultDurationMinutes());
   }
 
   @Override
@@ -52,6 +56,7 @@ public class SpecialtyServiceImpl implements ISpecialtyService {
     Specialty entity = new Specialty();
     entity.setName(specialty.getName());
     entity.setDescription(specialty.getDescription());
+    entity.setDefaultDurationMinutes(specialty.getDefaultDurationMinutes());
     return toDTO(specialtyRepository.save(entity));
   }
 
@@ -73,6 +78,9 @@ public class SpecialtyServiceImpl implements ISpecialtyService {
     if (specialty.getDescription() != null) {
       existing.setDescription(specialty.getDescription());
     }
+    if (specialty.getDefaultDurationMinutes() != null) {
+      existing.setDefaultDurationMinutes(specialty.getDefaultDurationMinutes());
+    }
 
     return toDTO(specialtyRepository.save(existing));
   }
@@ -0,0 +1,164 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cierra los turnos de días anteriores que quedaron en SCHEDULED o IN_PROGRESS, pasándolos al
+ * estado terminal configurado. Sin esto inflan los conteos por estado del dashboard y los listados
+ * de próximos turnos.
+ *
+ * <p>Recorre la tabla por id en tramos de {@code chunk-size} filas, cada uno con su propia
+ * transacción y un solo UPDATE, así nunca retiene bloqueos sobre {@code appointments} más que lo
+ * que dura un tramo. Las filas del tramo se leen bloqueadas, así los conteos diarios del dashboard
+ * (ver AppointmentRollups) pasan del estado leído al nuevo en la misma transacción. Esos deltas no
+ * pasan por {@link DashboardSnapshotEvictor}: el snapshot del dashboard se invalida y su versión de
+ * datos sube una sola vez por corrida.
+ *
+ * <p>Propiedades ({@code app.appointment-sweeper.*}): {@code enabled} (true por defecto), {@code
+ * cron} (00:15 todos los días), {@code target-status} (COMPLETED o CANCELLED) y {@code chunk-size}
+ * (1000).
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.appointment-sweeper.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class StaleAppointmentSweeper {
+
+  private static final Logger log = LoggerFactory.getLogger(StaleAppointmentSweeper.class);
+
+  static final Set<AppointmentStatus> STALE_STATUSES =
+      EnumSet.of(AppointmentStatus.SCHEDULED, AppointmentStatus.IN_PROGRESS);
+
+  private final IAppointmentRepository appointmentRepository;
+  private final AppointmentRollups rollups;
+  private final TransactionTemplate transactionTemplate;
+  private final CacheManager cacheManager;
+  private final DashboardDataVersion dataVersion;
+  private final AppointmentStatus targetStatus;
+  private final int chunkSize;
+
+  // Métricas de las corridas, para quien las quiera exponer (por ahora, el log).
+  private final AtomicReference<SweepResult> lastRun = new AtomicReference<>();
+  private final AtomicLong totalUpdated = new AtomicLong();
+
+  public StaleAppointmentSweeper(
+      IAppointmentRepository appointmentRepository,
+      AppointmentRollups rollups,
+      PlatformTransactionManager transactionManager,
+      CacheManager cacheManager,
+      DashboardDataVersion dataVersion,
+      @Value("${app.appointment-sweeper.target-status:COMPLETED}") AppointmentStatus targetStatus,
+      @Value("${app.appointment-sweeper.chunk-size:1000}") int chunkSize) {
+    if (STALE_STATUSES.contains(targetStatus)) {
+      throw new IllegalStateException(
+          "app.appointment-sweeper.target-status debe ser un estado terminal: " + targetStatus);
+    }
+    if (chunkSize < 1) {
+      throw new IllegalStateException("app.appointment-sweeper.chunk-size debe ser positivo");
+    }
+    this.appointmentRepository = appointmentRepository;
+    this.rollups = rollups;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.cacheManager = cacheManager;
+    this.dataVersion = dataVersion;
+    this.targetStatus = targetStatus;
+    this.chunkSize = chunkSize;
+  }
+
+  /** Resultado de una corrida: turnos cambiados, tramos procesados y duración. */
+  public record SweepResult(LocalDate before, int updated, int chunks, long elapsedMillis) {}
+
+  @Scheduled(cron = "${app.appointment-sweeper.cron:0 15 0 * * *}")
+  public void sweepScheduled() {
+    sweep(LocalDate.now());
+  }
+
+  /** Pasa al estado terminal los turnos pendientes con fecha anterior a {@code before}. */
+  public SweepResult sweep(LocalDate before) {
+    long start = System.nanoTime();
+    long lastId = 0;
+    int updated = 0;
+    int chunks = 0;
+    while (true) {
+      long afterId = lastId;
+      Chunk chunk = transactionTemplate.execute(status -> sweepChunk(before, afterId));
+      if (chunk.ids().isEmpty()) {
+        break;
+      }
+      chunks++;
+      updated += chunk.updated();
+      lastId = chunk.ids().get(chunk.ids().size() - 1);
+      if (chunk.ids().size() < chunkSize) {
+        break;
+      }
+    }
+
+    // Una sola invalidación por corrida, no por tramo. Explícita y no con @CacheEvict porque la
+    // corrida programada llama a este método desde la propia instancia, sin pasar por el proxy.
+    if (updated > 0) {
+      Cache snapshots = cacheManager.getCache(DashboardSnapshotEvictor.CACHE_NAME);
+      if (snapshots != null) {
+        snapshots.clear();
+      }
+      dataVersion.changed();
+    }
+
+    SweepResult result =
+        new SweepResult(before, updated, chunks, (System.nanoTime() - start) / 1_000_000);
+    lastRun.set(result);
+    totalUpdated.addAndGet(updated);
+    log.info(
+        "StaleAppointmentSweeper: {} turno(s) anteriores a {} pasados a {} en {} tramo(s), {} ms.",
+        updated,
+        before,
+        targetStatus,
+        chunks,
+        result.elapsedMillis());
+    return result;
+  }
+
+  public SweepResult lastRun() {
+    return lastRun.get();
+  }
+
+  public long totalUpdated() {
+    return totalUpdated.get();
+  }
+
+  private record Chunk(List<Long> ids, int updated) {}
+
+  private Chunk sweepChunk(LocalDate before, long afterId) {
+    List<Object[]> rows =
+        appointmentRepository.findStaleRowsDatedBefore(
+            before, STALE_STATUSES, afterId, Limit.of(chunkSize));
+    List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+    if (ids.isEmpty()) {
+      return new Chunk(ids, 0);
+    }
+    int updated = appointmentRepository.updateStatusByIdsFrom(ids, STALE_STATUSES, targetStatus);
+    for (Object[] row : rows) {
+      rollups.changedWithoutEviction(
+          (Long) row[1], (LocalDate) row[2], (AppointmentStatus) row[3], targetStatus);
+    }
+    return new Chunk(ids, updated);
+  }
+}
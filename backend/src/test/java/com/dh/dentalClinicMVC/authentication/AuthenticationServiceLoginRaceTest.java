@@ -11,6 +11,7 @@ import com.dh.dentalClinicMVC.repository.IAddressRepository;
 import com.dh.dentalClinicMVC.repository.IDentistRepository;
 import com.dh.dentalClinicMVC.repository.IPatientRepository;
 import com.dh.dentalClinicMVC.repository.IUserRepository;
+import com.dh.dentalClinicMVC.service.impl.DashboardDataVersion;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -42,7 +43,8 @@ class AuthenticationServiceLoginRaceTest {
             mock(IAddressRepository.class),
             mock(PasswordEncoder.class),
             mock(JwtService.class),
-            authenticationManager);
+            authenticationManager,
+            new DashboardDataVersion());
 
     AuthenticationRequest request =
         AuthenticationRequest.builder().email("ghost@test.com").password("irrelevant").build();
@@ -0,0 +1,90 @@
+package com.dh.dentalClinicMVC.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.entity.User;
+import com.dh.dentalClinicMVC.repository.IUserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(properties = "app.search-name-backfill.chunk-size=2")
+@Transactional
+@Rollback
+class SearchNameBackfillRunnerTest {
+
+  @Autowired private SearchNameBackfillRunner runner;
+  @Autowired private IUserRepository userRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private Long saveUser(String firstName, String lastName, String email) {
+    User user = new User();
+    user.setFirstName(firstName);
+    user.setLastName(lastName);
+    user.setEmail(email);
+    user.setRole(Role.ADMIN);
+    return userRepository.saveAndFlush(user).getId();
+  }
+
+  private String searchNameOf(Long id) {
+    return jdbcTemplate.queryForObject(
+        "SELECT search_name FROM users WHERE id = ?", String.class, id);
+  }
+
+  private List<String> wordsOf(Long id) {
+    return jdbcTemplate.queryForList(
+        "SELECT word FROM user_search_words WHERE user_id = ? ORDER BY word", String.class, id);
+  }
+
+  @Test
+  void shouldFillMissingSearchNamesAcrossChunks() {
+    List<Long> ids = new ArrayList<>();
+    ids.add(saveUser("José", "Pérez", "jose@backfill.com"));
+    ids.add(saveUser("Ana", "Núñez", "ana@backfill.com"));
+    ids.add(saveUser("Luis", "Fernández", "luis@backfill.com"));
+    ids.add(saveUser("Eva", "Díaz", "eva@backfill.com"));
+    ids.add(saveUser("Iñaki", "Sáez", "inaki@backfill.com"));
+    // Simula filas anteriores a la columna
+    ids.forEach(id -> jdbcTemplate.update("UPDATE users SET search_name = NULL WHERE id = ?", id));
+
+    runner.run(null);
+
+    assertEquals("jose perez", searchNameOf(ids.get(0)));
+    assertEquals("ana nunez", searchNameOf(ids.get(1)));
+    assertEquals("luis fernandez", searchNameOf(ids.get(2)));
+    assertEquals("eva diaz", searchNameOf(ids.get(3)));
+    assertEquals("inaki saez", searchNameOf(ids.get(4)));
+  }
+
+  @Test
+  void shouldFillMissingSearchWords() {
+    Long first = saveUser("María José", "Pérez", "maria@backfill.com");
+    Long second = saveUser("Eva", "Díaz", "eva.words@backfill.com");
+    Long third = saveUser("Luis", "Fernández", "luis.words@backfill.com");
+    // Simula usuarios anteriores a la tabla de palabras
+    jdbcTemplate.update(
+        "DELETE FROM user_search_words WHERE user_id IN (?, ?, ?)", first, second, third);
+
+    runner.run(null);
+
+    assertEquals(List.of("jose", "maria", "perez"), wordsOf(first));
+    assertEquals(List.of("diaz", "eva"), wordsOf(second));
+    assertEquals(List.of("fernandez", "luis"), wordsOf(third));
+  }
+
+  @Test
+  void shouldNotTouchRowsThatAreAlreadyFilled() {
+    Long id = saveUser("Carla", "Ríos", "carla@backfill.com");
+    jdbcTemplate.update("UPDATE users SET search_name = 'valor previo' WHERE id = ?", id);
+
+    runner.run(null);
+
+    assertEquals("valor previo", searchNameOf(id));
+  }
+}
@@ -0,0 +1,284 @@
+package com.dh.dentalClinicMVC.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+@Transactional
+@Rollback
+public class AppointmentAvailabilityTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  private Long createDentist(int regNum, String email) throws Exception {
+    Map<String, Object> dentist = new HashMap<>();
+    dentist.put("registrationNumber", regNum);
+    dentist.put("firstName", "Dr");
+    dentist.put("lastName", "AvailabilityTest");
+    dentist.put("email", email);
+
+    String response =
+        mockMvc
+            .perform(
+                post("/dentists")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(dentist)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private Long createPatient(int cardId, String email) throws Exception {
+    Map<String, Object> patient = new HashMap<>();
+    patient.put("cardIdentity", cardId);
+    patient.put("firstName", "Patient");
+    patient.put("lastName", "AvailabilityTest");
+    patient.put("email", email);
+    patient.put("admissionDate", LocalDate.now().toString());
+
+    String response =
+        mockMvc
+            .perform(
+                post("/patients")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(patient)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private Long createSpecialty(String name, int defaultDurationMinutes, Long... dentistIds)
+      throws Exception {
+    Map<String, Object> specialty = new HashMap<>();
+    specialty.put("name", name);
+    specialty.put("description", "Especialidad de prueba");
+    specialty.put("defaultDurationMinutes", defaultDurationMinutes);
+
+    String response =
+        mockMvc
+            .perform(
+                post("/specialties")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(specialty)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    Long specialtyId = objectMapper.readTree(response).get("id").asLong();
+    for (Long dentistId : dentistIds) {
+      mockMvc
+          .perform(
+              post("/specialties/dentists/" + dentistId + "/specialties/" + specialtyId)
+                  .with(csrf()))
+          .andExpect(status().is2xxSuccessful());
+    }
+    return specialtyId;
+  }
+
+  private JsonNode availability(Long dentistId, LocalDate from, LocalDate to) throws Exception {
+    String response =
+        mockMvc
+            .perform(
+                get("/appointments/availability")
+                    .param("dentistId", dentistId.toString())
+                    .param("from", from.toString())
+                    .param("to", to.toString()))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(response);
+  }
+
+  private List<String> slotsOf(JsonNode day) {
+    List<String> slots = new ArrayList<>();
+    day.get("freeSlots").forEach(slot -> slots.add(slot.asText()));
+    return slots;
+  }
+
+  @Test
+  public void bookedSlotShouldNotBeOffered() throws Exception {
+    Long dentistId = createDentist(21001, "dentist1@availability.com");
+    Long patientId = createPatient(31001, "patient1@availability.com");
+    LocalDate day = NextWeekday.fromToday();
+
+    AppointmentRequestDTO booked =
+        new AppointmentRequestDTO(dentistId, patientId, day.toString(), "10:00", "Booked");
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(booked)))
+        .andExpect(status().isOk());
+
+    JsonNode body = availability(dentistId, day, day);
+
+    assertEquals(1, body.get("days").size());
+    JsonNode first = body.get("days").get(0);
+    assertEquals(day.toString(), first.get("date").asText());
+    List<String> slots = slotsOf(first);
+    assertFalse(slots.contains("10:00"));
+    assertTrue(slots.contains("10:30"));
+    assertTrue(slots.contains("08:00"));
+    assertTrue(slots.contains("17:30"));
+    // A las 18:00 un turno ya termina después del cierre
+    assertFalse(slots.contains("18:00"));
+    // 08:00..17:30 cada 30 minutos son 20 horarios; uno está tomado
+    assertEquals(19, slots.size());
+
+    // Otro odontólogo no se ve afectado
+    Long otherDentistId = createDentist(21002, "dentist2@availability.com");
+    assertTrue(
+        slotsOf(availability(otherDentistId, day, day).get("days").get(0)).contains("10:00"));
+  }
+
+  @Test
+  public void weekendsShouldBeSkipped() throws Exception {
+    Long dentistId = createDentist(21003, "dentist3@availability.com");
+    LocalDate from = NextWeekday.fromToday();
+    LocalDate to = from.plusDays(6);
+
+    JsonNode days = availability(dentistId, from, to).get("days");
+
+    assertEquals(5, days.size());
+    days.forEach(
+        day -> {
+          DayOfWeek dayOfWeek = LocalDate.parse(day.get("date").asText()).getDayOfWeek();
+          assertFalse(dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY);
+        });
+  }
+
+  @Test
+  public void invertedRangeShouldReturnBadRequest() throws Exception {
+    Long dentistId = createDentist(21004, "dentist4@availability.com");
+    LocalDate from = NextWeekday.fromToday();
+
+    mockMvc
+        .perform(
+            get("/appointments/availability")
+                .param("dentistId", dentistId.toString())
+                .param("from", from.plusDays(1).toString())
+                .param("to", from.toString()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void unknownDentistShouldReturnNotFound() throws Exception {
+    LocalDate from = NextWeekday.fromToday();
+
+    mockMvc
+        .perform(
+            get("/appointments/availability")
+                .param("dentistId", "999999")
+                .param("from", from.toString())
+                .param("to", from.toString()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void nextAvailableShouldMergeDentistsOfTheSpecialty() throws Exception {
+    Long first = createDentist(21005, "dentist5@availability.com");
+    Long second = createDentist(21006, "dentist6@availability.com");
+    Long outsider = createDentist(21007, "dentist7@availability.com");
+    Long specialtyId = createSpecialty("Periodoncia Disponibilidad", 60, first, second);
+    Long patientId = createPatient(31002, "patient2@availability.com");
+    LocalDate day = NextWeekday.fromToday();
+
+    // El primero queda ocupado de 08:00 a 09:00 (60 minutos, por su especialidad)
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentRequestDTO(
+                            first, patientId, day.toString(), "08:00", "Booked"))))
+        .andExpect(status().isOk());
+
+    String response =
+        mockMvc
+            .perform(
+                get("/appointments/next-available")
+                    .param("specialtyId", specialtyId.toString())
+                    .param("after", day + "T08:00:00")
+                    .param("limit", "4"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    JsonNode slots = objectMapper.readTree(response);
+
+    assertEquals(4, slots.size());
+    List<String> merged = new ArrayList<>();
+    slots.forEach(
+        slot -> {
+          assertEquals(day.toString(), slot.get("date").asText());
+          assertEquals(60, slot.get("durationMinutes").asInt());
+          assertFalse(slot.get("dentistId").asLong() == outsider);
+          merged.add(slot.get("time").asText() + "/" + slot.get("dentistId").asLong());
+        });
+    // 08:30 no entra para el primero: una hora desde ahí pisa su turno
+    assertEquals(
+        List.of("08:00/" + second, "08:30/" + second, "09:00/" + first, "09:00/" + second), merged);
+  }
+
+  @Test
+  public void nextAvailableShouldValidateSpecialtyAndLimit() throws Exception {
+    mockMvc
+        .perform(get("/appointments/next-available").param("specialtyId", "999999"))
+        .andExpect(status().isNotFound());
+
+    Long specialtyId = createSpecialty("Ortodoncia Disponibilidad", 30);
+    mockMvc
+        .perform(
+            get("/appointments/next-available")
+                .param("specialtyId", specialtyId.toString())
+                .param("limit", "0"))
+        .andExpect(status().isBadRequest());
+    // Sin odontólogos en la especialidad no hay horarios
+    mockMvc
+        .perform(get("/appointments/next-available").param("specialtyId", specialtyId.toString()))
+        .andExpect(status().isOk())
+        .andExpect(content().json("[]"));
+  }
+}
@@ -0,0 +1,219 @@
+package com.dh.dentalClinicMVC.controller;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.dh.dentalClinicMVC.dto.AppointmentBatchRequestDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+@Transactional
+@Rollback
+public class AppointmentBatchTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  private Long dentistId;
+  private Long patientId;
+  private String day;
+
+  private Long createDentist(int regNum, String email) throws Exception {
+    Map<String, Object> dentist = new HashMap<>();
+    dentist.put("registrationNumber", regNum);
+    dentist.put("firstName", "Dr");
+    dentist.put("lastName", "BatchTest");
+    dentist.put("email", email);
+
+    String response =
+        mockMvc
+            .perform(
+                post("/dentists")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(dentist)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private Long createPatient(int cardId, String email) throws Exception {
+    Map<String, Object> patient = new HashMap<>();
+    patient.put("cardIdentity", cardId);
+    patient.put("firstName", "Patient");
+    patient.put("lastName", "BatchTest");
+    patient.put("email", email);
+    patient.put("admissionDate", LocalDate.now().toString());
+
+    String response =
+        mockMvc
+            .perform(
+                post("/patients")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(patient)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private ResultActions postBatch(List<AppointmentRequestDTO> items) throws Exception {
+    return mockMvc.perform(
+        post("/appointments/batch")
+            .with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new AppointmentBatchRequestDTO(items))));
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    dentistId = createDentist(23001, "dentist@batch.com");
+    patientId = createPatient(33001, "patient@batch.com");
+    day = NextWeekday.fromToday().toString();
+  }
+
+  @Test
+  public void validBatchShouldCreateEveryAppointment() throws Exception {
+    postBatch(
+            List.of(
+                new AppointmentRequestDTO(dentistId, patientId, day, "09:00", "Visita 1"),
+                new AppointmentRequestDTO(dentistId, patientId, day, "09:30", "Visita 2"),
+                new AppointmentRequestDTO(dentistId, patientId, day, "10:00", "Visita 3")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(3))
+        .andExpect(jsonPath("$.rejected").value(0))
+        .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+        .andExpect(jsonPath("$.results[0].appointment.id").isNumber())
+        .andExpect(jsonPath("$.results[1].appointment.time").value("09:30"))
+        .andExpect(jsonPath("$.results[2].appointment.status").value("SCHEDULED"))
+        .andExpect(jsonPath("$.results[2].error").doesNotExist());
+
+    mockMvc
+        .perform(get("/appointments/search").param("dentist", dentistId.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(3))
+        .andExpect(jsonPath("$.content[1].description").value("Visita 2"));
+  }
+
+  @Test
+  public void itemEndingAfterClosingShouldBeRejected() throws Exception {
+    postBatch(
+            List.of(
+                new AppointmentRequestDTO(dentistId, patientId, day, "17:00", "Larga", 90, null),
+                new AppointmentRequestDTO(dentistId, patientId, day, "17:30", "Última")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(1))
+        .andExpect(jsonPath("$.results[0].status").value("REJECTED"))
+        .andExpect(
+            jsonPath("$.results[0].error")
+                .value(
+                    "El turno de 90 minutos que empieza a las 17:00 termina después del cierre"
+                        + " (18:00)"))
+        .andExpect(jsonPath("$.results[1].status").value("CREATED"));
+  }
+
+  @Test
+  public void invalidItemsShouldBeReportedWithoutBlockingTheRest() throws Exception {
+    postBatch(List.of(new AppointmentRequestDTO(dentistId, patientId, day, "11:00", "Previo")))
+        .andExpect(status().isOk());
+    String saturday =
+        NextWeekday.fromToday().with(TemporalAdjusters.next(DayOfWeek.SATURDAY)).toString();
+
+    List<AppointmentRequestDTO> items = new ArrayList<>();
+    items.add(new AppointmentRequestDTO(dentistId, patientId, day, "09:00", "Ok"));
+    items.add(new AppointmentRequestDTO(dentistId, patientId, day, "11:00", "Ocupado"));
+    items.add(new AppointmentRequestDTO(dentistId, patientId, day, "09:00", "Repetido"));
+    items.add(new AppointmentRequestDTO(dentistId, 999999L, day, "12:00", "Sin paciente"));
+    items.add(new AppointmentRequestDTO(dentistId, patientId, saturday, "12:00", "Sábado"));
+    items.add(new AppointmentRequestDTO(dentistId, patientId, day, "12:00", "Ok"));
+
+    postBatch(items)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(2))
+        .andExpect(jsonPath("$.rejected").value(4))
+        .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+        .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+        .andExpect(
+            jsonPath("$.results[1].error")
+                .value("El odontólogo ya tiene un turno en esa fecha y hora"))
+        .andExpect(jsonPath("$.results[1].appointment").doesNotExist())
+        .andExpect(
+            jsonPath("$.results[2].error")
+                .value("El odontólogo ya tiene el ítem 0 del lote en esa fecha y hora"))
+        .andExpect(jsonPath("$.results[3].error").value("Paciente no encontrado con ID: 999999"))
+        .andExpect(
+            jsonPath("$.results[4].error")
+                .value("Solo se pueden programar citas de lunes a viernes"))
+        .andExpect(jsonPath("$.results[5].index").value(5))
+        .andExpect(jsonPath("$.results[5].status").value("CREATED"));
+
+    mockMvc
+        .perform(get("/appointments/search").param("dentist", dentistId.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(3));
+  }
+
+  @Test
+  public void batchReservationsShouldBlockLaterSingleBookings() throws Exception {
+    postBatch(List.of(new AppointmentRequestDTO(dentistId, patientId, day, "14:00", "Lote")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(1));
+
+    Long otherPatientId = createPatient(33002, "other@batch.com");
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentRequestDTO(
+                            dentistId, otherPatientId, day, "14:00", "Individual"))))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  public void emptyOrMalformedBatchShouldReturnBadRequest() throws Exception {
+    postBatch(List.of()).andExpect(status().isBadRequest());
+
+    postBatch(List.of(new AppointmentRequestDTO(dentistId, patientId, day, "9am", "Mal")))
+        .andExpect(status().isBadRequest());
+
+    List<AppointmentRequestDTO> tooMany = new ArrayList<>();
+    for (int i = 0; i <= AppointmentBatchRequestDTO.MAX_ITEMS; i++) {
+      tooMany.add(new AppointmentRequestDTO(dentistId, patientId, day, "09:00", "Exceso"));
+    }
+    postBatch(tooMany).andExpect(status().isBadRequest());
+  }
+}
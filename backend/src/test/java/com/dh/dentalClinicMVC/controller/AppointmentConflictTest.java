@@ -4,6 +4,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
@@ -19,6 +20,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.transaction.annotation.Transactional;
 
 @SpringBootTest
@@ -284,4 +286,123 @@ public class AppointmentConflictTest {
                 .content(objectMapper.writeValueAsString(app1Update)))
         .andExpect(status().isConflict());
   }
+
+  @Test
+  public void longAppointmentShouldBlockOverlappingStarts() throws Exception {
+    Long dentistId = createDentist(20011, "dentist11@conflict.com");
+    Long patientId = createPatient(30011, "patient11@conflict.com");
+    String dateStr = getNextWeekday();
+
+    // Cirugía de 90 minutos: ocupa 10:00 a 11:30
+    createAppointment(
+            new AppointmentRequestDTO(dentistId, patientId, dateStr, "10:00", "Cirugía", 90, null))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.durationMinutes").value(90));
+
+    createAppointment(new AppointmentRequestDTO(dentistId, patientId, dateStr, "10:30", "Pisa"))
+        .andExpect(status().isConflict());
+    createAppointment(
+            new AppointmentRequestDTO(dentistId, patientId, dateStr, "09:45", "Termina tarde"))
+        .andExpect(status().isConflict());
+    createAppointment(new AppointmentRequestDTO(dentistId, patientId, dateStr, "11:30", "Después"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.durationMinutes").value(30));
+  }
+
+  @Test
+  public void durationShouldDefaultFromDentistSpecialty() throws Exception {
+    Long dentistId = createDentist(20012, "dentist12@conflict.com");
+    Long patientId = createPatient(30012, "patient12@conflict.com");
+    String dateStr = getNextWeekday();
+
+    Map<String, Object> specialty = new HashMap<>();
+    specialty.put("name", "Implantes ConflictTest");
+    specialty.put("defaultDurationMinutes", 60);
+    String response =
+        mockMvc
+            .perform(
+                post("/specialties")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(specialty)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    long specialtyId = objectMapper.readTree(response).get("id").asLong();
+    mockMvc
+        .perform(
+            post("/specialties/dentists/" + dentistId + "/specialties/" + specialtyId).with(csrf()))
+        .andExpect(status().is2xxSuccessful());
+
+    createAppointment(new AppointmentRequestDTO(dentistId, patientId, dateStr, "14:00", "Implante"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.durationMinutes").value(60));
+    createAppointment(new AppointmentRequestDTO(dentistId, patientId, dateStr, "14:30", "Pisa"))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  public void movingWithinOwnIntervalShouldSucceed() throws Exception {
+    Long dentistId = createDentist(20013, "dentist13@conflict.com");
+    Long patientId = createPatient(30013, "patient13@conflict.com");
+    String dateStr = getNextWeekday();
+
+    String response =
+        createAppointment(
+                new AppointmentRequestDTO(
+                    dentistId, patientId, dateStr, "10:00", "Larga", 60, null))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    long id = objectMapper.readTree(response).get("id").asLong();
+
+    // Correrlo media hora pisa la mitad de su propio intervalo, no el de otro turno
+    mockMvc
+        .perform(
+            put("/appointments/" + id)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentRequestDTO(
+                            dentistId, patientId, dateStr, "10:30", "Larga"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.durationMinutes").value(60));
+
+    createAppointment(new AppointmentRequestDTO(dentistId, patientId, dateStr, "10:00", "Libre"))
+        .andExpect(status().isOk());
+    createAppointment(new AppointmentRequestDTO(dentistId, patientId, dateStr, "11:00", "Pisa"))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  public void appointmentEndingAfterClosingShouldBeRejected() throws Exception {
+    Long dentistId = createDentist(20014, "dentist14@conflict.com");
+    Long patientId = createPatient(30014, "patient14@conflict.com");
+    String dateStr = getNextWeekday();
+
+    // 17:00 + 90 minutos termina 18:30
+    createAppointment(
+            new AppointmentRequestDTO(dentistId, patientId, dateStr, "17:00", "Tarde", 90, null))
+        .andExpect(status().isBadRequest())
+        .andExpect(
+            jsonPath("$.message")
+                .value(
+                    "El turno de 90 minutos que empieza a las 17:00 termina después del cierre"
+                        + " (18:00)"));
+    // Termina justo al cierre
+    createAppointment(
+            new AppointmentRequestDTO(dentistId, patientId, dateStr, "17:00", "Tarde", 60, null))
+        .andExpect(status().isOk());
+  }
+
+  private ResultActions createAppointment(AppointmentRequestDTO appointment) throws Exception {
+    return mockMvc.perform(
+        post("/appointments")
+            .with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(appointment)));
+  }
 }
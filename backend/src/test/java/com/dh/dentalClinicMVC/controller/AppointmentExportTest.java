@@ -0,0 +1,191 @@
+package com.dh.dentalClinicMVC.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+@Transactional
+@Rollback
+public class AppointmentExportTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  private Long dentistId;
+  private Long otherDentistId;
+  private LocalDate day;
+
+  private Long createDentist(int regNum, String email) throws Exception {
+    Map<String, Object> dentist = new HashMap<>();
+    dentist.put("registrationNumber", regNum);
+    dentist.put("firstName", "Dr");
+    dentist.put("lastName", "ExportTest");
+    dentist.put("email", email);
+
+    String response =
+        mockMvc
+            .perform(
+                post("/dentists")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(dentist)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private Long createPatient(int cardId, String email) throws Exception {
+    Map<String, Object> patient = new HashMap<>();
+    patient.put("cardIdentity", cardId);
+    patient.put("firstName", "Patient");
+    patient.put("lastName", "ExportTest");
+    patient.put("email", email);
+    patient.put("admissionDate", LocalDate.now().toString());
+
+    String response =
+        mockMvc
+            .perform(
+                post("/patients")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(patient)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private void createAppointment(Long dentistId, Long patientId, String time, String description)
+      throws Exception {
+    AppointmentRequestDTO request =
+        new AppointmentRequestDTO(dentistId, patientId, day.toString(), time, description);
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk());
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    dentistId = createDentist(23001, "dentist1@export.com");
+    otherDentistId = createDentist(23002, "dentist2@export.com");
+    Long patientId = createPatient(33001, "patient1@export.com");
+    day = NextWeekday.fromToday();
+
+    createAppointment(dentistId, patientId, "11:00", "Control");
+    createAppointment(dentistId, patientId, "09:00", "Limpieza, \"profunda\"");
+    createAppointment(otherDentistId, patientId, "10:00", "Otro odontólogo");
+  }
+
+  @Test
+  public void ndjsonShouldStreamOneAppointmentPerLineInOrder() throws Exception {
+    String body =
+        mockMvc
+            .perform(
+                get("/appointments/export")
+                    .param("format", "ndjson")
+                    .param("from", day.toString())
+                    .param("to", day.toString()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+            .andExpect(
+                header()
+                    .string("Content-Disposition", "attachment; filename=\"appointments.ndjson\""))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    String[] lines = body.split("\n");
+    assertEquals(3, lines.length);
+    JsonNode first = objectMapper.readTree(lines[0]);
+    assertEquals("09:00", first.get("time").asText());
+    assertEquals(dentistId, first.get("dentist_id").asLong());
+    assertEquals("SCHEDULED", first.get("status").asText());
+    assertEquals("10:00", objectMapper.readTree(lines[1]).get("time").asText());
+    assertEquals("11:00", objectMapper.readTree(lines[2]).get("time").asText());
+  }
+
+  @Test
+  public void csvShouldIncludeHeaderAndQuoteDescriptions() throws Exception {
+    String body =
+        mockMvc
+            .perform(
+                get("/appointments/export")
+                    .param("format", "csv")
+                    .param("from", day.toString())
+                    .param("to", day.toString()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    String[] lines = body.split("\r\n");
+    assertEquals(4, lines.length);
+    assertEquals(
+        "id,dentist_id,patient_id,date,time,description,status,duration_minutes", lines[0]);
+    assertTrue(lines[1].endsWith(",09:00,\"Limpieza, \"\"profunda\"\"\",SCHEDULED,30"));
+    assertTrue(lines[3].endsWith(",11:00,Control,SCHEDULED,30"));
+  }
+
+  @Test
+  public void dentistShouldOnlyExportOwnAppointments() throws Exception {
+    String body =
+        mockMvc
+            .perform(
+                get("/appointments/export")
+                    .with(user("dentist2@export.com").roles("DENTIST"))
+                    .param("from", day.toString())
+                    .param("to", day.toString()))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    String[] lines = body.split("\n");
+    assertEquals(1, lines.length);
+    assertEquals(otherDentistId, objectMapper.readTree(lines[0]).get("dentist_id").asLong());
+  }
+
+  @Test
+  public void unknownFormatShouldReturnBadRequest() throws Exception {
+    mockMvc
+        .perform(get("/appointments/export").param("format", "xml"))
+        .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,382 @@
+package com.dh.dentalClinicMVC.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+@Transactional
+@Rollback
+public class AppointmentSearchTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private EntityManager entityManager;
+
+  private Long gomezId;
+  private Long ruizId;
+  private Long patientId;
+  private Long otherPatientId;
+  private LocalDate day;
+
+  private Long createDentist(int regNum, String firstName, String lastName, String email)
+      throws Exception {
+    Map<String, Object> dentist = new HashMap<>();
+    dentist.put("registrationNumber", regNum);
+    dentist.put("firstName", firstName);
+    dentist.put("lastName", lastName);
+    dentist.put("email", email);
+
+    String response =
+        mockMvc
+            .perform(
+                post("/dentists")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(dentist)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private Long createPatient(int cardId, String firstName, String lastName, String email)
+      throws Exception {
+    Map<String, Object> patient = new HashMap<>();
+    patient.put("cardIdentity", cardId);
+    patient.put("firstName", firstName);
+    patient.put("lastName", lastName);
+    patient.put("email", email);
+    patient.put("admissionDate", LocalDate.now().toString());
+
+    String response =
+        mockMvc
+            .perform(
+                post("/patients")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(patient)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private Long createAppointment(Long dentistId, Long patientId, LocalDate date, String time)
+      throws Exception {
+    AppointmentRequestDTO request =
+        new AppointmentRequestDTO(dentistId, patientId, date.toString(), time, "Search");
+    String response =
+        mockMvc
+            .perform(
+                post("/appointments")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    gomezId = createDentist(22001, "Laura", "Gomezsearch", "gomez@search.com");
+    ruizId = createDentist(22002, "Carlos", "Ruizsearch", "ruiz@search.com");
+    patientId = createPatient(32001, "Marta", "Quirogasearch", "marta@search.com");
+    otherPatientId = createPatient(32002, "Pablo", "Benitezsearch", "pablo@search.com");
+    day = NextWeekday.fromToday();
+
+    createAppointment(gomezId, patientId, day, "09:00");
+    createAppointment(ruizId, patientId, day, "10:00");
+    Long cancelled = createAppointment(gomezId, otherPatientId, day, "11:00");
+    mockMvc
+        .perform(
+            patch("/appointments/" + cancelled + "/status")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"CANCELLED\"}"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void numericFiltersShouldMatchById() throws Exception {
+    mockMvc
+        .perform(get("/appointments/search").param("dentist", gomezId.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(2));
+
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("patient", patientId.toString())
+                .param("dentist", ruizId.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.content[0].time").value("10:00"));
+  }
+
+  @Test
+  public void textFiltersShouldMatchPartOfFullNameIgnoringCase() throws Exception {
+    mockMvc
+        .perform(get("/appointments/search").param("patient", "marta QUIROGA"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(2));
+
+    // Cada palabra es prefijo de alguna palabra del nombre, en cualquier orden
+    mockMvc
+        .perform(get("/appointments/search").param("patient", "quiro MAR"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(2));
+
+    // Un fragmento del medio de una palabra no coincide
+    mockMvc
+        .perform(get("/appointments/search").param("patient", "iroga"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(0));
+
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("patient", patientId.toString())
+                .param("dentist", "gomezsearch"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.content[0].dentist_id").value(gomezId));
+  }
+
+  @Test
+  public void textFiltersShouldIgnoreAccents() throws Exception {
+    Long accented = createPatient(32003, "José", "Núñezsearch", "jose@search.com");
+    createAppointment(ruizId, accented, day, "12:00");
+
+    mockMvc
+        .perform(get("/appointments/search").param("patient", "jose nunez"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.content[0].patient_id").value(accented));
+
+    mockMvc
+        .perform(get("/appointments/search").param("patient", "NÚÑEZSEARCH"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1));
+  }
+
+  @Test
+  public void renamedPersonShouldBeFoundByTheNewName() throws Exception {
+    Map<String, Object> dentist = new HashMap<>();
+    dentist.put("registrationNumber", 22001);
+    dentist.put("firstName", "Laura");
+    dentist.put("lastName", "Peraltasearch");
+    dentist.put("email", "gomez@search.com");
+    mockMvc
+        .perform(
+            put("/dentists/" + gomezId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dentist)))
+        .andExpect(status().isOk());
+    entityManager.flush();
+
+    mockMvc
+        .perform(get("/appointments/search").param("dentist", "gomezsearch"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(0));
+
+    mockMvc
+        .perform(get("/appointments/search").param("dentist", "peralta laura"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(2));
+  }
+
+  @Test
+  public void statusAndDateRangeShouldCombineWithOtherFilters() throws Exception {
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("dentist", gomezId.toString())
+                .param("status", "CANCELLED")
+                .param("fromDate", day.toString())
+                .param("toDate", day.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.content[0].patient_id").value(otherPatientId));
+
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("dentist", gomezId.toString())
+                .param("fromDate", day.plusDays(1).toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(0));
+  }
+
+  @Test
+  public void emptyFiltersShouldBeIgnored() throws Exception {
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("patient", "")
+                .param("dentist", "ruizsearch")
+                .param("size", "5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.size").value(5));
+  }
+
+  @Test
+  public void cursorModeShouldWalkResultsInDateTimeIdOrder() throws Exception {
+    List<String> times = new ArrayList<>();
+    String cursor = "";
+    int pages = 0;
+    while (cursor != null) {
+      String response =
+          mockMvc
+              .perform(
+                  get("/appointments/search")
+                      .param("fromDate", day.toString())
+                      .param("toDate", day.toString())
+                      .param("cursor", cursor)
+                      .param("size", "2"))
+              .andExpect(status().isOk())
+              .andExpect(jsonPath("$.totalElements").doesNotExist())
+              .andReturn()
+              .getResponse()
+              .getContentAsString();
+      JsonNode body = objectMapper.readTree(response);
+      body.get("content").forEach(appointment -> times.add(appointment.get("time").asText()));
+      cursor = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+      pages++;
+    }
+
+    assertEquals(List.of("09:00", "10:00", "11:00"), times);
+    assertEquals(2, pages);
+  }
+
+  @Test
+  public void invalidCursorShouldReturnBadRequest() throws Exception {
+    mockMvc
+        .perform(get("/appointments/search").param("cursor", "no-es-un-cursor"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void cursorModeShouldRejectOversizedPages() throws Exception {
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("cursor", "")
+                .param("size", String.valueOf(Integer.MAX_VALUE)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void expandNamesShouldAddDisplayNames() throws Exception {
+    mockMvc
+        .perform(get("/appointments/search").param("dentist", ruizId.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].patientName").doesNotExist())
+        .andExpect(jsonPath("$.content[0].dentistName").doesNotExist());
+
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("dentist", ruizId.toString())
+                .param("expand", "names"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].patientName").value("Marta Quirogasearch"))
+        .andExpect(jsonPath("$.content[0].dentistName").value("Carlos Ruizsearch"));
+
+    // También en modo cursor y combinado con la búsqueda por nombre
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("dentist", "gomezsearch")
+                .param("cursor", "")
+                .param("expand", "names"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].dentistName").value("Laura Gomezsearch"));
+
+    mockMvc
+        .perform(get("/appointments").param("expand", "names"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].patientName").exists());
+  }
+
+  @Test
+  public void patientsAndDentistsShouldOnlySearchTheirOwnAppointments() throws Exception {
+    // Aunque pida los turnos de otro paciente, con sus nombres, sólo ve los propios.
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .with(user("pablo@search.com").roles("PATIENT"))
+                .param("patient", patientId.toString())
+                .param("expand", "names"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.content[0].patient_id").value(otherPatientId))
+        .andExpect(jsonPath("$.content[0].patientName").value("Pablo Benitezsearch"));
+
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .with(user("pablo@search.com").roles("PATIENT"))
+                .param("cursor", "")
+                .param("expand", "names"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].patientName").value("Pablo Benitezsearch"));
+
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .with(user("ruiz@search.com").roles("DENTIST"))
+                .param("dentist", gomezId.toString())
+                .param("expand", "names"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.content[0].dentist_id").value(ruizId));
+  }
+
+  @Test
+  public void unknownExpandShouldReturnBadRequest() throws Exception {
+    mockMvc
+        .perform(get("/appointments/search").param("expand", "everything"))
+        .andExpect(status().isBadRequest());
+  }
+}
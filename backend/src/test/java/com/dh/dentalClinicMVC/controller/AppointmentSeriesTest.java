@@ -0,0 +1,448 @@
+package com.dh.dentalClinicMVC.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesMoveDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesRequestDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+@Transactional
+@Rollback
+public class AppointmentSeriesTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private EntityManager entityManager;
+
+  private Long dentistId;
+  private Long patientId;
+  private LocalDate monday;
+
+  private Long createDentist(int regNum, String email) throws Exception {
+    Map<String, Object> dentist = new HashMap<>();
+    dentist.put("registrationNumber", regNum);
+    dentist.put("firstName", "Dr");
+    dentist.put("lastName", "SeriesTest");
+    dentist.put("email", email);
+
+    String response =
+        mockMvc
+            .perform(
+                post("/dentists")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(dentist)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private Long createPatient(int cardId, String email) throws Exception {
+    Map<String, Object> patient = new HashMap<>();
+    patient.put("cardIdentity", cardId);
+    patient.put("firstName", "Patient");
+    patient.put("lastName", "SeriesTest");
+    patient.put("email", email);
+    patient.put("admissionDate", LocalDate.now().toString());
+
+    String response =
+        mockMvc
+            .perform(
+                post("/patients")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(patient)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private AppointmentSeriesRequestDTO.AppointmentSeriesRequestDTOBuilder weekly(LocalDate start) {
+    return AppointmentSeriesRequestDTO.builder()
+        .dentistId(dentistId)
+        .patientId(patientId)
+        .startDate(start.toString())
+        .time("10:00")
+        .description("Control de ortodoncia")
+        .frequency("WEEKLY");
+  }
+
+  private ResultActions postSeries(AppointmentSeriesRequestDTO request) throws Exception {
+    return mockMvc.perform(
+        post("/appointments/series")
+            .with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(request)));
+  }
+
+  private Long createSeries(AppointmentSeriesRequestDTO request) throws Exception {
+    String response =
+        postSeries(request)
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private ResultActions countScheduled() throws Exception {
+    return mockMvc.perform(
+        get("/appointments/search")
+            .param("dentist", dentistId.toString())
+            .param("status", "SCHEDULED"));
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    dentistId = createDentist(24001, "dentist@series.com");
+    patientId = createPatient(34001, "patient@series.com");
+    monday = NextWeekday.fromToday().with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+  }
+
+  @Test
+  public void weeklySeriesShouldBookEveryOccurrence() throws Exception {
+    postSeries(weekly(monday).occurrences(4).build())
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").isNumber())
+        .andExpect(jsonPath("$.frequency").value("WEEKLY"))
+        .andExpect(jsonPath("$.nonWorkingDays").value("SKIP"))
+        .andExpect(jsonPath("$.appointments.length()").value(4))
+        .andExpect(jsonPath("$.appointments[0].date").value(monday.toString()))
+        .andExpect(jsonPath("$.appointments[3].date").value(monday.plusWeeks(3).toString()))
+        .andExpect(jsonPath("$.appointments[3].time").value("10:00"))
+        .andExpect(jsonPath("$.skippedDates.length()").value(0));
+
+    countScheduled().andExpect(jsonPath("$.totalElements").value(4));
+  }
+
+  @Test
+  public void endDateShouldBoundTheSeries() throws Exception {
+    Long seriesId =
+        createSeries(weekly(monday).interval(2).endDate(monday.plusWeeks(5).toString()).build());
+
+    mockMvc
+        .perform(get("/appointments/series/" + seriesId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.interval").value(2))
+        .andExpect(jsonPath("$.appointments.length()").value(3))
+        .andExpect(jsonPath("$.appointments[2].date").value(monday.plusWeeks(4).toString()))
+        .andExpect(jsonPath("$.skippedDates").doesNotExist());
+  }
+
+  @Test
+  public void nonWorkingDaysShouldBeSkippedOrShifted() throws Exception {
+    LocalDate saturday = monday.plusDays(5);
+
+    postSeries(weekly(saturday).occurrences(3).build()).andExpect(status().isBadRequest());
+
+    postSeries(weekly(saturday).occurrences(3).nonWorkingDays("SHIFT").build())
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.appointments.length()").value(3))
+        .andExpect(jsonPath("$.appointments[0].date").value(saturday.plusDays(2).toString()))
+        .andExpect(jsonPath("$.appointments[2].date").value(saturday.plusDays(16).toString()));
+  }
+
+  @Test
+  public void conflictingOccurrenceShouldRejectTheWholeSeries() throws Exception {
+    LocalDate taken = monday.plusWeeks(1);
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentRequestDTO(
+                            dentistId, patientId, taken.toString(), "10:00", "Suelto"))))
+        .andExpect(status().isOk());
+
+    postSeries(weekly(monday).occurrences(4).build())
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("$.message").value(containsString(taken + " 10:00")));
+
+    countScheduled().andExpect(jsonPath("$.totalElements").value(1));
+  }
+
+  @Test
+  public void cancelShouldCancelTheRestOfTheSeries() throws Exception {
+    Long seriesId = createSeries(weekly(monday).occurrences(4).build());
+
+    mockMvc
+        .perform(
+            post("/appointments/series/" + seriesId + "/cancel")
+                .with(csrf())
+                .param("from", monday.plusWeeks(1).toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.seriesId").value(seriesId))
+        .andExpect(jsonPath("$.updated").value(3));
+
+    countScheduled()
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.content[0].date").value(monday.toString()));
+
+    // Los horarios cancelados quedan libres para otros turnos
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentRequestDTO(
+                            dentistId, patientId, monday.plusWeeks(2).toString(), "10:00", "X"))))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void moveShouldShiftTheRestOfTheSeries() throws Exception {
+    Long seriesId = createSeries(weekly(monday).occurrences(3).build());
+
+    mockMvc
+        .perform(
+            patch("/appointments/series/" + seriesId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentSeriesMoveDTO(monday.plusDays(1).toString(), "11:30", 1))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.updated").value(2));
+
+    mockMvc
+        .perform(get("/appointments/series/" + seriesId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.appointments[0].date").value(monday.toString()))
+        .andExpect(jsonPath("$.appointments[0].time").value("10:00"))
+        .andExpect(
+            jsonPath("$.appointments[1].date").value(monday.plusWeeks(1).plusDays(1).toString()))
+        .andExpect(jsonPath("$.appointments[1].time").value("11:30"))
+        .andExpect(
+            jsonPath("$.appointments[2].date").value(monday.plusWeeks(2).plusDays(1).toString()));
+  }
+
+  @Test
+  public void moveOntoOwnSlotsShouldNotConflictButOntoOthersShould() throws Exception {
+    Long seriesId = createSeries(weekly(monday).occurrences(3).build());
+
+    // Correr una semana: cada turno ocupa el horario que deja el siguiente
+    mockMvc
+        .perform(
+            patch("/appointments/series/" + seriesId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentSeriesMoveDTO(monday.toString(), null, 7))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.updated").value(3));
+
+    Long otherPatient = createPatient(34002, "other@series.com");
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentRequestDTO(
+                            dentistId,
+                            otherPatient,
+                            monday.plusWeeks(4).toString(),
+                            "10:00",
+                            "Ocupa"))))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(
+            patch("/appointments/series/" + seriesId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentSeriesMoveDTO(monday.toString(), null, 7))))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  public void seriesEndingAfterClosingShouldBeRejected() throws Exception {
+    postSeries(weekly(monday).time("17:30").durationMinutes(60).occurrences(2).build())
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value(containsString("termina después del cierre")));
+
+    Long seriesId =
+        createSeries(weekly(monday).time("16:00").durationMinutes(60).occurrences(2).build());
+    mockMvc
+        .perform(
+            patch("/appointments/series/" + seriesId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentSeriesMoveDTO(monday.toString(), "17:30", null))))
+        .andExpect(status().isBadRequest());
+    countScheduled().andExpect(jsonPath("$.totalElements").value(2));
+  }
+
+  @Test
+  public void moveShouldKeepEachAppointmentOnItsOwnDentist() throws Exception {
+    String created =
+        postSeries(weekly(monday).occurrences(2).build())
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    JsonNode series = objectMapper.readTree(created);
+    Long seriesId = series.get("id").asLong();
+    Long secondId = series.get("appointments").get(1).get("id").asLong();
+    LocalDate secondDate = monday.plusWeeks(1);
+
+    // El segundo turno pasa a otro odontólogo, fuera de la serie
+    Long otherDentist = createDentist(24003, "moved@series.com");
+    mockMvc
+        .perform(
+            put("/appointments/" + secondId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentRequestDTO(
+                            otherDentist, patientId, secondDate.toString(), "10:00", null))))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(
+            patch("/appointments/series/" + seriesId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentSeriesMoveDTO(monday.toString(), "11:00", null))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.updated").value(2));
+
+    mockMvc
+        .perform(
+            get("/appointments/search")
+                .param("dentist", otherDentist.toString())
+                .param("status", "SCHEDULED"))
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.content[0].time").value("11:00"));
+
+    // Las 10:00 que dejó quedan libres en la agenda de ese odontólogo, no en la de la serie
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new AppointmentRequestDTO(
+                            otherDentist, patientId, secondDate.toString(), "10:00", "Libre"))))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void deletingThePatientShouldDeleteItsSeries() throws Exception {
+    Long seriesId = createSeries(weekly(monday).occurrences(3).build());
+
+    mockMvc.perform(delete("/patients/" + patientId).with(csrf())).andExpect(status().isOk());
+    // Que la base verifique las claves foráneas ahora y no al hacer rollback
+    entityManager.flush();
+
+    mockMvc.perform(get("/appointments/series/" + seriesId)).andExpect(status().isNotFound());
+    countScheduled().andExpect(jsonPath("$.totalElements").value(0));
+  }
+
+  @Test
+  public void dentistShouldOnlyCreateSeriesForThemselves() throws Exception {
+    Long otherDentist = createDentist(24002, "other@series.com");
+
+    mockMvc
+        .perform(
+            post("/appointments/series")
+                .with(user("dentist@series.com").roles("DENTIST"))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        weekly(monday).dentistId(otherDentist).occurrences(2).build())))
+        .andExpect(status().isForbidden());
+
+    mockMvc
+        .perform(
+            post("/appointments/series")
+                .with(user("dentist@series.com").roles("DENTIST"))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(weekly(monday).occurrences(2).build())))
+        .andExpect(status().isCreated());
+  }
+
+  @Test
+  public void invalidRequestsShouldBeRejected() throws Exception {
+    // occurrences y endDate a la vez
+    postSeries(weekly(monday).occurrences(2).endDate(monday.plusWeeks(2).toString()).build())
+        .andExpect(status().isBadRequest());
+    postSeries(weekly(monday).build()).andExpect(status().isBadRequest());
+    postSeries(weekly(monday).frequency("DAILY").occurrences(2).build())
+        .andExpect(status().isBadRequest());
+    postSeries(weekly(monday).occurrences(AppointmentSeriesRequestDTO.MAX_OCCURRENCES + 1).build())
+        .andExpect(status().isBadRequest());
+
+    mockMvc
+        .perform(
+            patch("/appointments/series/999999")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"shiftDays\":1}"))
+        .andExpect(status().isNotFound());
+
+    Long seriesId = createSeries(weekly(monday).occurrences(2).build());
+    mockMvc
+        .perform(
+            patch("/appointments/series/" + seriesId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+        .andExpect(status().isBadRequest());
+  }
+}
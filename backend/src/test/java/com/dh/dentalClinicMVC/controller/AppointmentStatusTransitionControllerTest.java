@@ -1,13 +1,17 @@
 package com.dh.dentalClinicMVC.controller;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +28,8 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.transaction.annotation.Transactional;
 
 @SpringBootTest
@@ -127,6 +133,28 @@ public class AppointmentStatusTransitionControllerTest {
         .andExpect(status().is(expectedStatusCode));
   }
 
+  // changes: alternating appointment id and target status
+  private ResultActions patchStatuses(RequestPostProcessor principal, Object... changes)
+      throws Exception {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < changes.length; i += 2) {
+      items.add(Map.of("id", changes[i], "status", changes[i + 1]));
+    }
+    return mockMvc.perform(
+        patch("/appointments/status")
+            .with(csrf())
+            .with(principal)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(Map.of("changes", items))));
+  }
+
+  private void expectStatus(Long id, String expected) throws Exception {
+    mockMvc
+        .perform(get("/appointments/" + id).with(adminRequestPostProcessor()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value(expected));
+  }
+
   @Test
   @WithMockUser(username = "admin@test.com", roles = "ADMIN")
   void testLegalTransitionsAndSameStatusNoOps() throws Exception {
@@ -238,4 +266,74 @@ public class AppointmentStatusTransitionControllerTest {
     // CANCELLED -> COMPLETED (illegal) -> 409
     patchStatus(appId, "COMPLETED", 409);
   }
+
+  @Test
+  void testBulkTransitionsAreAppliedTogether() throws Exception {
+    Long dentistId = createDentist(12351, "dentist_tr7@test.com");
+    Long patientId = createPatient(12351, "patient_tr7@test.com");
+    String day = NextWeekday.fromToday().toString();
+    Long first = createAppointment(dentistId, patientId, day, "08:00");
+    Long second = createAppointment(dentistId, patientId, day, "08:30");
+    Long third = createAppointment(dentistId, patientId, day, "09:00");
+
+    patchStatuses(
+            adminRequestPostProcessor(),
+            first,
+            "COMPLETED",
+            second,
+            "COMPLETED",
+            third,
+            "CANCELLED")
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.requested").value(3))
+        .andExpect(jsonPath("$.updated").value(3));
+
+    expectStatus(first, "COMPLETED");
+    expectStatus(second, "COMPLETED");
+    expectStatus(third, "CANCELLED");
+    // The cancelled slot is free again
+    createAppointment(dentistId, patientId, day, "09:00");
+  }
+
+  @Test
+  void testBulkTransitionsAreAllOrNothing() throws Exception {
+    Long dentistId = createDentist(12352, "dentist_tr8@test.com");
+    Long patientId = createPatient(12352, "patient_tr8@test.com");
+    String day = NextWeekday.fromToday().toString();
+    Long scheduled = createAppointment(dentistId, patientId, day, "10:00");
+    Long completed = createAppointment(dentistId, patientId, day, "10:30");
+    patchStatus(completed, "COMPLETED", 200);
+
+    // COMPLETED -> SCHEDULED is illegal, so the valid change is not applied either
+    patchStatuses(adminRequestPostProcessor(), scheduled, "COMPLETED", completed, "SCHEDULED")
+        .andExpect(status().isConflict());
+    expectStatus(scheduled, "SCHEDULED");
+
+    patchStatuses(adminRequestPostProcessor(), scheduled, "COMPLETED", 999999L, "COMPLETED")
+        .andExpect(status().isNotFound());
+    patchStatuses(adminRequestPostProcessor(), scheduled, "DONE")
+        .andExpect(status().isBadRequest());
+    patchStatuses(adminRequestPostProcessor(), scheduled, "COMPLETED", scheduled, "CANCELLED")
+        .andExpect(status().isBadRequest());
+    expectStatus(scheduled, "SCHEDULED");
+  }
+
+  @Test
+  void testBulkTransitionsRejectOtherDentistsAppointments() throws Exception {
+    Long ownerId = createDentist(12353, "dentist_tr9@test.com");
+    Long otherId = createDentist(12354, "dentist_tr10@test.com");
+    Long patientId = createPatient(12353, "patient_tr9@test.com");
+    String day = NextWeekday.fromToday().toString();
+    Long own = createAppointment(ownerId, patientId, day, "11:00");
+    Long foreign = createAppointment(otherId, patientId, day, "11:00");
+
+    RequestPostProcessor owner = user("dentist_tr9@test.com").roles("DENTIST");
+    patchStatuses(owner, own, "COMPLETED", foreign, "COMPLETED").andExpect(status().isForbidden());
+    expectStatus(own, "SCHEDULED");
+
+    patchStatuses(owner, own, "COMPLETED")
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.updated").value(1));
+    expectStatus(own, "COMPLETED");
+  }
 }
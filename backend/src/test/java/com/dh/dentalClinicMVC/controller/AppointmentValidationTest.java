@@ -421,7 +421,23 @@ public class AppointmentValidationTest {
                 .content(objectMapper.writeValueAsString(app0800)))
         .andExpect(status().isOk());
 
-    // Probar 18:00 -> 200
+    // Probar 17:30 -> 200 (el turno de 30 minutos termina justo al cierre)
+    AppointmentRequestDTO app1730 =
+        new AppointmentRequestDTO(
+            (long) dentistId,
+            (long) patientId,
+            dateStr,
+            "17:30",
+            "Upper boundary working hours 17:30");
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(app1730)))
+        .andExpect(status().isOk());
+
+    // Probar 18:00 -> 400 (terminaría 18:30)
     AppointmentRequestDTO app1800 =
         new AppointmentRequestDTO(
             (long) dentistId,
@@ -435,7 +451,7 @@ public class AppointmentValidationTest {
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(app1800)))
-        .andExpect(status().isOk());
+        .andExpect(status().isBadRequest());
   }
 
   @Test
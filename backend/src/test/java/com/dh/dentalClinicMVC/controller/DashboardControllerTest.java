@@ -1,15 +1,18 @@
 package com.dh.dentalClinicMVC.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
 import com.dh.dentalClinicMVC.service.IDashboardSnapshotService;
+import com.dh.dentalClinicMVC.service.impl.DashboardDataVersion;
 import java.time.LocalDate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,12 +30,19 @@ class DashboardControllerTest {
 
   @Autowired private MockMvc mockMvc;
 
+  @Autowired private DashboardDataVersion dataVersion;
+
   @MockBean private IDashboardSnapshotService dashboardSnapshotService;
 
   @BeforeEach
   void setUp() {
     when(dashboardSnapshotService.getDashboardSnapshot(any(), any(), any()))
-        .thenReturn(DashboardSnapshotDTO.withDefaults());
+        .thenAnswer(
+            invocation -> {
+              DashboardSnapshotDTO snapshot = DashboardSnapshotDTO.withDefaults();
+              snapshot.setDataVersion(dataVersion.current());
+              return snapshot;
+            });
   }
 
   @Test
@@ -70,4 +80,67 @@ class DashboardControllerTest {
     verify(dashboardSnapshotService)
         .getDashboardSnapshot(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 6, 1), 7L);
   }
+
+  @Test
+  void shouldAnswer304WithoutCallingTheServiceWhenETagMatches() throws Exception {
+    String eTag =
+        mockMvc
+            .perform(get("/dashboard/snapshot").param("dentistId", "7"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    mockMvc
+        .perform(get("/dashboard/snapshot").param("dentistId", "7").header("If-None-Match", eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", eTag));
+
+    verify(dashboardSnapshotService, times(1)).getDashboardSnapshot(null, null, 7L);
+  }
+
+  @Test
+  void shouldReturnFreshSnapshotOnceDataVersionMovesOrFiltersDiffer() throws Exception {
+    String eTag =
+        mockMvc.perform(get("/dashboard/snapshot")).andReturn().getResponse().getHeader("ETag");
+
+    mockMvc
+        .perform(get("/dashboard/snapshot").param("dentistId", "7").header("If-None-Match", eTag))
+        .andExpect(status().isOk());
+
+    dataVersion.changed();
+
+    mockMvc
+        .perform(get("/dashboard/snapshot").header("If-None-Match", eTag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalAppointments").isNumber());
+  }
+
+  @Test
+  void shouldNotTagPartialOrOutdatedSnapshots() throws Exception {
+    DashboardSnapshotDTO partial = DashboardSnapshotDTO.withDefaults();
+    partial.setPartial(true);
+    when(dashboardSnapshotService.getDashboardSnapshot(any(), any(), any())).thenReturn(partial);
+
+    mockMvc
+        .perform(get("/dashboard/snapshot"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("ETag"));
+
+    // Una entrada vieja servida durante un refresh lleva la versión con la que se calculó: ni se
+    // etiqueta ni responde 304 al cliente que ya tenía esa misma versión.
+    DashboardSnapshotDTO fresh = DashboardSnapshotDTO.withDefaults();
+    fresh.setDataVersion(dataVersion.current());
+    when(dashboardSnapshotService.getDashboardSnapshot(any(), any(), any())).thenReturn(fresh);
+    String eTag =
+        mockMvc.perform(get("/dashboard/snapshot")).andReturn().getResponse().getHeader("ETag");
+
+    dataVersion.changed();
+
+    mockMvc
+        .perform(get("/dashboard/snapshot").header("If-None-Match", eTag))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("ETag"));
+  }
 }
@@ -0,0 +1,163 @@
+package com.dh.dentalClinicMVC.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.dh.dentalClinicMVC.dto.AppointmentRequestDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(properties = "app.dashboard.upcoming-page-size=2")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+@Transactional
+@Rollback
+public class DashboardUpcomingTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  private Long dentistId;
+  private LocalDate day;
+  private LocalDate nextDay;
+  private final List<String> booked = new ArrayList<>();
+
+  private Long create(String path, Map<String, Object> body) throws Exception {
+    String response =
+        mockMvc
+            .perform(
+                post(path)
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(body)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private void book(Long dentist, Long patient, LocalDate date, String time) throws Exception {
+    AppointmentRequestDTO request =
+        new AppointmentRequestDTO(dentist, patient, date.toString(), time, "Upcoming");
+    mockMvc
+        .perform(
+            post("/appointments")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk());
+    if (dentist.equals(dentistId)) {
+      booked.add(date + " " + time);
+    }
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Map<String, Object> dentist = new HashMap<>();
+    dentist.put("registrationNumber", 23001);
+    dentist.put("firstName", "Laura");
+    dentist.put("lastName", "Gomezupcoming");
+    dentist.put("email", "gomez@upcoming.com");
+    dentistId = create("/dentists", dentist);
+    dentist.put("registrationNumber", 23002);
+    dentist.put("lastName", "Ruizupcoming");
+    dentist.put("email", "ruiz@upcoming.com");
+    Long otherDentistId = create("/dentists", dentist);
+
+    Map<String, Object> patient = new HashMap<>();
+    patient.put("cardIdentity", 33001);
+    patient.put("firstName", "Marta");
+    patient.put("lastName", "Quirogaupcoming");
+    patient.put("email", "marta@upcoming.com");
+    patient.put("admissionDate", LocalDate.now().toString());
+    Long patientId = create("/patients", patient);
+
+    day = NextWeekday.fromToday();
+    nextDay = day.plusDays(1);
+    while (nextDay.getDayOfWeek() == DayOfWeek.SATURDAY
+        || nextDay.getDayOfWeek() == DayOfWeek.SUNDAY) {
+      nextDay = nextDay.plusDays(1);
+    }
+
+    // Cargados fuera de orden: la página sale ordenada por fecha y hora
+    book(dentistId, patientId, nextDay, "09:00");
+    book(dentistId, patientId, day, "11:00");
+    book(dentistId, patientId, day, "09:00");
+    book(otherDentistId, patientId, day, "10:00");
+    book(dentistId, patientId, nextDay, "10:00");
+    book(dentistId, patientId, day, "10:00");
+  }
+
+  @Test
+  public void shouldWalkUpcomingAppointmentsPageByPage() throws Exception {
+    List<String> seen = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      var request = get("/dashboard/upcoming").param("dentistId", dentistId.toString());
+      if (cursor != null) {
+        request.param("cursor", cursor);
+      }
+      String response =
+          mockMvc
+              .perform(request)
+              .andExpect(status().isOk())
+              .andExpect(jsonPath("$.size").value(2))
+              .andReturn()
+              .getResponse()
+              .getContentAsString();
+      JsonNode body = objectMapper.readTree(response);
+      assertTrue(body.get("content").size() <= 2);
+      for (JsonNode appointment : body.get("content")) {
+        assertEquals("Marta Quirogaupcoming", appointment.get("patientName").asText());
+        assertEquals("SCHEDULED", appointment.get("status").asText());
+        seen.add(appointment.get("date").asText() + " " + appointment.get("time").asText());
+      }
+      cursor = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+      pages++;
+    } while (cursor != null);
+
+    assertEquals(booked.stream().sorted().toList(), seen);
+    assertEquals(3, pages);
+  }
+
+  @Test
+  public void invalidCursorShouldReturnBadRequest() throws Exception {
+    mockMvc
+        .perform(get("/dashboard/upcoming").param("cursor", "no-es-un-cursor"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void fromAfterToShouldReturnBadRequest() throws Exception {
+    mockMvc
+        .perform(
+            get("/dashboard/upcoming")
+                .param("from", nextDay.toString())
+                .param("to", day.toString()))
+        .andExpect(status().isBadRequest());
+  }
+}
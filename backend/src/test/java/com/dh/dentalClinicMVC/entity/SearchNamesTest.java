@@ -0,0 +1,45 @@
+package com.dh.dentalClinicMVC.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SearchNamesTest {
+
+  @Test
+  void shouldLowercaseFoldAccentsAndCollapseSpaces() {
+    assertEquals("jose perez", SearchNames.normalize("  José ", "PÉREZ"));
+    assertEquals("maria nunez", SearchNames.normalize("María", "Núñez"));
+    assertEquals("ana", SearchNames.normalize("Ana", null));
+  }
+
+  @Test
+  void shouldReturnNullWhenThereIsNothingToSearch() {
+    assertNull(SearchNames.normalize(null, null));
+    assertNull(SearchNames.normalize(" ", ""));
+  }
+
+  @Test
+  void shouldTruncateToColumnLength() {
+    assertEquals(SearchNames.MAX_LENGTH, SearchNames.normalize("a".repeat(400)).length());
+  }
+
+  @Test
+  void shouldSplitQueryIntoNormalizedTokens() {
+    assertEquals(List.of("mar", "gonz"), SearchNames.tokens(" Már  GONZ "));
+    assertEquals(List.of(), SearchNames.tokens("   "));
+  }
+
+  @Test
+  void userShouldRefreshSearchNameFromItsNames() {
+    User user = new User();
+    user.setFirstName("Sofía");
+    user.setLastName("Vega");
+
+    user.refreshSearchName();
+
+    assertEquals("sofia vega", user.getSearchName());
+  }
+}
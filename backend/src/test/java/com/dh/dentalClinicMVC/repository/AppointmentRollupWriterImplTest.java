@@ -0,0 +1,57 @@
+package com.dh.dentalClinicMVC.repository;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dh.dentalClinicMVC.entity.AppointmentDailyRollup;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import java.sql.Date;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Deltas del rollup con un driver que no informa cuántas filas cambió cada UPDATE del batch: sólo
+ * se insertan las filas que de verdad faltan.
+ */
+@ExtendWith(MockitoExtension.class)
+class AppointmentRollupWriterImplTest {
+
+  private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void shouldInsertOnlyMissingRowsWhenTheBatchGivesNoCounts() {
+    AppointmentDailyRollup.Key existing =
+        new AppointmentDailyRollup.Key(DAY, 1L, AppointmentStatus.SCHEDULED);
+    AppointmentDailyRollup.Key missing =
+        new AppointmentDailyRollup.Key(DAY, 2L, AppointmentStatus.SCHEDULED);
+    when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .thenReturn(new int[] {Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+    when(jdbcTemplate.queryForList(
+            startsWith("SELECT"), eq(Long.class), any(), eq(1L), eq("SCHEDULED")))
+        .thenReturn(List.of(3L));
+    when(jdbcTemplate.queryForList(
+            startsWith("SELECT"), eq(Long.class), any(), eq(2L), eq("SCHEDULED")))
+        .thenReturn(List.of());
+
+    new AppointmentRollupWriterImpl(jdbcTemplate).applyDeltas(Map.of(existing, 1L, missing, 1L));
+
+    verify(jdbcTemplate)
+        .update(startsWith("INSERT"), eq(Date.valueOf(DAY)), eq(2L), eq("SCHEDULED"), eq(1L));
+    verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(), eq(1L), any(), any());
+  }
+}
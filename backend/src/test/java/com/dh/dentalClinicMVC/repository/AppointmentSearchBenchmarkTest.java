@@ -0,0 +1,274 @@
+package com.dh.dentalClinicMVC.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dh.dentalClinicMVC.entity.Appointment;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compara la búsqueda de turnos con las consultas JPQL anteriores ({@code (:x IS NULL OR ...)}) y
+ * con {@link AppointmentSpecifications}: plan de ejecución y latencia por forma de filtro.
+ *
+ * <p>No corre en el build normal. Para ejecutarlo:
+ *
+ * <pre>
+ * mvn test -Dtest=AppointmentSearchBenchmarkTest -Dbenchmark=true [-Dbenchmark.rows=1000000]
+ * </pre>
+ *
+ * Por defecto usa la H2 de los tests; para medir contra MySQL basta con pasar {@code
+ * -Dspring.datasource.url=...} (y usuario/clave) apuntando a una base descartable.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class AppointmentSearchBenchmarkTest {
+
+  private static final int DENTISTS = 50;
+  private static final int PATIENTS = 5_000;
+  private static final int WARMUP_RUNS = 2;
+  private static final int MEASURED_RUNS = 5;
+  private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+  private static final Pageable PAGE = PageRequest.of(0, 10);
+
+  // Forma de las consultas eliminadas: todos los filtros siempre presentes en el SQL.
+  private static final String LEGACY_BY_IDS =
+      "FROM Appointment a "
+          + "WHERE (:patientId IS NULL OR a.patient.id = :patientId) "
+          + "AND (:dentistId IS NULL OR a.dentist.id = :dentistId) "
+          + "AND (:status IS NULL OR a.status = :status) "
+          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
+          + "AND (:toDate IS NULL OR a.date <= :toDate)";
+
+  private static final String LEGACY_BY_NAMES =
+      "FROM Appointment a "
+          + "WHERE (:patient IS NULL OR LOWER(CONCAT(a.patient.firstName, ' ', a.patient.lastName)) LIKE LOWER(CONCAT('%', :patient, '%'))) "
+          + "AND (:dentist IS NULL OR LOWER(CONCAT(a.dentist.firstName, ' ', a.dentist.lastName)) LIKE LOWER(CONCAT('%', :dentist, '%'))) "
+          + "AND (:status IS NULL OR a.status = :status) "
+          + "AND (:fromDate IS NULL OR a.date >= :fromDate) "
+          + "AND (:toDate IS NULL OR a.date <= :toDate)";
+
+  @Autowired private IAppointmentRepository appointmentRepository;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private EntityManager entityManager;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  private final List<Long> dentistIds = new ArrayList<>();
+  private final List<Long> patientIds = new ArrayList<>();
+
+  @BeforeAll
+  void seed() {
+    int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+
+    for (int i = 0; i < DENTISTS; i++) {
+      Dentist dentist = new Dentist();
+      dentist.setFirstName("Dentist" + i);
+      dentist.setLastName("Bench" + i);
+      dentist.setEmail("dentist" + i + "@bench.local");
+      dentist.setRole(Role.DENTIST);
+      dentist.setRegistrationNumber(900_000 + i);
+      dentistIds.add(dentistRepository.save(dentist).getId());
+    }
+    for (int i = 0; i < PATIENTS; i++) {
+      Patient patient = new Patient();
+      patient.setFirstName("Patient" + i);
+      patient.setLastName("Bench" + i);
+      patient.setEmail("patient" + i + "@bench.local");
+      patient.setRole(Role.PATIENT);
+      patient.setCardIdentity(900_000 + i);
+      patient.setAdmissionDate(FIRST_DAY);
+      patientIds.add(patientRepository.save(patient).getId());
+    }
+
+    AppointmentStatus[] statuses = AppointmentStatus.values();
+    List<Object[]> batch = new ArrayList<>();
+    for (int i = 0; i < rows; i++) {
+      batch.add(
+          new Object[] {
+            patientIds.get(i % PATIENTS),
+            dentistIds.get(i % DENTISTS),
+            Date.valueOf(FIRST_DAY.plusDays(i / 400)),
+            Time.valueOf(LocalTime.of(8, 0).plusMinutes((i % 20) * 30L)),
+            "Benchmark",
+            statuses[i % statuses.length].name()
+          });
+      if (batch.size() == 10_000 || i == rows - 1) {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO appointments (patient_id, dentist_id, date, time, description, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?)",
+            batch);
+        batch.clear();
+      }
+    }
+    System.out.printf("Benchmark: %d turnos sembrados%n", rows);
+  }
+
+  @Test
+  void compareLegacyQueriesWithSpecifications() {
+    Long dentistId = dentistIds.get(7);
+    Long patientId = patientIds.get(42);
+    LocalDate from = FIRST_DAY.plusDays(100);
+    LocalDate to = FIRST_DAY.plusDays(130);
+
+    Map<String, Object> byDentistAndRange = legacyParams();
+    byDentistAndRange.put("dentistId", dentistId);
+    byDentistAndRange.put("fromDate", from);
+    byDentistAndRange.put("toDate", to);
+    compare(
+        "dentistId + rango de fechas",
+        LEGACY_BY_IDS,
+        byDentistAndRange,
+        AppointmentSpecifications.search(null, dentistId.toString(), null, from, to));
+
+    Map<String, Object> byPatient = legacyParams();
+    byPatient.put("patientId", patientId);
+    compare(
+        "patientId",
+        LEGACY_BY_IDS,
+        byPatient,
+        AppointmentSpecifications.search(patientId.toString(), null, null, null, null));
+
+    Map<String, Object> byStatus = legacyParams();
+    byStatus.put("status", AppointmentStatus.COMPLETED);
+    compare(
+        "status",
+        LEGACY_BY_IDS,
+        byStatus,
+        AppointmentSpecifications.search(null, null, AppointmentStatus.COMPLETED, null, null));
+
+    Map<String, Object> byDentistName = new LinkedHashMap<>();
+    byDentistName.put("patient", null);
+    byDentistName.put("dentist", "dentist7 bench7");
+    byDentistName.put("status", null);
+    byDentistName.put("fromDate", null);
+    byDentistName.put("toDate", null);
+    compare(
+        "nombre de odontólogo",
+        LEGACY_BY_NAMES,
+        byDentistName,
+        AppointmentSpecifications.search(null, "dentist7 bench7", null, null, null));
+
+    printPlans(dentistId, from, to);
+  }
+
+  private Map<String, Object> legacyParams() {
+    Map<String, Object> params = new LinkedHashMap<>();
+    params.put("patientId", null);
+    params.put("dentistId", null);
+    params.put("status", null);
+    params.put("fromDate", null);
+    params.put("toDate", null);
+    return params;
+  }
+
+  private void compare(
+      String shape,
+      String legacyJpql,
+      Map<String, Object> legacyParams,
+      org.springframework.data.jpa.domain.Specification<Appointment> spec) {
+    LongSupplier legacy =
+        () ->
+            transactionTemplate.execute(
+                status -> {
+                  TypedQuery<Appointment> page =
+                      entityManager.createQuery("SELECT a " + legacyJpql, Appointment.class);
+                  TypedQuery<Long> count =
+                      entityManager.createQuery("SELECT COUNT(a) " + legacyJpql, Long.class);
+                  legacyParams.forEach(
+                      (name, value) -> {
+                        page.setParameter(name, value);
+                        count.setParameter(name, value);
+                      });
+                  page.setFirstResult(0).setMaxResults(PAGE.getPageSize()).getResultList();
+                  return count.getSingleResult();
+                });
+    LongSupplier specification =
+        () ->
+            transactionTemplate.execute(
+                status -> appointmentRepository.findRows(spec, PAGE, false).getTotalElements());
+
+    long legacyTotal = legacy.getAsLong();
+    long specificationTotal = specification.getAsLong();
+    assertEquals(legacyTotal, specificationTotal, shape);
+
+    System.out.printf(
+        "%-28s filas=%-8d legacy=%6.1f ms  specification=%6.1f ms%n",
+        shape, specificationTotal, medianMillis(legacy), medianMillis(specification));
+  }
+
+  private double medianMillis(LongSupplier query) {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      query.getAsLong();
+    }
+    double[] samples = new double[MEASURED_RUNS];
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      long start = System.nanoTime();
+      query.getAsLong();
+      samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+    }
+    Arrays.sort(samples);
+    return samples[MEASURED_RUNS / 2];
+  }
+
+  // Plan de la forma "dentistId + rango" tal como la emite cada variante, con parámetros ligados.
+  private void printPlans(Long dentistId, LocalDate from, LocalDate to) {
+    String legacy =
+        "EXPLAIN SELECT a.id FROM appointments a "
+            + "WHERE (? IS NULL OR a.patient_id = ?) AND (? IS NULL OR a.dentist_id = ?) "
+            + "AND (? IS NULL OR a.status = ?) AND (? IS NULL OR a.date >= ?) "
+            + "AND (? IS NULL OR a.date <= ?)";
+    String specification =
+        "EXPLAIN SELECT a.id FROM appointments a "
+            + "WHERE a.dentist_id = ? AND a.date >= ? AND a.date <= ?";
+
+    System.out.println("Plan legacy:");
+    jdbcTemplate
+        .queryForList(
+            legacy,
+            new Object[] {
+              null,
+              null,
+              dentistId,
+              dentistId,
+              null,
+              null,
+              Date.valueOf(from),
+              Date.valueOf(from),
+              Date.valueOf(to),
+              Date.valueOf(to)
+            })
+        .forEach(System.out::println);
+    System.out.println("Plan specification:");
+    jdbcTemplate
+        .queryForList(specification, dentistId, Date.valueOf(from), Date.valueOf(to))
+        .forEach(System.out::println);
+  }
+}
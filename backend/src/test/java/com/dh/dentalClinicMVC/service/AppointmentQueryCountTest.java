@@ -0,0 +1,175 @@
+package com.dh.dentalClinicMVC.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.entity.Address;
+import com.dh.dentalClinicMVC.entity.Appointment;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.repository.IAppointmentDailyRollupRepository;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Cota de sentencias SQL de los listados de turnos (y de la serie mensual del dashboard). Cada
+ * turno apunta a un paciente distinto (con dirección), que es el caso en el que cargar entidades
+ * dispara un SELECT por paciente, dirección y odontólogo; las proyecciones tienen que resolverlo
+ * con una cantidad fija de consultas.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+@Rollback
+class AppointmentQueryCountTest {
+
+  private static final int APPOINTMENTS = 12;
+
+  @Autowired private IAppointmentService appointmentService;
+  @Autowired private IDashboardService dashboardService;
+  @Autowired private IAppointmentRepository appointmentRepository;
+  @Autowired private IAppointmentDailyRollupRepository rollupRepository;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private EntityManager entityManager;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private Dentist dentist;
+
+  @BeforeEach
+  void setUp() {
+    dentist = new Dentist();
+    dentist.setFirstName("Dr");
+    dentist.setLastName("QueryCount");
+    dentist.setEmail("dentist@querycount.com");
+    dentist.setRole(Role.DENTIST);
+    dentist.setRegistrationNumber(24001);
+    dentistRepository.save(dentist);
+
+    LocalDate day = LocalDate.now().plusDays(30);
+    for (int i = 0; i < APPOINTMENTS; i++) {
+      Address address = new Address();
+      address.setStreet("Calle " + i);
+      address.setNumber(i);
+      address.setLocation("CABA");
+      address.setProvince("CABA");
+
+      Patient patient = new Patient();
+      patient.setFirstName("Patient" + i);
+      patient.setLastName("QueryCount");
+      patient.setEmail("patient" + i + "@querycount.com");
+      patient.setRole(Role.PATIENT);
+      patient.setCardIdentity(34000 + i);
+      patient.setAdmissionDate(LocalDate.now());
+      patient.setAddress(address);
+      patientRepository.save(patient);
+
+      Appointment appointment = new Appointment();
+      appointment.setPatient(patient);
+      appointment.setDentist(dentist);
+      appointment.setDate(day);
+      appointment.setTime(LocalTime.of(8, 0).plusMinutes(30L * i));
+      appointmentRepository.save(appointment);
+    }
+
+    entityManager.flush();
+    // Los turnos se guardan por el repositorio, sin pasar por el servicio: el rollup del
+    // dashboard se recalcula para ese día.
+    rollupRepository.rebuild(day, day);
+    entityManager.clear();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void dentistListShouldNotLoadAssociationsPerRow() {
+    List<AppointmentDTO> result =
+        appointmentService.findAllForCurrentUser("dentist@querycount.com", Role.DENTIST, false);
+
+    assertEquals(APPOINTMENTS, result.size());
+    // Búsqueda del odontólogo por email + listado de turnos
+    assertStatementsAtMost(2);
+    assertEquals(1, statistics.getEntityLoadCount(), "sólo el odontólogo se carga como entidad");
+  }
+
+  @Test
+  void adminListShouldBeASingleQuery() {
+    List<AppointmentDTO> result = appointmentService.findAll();
+
+    assertTrue(result.size() >= APPOINTMENTS);
+    assertStatementsAtMost(1);
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void searchPagesShouldNotLoadAssociationsPerRow() {
+    appointmentService.searchAppointments(
+        null, dentist.getId().toString(), null, null, null, PageRequest.of(0, 5), false);
+    // Página + conteo
+    assertStatementsAtMost(2);
+
+    statistics.clear();
+    appointmentService.searchAppointmentsAfter(
+        "querycount", dentist.getId().toString(), null, null, null, "", 5, false);
+    assertStatementsAtMost(1);
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void expandedNamesShouldComeFromTheSameQuery() {
+    List<AppointmentDTO> result =
+        appointmentService.findAllForCurrentUser("dentist@querycount.com", Role.DENTIST, true);
+
+    assertEquals(APPOINTMENTS, result.size());
+    assertEquals("Dr QueryCount", result.get(0).getDentistName());
+    assertTrue(result.get(0).getPatientName().endsWith(" QueryCount"));
+    assertStatementsAtMost(2);
+    assertEquals(1, statistics.getEntityLoadCount());
+
+    statistics.clear();
+    appointmentService.searchAppointments(
+        "querycount", null, null, null, null, PageRequest.of(0, 5), true);
+    assertStatementsAtMost(2);
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void monthlyDashboardSeriesShouldBeASingleQuery() {
+    LocalDate day = LocalDate.now().plusDays(30);
+    Map<String, Object> series =
+        dashboardService.getAppointmentsByMonth(
+            day.minusMonths(23), day.plusMonths(1), dentist.getId());
+
+    // 25 meses pedidos, recortados a los últimos 24, en una sola consulta agrupada
+    @SuppressWarnings("unchecked")
+    List<Long> counts = (List<Long>) series.get("appointmentCounts");
+    assertEquals(24, counts.size());
+    assertEquals(APPOINTMENTS, counts.get(22));
+    assertEquals(APPOINTMENTS, counts.stream().mapToLong(Long::longValue).sum());
+    assertStatementsAtMost(1);
+  }
+
+  private void assertStatementsAtMost(long max) {
+    long statements = statistics.getPrepareStatementCount();
+    assertTrue(
+        statements <= max, "Se ejecutaron " + statements + " sentencias (máximo " + max + ")");
+  }
+}
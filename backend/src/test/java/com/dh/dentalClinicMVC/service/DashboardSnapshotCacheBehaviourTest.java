@@ -1,36 +1,47 @@
 package com.dh.dentalClinicMVC.service;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
 
 /**
- * Runtime guard for the condition-gated {@code @Cacheable} on {@code
- * DashboardSnapshotService#getDashboardSnapshot(LocalDate, LocalDate, Long)}: an unparameterized
- * request must be cached (one delegate invocation for two calls), while any filtered request must
- * never read from or write to the cache (one delegate invocation per call, always).
+ * Runtime guard for the {@code @Cacheable} on {@code
+ * DashboardSnapshotService#getDashboardSnapshot(LocalDate, LocalDate, Long)}: every filter
+ * combination is cached under its own key (one delegate invocation for two identical calls), and
+ * different filters never share an entry.
  *
  * <p>This is a full Spring context test on purpose: only the real caching AOP proxy can prove the
- * {@code condition} SpEL actually gates the cache — a plain unit test calling the class directly
- * would bypass the proxy entirely and prove nothing.
+ * key SpEL actually partitions the cache — a plain unit test calling the class directly would
+ * bypass the proxy entirely and prove nothing.
  */
 @SpringBootTest
 class DashboardSnapshotCacheBehaviourTest {
 
   @Autowired private IDashboardSnapshotService dashboardSnapshotService;
 
+  @Autowired private CacheManager cacheManager;
+
   @MockBean private IDashboardService dashboardService;
 
+  @BeforeEach
+  void clearSnapshotCache() {
+    cacheManager.getCache("dashboardSnapshot").clear();
+  }
+
   @Test
   void shouldCacheTheDefaultUnparameterizedRequest() {
     stubDelegate();
@@ -42,7 +53,7 @@ class DashboardSnapshotCacheBehaviourTest {
   }
 
   @Test
-  void shouldNeverCacheAFilteredRequestRegardlessOfWhichParamIsSet() {
+  void shouldCacheEachFilteredRequestUnderItsOwnKey() {
     stubDelegate();
 
     LocalDate from = LocalDate.now().minusMonths(1);
@@ -50,8 +61,27 @@ class DashboardSnapshotCacheBehaviourTest {
 
     dashboardSnapshotService.getDashboardSnapshot(from, to, 7L);
     dashboardSnapshotService.getDashboardSnapshot(from, to, 7L);
+    dashboardSnapshotService.getDashboardSnapshot(from, to, 8L);
+    dashboardSnapshotService.getDashboardSnapshot(from, null, 7L);
+    dashboardSnapshotService.getDashboardSnapshot(null, null, null);
+
+    verify(dashboardService, times(1)).getDashboardStatistics(from, to, 7L);
+    verify(dashboardService, times(1)).getDashboardStatistics(from, to, 8L);
+    verify(dashboardService, times(1)).getDashboardStatistics(from, null, 7L);
+    verify(dashboardService, times(1)).getDashboardStatistics(null, null, null);
+  }
+
+  @Test
+  void shouldNotCacheASnapshotWithAFailedSection() {
+    stubDelegate();
+    when(dashboardService.getAppointmentsByStatus(any(), any(), any()))
+        .thenThrow(new IllegalStateException("status section down"));
+
+    dashboardSnapshotService.getDashboardSnapshot(null, null, null);
+    dashboardSnapshotService.getDashboardSnapshot(null, null, null);
 
-    verify(dashboardService, times(2)).getDashboardStatistics(from, to, 7L);
+    // The fallback defaults are served but not pinned in the cache
+    verify(dashboardService, times(2)).getDashboardStatistics(null, null, null);
   }
 
   private void stubDelegate() {
@@ -63,7 +93,8 @@ class DashboardSnapshotCacheBehaviourTest {
 
     when(dashboardService.getDashboardStatistics(any(), any(), any())).thenReturn(stats);
     when(dashboardService.getAppointmentsByMonth(any(), any(), any())).thenReturn(new HashMap<>());
-    when(dashboardService.getUpcomingAppointments(any(), any(), any())).thenReturn(new HashMap<>());
+    when(dashboardService.getUpcomingAppointments(any(), any(), any(), any(), anyInt()))
+        .thenReturn(new CursorPageDTO<>(List.of(), 20, null));
     when(dashboardService.getAppointmentsByStatus(any(), any(), any())).thenReturn(List.of());
     when(dashboardService.getAppointmentsByDentist(any(), any(), any())).thenReturn(List.of());
   }
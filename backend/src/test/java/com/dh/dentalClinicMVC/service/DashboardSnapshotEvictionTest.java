@@ -0,0 +1,203 @@
+package com.dh.dentalClinicMVC.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesMoveDTO;
+import com.dh.dentalClinicMVC.dto.AppointmentSeriesRequestDTO;
+import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import com.dh.dentalClinicMVC.service.impl.ClinicCalendar;
+import com.dh.dentalClinicMVC.service.impl.DashboardSnapshotKey;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Invalidación dirigida del cache de snapshots: cada escritura de turnos saca sólo las entradas
+ * cuyo rango contiene el día del turno y cuyo filtro de odontólogo es ése o ninguno, y recién
+ * después del commit. Es el modo sin refresh-ahead; con refresh-ahead las mismas entradas se
+ * recalculan en vez de sacarse (ver {@link DashboardSnapshotRefreshAheadTest}). Usa transacciones
+ * reales, así que recrea el contexto al terminar.
+ */
+@SpringBootTest(properties = "app.dashboard.cache.refresh-ahead=false")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class DashboardSnapshotEvictionTest {
+
+  @Autowired private IAppointmentService appointmentService;
+  @Autowired private IAppointmentSeriesService seriesService;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private CacheManager cacheManager;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private Long dentistId;
+  private Long otherDentistId;
+  private Long patientId;
+  private LocalDate day;
+  private LocalDate laterDay;
+  private Cache snapshots;
+
+  @BeforeEach
+  void setUp() {
+    long unique = System.nanoTime() % 1_000_000;
+    dentistId = saveDentist("a" + unique, 950_000 + (int) unique);
+    otherDentistId = saveDentist("b" + unique, 1_950_000 + (int) unique);
+
+    Patient patient = new Patient();
+    patient.setFirstName("Patient");
+    patient.setLastName("Eviction");
+    patient.setEmail("patient" + unique + "@eviction.local");
+    patient.setRole(Role.PATIENT);
+    patient.setCardIdentity(950_000 + (int) unique);
+    patient.setAdmissionDate(LocalDate.now());
+    patientId = patientRepository.save(patient).getId();
+
+    ClinicCalendar calendar = new ClinicCalendar("");
+    day = calendar.nextOpenDay(LocalDate.now().plusDays(1));
+    laterDay = calendar.nextOpenDay(day.plusDays(20));
+
+    snapshots = cacheManager.getCache("dashboardSnapshot");
+    snapshots.clear();
+  }
+
+  @Test
+  void bookingShouldEvictOnlyTheEntriesItCanChange() {
+    Map<String, DashboardSnapshotKey> keys = seedCache();
+
+    saveAt(day, "09:00");
+
+    assertEquals(Set.of("all", "dentist", "day", "from"), evicted(keys));
+  }
+
+  @Test
+  void everyWritePathShouldEvictTheEntriesOfItsDay() throws Exception {
+    AppointmentDTO first = saveAt(day, "09:00");
+    AppointmentDTO second = saveAt(day, "10:00");
+
+    Map<String, DashboardSnapshotKey> keys = seedCache();
+    appointmentService.updateStatus(first.getId(), AppointmentStatus.IN_PROGRESS);
+    assertEquals(Set.of("all", "dentist", "day", "from"), evicted(keys));
+
+    keys = seedCache();
+    appointmentService.updateStatuses(Map.of(second.getId(), AppointmentStatus.CANCELLED), null);
+    assertEquals(Set.of("all", "dentist", "day", "from"), evicted(keys));
+
+    // Moverlo a otro día invalida el día de origen y el de destino
+    keys = seedCache();
+    first.setDate(laterDay.toString());
+    appointmentService.update(first);
+    assertEquals(Set.of("all", "dentist", "day", "from", "laterDay"), evicted(keys));
+
+    keys = seedCache();
+    appointmentService.delete(first.getId());
+    assertEquals(Set.of("all", "dentist", "from", "laterDay"), evicted(keys));
+
+    keys = seedCache();
+    appointmentService.saveBatch(List.of(dto(laterDay, "11:00")));
+    assertEquals(Set.of("all", "dentist", "from", "laterDay"), evicted(keys));
+  }
+
+  @Test
+  void movingASeriesToAnotherTimeShouldEvictTheEntriesOfItsDays() throws Exception {
+    Long seriesId =
+        seriesService
+            .create(
+                AppointmentSeriesRequestDTO.builder()
+                    .dentistId(dentistId)
+                    .patientId(patientId)
+                    .startDate(day.toString())
+                    .time("15:00")
+                    .frequency("WEEKLY")
+                    .occurrences(1)
+                    .build())
+            .getId();
+
+    // Sin correr de día: el rollup no cambia, pero próximos turnos muestran la hora
+    Map<String, DashboardSnapshotKey> keys = seedCache();
+    seriesService.moveFrom(seriesId, new AppointmentSeriesMoveDTO(day.toString(), "16:00", null));
+
+    assertEquals(Set.of("all", "dentist", "day", "from"), evicted(keys));
+  }
+
+  @Test
+  void rolledBackWriteShouldEvictNothing() {
+    Map<String, DashboardSnapshotKey> keys = seedCache();
+
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              saveAt(day, "09:00");
+              // Hasta el commit los snapshots siguen en el cache
+              assertEquals(Set.of(), evicted(keys));
+              status.setRollbackOnly();
+            });
+
+    assertEquals(Set.of(), evicted(keys));
+  }
+
+  // Una entrada por forma de filtro, con nombre para leer las aserciones.
+  private Map<String, DashboardSnapshotKey> seedCache() {
+    Map<String, DashboardSnapshotKey> keys = new LinkedHashMap<>();
+    keys.put("all", new DashboardSnapshotKey(null, null, null));
+    keys.put("dentist", new DashboardSnapshotKey(null, null, dentistId));
+    keys.put("otherDentist", new DashboardSnapshotKey(null, null, otherDentistId));
+    keys.put("day", new DashboardSnapshotKey(day, day, dentistId));
+    keys.put("before", new DashboardSnapshotKey(day.minusDays(10), day.minusDays(1), null));
+    keys.put("from", new DashboardSnapshotKey(day, null, null));
+    keys.put("laterDay", new DashboardSnapshotKey(laterDay, laterDay, null));
+    keys.values().forEach(key -> snapshots.put(key, DashboardSnapshotDTO.withDefaults()));
+    return keys;
+  }
+
+  private Set<String> evicted(Map<String, DashboardSnapshotKey> keys) {
+    Set<String> evicted = new TreeSet<>();
+    keys.forEach(
+        (name, key) -> {
+          if (snapshots.get(key) == null) {
+            evicted.add(name);
+          }
+        });
+    return evicted;
+  }
+
+  private Long saveDentist(String suffix, int registrationNumber) {
+    Dentist dentist = new Dentist();
+    dentist.setFirstName("Dentist");
+    dentist.setLastName("Eviction");
+    dentist.setEmail("dentist" + suffix + "@eviction.local");
+    dentist.setRole(Role.DENTIST);
+    dentist.setRegistrationNumber(registrationNumber);
+    return dentistRepository.save(dentist).getId();
+  }
+
+  private AppointmentDTO saveAt(LocalDate date, String time) {
+    return appointmentService.save(dto(date, time));
+  }
+
+  private AppointmentDTO dto(LocalDate date, String time) {
+    return AppointmentDTO.builder()
+        .dentist_id(dentistId)
+        .patient_id(patientId)
+        .date(date.toString())
+        .time(time)
+        .build();
+  }
+}
@@ -0,0 +1,156 @@
+package com.dh.dentalClinicMVC.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import com.dh.dentalClinicMVC.service.impl.ClinicCalendar;
+import com.dh.dentalClinicMVC.service.impl.DashboardSnapshotKey;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Cache de snapshots en modo refresh-ahead: una escritura de turnos recalcula en segundo plano las
+ * entradas que afecta sin dejar de servirlas, y una entrada con más del TTL blando se sirve tal
+ * cual mientras se recalcula. TTL blando de un segundo para no esperar 45.
+ */
+@SpringBootTest(
+    properties = {
+      "app.dashboard.cache.refresh-ahead=true",
+      "app.dashboard.cache.soft-ttl-seconds=1"
+    })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class DashboardSnapshotRefreshAheadTest {
+
+  @Autowired private IDashboardSnapshotService snapshotService;
+  @Autowired private IAppointmentService appointmentService;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private CacheManager cacheManager;
+  @SpyBean private IDashboardService dashboardService;
+
+  // Mientras está cerrada, los totales del snapshot esperan: deja ver qué sirve el cache durante un
+  // recálculo.
+  private final AtomicReference<CountDownLatch> statistics = new AtomicReference<>();
+
+  private Long dentistId;
+  private Long otherDentistId;
+  private Long patientId;
+  private LocalDate day;
+  private Cache snapshots;
+
+  @BeforeEach
+  void setUp() {
+    long unique = System.nanoTime() % 1_000_000;
+    dentistId = saveDentist("a" + unique, 970_000 + (int) unique);
+    otherDentistId = saveDentist("b" + unique, 1_970_000 + (int) unique);
+
+    Patient patient = new Patient();
+    patient.setFirstName("Patient");
+    patient.setLastName("Refresh");
+    patient.setEmail("patient" + unique + "@refresh.local");
+    patient.setRole(Role.PATIENT);
+    patient.setCardIdentity(970_000 + (int) unique);
+    patient.setAdmissionDate(LocalDate.now());
+    patientId = patientRepository.save(patient).getId();
+
+    day = new ClinicCalendar("").nextOpenDay(LocalDate.now().plusDays(1));
+    snapshots = cacheManager.getCache("dashboardSnapshot");
+    snapshots.clear();
+
+    statistics.set(new CountDownLatch(0));
+    doAnswer(
+            invocation -> {
+              statistics.get().await(5, TimeUnit.SECONDS);
+              return invocation.callRealMethod();
+            })
+        .when(dashboardService)
+        .getDashboardStatistics(any(), any(), any());
+  }
+
+  @Test
+  void writeShouldRefreshTheEntriesItChangesInsteadOfEvictingThem() {
+    DashboardSnapshotKey key = new DashboardSnapshotKey(day, day, dentistId);
+    DashboardSnapshotKey otherKey = new DashboardSnapshotKey(day, day, otherDentistId);
+    assertEquals(
+        0L, snapshotService.getDashboardSnapshot(day, day, dentistId).getTotalAppointments());
+    DashboardSnapshotDTO other = snapshotService.getDashboardSnapshot(day, day, otherDentistId);
+
+    appointmentService.save(
+        AppointmentDTO.builder()
+            .dentist_id(dentistId)
+            .patient_id(patientId)
+            .date(day.toString())
+            .time("09:00")
+            .build());
+
+    // La entrada sigue en el cache mientras se recalcula
+    assertNotNull(snapshots.get(key));
+    awaitCached(key, snapshot -> snapshot.getTotalAppointments() == 1L);
+    assertSame(other, cached(otherKey));
+  }
+
+  @Test
+  void entryPastTheSoftTtlShouldBeServedWhileItIsRecomputed() throws Exception {
+    DashboardSnapshotKey key = new DashboardSnapshotKey(day, null, null);
+    DashboardSnapshotDTO first = snapshotService.getDashboardSnapshot(day, null, null);
+
+    Thread.sleep(1_100);
+    statistics.set(new CountDownLatch(1));
+
+    // El recálculo queda trabado y aun así el pedido vuelve con la entrada anterior
+    assertSame(
+        first,
+        CompletableFuture.supplyAsync(() -> snapshotService.getDashboardSnapshot(day, null, null))
+            .get(1, TimeUnit.SECONDS));
+    statistics.get().countDown();
+    awaitCached(key, snapshot -> snapshot != first);
+  }
+
+  private DashboardSnapshotDTO cached(DashboardSnapshotKey key) {
+    Cache.ValueWrapper value = snapshots.get(key);
+    return value != null ? (DashboardSnapshotDTO) value.get() : null;
+  }
+
+  private void awaitCached(DashboardSnapshotKey key, Predicate<DashboardSnapshotDTO> condition) {
+    long giveUp = System.currentTimeMillis() + 5_000;
+    DashboardSnapshotDTO snapshot = cached(key);
+    while ((snapshot == null || !condition.test(snapshot)) && System.currentTimeMillis() < giveUp) {
+      Thread.onSpinWait();
+      snapshot = cached(key);
+    }
+    assertTrue(snapshot != null && condition.test(snapshot), "the entry was not refreshed");
+  }
+
+  private Long saveDentist(String suffix, int registrationNumber) {
+    Dentist dentist = new Dentist();
+    dentist.setFirstName("Dentist");
+    dentist.setLastName("Refresh");
+    dentist.setEmail("dentist" + suffix + "@refresh.local");
+    dentist.setRole(Role.DENTIST);
+    dentist.setRegistrationNumber(registrationNumber);
+    return dentistRepository.save(dentist).getId();
+  }
+}
@@ -2,6 +2,8 @@ package com.dh.dentalClinicMVC.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -9,7 +11,9 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.dh.dentalClinicMVC.dto.CursorPageDTO;
 import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
+import com.dh.dentalClinicMVC.repository.IAppointmentDailyRollupRepository;
 import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
 import com.dh.dentalClinicMVC.repository.IDentistRepository;
 import com.dh.dentalClinicMVC.repository.IPatientRepository;
@@ -20,6 +24,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.Test;
 
 class DashboardSnapshotServiceTest {
@@ -79,6 +91,203 @@ class DashboardSnapshotServiceTest {
     assertEquals(0, snapshot.getDentistBreakdown().size());
   }
 
+  // ---- Sections run concurrently, each with its own deadline ----
+
+  @Test
+  void shouldComputeAllSectionsConcurrently() {
+    // Every section waits at a barrier for the other four: run one after another, none would
+    // get past it.
+    CyclicBarrier allSections = new CyclicBarrier(5);
+    IDashboardService dashboardService =
+        new FakeDashboardService(false, false) {
+          @Override
+          public Map<String, Object> getDashboardStatistics(
+              LocalDate from, LocalDate to, Long dentistId) {
+            awaitAll(allSections);
+            return super.getDashboardStatistics(from, to, dentistId);
+          }
+
+          @Override
+          public Map<String, Object> getAppointmentsByMonth(
+              LocalDate from, LocalDate to, Long dentistId) {
+            awaitAll(allSections);
+            return super.getAppointmentsByMonth(from, to, dentistId);
+          }
+
+          @Override
+          public CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> getUpcomingAppointments(
+              LocalDate from, LocalDate to, Long dentistId, String cursor, int size) {
+            awaitAll(allSections);
+            return super.getUpcomingAppointments(from, to, dentistId, cursor, size);
+          }
+
+          @Override
+          public List<DashboardSnapshotDTO.StatusCountDTO> getAppointmentsByStatus(
+              LocalDate from, LocalDate to, Long dentistId) {
+            awaitAll(allSections);
+            return super.getAppointmentsByStatus(from, to, dentistId);
+          }
+
+          @Override
+          public List<DashboardSnapshotDTO.DentistCountDTO> getAppointmentsByDentist(
+              LocalDate from, LocalDate to, Long dentistId) {
+            awaitAll(allSections);
+            return super.getAppointmentsByDentist(from, to, dentistId);
+          }
+        };
+    DashboardSnapshotService snapshotService = new DashboardSnapshotService(dashboardService);
+
+    DashboardSnapshotDTO snapshot = snapshotService.getDashboardSnapshot();
+
+    assertFalse(snapshot.isPartial());
+    assertEquals(12L, snapshot.getTotalAppointments());
+    assertEquals(2, snapshot.getMonthlyStats().size());
+    assertEquals(1, snapshot.getUpcomingAppointments().size());
+    assertEquals(4, snapshot.getStatusBreakdown().size());
+    assertEquals(1, snapshot.getDentistBreakdown().size());
+  }
+
+  @Test
+  void shouldFallBackToDefaultsForASectionThatMissesTheDeadline() {
+    CountDownLatch release = new CountDownLatch(1);
+    IDashboardService dashboardService =
+        new FakeDashboardService(false, false) {
+          @Override
+          public Map<String, Object> getAppointmentsByMonth(
+              LocalDate from, LocalDate to, Long dentistId) {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return super.getAppointmentsByMonth(from, to, dentistId);
+          }
+        };
+    DashboardSnapshotService snapshotService =
+        new DashboardSnapshotService(dashboardService, 200, 8, 20);
+
+    long start = System.nanoTime();
+    DashboardSnapshotDTO snapshot = snapshotService.getDashboardSnapshot();
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+    release.countDown();
+
+    assertTrue(elapsedMillis < 2_000, "the slow section held up the snapshot: " + elapsedMillis);
+    assertTrue(snapshot.isPartial());
+    assertEquals(0, snapshot.getMonthlyStats().size());
+    assertEquals(12L, snapshot.getTotalAppointments());
+    assertEquals(1, snapshot.getUpcomingAppointments().size());
+
+    Map<String, DashboardSnapshotService.SectionMetrics> metrics = snapshotService.sectionMetrics();
+    assertEquals(1, metrics.get("monthly").timeouts());
+    assertEquals(0, metrics.get("stats").timeouts());
+    assertEquals(1, metrics.get("stats").runs());
+  }
+
+  @Test
+  void shouldCountFailedSectionsInTheMetrics() {
+    DashboardSnapshotService snapshotService =
+        new DashboardSnapshotService(new FakeDashboardService(false, true));
+
+    DashboardSnapshotDTO snapshot = snapshotService.getDashboardSnapshot();
+
+    assertTrue(snapshot.isPartial());
+    Map<String, DashboardSnapshotService.SectionMetrics> metrics = snapshotService.sectionMetrics();
+    assertEquals(
+        List.of("stats", "monthly", "upcoming", "status", "dentist"),
+        List.copyOf(metrics.keySet()));
+    assertEquals(1, metrics.get("status").failures());
+    assertEquals(1, metrics.get("dentist").failures());
+    assertEquals(0, metrics.get("stats").failures());
+  }
+
+  @Test
+  void concurrentMissesForTheSameKeyShouldShareOneComputation() throws Exception {
+    int requests = 16;
+    AtomicInteger statsCalls = new AtomicInteger();
+    AtomicReference<DashboardSnapshotService> service = new AtomicReference<>();
+    IDashboardService dashboardService =
+        new FakeDashboardService(false, false) {
+          @Override
+          public Map<String, Object> getDashboardStatistics(
+              LocalDate from, LocalDate to, Long dentistId) {
+            statsCalls.incrementAndGet();
+            // Hold the computation until every other request has joined it, so none of them
+            // can arrive after it finished and start a second one.
+            long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (service.get().coalescingMetrics().coalesced() < requests - 1
+                && System.nanoTime() < giveUp) {
+              Thread.onSpinWait();
+            }
+            return super.getDashboardStatistics(from, to, dentistId);
+          }
+        };
+    DashboardSnapshotService snapshotService = new DashboardSnapshotService(dashboardService);
+    service.set(snapshotService);
+    LocalDate from = LocalDate.of(2030, 1, 1);
+    LocalDate to = LocalDate.of(2030, 1, 31);
+
+    CyclicBarrier start = new CyclicBarrier(requests);
+    List<Future<DashboardSnapshotDTO>> results = new ArrayList<>();
+    try (ExecutorService pool = Executors.newFixedThreadPool(requests)) {
+      for (int i = 0; i < requests; i++) {
+        results.add(
+            pool.submit(
+                () -> {
+                  awaitAll(start);
+                  return snapshotService.getDashboardSnapshot(from, to, 7L);
+                }));
+      }
+      for (Future<DashboardSnapshotDTO> result : results) {
+        assertEquals(12L, result.get(5, TimeUnit.SECONDS).getTotalAppointments());
+      }
+    }
+
+    assertEquals(1, statsCalls.get());
+    assertEquals(
+        new DashboardSnapshotService.CoalescingMetrics(1, requests - 1),
+        snapshotService.coalescingMetrics());
+
+    // Another filter, or the same one once the computation is over, computes on its own
+    snapshotService.getDashboardSnapshot(from, to, 8L);
+    snapshotService.getDashboardSnapshot(from, to, 7L);
+    assertEquals(3, statsCalls.get());
+    assertEquals(3, snapshotService.coalescingMetrics().computations());
+  }
+
+  @Test
+  void shouldAskForOnePageOfUpcomingAppointmentsAndKeepItsCursor() {
+    List<Integer> sizes = new ArrayList<>();
+    IDashboardService dashboardService =
+        new FakeDashboardService(false, false) {
+          @Override
+          public CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> getUpcomingAppointments(
+              LocalDate from, LocalDate to, Long dentistId, String cursor, int size) {
+            sizes.add(size);
+            CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> page =
+                super.getUpcomingAppointments(from, to, dentistId, cursor, size);
+            page.setNextCursor(cursor == null ? "next" : null);
+            return page;
+          }
+        };
+    DashboardSnapshotService snapshotService =
+        new DashboardSnapshotService(dashboardService, 2_000, 8, 5);
+
+    DashboardSnapshotDTO snapshot = snapshotService.getDashboardSnapshot();
+
+    assertEquals(1, snapshot.getUpcomingAppointments().size());
+    assertEquals("next", snapshot.getUpcomingNextCursor());
+    assertNull(snapshotService.getUpcomingAppointments(null, null, null, "next").getNextCursor());
+    assertEquals(List.of(5, 5), sizes);
+  }
+
+  private static void awaitAll(CyclicBarrier barrier) {
+    try {
+      barrier.await(5, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      throw new IllegalStateException("sections did not run concurrently", e);
+    }
+  }
+
   // ---- 2.2: totalDentists/totalPatients stay global under an active dentistId filter,
   // and todayAppointments == 0 when today falls outside [from,to] -- exercised end-to-end
   // through the REAL DashboardServiceImpl (mocked repositories), not the Fake above, since
@@ -88,15 +297,18 @@ class DashboardSnapshotServiceTest {
   @Test
   void shouldKeepTotalDentistsAndTotalPatientsGlobalWhenDentistIdFilterIsActive() {
     IAppointmentRepository appointmentRepository = mock(IAppointmentRepository.class);
+    IAppointmentDailyRollupRepository rollupRepository =
+        mock(IAppointmentDailyRollupRepository.class);
     IDentistRepository dentistRepository = mock(IDentistRepository.class);
     IPatientRepository patientRepository = mock(IPatientRepository.class);
 
     when(dentistRepository.count()).thenReturn(5L);
     when(patientRepository.count()).thenReturn(40L);
-    when(appointmentRepository.countFiltered(null, null, 7L)).thenReturn(9L);
+    when(rollupRepository.countFiltered(null, null, 7L)).thenReturn(9L);
 
     IDashboardService dashboardService =
-        new DashboardServiceImpl(appointmentRepository, dentistRepository, patientRepository);
+        new DashboardServiceImpl(
+            appointmentRepository, rollupRepository, dentistRepository, patientRepository);
     DashboardSnapshotService snapshotService = new DashboardSnapshotService(dashboardService);
 
     DashboardSnapshotDTO snapshot = snapshotService.getDashboardSnapshot(null, null, 7L);
@@ -109,6 +321,8 @@ class DashboardSnapshotServiceTest {
   @Test
   void shouldZeroTodayAppointmentsWhenTodayFallsOutsideTheActiveDateRange() {
     IAppointmentRepository appointmentRepository = mock(IAppointmentRepository.class);
+    IAppointmentDailyRollupRepository rollupRepository =
+        mock(IAppointmentDailyRollupRepository.class);
     IDentistRepository dentistRepository = mock(IDentistRepository.class);
     IPatientRepository patientRepository = mock(IPatientRepository.class);
 
@@ -116,13 +330,14 @@ class DashboardSnapshotServiceTest {
     LocalDate to = LocalDate.now().minusMonths(1);
 
     IDashboardService dashboardService =
-        new DashboardServiceImpl(appointmentRepository, dentistRepository, patientRepository);
+        new DashboardServiceImpl(
+            appointmentRepository, rollupRepository, dentistRepository, patientRepository);
     DashboardSnapshotService snapshotService = new DashboardSnapshotService(dashboardService);
 
     DashboardSnapshotDTO snapshot = snapshotService.getDashboardSnapshot(from, to, null);
 
     assertEquals(0L, snapshot.getTodayAppointments());
-    verify(appointmentRepository, never())
+    verify(rollupRepository, never())
         .countFiltered(eq(LocalDate.now()), eq(LocalDate.now()), any());
   }
 
@@ -165,23 +380,13 @@ class DashboardSnapshotServiceTest {
     }
 
     @Override
-    public Map<String, Object> getUpcomingAppointments(
-        LocalDate from, LocalDate to, Long dentistId) {
-      Map<String, Object> result = new HashMap<>();
-
-      Map<String, Object> appointment = new HashMap<>();
-      appointment.put("id", 101L);
-      appointment.put("patientName", "Patient Demo");
-      appointment.put("dentistName", "Dentist Demo");
-      appointment.put("date", "2026-06-10");
-      appointment.put("time", "10:00");
-      appointment.put("status", "SCHEDULED");
-
-      List<Map<String, Object>> appointments = new ArrayList<>();
-      appointments.add(appointment);
-
-      result.put("upcomingAppointments", appointments);
-      return result;
+    public CursorPageDTO<DashboardSnapshotDTO.UpcomingAppointmentDTO> getUpcomingAppointments(
+        LocalDate from, LocalDate to, Long dentistId, String cursor, int size) {
+      List<DashboardSnapshotDTO.UpcomingAppointmentDTO> appointments = new ArrayList<>();
+      appointments.add(
+          new DashboardSnapshotDTO.UpcomingAppointmentDTO(
+              101L, "Patient Demo", "Dentist Demo", "2026-06-10", "10:00", "SCHEDULED"));
+      return new CursorPageDTO<>(appointments, size, null);
     }
 
     @Override
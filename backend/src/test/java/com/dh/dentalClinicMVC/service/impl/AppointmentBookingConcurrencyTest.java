@@ -0,0 +1,215 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.entity.Appointment;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.exception.DuplicateResourceException;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import com.dh.dentalClinicMVC.service.IAppointmentService;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Cientos de altas simultáneas para un mismo horario: exactamente una gana, tanto por el servicio
+ * (índice en memoria + restricción única) como insertando directo, sin pasar por el índice. Usa
+ * transacciones reales, así que recrea el contexto al terminar para no dejar datos.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class AppointmentBookingConcurrencyTest {
+
+  private static final int ATTEMPTS = 300;
+  private static final int THREADS = 64;
+
+  @Autowired private IAppointmentService appointmentService;
+  @Autowired private IAppointmentRepository appointmentRepository;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private Dentist dentist;
+  private Patient patient;
+  private LocalDate day;
+
+  @BeforeEach
+  void setUp() {
+    long unique = System.nanoTime() % 1_000_000;
+
+    dentist = new Dentist();
+    dentist.setFirstName("Dentist");
+    dentist.setLastName("Concurrency");
+    dentist.setEmail("dentist" + unique + "@concurrency.local");
+    dentist.setRole(Role.DENTIST);
+    dentist.setRegistrationNumber(800_000 + (int) unique);
+    dentist = dentistRepository.save(dentist);
+
+    patient = new Patient();
+    patient.setFirstName("Patient");
+    patient.setLastName("Concurrency");
+    patient.setEmail("patient" + unique + "@concurrency.local");
+    patient.setRole(Role.PATIENT);
+    patient.setCardIdentity(800_000 + (int) unique);
+    patient.setAdmissionDate(LocalDate.now());
+    patient = patientRepository.save(patient);
+
+    day = new ClinicCalendar("").nextOpenDay(LocalDate.now().plusDays(1));
+  }
+
+  @Test
+  void concurrentBookingsThroughTheServiceShouldLetExactlyOneWin() throws Exception {
+    List<Outcome> outcomes =
+        race(
+            () ->
+                appointmentService.save(
+                    AppointmentDTO.builder()
+                        .dentist_id(dentist.getId())
+                        .patient_id(patient.getId())
+                        .date(day.toString())
+                        .time("10:00")
+                        .description("Concurrencia")
+                        .build()));
+
+    assertEquals(1, count(outcomes, Outcome.WON));
+    assertEquals(ATTEMPTS - 1, count(outcomes, Outcome.SLOT_TAKEN));
+    assertEquals(1, activeRows(LocalTime.of(10, 0)));
+  }
+
+  @Test
+  void concurrentInsertsBypassingTheIndexShouldStillLetExactlyOneWin() throws Exception {
+    List<Outcome> outcomes =
+        race(
+            () -> {
+              Appointment appointment = new Appointment();
+              appointment.setDentist(dentist);
+              appointment.setPatient(patient);
+              appointment.setDate(day);
+              appointment.setTime(LocalTime.of(11, 0));
+              appointment.setStatus(AppointmentStatus.SCHEDULED);
+              return appointmentRepository.save(appointment);
+            });
+
+    assertEquals(1, count(outcomes, Outcome.WON));
+    assertEquals(ATTEMPTS - 1, count(outcomes, Outcome.SLOT_TAKEN));
+    assertEquals(1, activeRows(LocalTime.of(11, 0)));
+  }
+
+  @Test
+  void rowTheIndexHasNotSeenShouldStillConflict() {
+    // Alta por fuera de la aplicación (otra instancia, un script): el índice no la conoce.
+    insertRow(LocalTime.of(12, 0), AppointmentStatus.SCHEDULED);
+    insertRow(LocalTime.of(12, 30), AppointmentStatus.CANCELLED);
+
+    DuplicateResourceException error =
+        assertThrows(DuplicateResourceException.class, () -> saveAt("12:00"));
+    assertEquals(SlotConflicts.SLOT_TAKEN, error.getMessage());
+
+    // Los cancelados no ocupan el horario
+    assertTrue(saveAt("12:30").getId() != null);
+    assertEquals(1, activeRows(LocalTime.of(12, 30)));
+  }
+
+  private enum Outcome {
+    WON,
+    SLOT_TAKEN
+  }
+
+  // Lanza ATTEMPTS intentos a la vez (todos esperan la misma señal de largada) y clasifica el
+  // resultado de cada uno; cualquier otra excepción hace fallar el test.
+  private List<Outcome> race(Callable<?> booking) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Outcome>> futures = new ArrayList<>();
+      for (int i = 0; i < ATTEMPTS; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  try {
+                    booking.call();
+                    return Outcome.WON;
+                  } catch (DuplicateResourceException e) {
+                    return Outcome.SLOT_TAKEN;
+                  } catch (DataIntegrityViolationException e) {
+                    if (SlotConflicts.isActiveSlotViolation(e)) {
+                      return Outcome.SLOT_TAKEN;
+                    }
+                    throw e;
+                  }
+                }));
+      }
+      start.countDown();
+
+      List<Outcome> outcomes = new ArrayList<>();
+      for (Future<Outcome> future : futures) {
+        try {
+          outcomes.add(future.get(30, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+          throw new AssertionError("Intento con error inesperado", e.getCause());
+        }
+      }
+      return outcomes;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static long count(List<Outcome> outcomes, Outcome outcome) {
+    return outcomes.stream().filter(outcome::equals).count();
+  }
+
+  private AppointmentDTO saveAt(String time) {
+    return appointmentService.save(
+        AppointmentDTO.builder()
+            .dentist_id(dentist.getId())
+            .patient_id(patient.getId())
+            .date(day.toString())
+            .time(time)
+            .build());
+  }
+
+  private void insertRow(LocalTime time, AppointmentStatus status) {
+    jdbcTemplate.update(
+        "INSERT INTO appointments (patient_id, dentist_id, date, time, status) VALUES (?, ?, ?, ?, ?)",
+        patient.getId(),
+        dentist.getId(),
+        day,
+        time,
+        status.name());
+  }
+
+  private int activeRows(LocalTime time) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM appointments "
+            + "WHERE dentist_id = ? AND date = ? AND time = ? AND status <> 'CANCELLED'",
+        Integer.class,
+        dentist.getId(),
+        day,
+        time);
+  }
+}
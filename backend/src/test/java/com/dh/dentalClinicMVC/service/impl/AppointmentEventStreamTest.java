@@ -0,0 +1,178 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.dh.dentalClinicMVC.dto.AppointmentChangeEventDTO;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fan-out de avisos de turnos sin servidor: cada suscriptor recibe lo suyo en orden, un cliente
+ * lento pierde lo pendiente a cambio de un resync sin demorar a los demás, y los avisos de una
+ * transacción salen recién con su commit.
+ */
+class AppointmentEventStreamTest {
+
+  private final AppointmentEventStream stream = new AppointmentEventStream(4, 10, 60_000);
+
+  @AfterEach
+  void tearDown() {
+    stream.shutdown();
+  }
+
+  @Test
+  void shouldDeliverEachSubscriberItsDentistEventsInOrder() throws Exception {
+    RecordingEmitter all = new RecordingEmitter(null);
+    RecordingEmitter dentist7 = new RecordingEmitter(null);
+    stream.subscribe(all, null);
+    stream.subscribe(dentist7, 7L);
+
+    stream.broadcast(List.of(event(1L, 7L), event(2L, 8L), event(3L, 7L)));
+
+    awaitUntil(() -> all.appointmentIds().size() == 3 && dentist7.appointmentIds().size() == 2);
+    assertEquals(List.of(1L, 2L, 3L), all.appointmentIds());
+    assertEquals(List.of(1L, 3L), dentist7.appointmentIds());
+    assertEquals("ping", all.names.get(0));
+
+    stream.heartbeat();
+    awaitUntil(() -> all.names.stream().filter("ping"::equals).count() == 2);
+  }
+
+  @Test
+  void shouldReplacePendingEventsWithResyncForASlowClientOnly() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingEmitter slow = new RecordingEmitter(release);
+    RecordingEmitter fast = new RecordingEmitter(null);
+    stream.subscribe(slow, null);
+    stream.subscribe(fast, null);
+    // El hilo del lento queda trabado mandando el primer ping: su cola está vacía.
+    assertTrue(slow.blocked.await(5, TimeUnit.SECONDS));
+    awaitUntil(() -> fast.names.contains("ping"));
+
+    stream.broadcast(List.of(event(1L, 7L), event(2L, 7L), event(3L, 7L), event(4L, 7L)));
+    awaitUntil(() -> fast.appointmentIds().size() == 4);
+    stream.broadcast(List.of(event(5L, 7L)));
+    awaitUntil(() -> fast.appointmentIds().size() == 5);
+
+    assertEquals(5, stream.metrics().dropped());
+    release.countDown();
+    awaitUntil(() -> slow.names.contains("resync"));
+    assertEquals(List.of("ping", "resync"), slow.names);
+    assertEquals(List.of(1L, 2L, 3L, 4L, 5L), fast.appointmentIds());
+  }
+
+  @Test
+  void shouldRefuseSubscribersOverTheLimit() {
+    AppointmentEventStream small = new AppointmentEventStream(4, 1, 60_000);
+    try {
+      small.subscribe(new RecordingEmitter(null), null);
+      assertNull(small.subscribe(new RecordingEmitter(null), null));
+    } finally {
+      small.shutdown();
+    }
+  }
+
+  @Test
+  void shouldPublishTransactionalChangesOnlyAfterCommit() {
+    AppointmentEventStream eventStream = mock(AppointmentEventStream.class);
+    AppointmentChangePublisher publisher = new AppointmentChangePublisher(eventStream);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      publisher.created(1L, 7L, LocalDate.of(2026, 3, 2), AppointmentStatus.SCHEDULED);
+      publisher.deleted(2L, 7L, LocalDate.of(2026, 3, 2));
+      verify(eventStream, never()).broadcast(any());
+
+      List<TransactionSynchronization> synchronizations =
+          TransactionSynchronizationManager.getSynchronizations();
+      synchronizations.forEach(TransactionSynchronization::afterCommit);
+      synchronizations.forEach(
+          synchronization ->
+              synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    verify(eventStream)
+        .broadcast(
+            List.of(
+                new AppointmentChangeEventDTO(1L, 7L, "2026-03-02", "SCHEDULED", "CREATED"),
+                new AppointmentChangeEventDTO(2L, 7L, "2026-03-02", null, "DELETED")));
+  }
+
+  private static AppointmentChangeEventDTO event(Long appointmentId, Long dentistId) {
+    return new AppointmentChangeEventDTO(
+        appointmentId, dentistId, "2026-03-02", "CONFIRMED", "UPDATED");
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "no llegó a tiempo");
+      Thread.sleep(10);
+    }
+  }
+
+  // Guarda lo que se habría escrito: el nombre de cada evento ("ping" para los comentarios) y los
+  // avisos. Con release, el primer envío espera hasta que se libere, como un cliente lento.
+  private static final class RecordingEmitter extends SseEmitter {
+    private static final Pattern EVENT_NAME = Pattern.compile("event:(\\w+)");
+
+    private final CountDownLatch release;
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final List<String> names = new CopyOnWriteArrayList<>();
+    private final List<AppointmentChangeEventDTO> events = new CopyOnWriteArrayList<>();
+
+    private RecordingEmitter(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (release != null && blocked.getCount() > 0) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException(e);
+        }
+      }
+      String name = "ping";
+      for (var part : builder.build()) {
+        if (part.getData() instanceof AppointmentChangeEventDTO event) {
+          events.add(event);
+        } else if (part.getData() instanceof String text) {
+          Matcher matcher = EVENT_NAME.matcher(text);
+          if (matcher.find()) {
+            name = matcher.group(1);
+          }
+        }
+      }
+      names.add(name);
+    }
+
+    private List<Long> appointmentIds() {
+      return events.stream().map(AppointmentChangeEventDTO::getAppointmentId).toList();
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Compara tres formas de responder "¿este intervalo pisa otro turno del odontólogo?" con 10.000
+ * turnos por odontólogo: la consulta {@code exists} por igualdad de hora (la que había antes del
+ * índice, que no ve superposiciones), una consulta por rango sobre (dentist_id, date) con el
+ * chequeo de intervalos en Java, y {@link AppointmentSlotIndex}.
+ *
+ * <p>No corre en el build normal. Para ejecutarlo:
+ *
+ * <pre>
+ * mvn test -Dtest=AppointmentOverlapBenchmarkTest -Dbenchmark=true [-Dbenchmark.perDentist=10000]
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class AppointmentOverlapBenchmarkTest {
+
+  private static final int DENTISTS = 5;
+  private static final int PER_DAY = 8;
+  private static final int CHECKS = 5_000;
+  private static final int MEASURED_RUNS = 5;
+
+  @Autowired private IAppointmentRepository appointmentRepository;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private AppointmentSlotIndex slotIndex;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final List<Long> dentistIds = new ArrayList<>();
+  private LocalDate firstDay;
+  private int days;
+
+  private record Check(Long dentistId, LocalDate date, LocalTime time, int minutes) {}
+
+  @BeforeAll
+  void seed() {
+    int perDentist = Integer.getInteger("benchmark.perDentist", 10_000);
+    days = perDentist / PER_DAY;
+    firstDay = LocalDate.now().plusDays(1);
+
+    Patient patient = new Patient();
+    patient.setFirstName("Patient");
+    patient.setLastName("Overlap");
+    patient.setEmail("patient@overlap.local");
+    patient.setRole(Role.PATIENT);
+    patient.setCardIdentity(600_000);
+    patient.setAdmissionDate(LocalDate.now());
+    Long patientId = patientRepository.save(patient).getId();
+
+    for (int d = 0; d < DENTISTS; d++) {
+      Dentist dentist = new Dentist();
+      dentist.setFirstName("Dentist" + d);
+      dentist.setLastName("Overlap");
+      dentist.setEmail("dentist" + d + "@overlap.local");
+      dentist.setRole(Role.DENTIST);
+      dentist.setRegistrationNumber(600_000 + d);
+      Long dentistId = dentistRepository.save(dentist).getId();
+      dentistIds.add(dentistId);
+
+      // Turnos de 30 y 60 minutos alternados con media hora libre entre ellos: 08:00-08:30,
+      // 09:00-10:00, 10:30-11:00, ... hasta 16:30-17:30.
+      List<Object[]> batch = new ArrayList<>();
+      for (int day = 0; day < days; day++) {
+        LocalTime time = ClinicSchedule.OPENING;
+        for (int i = 0; i < PER_DAY; i++) {
+          int minutes = i % 2 == 0 ? 30 : 60;
+          batch.add(
+              new Object[] {
+                patientId,
+                dentistId,
+                Date.valueOf(firstDay.plusDays(day)),
+                Time.valueOf(time),
+                minutes,
+                AppointmentStatus.SCHEDULED.name()
+              });
+          time = time.plusMinutes(minutes + 30);
+        }
+      }
+      jdbcTemplate.batchUpdate(
+          "INSERT INTO appointments (patient_id, dentist_id, date, time, duration_minutes, status) "
+              + "VALUES (?, ?, ?, ?, ?, ?)",
+          batch);
+    }
+    slotIndex.rebuild();
+    System.out.printf(
+        "Benchmark: %d odontólogos x %d turnos%n",
+        DENTISTS,
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM appointments WHERE dentist_id = ?",
+            Integer.class,
+            dentistIds.get(0)));
+  }
+
+  @Test
+  void compareExistsRangeQueryAndIndex() {
+    Random random = new Random(42);
+    List<Check> checks = new ArrayList<>();
+    for (int i = 0; i < CHECKS; i++) {
+      checks.add(
+          new Check(
+              dentistIds.get(random.nextInt(DENTISTS)),
+              firstDay.plusDays(random.nextInt(days)),
+              ClinicSchedule.timeOfGrid(5 * random.nextInt(ClinicSchedule.GRID_MINUTES / 5)),
+              30));
+    }
+
+    Predicate<Check> exists =
+        check ->
+            appointmentRepository.existsByDentist_IdAndDateAndTimeAndStatusNot(
+                check.dentistId(), check.date(), check.time(), AppointmentStatus.CANCELLED);
+    Predicate<Check> rangeQuery = this::overlapsByRangeQuery;
+    Predicate<Check> index =
+        check ->
+            slotIndex.isOccupied(check.dentistId(), check.date(), check.time(), check.minutes());
+
+    long byRange = checks.stream().filter(rangeQuery).count();
+    long byIndex = checks.stream().filter(index).count();
+    long byExists = checks.stream().filter(exists).count();
+    assertEquals(byRange, byIndex, "el índice y la consulta por rango deben coincidir");
+    assertTrue(byExists < byIndex, "exists por igualdad no ve las superposiciones");
+
+    System.out.printf(
+        "Conflictos detectados sobre %d chequeos: exists=%d rango=%d índice=%d%n",
+        CHECKS, byExists, byRange, byIndex);
+    System.out.printf("exists (igualdad)   %8.2f µs/chequeo%n", medianMicros(checks, exists));
+    System.out.printf("rango + intervalos  %8.2f µs/chequeo%n", medianMicros(checks, rangeQuery));
+    System.out.printf("índice en memoria   %8.2f µs/chequeo%n", medianMicros(checks, index));
+  }
+
+  // Turnos del odontólogo ese día (una consulta sobre el prefijo dentist_id, date) y superposición
+  // calculada en Java, como hace la validación de series.
+  private boolean overlapsByRangeQuery(Check check) {
+    BitSet day = new BitSet();
+    for (Object[] row :
+        appointmentRepository.findSlotsByDentistBetween(
+            check.dentistId(), check.date(), check.date(), AppointmentStatus.CANCELLED)) {
+      int start = ClinicSchedule.minuteOfGrid((LocalTime) row[2]);
+      day.set(start, start + (Integer) row[3]);
+    }
+    int start = ClinicSchedule.minuteOfGrid(check.time());
+    int next = day.nextSetBit(start);
+    return next >= 0 && next < start + check.minutes();
+  }
+
+  private double medianMicros(List<Check> checks, Predicate<Check> strategy) {
+    checks.forEach(strategy::test);
+    double[] samples = new double[MEASURED_RUNS];
+    for (int run = 0; run < MEASURED_RUNS; run++) {
+      long start = System.nanoTime();
+      checks.forEach(strategy::test);
+      samples[run] = (System.nanoTime() - start) / 1_000.0 / checks.size();
+    }
+    Arrays.sort(samples);
+    return samples[MEASURED_RUNS / 2];
+  }
+}
@@ -0,0 +1,186 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.repository.IAppointmentDailyRollupRepository;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import com.dh.dentalClinicMVC.service.IAppointmentService;
+import com.dh.dentalClinicMVC.service.IPatientService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * appointment_daily_rollup contra lo que hay en appointments, después de cada escritura de los
+ * servicios. Los deltas se aplican al confirmar, así que usa transacciones reales y recrea el
+ * contexto al terminar para no dejar datos.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class AppointmentRollupTest {
+
+  @Autowired private IAppointmentService appointmentService;
+  @Autowired private IPatientService patientService;
+  @Autowired private IAppointmentDailyRollupRepository rollupRepository;
+  @Autowired private AppointmentRollupRebuilder rebuilder;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private Dentist dentist;
+  private Patient patient;
+  private LocalDate day;
+  private LocalDate nextDay;
+
+  @BeforeEach
+  void setUp() {
+    long unique = System.nanoTime() % 1_000_000;
+
+    dentist = new Dentist();
+    dentist.setFirstName("Dentist");
+    dentist.setLastName("Rollup");
+    dentist.setEmail("dentist" + unique + "@rollup.local");
+    dentist.setRole(Role.DENTIST);
+    dentist.setRegistrationNumber(900_000 + (int) unique);
+    dentist = dentistRepository.save(dentist);
+
+    patient = new Patient();
+    patient.setFirstName("Patient");
+    patient.setLastName("Rollup");
+    patient.setEmail("patient" + unique + "@rollup.local");
+    patient.setRole(Role.PATIENT);
+    patient.setCardIdentity(900_000 + (int) unique);
+    patient.setAdmissionDate(LocalDate.now());
+    patient = patientRepository.save(patient);
+
+    ClinicCalendar calendar = new ClinicCalendar("");
+    day = calendar.nextOpenDay(LocalDate.now().plusDays(1));
+    nextDay = calendar.nextOpenDay(day.plusDays(1));
+  }
+
+  @Test
+  void shouldFollowEachWriteOfTheService() throws Exception {
+    AppointmentDTO first = saveAt(day, "09:00");
+    AppointmentDTO second = saveAt(day, "10:00");
+    AppointmentDTO third = saveAt(day, "11:00");
+    assertEquals(Map.of(day + " SCHEDULED", 3L), rollup());
+
+    appointmentService.updateStatus(first.getId(), AppointmentStatus.CANCELLED);
+    assertEquals(Map.of(day + " SCHEDULED", 2L, day + " CANCELLED", 1L), rollup());
+
+    // Cambio de día: el turno pasa de la fila de un día a la del otro
+    second.setDate(nextDay.toString());
+    appointmentService.update(second);
+    assertEquals(
+        Map.of(day + " SCHEDULED", 1L, day + " CANCELLED", 1L, nextDay + " SCHEDULED", 1L),
+        rollup());
+
+    appointmentService.updateStatuses(
+        Map.of(
+            second.getId(), AppointmentStatus.IN_PROGRESS,
+            third.getId(), AppointmentStatus.COMPLETED),
+        null);
+    assertEquals(
+        Map.of(day + " COMPLETED", 1L, day + " CANCELLED", 1L, nextDay + " IN_PROGRESS", 1L),
+        rollup());
+
+    appointmentService.delete(first.getId());
+    assertEquals(Map.of(day + " COMPLETED", 1L, nextDay + " IN_PROGRESS", 1L), rollup());
+    assertEquals(actual(), rollup());
+    assertEquals(2, rollupRepository.countFiltered(day, nextDay, dentist.getId()));
+  }
+
+  @Test
+  void shouldLeaveCountsUntouchedWhenTheTransactionRollsBack() {
+    saveAt(day, "09:00");
+
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              saveAt(day, "10:00");
+              status.setRollbackOnly();
+            });
+
+    assertEquals(Map.of(day + " SCHEDULED", 1L), rollup());
+  }
+
+  @Test
+  void shouldSubtractAppointmentsRemovedWithTheirPatient() throws Exception {
+    saveAt(day, "09:00");
+    saveAt(nextDay, "09:00");
+
+    patientService.delete(patient.getId());
+
+    assertEquals(Map.of(), rollup());
+  }
+
+  @Test
+  void rebuildShouldRepairDrift() {
+    saveAt(day, "09:00");
+    // Un alta por fuera de los servicios y una fila del rollup desfasada
+    jdbcTemplate.update(
+        "INSERT INTO appointments (patient_id, dentist_id, date, time, status) "
+            + "VALUES (?, ?, ?, '10:00', 'COMPLETED')",
+        patient.getId(),
+        dentist.getId(),
+        day);
+    jdbcTemplate.update(
+        "UPDATE appointment_daily_rollup SET appointment_count = 7 WHERE dentist_id = ?",
+        dentist.getId());
+
+    rebuilder.rebuild(day, nextDay);
+
+    assertEquals(Map.of(day + " SCHEDULED", 1L, day + " COMPLETED", 1L), rollup());
+    assertEquals(actual(), rollup());
+  }
+
+  private AppointmentDTO saveAt(LocalDate date, String time) {
+    return appointmentService.save(
+        AppointmentDTO.builder()
+            .dentist_id(dentist.getId())
+            .patient_id(patient.getId())
+            .date(date.toString())
+            .time(time)
+            .build());
+  }
+
+  // Filas del rollup del odontólogo con conteo distinto de cero, como "día ESTADO" -> conteo.
+  private Map<String, Long> rollup() {
+    return counts(
+        "SELECT date, status, appointment_count FROM appointment_daily_rollup "
+            + "WHERE dentist_id = ? AND appointment_count <> 0");
+  }
+
+  // Lo mismo calculado desde appointments.
+  private Map<String, Long> actual() {
+    return counts(
+        "SELECT date, status, COUNT(*) FROM appointments WHERE dentist_id = ? "
+            + "GROUP BY date, status");
+  }
+
+  private Map<String, Long> counts(String sql) {
+    Map<String, Long> counts = new TreeMap<>();
+    List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, dentist.getId());
+    for (Map<String, Object> row : rows) {
+      Object[] values = row.values().toArray();
+      counts.put(values[0] + " " + values[1], ((Number) values[2]).longValue());
+    }
+    return counts;
+  }
+}
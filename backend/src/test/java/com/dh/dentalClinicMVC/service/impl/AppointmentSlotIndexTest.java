@@ -0,0 +1,228 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentSlotIndexTest {
+
+  private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+  private static final LocalTime TEN = LocalTime.of(10, 0);
+  private static final int HALF_HOUR = 30;
+
+  @Mock private IAppointmentRepository appointmentRepository;
+
+  private AppointmentSlotIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new AppointmentSlotIndex(appointmentRepository);
+  }
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    TransactionSynchronizationManager.unbindResourceIfPossible(index);
+  }
+
+  @Test
+  void shouldIndexActiveSlotsLoadedAtStartup() {
+    when(appointmentRepository.findActiveSlotsFrom(any(), any()))
+        .thenReturn(
+            List.<Object[]>of(
+                new Object[] {1L, DAY, TEN, 30},
+                // Fuera de la grilla: se ignora en lugar de romper el arranque
+                new Object[] {1L, DAY, LocalTime.of(19, 0), 30}));
+
+    index.rebuild();
+
+    assertTrue(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+    assertFalse(index.isOccupied(1L, DAY, LocalTime.of(10, 30), HALF_HOUR));
+    assertFalse(index.isOccupied(2L, DAY, TEN, HALF_HOUR));
+    assertFalse(index.tryReserve(1L, DAY, TEN, HALF_HOUR));
+  }
+
+  @Test
+  void shouldReserveEachSlotOnlyOnce() {
+    assertTrue(index.tryReserve(1L, DAY, TEN, HALF_HOUR));
+    assertFalse(index.tryReserve(1L, DAY, TEN, HALF_HOUR));
+    assertTrue(index.tryReserve(1L, DAY, LocalTime.of(10, 30), HALF_HOUR));
+    assertTrue(index.tryReserve(2L, DAY, TEN, HALF_HOUR));
+    assertTrue(index.tryReserve(1L, DAY.plusDays(1), TEN, HALF_HOUR));
+  }
+
+  @Test
+  void shouldRejectOverlappingIntervals() {
+    // Cirugía de 90 minutos: 10:00 a 11:30
+    assertTrue(index.tryReserve(1L, DAY, TEN, 90));
+
+    assertFalse(index.tryReserve(1L, DAY, LocalTime.of(10, 30), HALF_HOUR));
+    assertFalse(index.tryReserve(1L, DAY, LocalTime.of(11, 29), HALF_HOUR));
+    assertFalse(index.tryReserve(1L, DAY, LocalTime.of(9, 45), HALF_HOUR));
+    assertTrue(index.isOccupied(1L, DAY, LocalTime.of(11, 0), 5));
+
+    // Los extremos se tocan sin superponerse
+    assertTrue(index.tryReserve(1L, DAY, LocalTime.of(9, 30), HALF_HOUR));
+    assertTrue(index.tryReserve(1L, DAY, LocalTime.of(11, 30), HALF_HOUR));
+  }
+
+  @Test
+  void shouldLetOwnReleasedIntervalBeReusedPartially() {
+    index.tryReserve(1L, DAY, TEN, 60);
+    TransactionSynchronizationManager.initSynchronization();
+
+    // El turno se corre media hora: 10:30 a 11:30 pisa la mitad de su propio intervalo anterior
+    index.releaseOnCommit(1L, DAY, TEN, 60);
+    assertTrue(index.tryReserve(1L, DAY, LocalTime.of(10, 30), 60));
+
+    completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+    assertFalse(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+    assertTrue(index.isOccupied(1L, DAY, LocalTime.of(10, 30), HALF_HOUR));
+    assertTrue(index.isOccupied(1L, DAY, LocalTime.of(11, 0), HALF_HOUR));
+  }
+
+  @Test
+  void shouldRestorePreviousIntervalWhenMoveRollsBack() {
+    index.tryReserve(1L, DAY, TEN, 60);
+    TransactionSynchronizationManager.initSynchronization();
+
+    index.releaseOnCommit(1L, DAY, TEN, 60);
+    index.tryReserve(1L, DAY, LocalTime.of(10, 30), 60);
+
+    completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    assertTrue(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+    assertTrue(index.isOccupied(1L, DAY, LocalTime.of(10, 30), HALF_HOUR));
+    assertFalse(index.isOccupied(1L, DAY, LocalTime.of(11, 0), HALF_HOUR));
+  }
+
+  @Test
+  void shouldCoverBothEndsOfTheGrid() {
+    assertTrue(index.tryReserve(1L, DAY, ClinicSchedule.OPENING, HALF_HOUR));
+    assertTrue(index.tryReserve(1L, DAY, ClinicSchedule.CLOSING, HALF_HOUR));
+    assertTrue(index.isOccupied(1L, DAY, ClinicSchedule.OPENING, HALF_HOUR));
+    assertTrue(index.isOccupied(1L, DAY, ClinicSchedule.CLOSING, HALF_HOUR));
+  }
+
+  @Test
+  void shouldPruneOnlyDaysBeforeToday() {
+    index.tryReserve(1L, DAY.minusDays(1), TEN, HALF_HOUR);
+    index.tryReserve(2L, DAY.minusDays(1), TEN, HALF_HOUR);
+    index.tryReserve(1L, DAY, TEN, HALF_HOUR);
+
+    assertEquals(2, index.pruneBefore(DAY));
+
+    assertFalse(index.isOccupied(1L, DAY.minusDays(1), TEN, HALF_HOUR));
+    assertFalse(index.isOccupied(2L, DAY.minusDays(1), TEN, HALF_HOUR));
+    assertTrue(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+  }
+
+  @Test
+  void shouldReleaseImmediatelyWithoutTransaction() {
+    index.tryReserve(1L, DAY, TEN, HALF_HOUR);
+
+    index.releaseOnCommit(1L, DAY, TEN, HALF_HOUR);
+
+    assertFalse(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+  }
+
+  @Test
+  void shouldUndoReservationWhenTransactionRollsBack() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    assertTrue(index.tryReserve(1L, DAY, TEN, HALF_HOUR));
+    assertTrue(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+
+    completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    assertFalse(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+  }
+
+  @Test
+  void shouldKeepReservationWhenTransactionCommits() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    index.tryReserve(1L, DAY, TEN, HALF_HOUR);
+
+    completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+    assertTrue(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+  }
+
+  @Test
+  void shouldDeferReleaseUntilCommit() throws Exception {
+    index.tryReserve(1L, DAY, TEN, HALF_HOUR);
+    TransactionSynchronizationManager.initSynchronization();
+
+    index.releaseOnCommit(1L, DAY, TEN, HALF_HOUR);
+    assertTrue(isOccupiedOutsideTransaction(1L, DAY, TEN));
+
+    completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+    assertFalse(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+  }
+
+  @Test
+  void shouldKeepSlotOccupiedWhenReleasingTransactionRollsBack() {
+    index.tryReserve(1L, DAY, TEN, HALF_HOUR);
+    TransactionSynchronizationManager.initSynchronization();
+
+    index.releaseOnCommit(1L, DAY, TEN, HALF_HOUR);
+    completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    assertTrue(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+  }
+
+  @Test
+  void shouldSeeOwnReleaseAsFreeBeforeCommit() {
+    index.tryReserve(1L, DAY, TEN, HALF_HOUR);
+    TransactionSynchronizationManager.initSynchronization();
+
+    index.releaseOnCommit(1L, DAY, TEN, HALF_HOUR);
+
+    assertFalse(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+    assertTrue(index.tryReserve(1L, DAY, TEN, HALF_HOUR));
+
+    completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+    // El horario pasó al turno nuevo: sigue ocupado tras el commit
+    assertTrue(index.isOccupied(1L, DAY, TEN, HALF_HOUR));
+  }
+
+  // Otra transacción (otro hilo) no ve las liberaciones pendientes de la actual.
+  private boolean isOccupiedOutsideTransaction(Long dentistId, LocalDate date, LocalTime time)
+      throws Exception {
+    return CompletableFuture.supplyAsync(() -> index.isOccupied(dentistId, date, time, HALF_HOUR))
+        .get();
+  }
+
+  private void completeTransaction(int status) {
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+      synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+    synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+  }
+}
@@ -0,0 +1,70 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import org.junit.jupiter.api.Test;
+
+class ClinicCalendarTest {
+
+  private static final LocalDate FRIDAY =
+      LocalDate.now().plusWeeks(1).with(TemporalAdjusters.next(DayOfWeek.FRIDAY));
+  private static final LocalDate MONDAY = FRIDAY.plusDays(3);
+
+  @Test
+  void shouldParseConfiguredHolidays() {
+    ClinicCalendar calendar = new ClinicCalendar(" " + FRIDAY + " ,, " + MONDAY);
+
+    assertTrue(calendar.isHoliday(FRIDAY));
+    assertTrue(calendar.isHoliday(MONDAY));
+    assertFalse(calendar.isOpen(MONDAY));
+    assertTrue(calendar.isOpen(MONDAY.plusDays(1)));
+  }
+
+  @Test
+  void shouldBeOpenOnWeekdaysWithoutHolidays() {
+    ClinicCalendar calendar = new ClinicCalendar("");
+
+    assertTrue(calendar.isOpen(FRIDAY));
+    assertFalse(calendar.isOpen(FRIDAY.plusDays(1)));
+    assertEquals(FRIDAY, calendar.nextOpenDay(FRIDAY));
+    assertEquals(MONDAY, calendar.nextOpenDay(FRIDAY.plusDays(1)));
+  }
+
+  @Test
+  void nextOpenDayShouldSkipWeekendAndHolidays() {
+    ClinicCalendar calendar = new ClinicCalendar(FRIDAY + "," + MONDAY);
+
+    assertEquals(MONDAY.plusDays(1), calendar.nextOpenDay(FRIDAY));
+  }
+
+  @Test
+  void shouldRejectHolidays() {
+    ClinicCalendar calendar = new ClinicCalendar(MONDAY.toString());
+
+    IllegalArgumentException error =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> calendar.validate(MONDAY.toString(), "10:00", null, null));
+    assertEquals("La clínica no atiende el " + MONDAY + " (feriado)", error.getMessage());
+    calendar.validate(FRIDAY, LocalTime.of(10, 0), 30);
+  }
+
+  @Test
+  void shouldRejectAppointmentsEndingAfterClosing() {
+    ClinicCalendar calendar = new ClinicCalendar("");
+
+    calendar.validateEnd(LocalTime.of(17, 30), 30);
+    calendar.validateEnd(LocalTime.of(14, 0), 240);
+    assertThrows(
+        IllegalArgumentException.class, () -> calendar.validateEnd(LocalTime.of(18, 0), 5));
+    assertThrows(
+        IllegalArgumentException.class, () -> calendar.validate(FRIDAY, LocalTime.of(17, 0), 90));
+  }
+}
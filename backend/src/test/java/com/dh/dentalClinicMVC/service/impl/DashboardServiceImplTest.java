@@ -1,10 +1,14 @@
 package com.dh.dentalClinicMVC.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import com.dh.dentalClinicMVC.dto.DashboardSnapshotDTO;
 import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.repository.IAppointmentDailyRollupRepository;
 import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
 import com.dh.dentalClinicMVC.repository.IDentistRepository;
 import com.dh.dentalClinicMVC.repository.IPatientRepository;
@@ -17,15 +21,14 @@ import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InOrder;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
 class DashboardServiceImplTest {
 
   @Mock private IAppointmentRepository appointmentRepository;
+  @Mock private IAppointmentDailyRollupRepository rollupRepository;
   @Mock private IDentistRepository dentistRepository;
   @Mock private IPatientRepository patientRepository;
 
@@ -33,14 +36,16 @@ class DashboardServiceImplTest {
 
   @BeforeEach
   void setUp() {
-    service = new DashboardServiceImpl(appointmentRepository, dentistRepository, patientRepository);
+    service =
+        new DashboardServiceImpl(
+            appointmentRepository, rollupRepository, dentistRepository, patientRepository);
   }
 
   // ---- getAppointmentsByStatus() ----
 
   @Test
   void shouldZeroFillMissingStatusesInEnumOrderWhenOnlyOneStatusHasActivity() {
-    when(appointmentRepository.countGroupedByStatus(null, null, null))
+    when(rollupRepository.countGroupedByStatus(null, null, null))
         .thenReturn(List.<Object[]>of(new Object[] {AppointmentStatus.SCHEDULED, 5L}));
 
     List<DashboardSnapshotDTO.StatusCountDTO> result = service.getAppointmentsByStatus();
@@ -58,7 +63,7 @@ class DashboardServiceImplTest {
 
   @Test
   void shouldReturnAllFourStatusesAtZeroWhenNoAppointmentsMatch() {
-    when(appointmentRepository.countGroupedByStatus(null, null, null)).thenReturn(List.of());
+    when(rollupRepository.countGroupedByStatus(null, null, null)).thenReturn(List.of());
 
     List<DashboardSnapshotDTO.StatusCountDTO> result = service.getAppointmentsByStatus();
 
@@ -74,7 +79,7 @@ class DashboardServiceImplTest {
     for (int i = 1; i <= 8; i++) {
       rows.add(new Object[] {(long) i, "Dentist " + String.format("%02d", i), (long) (30 - i)});
     }
-    when(appointmentRepository.countGroupedByDentist(null, null, null)).thenReturn(rows);
+    when(rollupRepository.countGroupedByDentist(null, null, null)).thenReturn(rows);
 
     List<DashboardSnapshotDTO.DentistCountDTO> result = service.getAppointmentsByDentist();
 
@@ -91,7 +96,7 @@ class DashboardServiceImplTest {
     for (int i = 1; i <= 14; i++) {
       rows.add(new Object[] {(long) i, "Dentist " + String.format("%02d", i), (long) (30 - i)});
     }
-    when(appointmentRepository.countGroupedByDentist(null, null, null)).thenReturn(rows);
+    when(rollupRepository.countGroupedByDentist(null, null, null)).thenReturn(rows);
 
     List<DashboardSnapshotDTO.DentistCountDTO> result = service.getAppointmentsByDentist();
 
@@ -115,7 +120,7 @@ class DashboardServiceImplTest {
 
   @Test
   void shouldBreakTiedCountsByNameAscending() {
-    when(appointmentRepository.countGroupedByDentist(null, null, null))
+    when(rollupRepository.countGroupedByDentist(null, null, null))
         .thenReturn(
             List.of(new Object[] {2L, "Beatriz Ruiz", 5L}, new Object[] {1L, "Ana Gomez", 5L}));
 
@@ -128,7 +133,7 @@ class DashboardServiceImplTest {
 
   @Test
   void shouldReturnEmptyDentistBreakdownWhenNoAppointmentsMatch() {
-    when(appointmentRepository.countGroupedByDentist(null, null, null)).thenReturn(List.of());
+    when(rollupRepository.countGroupedByDentist(null, null, null)).thenReturn(List.of());
 
     List<DashboardSnapshotDTO.DentistCountDTO> result = service.getAppointmentsByDentist();
 
@@ -136,39 +141,40 @@ class DashboardServiceImplTest {
   }
 
   // ---- 1.4 SAFETY NET: characterization test for getAppointmentsByMonth() ----
-  // Pins CURRENT behavior. Must pass UNMODIFIED against today's implementation —
-  // this is the byte-equivalence guard that slice 2's refactor must not break.
+  // Pins the output the per-month countByDateBetween loop used to produce; the series now comes
+  // from a single grouped query over the daily rollup, zero-filled for months without rows.
 
   @Test
-  void shouldPreserveCurrentMonthlyDefaultOutputAndCallOrder() {
+  void shouldPreserveCurrentMonthlyDefaultOutputWithASingleGroupedQuery() {
     LocalDate currentDate = LocalDate.now();
     List<String> expectedMonths = new ArrayList<>();
-    List<LocalDate[]> expectedRanges = new ArrayList<>();
+    List<Object[]> rows = new ArrayList<>();
 
     for (int i = 5; i >= 0; i--) {
       LocalDate monthDate = currentDate.minusMonths(i);
       String monthName =
           monthDate.getMonth().getDisplayName(TextStyle.SHORT, Locale.forLanguageTag("es"));
-      LocalDate firstDay = monthDate.withDayOfMonth(1);
-      LocalDate lastDay = monthDate.withDayOfMonth(monthDate.lengthOfMonth());
-
       expectedMonths.add(monthName + " " + monthDate.getYear());
-      expectedRanges.add(new LocalDate[] {firstDay, lastDay});
-    }
 
-    for (int idx = 0; idx < expectedRanges.size(); idx++) {
-      LocalDate[] range = expectedRanges.get(idx);
-      when(appointmentRepository.countByDateBetween(range[0], range[1])).thenReturn((long) idx);
+      // The oldest month has no appointments: the query omits it
+      long count = 5 - i;
+      if (count > 0) {
+        rows.add(new Object[] {monthDate.getYear(), monthDate.getMonthValue(), count});
+      }
     }
 
+    LocalDate firstDay = currentDate.minusMonths(5).withDayOfMonth(1);
+    LocalDate lastDay = currentDate.withDayOfMonth(currentDate.lengthOfMonth());
+    when(rollupRepository.countGroupedByMonth(firstDay, lastDay, null)).thenReturn(rows);
+
     Map<String, Object> result = service.getAppointmentsByMonth();
 
     assertEquals(expectedMonths, result.get("months"));
     assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L), result.get("appointmentCounts"));
 
-    InOrder inOrder = Mockito.inOrder(appointmentRepository);
-    for (LocalDate[] range : expectedRanges) {
-      inOrder.verify(appointmentRepository).countByDateBetween(range[0], range[1]);
-    }
+    verify(rollupRepository).countGroupedByMonth(firstDay, lastDay, null);
+    verifyNoMoreInteractions(rollupRepository);
+    // The series reads only rollup rows, never the appointments table
+    verifyNoInteractions(appointmentRepository);
   }
 }
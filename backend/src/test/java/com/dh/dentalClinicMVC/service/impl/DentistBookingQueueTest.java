@@ -0,0 +1,317 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dh.dentalClinicMVC.dto.AppointmentDTO;
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.exception.BookingTimeoutException;
+import com.dh.dentalClinicMVC.exception.DuplicateResourceException;
+import com.dh.dentalClinicMVC.exception.ResourceNotFoundException;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import com.dh.dentalClinicMVC.service.IAppointmentService;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * Reservas con {@code app.booking.mode=queued}: mismas garantías que el modo directo (un solo
+ * ganador por horario, errores de cada pedido aislados) y varios pedidos confirmados por commit.
+ */
+@SpringBootTest(properties = "app.booking.mode=queued")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class DentistBookingQueueTest {
+
+  private static final int THREADS = 64;
+
+  @Autowired private IAppointmentService appointmentService;
+  @Autowired private DentistBookingQueue bookingQueue;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private Dentist dentist;
+  private Patient patient;
+  private LocalDate day;
+
+  @BeforeEach
+  void setUp() {
+    long unique = System.nanoTime() % 1_000_000;
+
+    dentist = new Dentist();
+    dentist.setFirstName("Dentist");
+    dentist.setLastName("Queue");
+    dentist.setEmail("dentist" + unique + "@queue.local");
+    dentist.setRole(Role.DENTIST);
+    dentist.setRegistrationNumber(700_000 + (int) unique);
+    dentist = dentistRepository.save(dentist);
+
+    patient = new Patient();
+    patient.setFirstName("Patient");
+    patient.setLastName("Queue");
+    patient.setEmail("patient" + unique + "@queue.local");
+    patient.setRole(Role.PATIENT);
+    patient.setCardIdentity(700_000 + (int) unique);
+    patient.setAdmissionDate(LocalDate.now());
+    patient = patientRepository.save(patient);
+
+    day = new ClinicCalendar("").nextOpenDay(LocalDate.now().plusDays(1));
+  }
+
+  @Test
+  void concurrentBookingsForOneSlotShouldLetExactlyOneWinAndShareCommits() throws Exception {
+    long batchesBefore = bookingQueue.committedBatches();
+    long jobsBefore = bookingQueue.committedJobs();
+
+    List<String> times = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      times.add("10:00");
+    }
+    List<Throwable> errors = book(times);
+
+    assertEquals(299, errors.stream().filter(DuplicateResourceException.class::isInstance).count());
+    assertEquals(1, activeRows(LocalTime.of(10, 0)));
+
+    long batches = bookingQueue.committedBatches() - batchesBefore;
+    long jobs = bookingQueue.committedJobs() - jobsBefore;
+    assertEquals(300, jobs);
+    assertTrue(batches < jobs, "se esperaban varios pedidos por commit, hubo " + batches);
+  }
+
+  @Test
+  void distinctSlotsShouldAllBeBooked() throws Exception {
+    List<String> times = new ArrayList<>();
+    for (LocalTime time = LocalTime.of(8, 0);
+        !time.isAfter(LocalTime.of(17, 30));
+        time = time.plusMinutes(30)) {
+      times.add(time.toString());
+    }
+
+    List<Throwable> errors = book(times);
+
+    assertTrue(errors.stream().allMatch(e -> e == null), () -> "errores: " + errors);
+    times.forEach(time -> assertEquals(1, activeRows(LocalTime.parse(time))));
+  }
+
+  @Test
+  void rejectedRowInTheBatchShouldNotRollBackTheOthers() throws Exception {
+    // Alta por fuera de la aplicación: el índice no la conoce y la base la rechaza dentro del
+    // grupo.
+    jdbcTemplate.update(
+        "INSERT INTO appointments (patient_id, dentist_id, date, time, status) VALUES (?, ?, ?, ?, ?)",
+        patient.getId(),
+        dentist.getId(),
+        day,
+        LocalTime.of(12, 0),
+        AppointmentStatus.SCHEDULED.name());
+
+    List<Throwable> errors = book(List.of("11:00", "11:30", "12:00", "12:30", "13:00"));
+
+    assertTrue(errors.get(2) instanceof DuplicateResourceException, () -> "error: " + errors);
+    assertEquals(SlotConflicts.SLOT_TAKEN, errors.get(2).getMessage());
+    for (int i : new int[] {0, 1, 3, 4}) {
+      assertEquals(null, errors.get(i));
+    }
+    assertEquals(1, activeRows(LocalTime.of(11, 0)));
+    assertEquals(1, activeRows(LocalTime.of(13, 0)));
+  }
+
+  @Test
+  void rejectedUpdateInTheBatchShouldLeaveTheAppointmentAndItsSlotUntouched() throws Exception {
+    AppointmentDTO moving = book("09:00");
+    book("10:00");
+
+    // La edición se corre a 09:45 y pisa el cuarto de hora inicial del turno de las 10:00, algo que
+    // la restricción única no ve; las altas de la tarde comparten el grupo con ella.
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      Future<Throwable> update =
+          executor.submit(
+              () -> {
+                start.await();
+                try {
+                  appointmentService.update(
+                      AppointmentDTO.builder()
+                          .id(moving.getId())
+                          .dentist_id(dentist.getId())
+                          .patient_id(patient.getId())
+                          .date(day.toString())
+                          .time("09:45")
+                          .description("movido")
+                          .build());
+                  return null;
+                } catch (RuntimeException e) {
+                  return e;
+                }
+              });
+      List<Future<AppointmentDTO>> saves = new ArrayList<>();
+      for (String time : List.of("14:00", "14:30", "15:00", "15:30")) {
+        saves.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return book(time);
+                }));
+      }
+      start.countDown();
+
+      assertTrue(update.get(30, TimeUnit.SECONDS) instanceof DuplicateResourceException);
+      for (Future<AppointmentDTO> save : saves) {
+        save.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, activeRows(LocalTime.of(9, 0)));
+    assertEquals(0, activeRows(LocalTime.of(9, 45)));
+    assertEquals(
+        null,
+        jdbcTemplate.queryForObject(
+            "SELECT description FROM appointments WHERE id = ?", String.class, moving.getId()));
+    // El horario de las 09:00 sigue tomado en el índice.
+    assertThrows(DuplicateResourceException.class, () -> book("09:00"));
+  }
+
+  @Test
+  void updateShouldRethrowCheckedErrorsToTheCaller() {
+    AppointmentDTO missing =
+        AppointmentDTO.builder()
+            .id(Long.MAX_VALUE)
+            .dentist_id(dentist.getId())
+            .patient_id(patient.getId())
+            .date(day.toString())
+            .time("09:00")
+            .build();
+
+    assertThrows(ResourceNotFoundException.class, () -> appointmentService.update(missing));
+  }
+
+  @Test
+  void callerShouldStopWaitingAfterTheTimeoutAndDropJobsStillQueued() throws Exception {
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    DentistBookingQueue queue =
+        new DentistBookingQueue(transactionManager, "queued", 1, 32, 10, 200);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean droppedRan = new AtomicBoolean();
+    try {
+      // La franja queda ocupada con el primer pedido; el llamador deja de esperar igual.
+      assertThrows(
+          BookingTimeoutException.class,
+          () ->
+              queue.execute(
+                  1L,
+                  () -> {
+                    release.await();
+                    return 1;
+                  }));
+      // El segundo sigue en la cola al vencer: se saca y no se ejecuta nunca.
+      assertThrows(
+          BookingTimeoutException.class,
+          () ->
+              queue.execute(
+                  1L,
+                  () -> {
+                    droppedRan.set(true);
+                    return 2;
+                  }));
+      release.countDown();
+
+      // La cola es FIFO: si el tercero terminó, el segundo ya habría corrido.
+      assertEquals(3, queue.execute(1L, () -> 3));
+      assertFalse(droppedRan.get());
+    } finally {
+      release.countDown();
+      queue.shutdown();
+    }
+  }
+
+  // Reserva cada horario desde un hilo distinto, todos a la vez; devuelve el error de cada
+  // pedido (null si se reservó) en el mismo orden.
+  private List<Throwable> book(List<String> times) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Throwable>> futures = new ArrayList<>();
+      for (String time : times) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  try {
+                    appointmentService.save(
+                        AppointmentDTO.builder()
+                            .dentist_id(dentist.getId())
+                            .patient_id(patient.getId())
+                            .date(day.toString())
+                            .time(time)
+                            .build());
+                    return null;
+                  } catch (RuntimeException e) {
+                    return e;
+                  }
+                }));
+      }
+      start.countDown();
+
+      List<Throwable> errors = new ArrayList<>();
+      for (Future<Throwable> future : futures) {
+        try {
+          errors.add(future.get(30, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+          throw new AssertionError("Intento con error inesperado", e.getCause());
+        }
+      }
+      return errors;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private AppointmentDTO book(String time) {
+    return appointmentService.save(
+        AppointmentDTO.builder()
+            .dentist_id(dentist.getId())
+            .patient_id(patient.getId())
+            .date(day.toString())
+            .time(time)
+            .build());
+  }
+
+  private int activeRows(LocalTime time) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM appointments "
+            + "WHERE dentist_id = ? AND date = ? AND time = ? AND status <> 'CANCELLED'",
+        Integer.class,
+        dentist.getId(),
+        day,
+        time);
+  }
+}
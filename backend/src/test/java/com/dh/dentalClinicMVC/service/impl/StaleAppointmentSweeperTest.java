@@ -0,0 +1,165 @@
+package com.dh.dentalClinicMVC.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.dh.dentalClinicMVC.entity.AppointmentStatus;
+import com.dh.dentalClinicMVC.entity.Dentist;
+import com.dh.dentalClinicMVC.entity.Patient;
+import com.dh.dentalClinicMVC.entity.Role;
+import com.dh.dentalClinicMVC.repository.IAppointmentDailyRollupRepository;
+import com.dh.dentalClinicMVC.repository.IAppointmentRepository;
+import com.dh.dentalClinicMVC.repository.IDentistRepository;
+import com.dh.dentalClinicMVC.repository.IPatientRepository;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+@Rollback
+class StaleAppointmentSweeperTest {
+
+  // Bien en el pasado, para no tocar los turnos que siembra DataInitializer
+  private static final LocalDate CUTOFF = LocalDate.of(2001, 3, 10);
+
+  @Autowired private IAppointmentRepository appointmentRepository;
+  @Autowired private IAppointmentDailyRollupRepository rollupRepository;
+  @Autowired private IDentistRepository dentistRepository;
+  @Autowired private IPatientRepository patientRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
+  @Autowired private CacheManager cacheManager;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final DashboardSnapshotEvictor snapshotEvictor = mock(DashboardSnapshotEvictor.class);
+  private final DashboardDataVersion dataVersion = spy(new DashboardDataVersion());
+
+  private Long dentistId;
+  private Long patientId;
+
+  @BeforeEach
+  void seedPeople() {
+    Dentist dentist = new Dentist();
+    dentist.setFirstName("Dr");
+    dentist.setLastName("Sweeper");
+    dentist.setEmail("dentist@sweeper.local");
+    dentist.setRole(Role.DENTIST);
+    dentist.setRegistrationNumber(710_001);
+    dentistId = dentistRepository.save(dentist).getId();
+
+    Patient patient = new Patient();
+    patient.setFirstName("Patient");
+    patient.setLastName("Sweeper");
+    patient.setEmail("patient@sweeper.local");
+    patient.setRole(Role.PATIENT);
+    patient.setCardIdentity(710_001);
+    patient.setAdmissionDate(LocalDate.now());
+    patientId = patientRepository.save(patient).getId();
+  }
+
+  @Test
+  void shouldCloseStaleAppointmentsInChunks() {
+    Long scheduled = insert(CUTOFF.minusDays(3), AppointmentStatus.SCHEDULED);
+    Long inProgress = insert(CUTOFF.minusDays(2), AppointmentStatus.IN_PROGRESS);
+    Long cancelled = insert(CUTOFF.minusDays(2), AppointmentStatus.CANCELLED);
+    Long alsoScheduled = insert(CUTOFF.minusDays(1), AppointmentStatus.SCHEDULED);
+    Long lastScheduled = insert(CUTOFF.minusDays(1), AppointmentStatus.SCHEDULED);
+    Long onCutoff = insert(CUTOFF, AppointmentStatus.SCHEDULED);
+
+    Cache snapshots = cacheManager.getCache("dashboardSnapshot");
+    snapshots.put("stale", "snapshot");
+
+    StaleAppointmentSweeper.SweepResult result =
+        sweeper(AppointmentStatus.COMPLETED, 2).sweep(CUTOFF);
+
+    assertEquals(4, result.updated());
+    // 4 pendientes en tramos de 2
+    assertEquals(2, result.chunks());
+    assertEquals(AppointmentStatus.COMPLETED, statusOf(scheduled));
+    assertEquals(AppointmentStatus.COMPLETED, statusOf(inProgress));
+    assertEquals(AppointmentStatus.COMPLETED, statusOf(alsoScheduled));
+    assertEquals(AppointmentStatus.COMPLETED, statusOf(lastScheduled));
+    assertEquals(AppointmentStatus.CANCELLED, statusOf(cancelled));
+    assertEquals(AppointmentStatus.SCHEDULED, statusOf(onCutoff));
+    assertNull(snapshots.get("stale"));
+    // Un solo aviso por corrida, no uno por turno ni por tramo
+    verify(snapshotEvictor, never()).appointmentsChanged(any(), any());
+    verify(dataVersion, times(1)).changed();
+  }
+
+  @Test
+  void shouldReportNothingOnSecondRun() {
+    insert(CUTOFF.minusDays(1), AppointmentStatus.IN_PROGRESS);
+    StaleAppointmentSweeper sweeper = sweeper(AppointmentStatus.CANCELLED, 1000);
+
+    assertEquals(1, sweeper.sweep(CUTOFF).updated());
+    Cache snapshots = cacheManager.getCache("dashboardSnapshot");
+    snapshots.put("fresh", "snapshot");
+    StaleAppointmentSweeper.SweepResult second = sweeper.sweep(CUTOFF);
+
+    assertEquals(0, second.updated());
+    assertEquals(second, sweeper.lastRun());
+    assertEquals(1, sweeper.totalUpdated());
+    // Sin cambios no hay nada que invalidar
+    assertNotNull(snapshots.get("fresh"));
+  }
+
+  @Test
+  void shouldRejectNonTerminalTargetStatus() {
+    assertThrows(IllegalStateException.class, () -> sweeper(AppointmentStatus.IN_PROGRESS, 1000));
+  }
+
+  private StaleAppointmentSweeper sweeper(AppointmentStatus target, int chunkSize) {
+    return new StaleAppointmentSweeper(
+        appointmentRepository,
+        new AppointmentRollups(rollupRepository, snapshotEvictor),
+        transactionManager,
+        cacheManager,
+        dataVersion,
+        target,
+        chunkSize);
+  }
+
+  private Long insert(LocalDate date, AppointmentStatus status) {
+    // Por JDBC: el alta normal rechaza fechas pasadas
+    jdbcTemplate.update(
+        "INSERT INTO appointments (patient_id, dentist_id, date, time, duration_minutes, status) "
+            + "VALUES (?, ?, ?, ?, 30, ?)",
+        patientId,
+        dentistId,
+        Date.valueOf(date),
+        Time.valueOf(LocalTime.of(9, 0).plusMinutes(30L * countOn(date))),
+        status.name());
+    return jdbcTemplate.queryForObject("SELECT MAX(id) FROM appointments", Long.class);
+  }
+
+  private int countOn(LocalDate date) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM appointments WHERE date = ?", Integer.class, Date.valueOf(date));
+  }
+
+  private AppointmentStatus statusOf(Long id) {
+    return AppointmentStatus.valueOf(
+        jdbcTemplate.queryForObject(
+            "SELECT status FROM appointments WHERE id = ?", String.class, id));
+  }
+}
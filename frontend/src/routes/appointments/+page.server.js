@@ -9,16 +9,16 @@ export async function load({ locals }) {
 
   const token = locals.authToken;
   try {
-    const [res, patients, dentists] = await Promise.all([
-      apiFetch('/api/appointments/search', { headers: getAuthHeaders(token) }),
-      apiFetch('/api/patients', { headers: getAuthHeaders(token) }).catch(() => []),
-      apiFetch('/api/dentists', { headers: getAuthHeaders(token) }).catch(() => [])
-    ]);
+    // expand=names trae patientName/dentistName en cada cita: no hace falta descargar
+    // los listados completos de pacientes y odontólogos para mostrar los nombres.
+    const res = await apiFetch('/api/appointments/search?expand=names', {
+      headers: getAuthHeaders(token)
+    });
 
     const appointments = Array.isArray(res) ? res : (res?.content || []);
-    return { appointments, patients, dentists };
+    return { appointments };
   } catch (err) {
-    return { appointments: [], patients: [], dentists: [], error: 'Error al cargar citas' };
+    return { appointments: [], error: 'Error al cargar citas' };
   }
 }
 
@@ -22,15 +22,20 @@ describe('Appointments Route Server Loader & Actions', () => {
       });
     });
 
-    it('should load appointments list if authenticated', async () => {
-      const mockAppointments = [{ id: 1, date: '2026-07-07T10:00:00', description: 'Cleaning' }];
-      const mockPatients = [{ id: 10, firstName: 'John' }];
-      const mockDentists = [{ id: 20, firstName: 'Dr. Jane' }];
+    it('should load appointments with names in a single request if authenticated', async () => {
+      const mockAppointments = [
+        {
+          id: 1,
+          date: '2026-07-07',
+          description: 'Cleaning',
+          patient_id: 10,
+          dentist_id: 20,
+          patientName: 'John Doe',
+          dentistName: 'Jane Roe'
+        }
+      ];
 
-      vi.mocked(api.apiFetch)
-        .mockResolvedValueOnce(mockAppointments)
-        .mockResolvedValueOnce(mockPatients)
-        .mockResolvedValueOnce(mockDentists);
+      vi.mocked(api.apiFetch).mockResolvedValueOnce({ content: mockAppointments });
 
       const event = createMockEvent({
         locals: {
@@ -40,16 +45,27 @@ describe('Appointments Route Server Loader & Actions', () => {
       });
 
       const result = await load(event);
-      expect(result).toEqual({
-        appointments: mockAppointments,
-        patients: mockPatients,
-        dentists: mockDentists
-      });
-      expect(api.apiFetch).toHaveBeenNthCalledWith(1, '/api/appointments/search', {
+      expect(result).toEqual({ appointments: mockAppointments });
+      expect(api.apiFetch).toHaveBeenCalledTimes(1);
+      expect(api.apiFetch).toHaveBeenCalledWith('/api/appointments/search?expand=names', {
         headers: { Authorization: 'Bearer mock-token' }
       });
     });
 
+    it('should return an error message when the search request fails', async () => {
+      vi.mocked(api.apiFetch).mockRejectedValueOnce(new Error('boom'));
+
+      const event = createMockEvent({
+        locals: {
+          user: { id: 1, email: 'admin@clinic.com' },
+          authToken: 'mock-token'
+        }
+      });
+
+      const result = await load(event);
+      expect(result).toEqual({ appointments: [], error: 'Error al cargar citas' });
+    });
+
     it('should redirect to /login if authToken is missing even when user is present', async () => {
       const event = createMockEvent({
         locals: { user: { id: 1, email: 'admin@clinic.com' }, authToken: null }